@@ -0,0 +1,21 @@
+package com.jungmini.pay.common.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 계좌 잔액을 바꾸는 @Transactional 메서드에 붙이면 AccountLockAspect 가 트랜잭션 바깥에서 계좌를 잠근다.
+ * 잠금은 커밋이 끝난 직후에 해제된다.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AccountLock {
+
+    /**
+     * 잠글 계좌 번호를 구하는 SpEL. 계좌 번호 문자열이나 문자열 컬렉션을 돌려줘야 한다.
+     * 메서드 인자는 #인자이름, 스프링 빈은 @빈이름 으로 참조한다.
+     */
+    String[] value();
+}
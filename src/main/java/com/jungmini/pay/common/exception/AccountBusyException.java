@@ -0,0 +1,18 @@
+package com.jungmini.pay.common.exception;
+
+import lombok.Getter;
+
+/**
+ * 한 계좌에 대기 중인 요청이 너무 많아 바로 거절할 때 사용한다.
+ * 클라이언트가 언제 다시 시도하면 되는지 함께 알려준다.
+ */
+@Getter
+public class AccountBusyException extends PayException {
+
+    private final long retryAfterSeconds;
+
+    public AccountBusyException(long retryAfterSeconds) {
+        super(ErrorCode.ACCOUNT_BUSY);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
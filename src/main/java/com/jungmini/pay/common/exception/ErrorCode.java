@@ -19,8 +19,17 @@ public enum ErrorCode {
     ACCOUNT_SIZE_EXCEED("최대 계좌 개설 수를 초과 했습니다."),
     ACCOUNT_NOT_FOUND("존재 하지 않는 계좌 입니다."),
     ACCOUNT_LOCK_FAIL("계좌 잠금 획득 실패"),
+    ACCOUNT_BUSY("요청이 몰린 계좌입니다. 잠시 후 다시 시도해 주세요."),
+    IDEMPOTENCY_KEY_IN_USE("같은 Idempotency-Key 로 보낸 요청을 처리하고 있습니다."),
+    IDEMPOTENCY_KEY_MISMATCH("같은 Idempotency-Key 로 다른 요청을 보냈습니다."),
+    IDEMPOTENCY_KEY_UNAVAILABLE("Idempotency-Key 를 확인할 수 없습니다. 잠시 후 다시 시도해 주세요."),
+    STALE_LOCK_TOKEN("만료된 잠금으로 계좌를 변경할 수 없습니다."),
+    ILLEGAL_STRIPE_COUNT("보조 잔액 수는 기존보다 커야 합니다."),
     REQUESTER_IS_NOT_OWNER("계좌 소유주가 아닙니다."),
     ILLEGAL_TRANSACTION_STATE("유효하지 않은 거래 상태입니다."),
+    TRANSACTION_NOT_FOUND("존재 하지 않는 거래 입니다."),
+    ALREADY_REVERSED("이미 취소된 거래 입니다."),
+    REVERSAL_FAILED("거래를 취소하지 못했습니다."),
     LACK_OF_BALANCE("잔액이 부족 합니다"),
     NOT_FRIENDS("친구 관계만 송금이 가능합니다"),
     UN_AUTHORIZED("로그인이 필요 합니다.");
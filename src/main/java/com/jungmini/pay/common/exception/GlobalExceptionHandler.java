@@ -1,6 +1,7 @@
 package com.jungmini.pay.common.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -26,6 +27,24 @@ public class GlobalExceptionHandler {
                             .message(e.getErrorMessage())
                             .build());
 
+            case IDEMPOTENCY_KEY_IN_USE -> ResponseEntity.status(HttpStatus.CONFLICT)
+                            .body(ErrorResponse.builder()
+                            .errorCode(e.getErrorCode().toString())
+                            .message(e.getErrorMessage())
+                            .build());
+
+            case IDEMPOTENCY_KEY_MISMATCH -> ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                            .body(ErrorResponse.builder()
+                            .errorCode(e.getErrorCode().toString())
+                            .message(e.getErrorMessage())
+                            .build());
+
+            case IDEMPOTENCY_KEY_UNAVAILABLE -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .body(ErrorResponse.builder()
+                            .errorCode(e.getErrorCode().toString())
+                            .message(e.getErrorMessage())
+                            .build());
+
             default -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
                             .body(ErrorResponse.builder()
                             .errorCode(e.getErrorCode().toString())
@@ -34,6 +53,16 @@ public class GlobalExceptionHandler {
         };
     }
 
+    @ExceptionHandler(AccountBusyException.class)
+    public ResponseEntity<ErrorResponse> handleAccountBusyException(AccountBusyException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(ErrorResponse.builder()
+                        .errorCode(e.getErrorCode().toString())
+                        .message(e.getErrorMessage())
+                        .build());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<FieldValidationErrorResponse> handleMethodArgumentNotValidException(MethodArgumentNotValidException e) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
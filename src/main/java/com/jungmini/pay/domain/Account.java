@@ -24,15 +24,54 @@ public class Account extends BaseTimeEntity implements AccountNumber {
     @JoinColumn(name = "email")
     @EqualsAndHashCode.Exclude private Member owner;
 
+    /**
+     * 잔액 컬럼은 AccountRepository 의 credit/debit 으로만 바꾼다.
+     * 수신 계좌는 잠그지 않고 입금하므로, 엔티티 값으로 덮어쓰면 동시에 들어온 입금이 사라진다.
+     * 엔티티의 잔액은 검증과 응답에만 쓴다.
+     */
+    @Column(updatable = false)
     @EqualsAndHashCode.Exclude private long balance;
 
+    /**
+     * 낙관적 잠금 모드에서 동시에 일어난 출금을 감지한다.
+     * 잔액은 UPDATE 문으로만 바꿔 버전이 저절로 오르지 않으므로, 출금할 때 AccountRepository#incrementVersion 으로 올린다.
+     */
+    @Version
+    @EqualsAndHashCode.Exclude private Long version;
+
+    /**
+     * 마지막으로 계좌를 변경한 잠금의 펜싱 토큰
+     */
+    @EqualsAndHashCode.Exclude private long fencingToken;
+
+    /**
+     * 입금을 나눠 받는 보조 잔액(AccountStripe) 수. 0 이면 스트라이프를 사용하지 않는다.
+     * 스트라이프 계좌로의 입금은 이 행을 바꾸지 않고 보조 잔액 중 하나에 더해진다.
+     */
+    @EqualsAndHashCode.Exclude private int stripeCount;
+
+    /**
+     * 조회 시점에 읽어 온 보조 잔액의 합
+     */
+    @Transient
+    @EqualsAndHashCode.Exclude private long stripeBalance;
+
+    /**
+     * 아직 보조 잔액에 반영하지 않은 입금액
+     */
+    @Transient
+    @EqualsAndHashCode.Exclude private long pendingStripeCredit;
+
     public static final String DEFAULT_ACCOUNT_NUMBER = "100000000000";
     public static final int MAX_ACCOUNT_SIZE = 10;
 
-    public static Account from(Member owner, AccountNumber accountNumber) {
+    /**
+     * @param accountNumber AccountNumberAllocator 가 배정한 번호
+     */
+    public static Account from(Member owner, String accountNumber) {
         Account newAccount = Account.builder()
                 .balance(0)
-                .accountNumber(createNextAccount(accountNumber))
+                .accountNumber(accountNumber)
                 .owner(owner)
                 .accountStatus(AccountStatus.IN_USE)
                 .build();
@@ -55,10 +94,82 @@ public class Account extends BaseTimeEntity implements AccountNumber {
         this.balance += amount;
     }
 
+    /**
+     * 더 최신 잠금이 이미 계좌를 변경했다면 임대 시간이 지난 잠금으로 판단하고 거부한다.
+     * 같은 잠금 안에서 여러 번 변경할 수 있도록 같은 토큰은 허용한다.
+     * 토큰을 읽은 뒤 다른 요청이 먼저 커밋한 경우는 @Version 검사가 DB 에서 막는다.
+     * @param token 잠금을 얻을 때 발급받은 펜싱 토큰
+     */
+    public void fence(long token) {
+        if (token < this.fencingToken) {
+            throw new PayException(ErrorCode.STALE_LOCK_TOKEN);
+        }
+
+        this.fencingToken = token;
+    }
+
+    /**
+     * 스트라이프 계좌는 이 행을 바꾸지 않고 보조 잔액에 더할 금액으로 남겨둔다.
+     */
     public void plusAmount(int amount) {
+        if (isStriped()) {
+            this.pendingStripeCredit += amount;
+            return;
+        }
+
+        this.balance += amount;
+    }
+
+    /**
+     * @return 보조 잔액에 더해야 할 입금액. 호출하면 비워진다.
+     */
+    public long takePendingStripeCredit() {
+        long credit = this.pendingStripeCredit;
+        this.pendingStripeCredit = 0;
+        return credit;
+    }
+
+    /**
+     * 보조 잔액에서 빼 온 금액을 출금할 수 있도록 주 잔액으로 옮긴다.
+     */
+    public void sweepFromStripe(long amount) {
         this.balance += amount;
     }
 
+    /**
+     * @param balance DB 에서 바로 더하거나 뺀 뒤 다시 읽은 잔액
+     */
+    public void loadBalance(long balance) {
+        this.balance = balance;
+    }
+
+    public void loadStripeBalance(long stripeBalance) {
+        this.stripeBalance = stripeBalance;
+    }
+
+    /**
+     * @return 주 잔액과 보조 잔액의 합
+     */
+    public long getTotalBalance() {
+        return this.balance + this.stripeBalance;
+    }
+
+    public boolean isStriped() {
+        return this.stripeCount > 0;
+    }
+
+    /**
+     * 보조 잔액 수는 늘릴 수만 있다. 줄이면 남은 보조 잔액을 옮겨야 하기 때문이다.
+     * @param stripeCount 새 보조 잔액 수
+     */
+    public void enableStriping(int stripeCount) {
+        if (stripeCount <= this.stripeCount) {
+            throw new PayException(ErrorCode.ILLEGAL_STRIPE_COUNT);
+        }
+
+        this.stripeCount = stripeCount;
+    }
+
     public void minusAmount(int amount) {
         if (this.balance < amount) {
             throw new PayException(ErrorCode.LACK_OF_BALANCE);
@@ -86,11 +197,4 @@ public class Account extends BaseTimeEntity implements AccountNumber {
     private void validateAccountNumber() {
         validateAccountNumber(this.accountNumber);
     }
-
-    private static String createNextAccount(AccountNumber accountNumber) {
-        if (accountNumber == null)
-            return DEFAULT_ACCOUNT_NUMBER;
-
-        return Long.parseLong(accountNumber.getAccountNumber()) + 1 + "";
-    }
 }
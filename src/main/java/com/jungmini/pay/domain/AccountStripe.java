@@ -0,0 +1,36 @@
+package com.jungmini.pay.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * 입금이 몰리는 계좌의 보조 잔액
+ * 입금은 보조 잔액 중 하나에 나눠 더하기 때문에 같은 행을 두고 경쟁하지 않는다.
+ */
+@Builder
+@Getter
+@AllArgsConstructor(access = AccessLevel.PROTECTED)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"accountNumber", "stripeIndex"}))
+@Entity
+public class AccountStripe {
+
+    @Id
+    @Column(name = "account_stripe_id")
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String accountNumber;
+
+    private int stripeIndex;
+
+    private long balance;
+
+    public static AccountStripe of(String accountNumber, int stripeIndex) {
+        return AccountStripe.builder()
+                .accountNumber(accountNumber)
+                .stripeIndex(stripeIndex)
+                .balance(0)
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.jungmini.pay.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * 원장 항목을 lastEntryId 까지 더한 계좌 잔액
+ * 잔액은 스냅샷에 lastEntryId 뒤의 원장 항목을 더해 구하므로, 읽을 때 더하는 항목은 스냅샷을 굴리는 주기 동안 쌓인 만큼이다.
+ */
+@Builder
+@Getter
+@AllArgsConstructor(access = AccessLevel.PROTECTED)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Entity
+public class BalanceSnapshot {
+
+    @Id
+    private String accountNumber;
+
+    private long balance;
+
+    private long lastEntryId;
+
+    /**
+     * 스냅샷을 만들 때 옮겨 온 계좌 행의 잔액. ledger 에서는 계좌 행의 잔액이 바뀌지 않으므로,
+     * 다음에 ledger 로 시작할 때 계좌 행의 잔액과 다르면 그 사이 row 에서 잔액이 바뀐 것이다.
+     */
+    private long seededBalance;
+
+    /**
+     * 여러 서버의 LedgerCompactor 가 같은 원장 항목을 두 번 더하지 않게 한다.
+     */
+    @Version
+    private Long version;
+
+    public static BalanceSnapshot empty(String accountNumber) {
+        return BalanceSnapshot.builder()
+                .accountNumber(accountNumber)
+                .balance(0)
+                .lastEntryId(0)
+                .seededBalance(0)
+                .build();
+    }
+
+    /**
+     * @param amount 지난 스냅샷 뒤부터 lastEntryId 까지의 원장 항목 합계
+     * @param lastEntryId 더한 마지막 원장 항목
+     */
+    public void roll(long amount, long lastEntryId) {
+        this.balance += amount;
+        this.lastEntryId = lastEntryId;
+    }
+}
@@ -2,6 +2,7 @@ package com.jungmini.pay.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
 
 @Builder
 @Getter
@@ -12,7 +13,8 @@ public class FriendRequest extends BaseTimeEntity {
 
     @Id
     @Column(name = "friend_request_id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = SnowflakeIdGenerator.NAME)
+    @GenericGenerator(name = SnowflakeIdGenerator.NAME, strategy = SnowflakeIdGenerator.STRATEGY)
     private Long id;
 
     @ManyToOne
@@ -0,0 +1,38 @@
+package com.jungmini.pay.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+
+/**
+ * 계좌 잔액의 변화 한 건. 입금은 양수, 출금은 음수로 남긴다.
+ * 송금 한 건은 송금 계좌의 출금 항목과 수신 계좌의 입금 항목을 함께 남긴다.
+ * 행을 바꾸지 않고 추가만 하므로 같은 계좌에 동시에 입금해도 행 잠금을 두고 경쟁하지 않는다.
+ */
+@Builder
+@Getter
+@AllArgsConstructor(access = AccessLevel.PROTECTED)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = @Index(columnList = "accountNumber, ledger_entry_id"))
+@Entity
+public class LedgerEntry {
+
+    @Id
+    @Column(name = "ledger_entry_id")
+    @GeneratedValue(generator = SnowflakeIdGenerator.NAME)
+    @GenericGenerator(name = SnowflakeIdGenerator.NAME, strategy = SnowflakeIdGenerator.STRATEGY)
+    private Long id;
+
+    @Column(updatable = false)
+    private String accountNumber;
+
+    @Column(updatable = false)
+    private long amount;
+
+    public static LedgerEntry of(String accountNumber, long amount) {
+        return LedgerEntry.builder()
+                .accountNumber(accountNumber)
+                .amount(amount)
+                .build();
+    }
+}
@@ -7,6 +7,7 @@ import com.jungmini.pay.domain.type.TransactionType;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
 
 @Builder
 @Getter
@@ -17,7 +18,8 @@ import lombok.*;
 public class Transaction extends BaseTimeEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = SnowflakeIdGenerator.NAME)
+    @GenericGenerator(name = SnowflakeIdGenerator.NAME, strategy = SnowflakeIdGenerator.STRATEGY)
     private long id;
 
     @Enumerated(value = EnumType.STRING)
@@ -39,6 +41,30 @@ public class Transaction extends BaseTimeEntity {
     @JoinColumn(name = "remitter_account_number")
     @EqualsAndHashCode.Exclude private Account remitterAccount;
 
+    /**
+     * 취소 거래가 되돌린 송금. 한 송금은 한 번만 취소할 수 있도록 유일하게 둔다.
+     */
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "original_transaction_id", unique = true)
+    @EqualsAndHashCode.Exclude private Transaction originalTransaction;
+
+    /**
+     * 성공한 송금을 되돌리는 취소 거래를 만든다.
+     * successTransaction 에 원래 송금의 수신 계좌를 송금 계좌로, 송금 계좌를 수신 계좌로 넘겨 같은 금액을 돌려준다.
+     * @param original 취소할 송금
+     */
+    public static Transaction reversalOf(Transaction original) {
+        if (original.transactionType != TransactionType.REMIT
+                || original.transactionResultType != TransactionResultType.SUCCESS) {
+            throw new PayException(ErrorCode.ILLEGAL_TRANSACTION_STATE);
+        }
+
+        return Transaction.builder()
+                .amount(original.amount)
+                .originalTransaction(original)
+                .build();
+    }
+
     public void failTransaction(Account recipientAccount, Account remitterAccount, TransactionType transactionType) {
         enrollRecipientAccount(recipientAccount);
         enrollRemitterAccount(remitterAccount);
@@ -57,6 +83,29 @@ public class Transaction extends BaseTimeEntity {
         exChangeAmount();
     }
 
+    /**
+     * 수신 계좌는 잠그지 않으므로 미리 읽어 둔 잔액은 그 사이 들어온 입금을 놓칠 수 있다.
+     * 입금을 반영한 뒤 읽은 잔액에서 송금액을 빼 이 송금 직전의 잔액으로 기록한다.
+     * @param recipientBalance 입금을 반영한 뒤의 수신 계좌 잔액
+     */
+    public void captureRecipientBalance(long recipientBalance) {
+        this.recipientBalanceSnapshot = recipientBalance - this.amount;
+    }
+
+    /**
+     * 일괄 송금은 잔액을 읽은 뒤 한꺼번에 반영하므로, 그 사이 다른 요청이 더한 입금만큼 잔액 기록을 옮긴다.
+     * @param accountNumber 잔액이 달라진 계좌
+     * @param drift DB 에 반영한 뒤 다시 읽은 잔액과 메모리에서 계산한 잔액의 차이
+     */
+    public void shiftBalanceSnapshot(String accountNumber, long drift) {
+        if (this.remitterAccount.getAccountNumber().equals(accountNumber)) {
+            this.remitterBalanceSnapshot += drift;
+        }
+        if (this.recipientAccount.getAccountNumber().equals(accountNumber)) {
+            this.recipientBalanceSnapshot += drift;
+        }
+    }
+
     private void enrollTransactionResultType(TransactionResultType transactionResultType) {
         this.transactionResultType = transactionResultType;
     }
@@ -82,7 +131,7 @@ public class Transaction extends BaseTimeEntity {
             throw new PayException(ErrorCode.ILLEGAL_TRANSACTION_STATE);
         }
 
-        if (this.transactionType == TransactionType.CANCEL) {
+        if (this.transactionType == TransactionType.CANCEL && this.originalTransaction == null) {
             throw new PayException(ErrorCode.ILLEGAL_TRANSACTION_STATE);
         }
 
@@ -0,0 +1,20 @@
+package com.jungmini.pay.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * 여러 계좌의 잔액을 JDBC 배치로 한 번에 바꾼다. 영속성 컨텍스트를 거치지 않으므로 호출하기 전에 flush 해야 한다.
+ */
+public interface AccountBalanceBatchRepository {
+
+    /**
+     * 계좌 번호 순서로 잔액에 더한다. 음수는 잔액이 충분할 때만 뺀다.
+     * @param balanceDeltas 계좌 번호별 잔액 변화량
+     * @return 계좌 번호 순서대로 바뀐 행 수. 0 이면 잔액이 부족했다.
+     */
+    int[] applyBalanceDeltas(SortedMap<String, Long> balanceDeltas);
+
+    Map<String, Long> findBalances(Collection<String> accountNumbers);
+}
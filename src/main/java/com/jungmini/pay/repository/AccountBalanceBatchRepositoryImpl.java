@@ -0,0 +1,40 @@
+package com.jungmini.pay.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+@RequiredArgsConstructor
+public class AccountBalanceBatchRepositoryImpl implements AccountBalanceBatchRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public int[] applyBalanceDeltas(SortedMap<String, Long> balanceDeltas) {
+        SqlParameterSource[] parameters = balanceDeltas.entrySet().stream()
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("accountNumber", delta.getKey())
+                        .addValue("delta", delta.getValue()))
+                .toArray(SqlParameterSource[]::new);
+
+        return jdbcTemplate.batchUpdate("update account set balance = balance + :delta " +
+                "where account_number = :accountNumber and balance + :delta >= 0", parameters);
+    }
+
+    @Override
+    public Map<String, Long> findBalances(Collection<String> accountNumbers) {
+        Map<String, Long> balances = new HashMap<>();
+        jdbcTemplate.query("select account_number, balance from account where account_number in (:accountNumbers)",
+                Map.of("accountNumbers", accountNumbers),
+                rs -> {
+                    balances.put(rs.getString("account_number"), rs.getLong("balance"));
+                });
+        return balances;
+    }
+}
@@ -1,17 +1,72 @@
 package com.jungmini.pay.repository;
 
 import com.jungmini.pay.domain.Account;
-import com.jungmini.pay.domain.AccountNumber;
 import com.jungmini.pay.domain.Member;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AccountRepository extends JpaRepository<Account, String> {
+public interface AccountRepository extends JpaRepository<Account, String>, AccountBalanceBatchRepository {
 
-    Optional<AccountNumber> findFirstByOrderByCreatedAtDesc();
+    /**
+     * 계좌 번호는 모두 12자리이므로 문자열로 비교해도 숫자 순서와 같다.
+     */
+    @Query("select max(a.accountNumber) from Account a")
+    Optional<String> findMaxAccountNumber();
 
     int countByOwner(Member owner);
+
+    /**
+     * 여러 계좌를 기본키 순서로 한 번에 조회하면서 행 잠금(SELECT ... FOR UPDATE)을 건다.
+     * 잠금을 기다리는 시간은 1초로 제한한다.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "1000"))
+    @Query("select a from Account a where a.accountNumber in :accountNumbers order by a.accountNumber")
+    List<Account> findAllForUpdate(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    /**
+     * 송금의 두 계좌와 소유주를 쿼리 한 번으로 조회한다.
+     */
+    @Query("select a from Account a join fetch a.owner where a.accountNumber in :accountNumbers")
+    List<Account> findAllWithOwner(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    @Query("select a.balance from Account a where a.accountNumber = :accountNumber")
+    long findBalance(@Param("accountNumber") String accountNumber);
+
+    /**
+     * 잔액을 읽지 않고 DB 에서 바로 더하기 때문에 잠금 없이 여러 요청이 동시에 입금할 수 있다.
+     * 아직 INSERT 되지 않은 계좌에도 반영되도록 먼저 flush 한다.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount where a.accountNumber = :accountNumber")
+    int credit(@Param("accountNumber") String accountNumber, @Param("amount") long amount);
+
+    /**
+     * 잔액이 충분할 때만 뺀다. 동시에 들어오는 입금은 잔액을 늘리기만 하므로 조건이 깨지지 않는다.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount " +
+            "where a.accountNumber = :accountNumber and a.balance >= :amount")
+    int debit(@Param("accountNumber") String accountNumber, @Param("amount") long amount);
+
+    /**
+     * 읽은 뒤 버전이 바뀌지 않았을 때만 버전을 올린다. 0 이면 그 사이 다른 요청이 계좌에서 출금했다.
+     * 영속성 컨텍스트의 엔티티 버전은 그대로이므로, 이 뒤에 엔티티를 고쳐 flush 하면 버전 충돌이 난다.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update Account a set a.version = a.version + 1 " +
+            "where a.accountNumber = :accountNumber and a.version = :version")
+    int incrementVersion(@Param("accountNumber") String accountNumber, @Param("version") Long version);
 }
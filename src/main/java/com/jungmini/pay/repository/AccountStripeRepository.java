@@ -0,0 +1,39 @@
+package com.jungmini.pay.repository;
+
+import com.jungmini.pay.domain.AccountStripe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AccountStripeRepository extends JpaRepository<AccountStripe, Long> {
+
+    List<AccountStripe> findAllByAccountNumberOrderByStripeIndex(String accountNumber);
+
+    @Query("select coalesce(sum(s.balance), 0) from AccountStripe s where s.accountNumber = :accountNumber")
+    long sumBalance(@Param("accountNumber") String accountNumber);
+
+    /**
+     * 잔액을 읽지 않고 DB 에서 바로 더하기 때문에 잠금 없이 여러 요청이 동시에 입금할 수 있다.
+     */
+    @Modifying
+    @Query("update AccountStripe s set s.balance = s.balance + :amount " +
+            "where s.accountNumber = :accountNumber and s.stripeIndex = :stripeIndex")
+    int credit(@Param("accountNumber") String accountNumber,
+               @Param("stripeIndex") int stripeIndex,
+               @Param("amount") long amount);
+
+    /**
+     * 잔액이 충분할 때만 뺀다. 동시에 들어오는 입금은 잔액을 늘리기만 하므로 조건이 깨지지 않는다.
+     */
+    @Modifying
+    @Query("update AccountStripe s set s.balance = s.balance - :amount " +
+            "where s.accountNumber = :accountNumber and s.stripeIndex = :stripeIndex and s.balance >= :amount")
+    int debit(@Param("accountNumber") String accountNumber,
+              @Param("stripeIndex") int stripeIndex,
+              @Param("amount") long amount);
+}
@@ -0,0 +1,44 @@
+package com.jungmini.pay.repository;
+
+import com.jungmini.pay.domain.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, String> {
+
+    /**
+     * account.balance-store=row 에서 쌓인 계좌 행의 잔액을 스냅샷으로 옮긴다.
+     * ledger 에서는 계좌 행의 잔액을 바꾸지 않으므로, 이미 옮긴 계좌나 ledger 에서 만든 계좌는 다시 옮기지 않는다.
+     * 계좌 행의 잔액이 이미 그때까지의 잔액이므로 lastEntryId 까지의 원장 항목은 더하지 않는다.
+     * @param lastEntryId 지금까지 쌓인 마지막 원장 항목 번호
+     * @return 스냅샷을 만든 계좌 수
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into balance_snapshot (account_number, balance, seeded_balance, last_entry_id, version) " +
+            "select a.account_number, a.balance, a.balance, :lastEntryId, 0 from account a " +
+            "where a.balance <> 0 and not exists " +
+            "(select 1 from balance_snapshot s where s.account_number = a.account_number)", nativeQuery = true)
+    int seedFromAccounts(@Param("lastEntryId") long lastEntryId);
+
+    /**
+     * 스냅샷을 만든 뒤 row 로 바꿔 계좌 행의 잔액이 달라진 계좌의 스냅샷을 계좌 행의 잔액으로 다시 만든다.
+     * row 에서는 원장 항목을 쓰지 않으므로 그 사이의 잔액 변화는 계좌 행에만 있고, 이전 ledger 의 원장 항목은 더하지 않는다.
+     * @param lastEntryId 지금까지 쌓인 마지막 원장 항목 번호
+     * @return 스냅샷을 다시 만든 계좌 수
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "update balance_snapshot s set " +
+            "balance = (select a.balance from account a where a.account_number = s.account_number), " +
+            "seeded_balance = (select a.balance from account a where a.account_number = s.account_number), " +
+            "last_entry_id = :lastEntryId, version = s.version + 1 " +
+            "where exists (select 1 from account a " +
+            "where a.account_number = s.account_number and a.balance <> s.seeded_balance)", nativeQuery = true)
+    int reseedChangedAccounts(@Param("lastEntryId") long lastEntryId);
+}
@@ -3,11 +3,30 @@ package com.jungmini.pay.repository;
 import com.jungmini.pay.domain.Friend;
 import com.jungmini.pay.domain.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface FriendRepository extends JpaRepository<Friend, Long> {
 
     boolean existsFriendByRecipientAndRequester(Member recipient, Member requester);
 
+    /**
+     * 친구 요청을 누가 보냈는지와 상관없이 두 회원이 친구인지 쿼리 한 번으로 확인한다.
+     */
+    @Query("select case when count(f) > 0 then true else false end from Friend f " +
+            "where (f.requester = :member and f.recipient = :other) " +
+            "or (f.requester = :other and f.recipient = :member)")
+    boolean existsBetween(@Param("member") Member member, @Param("other") Member other);
+
+    /**
+     * members 사이의 친구 관계를 친구 요청을 누가 보냈는지와 상관없이 한 번에 조회한다.
+     */
+    @Query("select f from Friend f where f.requester in :members and f.recipient in :members")
+    List<Friend> findAllAmong(@Param("members") Collection<Member> members);
+
 }
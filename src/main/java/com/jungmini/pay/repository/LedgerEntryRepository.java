@@ -0,0 +1,41 @@
+package com.jungmini.pay.repository;
+
+import com.jungmini.pay.domain.LedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    /**
+     * 스냅샷과 그 뒤의 원장 항목을 한 문장에서 읽는다.
+     * 스냅샷을 굴리는 트랜잭션과 겹쳐도 같은 항목을 두 번 더하거나 빠뜨리지 않는다.
+     */
+    @Query(value = "select cast(" +
+            "coalesce((select s.balance from balance_snapshot s where s.account_number = :accountNumber), 0) + " +
+            "coalesce((select sum(e.amount) from ledger_entry e where e.account_number = :accountNumber " +
+            "and e.ledger_entry_id > coalesce((select s.last_entry_id from balance_snapshot s " +
+            "where s.account_number = :accountNumber), 0)), 0) as bigint)", nativeQuery = true)
+    long findBalance(@Param("accountNumber") String accountNumber);
+
+    @Query("select coalesce(max(e.id), 0) from LedgerEntry e")
+    long findLastEntryId();
+
+    /**
+     * 스냅샷 뒤에 boundary 까지 minEntries 개 이상 쌓인 원장 항목을 계좌별로 모은다.
+     * 굴리는 사이 스냅샷이 바뀌었는지 확인할 수 있도록 기준이 된 스냅샷의 마지막 항목 번호도 함께 돌려준다.
+     */
+    @Query("select new com.jungmini.pay.repository.LedgerTail(e.accountNumber, coalesce(s.lastEntryId, 0L), " +
+            "sum(e.amount), max(e.id)) " +
+            "from LedgerEntry e left join BalanceSnapshot s on s.accountNumber = e.accountNumber " +
+            "where e.id > coalesce(s.lastEntryId, 0) and e.id <= :boundary " +
+            "group by e.accountNumber, s.lastEntryId having count(e) >= :minEntries")
+    List<LedgerTail> findTails(@Param("boundary") long boundary,
+                               @Param("minEntries") long minEntries,
+                               Pageable pageable);
+}
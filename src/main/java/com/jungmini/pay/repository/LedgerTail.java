@@ -0,0 +1,10 @@
+package com.jungmini.pay.repository;
+
+/**
+ * 스냅샷 뒤에 쌓인 한 계좌의 원장 항목
+ * @param baseEntryId 항목을 모을 때 스냅샷에 더해져 있던 마지막 항목
+ * @param amount 항목 합계
+ * @param lastEntryId 마지막 항목
+ */
+public record LedgerTail(String accountNumber, Long baseEntryId, Long amount, Long lastEntryId) {
+}
@@ -5,8 +5,11 @@ import com.jungmini.pay.domain.Transaction;
 import com.jungmini.pay.domain.type.TransactionResultType;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,4 +17,16 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     List<Transaction> findAllByRecipientAccountOrRemitterAccountAndTransactionResultTypeOrderByCreatedAtDesc
             (Account recipientAccountNumber, Account remitterAccountNumber, TransactionResultType transactionResultType, Pageable pageable);
+
+    /**
+     * 거래와 두 계좌를 쿼리 한 번으로 조회한다.
+     */
+    @Query("select t from Transaction t join fetch t.remitterAccount join fetch t.recipientAccount where t.id in :ids")
+    List<Transaction> findAllWithAccounts(@Param("ids") Collection<Long> ids);
+
+    /**
+     * @return 주어진 거래 중 이미 취소 거래가 있는 거래 번호
+     */
+    @Query("select t.originalTransaction.id from Transaction t where t.originalTransaction.id in :ids")
+    List<Long> findReversedIds(@Param("ids") Collection<Long> ids);
 }
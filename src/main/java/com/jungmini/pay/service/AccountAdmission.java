@@ -0,0 +1,85 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.AccountBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 계좌별로 처리 중이거나 잠금을 기다리는 요청 수를 제한한다.
+ * 한도를 넘은 요청은 잠금을 기다리지 않고 바로 거절해서 스레드와 Redis 를 다른 계좌에 양보한다.
+ */
+@Component
+public class AccountAdmission {
+
+    private final int maxQueueDepth;
+    private final long retryAfterSeconds;
+    private final Counter rejectedCounter;
+    private final Map<String, Integer> queueDepths = new ConcurrentHashMap<>();
+
+    public AccountAdmission(MeterRegistry meterRegistry,
+                            @Value("${account.admission.max-queue-depth:32}") int maxQueueDepth,
+                            @Value("${account.admission.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.maxQueueDepth = maxQueueDepth;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.rejectedCounter = meterRegistry.counter("account.admission.rejected");
+    }
+
+    /**
+     * 모든 계좌에 자리가 있을 때만 작업을 시작하고, 작업이 끝나면 자리를 돌려준다.
+     * @param accountNumbers 작업이 변경하는 계좌 번호
+     * @param work 비동기 작업
+     */
+    public <T> CompletableFuture<T> submit(Collection<String> accountNumbers, Supplier<CompletableFuture<T>> work) {
+        List<String> admitted = new ArrayList<>();
+        for (String accountNumber : accountNumbers.stream().distinct().toList()) {
+            if (!enter(accountNumber)) {
+                admitted.forEach(this::leave);
+                rejectedCounter.increment();
+                throw new AccountBusyException(retryAfterSeconds);
+            }
+            admitted.add(accountNumber);
+        }
+
+        CompletableFuture<T> future;
+        try {
+            future = work.get();
+        } catch (RuntimeException e) {
+            admitted.forEach(this::leave);
+            throw e;
+        }
+        return future.whenComplete((result, e) -> admitted.forEach(this::leave));
+    }
+
+    /**
+     * @return 계좌에 대기 중인 요청 수
+     */
+    public int queueDepth(String accountNumber) {
+        return queueDepths.getOrDefault(accountNumber, 0);
+    }
+
+    private boolean enter(String accountNumber) {
+        int depth = queueDepths.merge(accountNumber, 1, Integer::sum);
+        if (depth > maxQueueDepth) {
+            leave(accountNumber);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 대기 중인 요청이 없는 계좌는 지워서 맵이 계속 커지지 않게 한다.
+     */
+    private void leave(String accountNumber) {
+        queueDepths.computeIfPresent(accountNumber, (key, depth) -> depth > 1 ? depth - 1 : null);
+    }
+}
@@ -0,0 +1,36 @@
+package com.jungmini.pay.service;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 계좌 잔액을 바꾸는 작업을 동시성 제어 방식에 맞게 실행한다.
+ * account.concurrency-mode 설정으로 구현을 선택한다.
+ */
+public interface AccountExecutor {
+
+    <T> T execute(String accountNumber, Supplier<T> command);
+
+    <T> T executeAll(Collection<String> accountNumbers, Supplier<T> command);
+
+    /**
+     * 잠금을 기다리는 동안 요청 스레드를 붙잡지 않는 구현은 이 메서드를 재정의한다.
+     * 기본 구현은 호출한 스레드에서 바로 실행하고 완료된 결과를 돌려준다.
+     */
+    default <T> CompletableFuture<T> executeAsync(String accountNumber, Supplier<T> command) {
+        try {
+            return CompletableFuture.completedFuture(execute(accountNumber, command));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    default <T> CompletableFuture<T> executeAllAsync(Collection<String> accountNumbers, Supplier<T> command) {
+        try {
+            return CompletableFuture.completedFuture(executeAll(accountNumbers, command));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.annotation.AccountLock;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.context.expression.BeanFactoryResolver;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * @AccountLock 메서드를 AccountExecutor 로 잠근 상태에서 실행한다.
+ *
+ * 트랜잭션 어드바이저(LOWEST_PRECEDENCE)보다 먼저 실행되어야 잠금이 트랜잭션을 감싸고,
+ * 잠금 해제가 커밋보다 먼저 일어나는 틈이 생기지 않는다.
+ */
+@Aspect
+@Order(0)
+@Component
+@RequiredArgsConstructor
+public class AccountLockAspect {
+
+    /**
+     * 잠근 상태에서 실행 중인 작업이 잠근 계좌 번호
+     * 작업을 실행하는 스레드에서 작업 동안만 설정하고 끝나면 되돌린다.
+     */
+    private static final ThreadLocal<List<String>> HELD = new ThreadLocal<>();
+
+    private final AccountExecutor accountExecutor;
+    private final AccountAdmission accountAdmission;
+    private final BeanFactory beanFactory;
+
+    private final ExpressionParser expressionParser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    /**
+     * 이미 잠근 작업 안에서 호출되면 다시 잠그지 않는다. 잠그지 않은 계좌가 필요하면 잠금 없이 실행하지 않고 실패한다.
+     */
+    @Around("@annotation(accountLock)")
+    public Object lock(ProceedingJoinPoint joinPoint, AccountLock accountLock) throws Throwable {
+        List<String> accountNumbers = accountNumbers(joinPoint, accountLock);
+        List<String> held = HELD.get();
+        if (held != null) {
+            if (!held.containsAll(accountNumbers)) {
+                throw new IllegalStateException("잠그지 않은 계좌를 변경하려고 합니다: " + accountNumbers);
+            }
+            return joinPoint.proceed();
+        }
+
+        return accountExecutor.executeAll(accountNumbers, holding(accountNumbers, () -> proceed(joinPoint)));
+    }
+
+    /**
+     * 잠금을 기다리는 동안 호출한 스레드를 붙잡지 않고, accountNumbers 를 모두 잠근 뒤 command 를 실행한다.
+     * command 안에서 호출한 @AccountLock 메서드는 accountNumbers 안의 계좌만 잠그는 경우에만 다시 잠그지 않고 실행된다.
+     * 계좌에 대기 중인 요청이 너무 많으면 잠금을 시도하지 않고 바로 거절한다.
+     * @param accountNumbers command 가 호출하는 @AccountLock 메서드가 잠그는 계좌 번호
+     */
+    public <T> CompletableFuture<T> submit(Collection<String> accountNumbers, Supplier<T> command) {
+        List<String> sorted = sorted(accountNumbers.stream());
+        return accountAdmission.submit(sorted, () -> executeAsync(sorted, command));
+    }
+
+    /**
+     * submit 과 같지만 대기 요청 수를 확인하지 않는다.
+     * 요청마다 이미 AccountAdmission 을 거친 뒤 여러 요청을 모아 한 번에 실행하는 쪽(RemitGroupCommitter)에서 쓴다.
+     */
+    public <T> CompletableFuture<T> submitAdmitted(Collection<String> accountNumbers, Supplier<T> command) {
+        return executeAsync(sorted(accountNumbers.stream()), command);
+    }
+
+    private <T> CompletableFuture<T> executeAsync(List<String> accountNumbers, Supplier<T> command) {
+        return accountExecutor.executeAllAsync(accountNumbers, holding(accountNumbers, command));
+    }
+
+    /**
+     * 잠금을 얻은 스레드에서 command 를 실행하는 동안 잠근 계좌 번호를 남긴다.
+     * 잠금 없이 실행하는 구현(sequencer, conditional-update)에서도 중첩된 @AccountLock 메서드가 다시 잠그지 않는다.
+     */
+    private static <T> Supplier<T> holding(List<String> accountNumbers, Supplier<T> command) {
+        return () -> {
+            List<String> previous = HELD.get();
+            HELD.set(accountNumbers);
+            try {
+                return command.get();
+            } finally {
+                if (previous == null) {
+                    HELD.remove();
+                } else {
+                    HELD.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * 잠금 순서는 AccountExecutor 구현이 계좌 번호로 정렬해서 정한다.
+     */
+    private List<String> accountNumbers(ProceedingJoinPoint joinPoint, AccountLock accountLock) {
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(null,
+                ((MethodSignature) joinPoint.getSignature()).getMethod(), joinPoint.getArgs(), parameterNameDiscoverer);
+        context.setBeanResolver(new BeanFactoryResolver(beanFactory));
+
+        return sorted(Arrays.stream(accountLock.value())
+                .map(spel -> expressions.computeIfAbsent(spel, expressionParser::parseExpression).getValue(context))
+                .flatMap(value -> value instanceof Collection<?> values ? values.stream() : Stream.of(value)));
+    }
+
+    private static List<String> sorted(Stream<?> accountNumbers) {
+        return accountNumbers
+                .map(String::valueOf)
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * 다른 스레드에서 실행해도 조인 포인트는 남은 어드바이스(트랜잭션)부터 이어서 실행한다.
+     */
+    private static Object proceed(ProceedingJoinPoint joinPoint) {
+        try {
+            return joinPoint.proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+}
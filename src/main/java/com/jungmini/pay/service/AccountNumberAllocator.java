@@ -0,0 +1,88 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.repository.AccountRepository;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 계좌 번호를 block-size 개씩 Redis INCRBY 로 예약해 두고, 예약한 블록 안에서는 AtomicLong 으로 나눠 준다.
+ * 가장 최근 계좌를 조회해 1 을 더하지 않으므로 동시에 계좌를 만들어도 번호가 겹치지 않고, 계좌 생성마다 쿼리가 줄어든다.
+ * 서버마다 다른 블록을 쓰므로 번호는 서버 사이에서 연속되지 않고, 서버가 내려가면 쓰지 않은 번호는 버려진다.
+ * Redis 에 예약 기록이 없으면(처음 시작했거나 Redis 를 비웠으면) 계좌 테이블의 가장 큰 번호 뒤로 서버 수 × block-size 만큼 건너뛰고 예약한다.
+ * 다른 서버가 Redis 를 잃기 전에 받아 둔 블록은 아직 계좌 테이블에 없으므로, 건너뛰지 않으면 그 블록과 번호가 겹친다.
+ * 서버마다 남은 블록은 하나뿐이라 서버 수 × block-size 를 건너뛰면 겹치지 않고, 그래도 겹친 번호는 AccountService 가 다시 받는다.
+ */
+@Component
+public class AccountNumberAllocator {
+
+    static final String KEY = "account-number:reserved";
+    private static final long BASE = Long.parseLong(Account.DEFAULT_ACCOUNT_NUMBER);
+
+    private final RedissonClient redissonClient;
+    private final AccountRepository accountRepository;
+    private final long blockSize;
+    private final long nodeCount;
+    private volatile Block block = new Block(new AtomicLong(), -1);
+
+    public AccountNumberAllocator(RedissonClient redissonClient,
+                                  AccountRepository accountRepository,
+                                  @Value("${account.number.block-size:100}") long blockSize,
+                                  @Value("${pay.cluster.node-count:1}") long nodeCount) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("account.number.block-size 는 1 이상이어야 합니다: " + blockSize);
+        }
+        if (nodeCount < 1) {
+            throw new IllegalArgumentException("pay.cluster.node-count 는 1 이상이어야 합니다: " + nodeCount);
+        }
+        this.redissonClient = redissonClient;
+        this.accountRepository = accountRepository;
+        this.blockSize = blockSize;
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * 블록에 번호가 남아 있으면 잠금 없이 나눠 주고, 다 쓴 경우에만 한 스레드가 다음 블록을 예약한다.
+     * @return 새 계좌 번호
+     */
+    public String allocate() {
+        while (true) {
+            Block current = block;
+            long offset = current.next().getAndIncrement();
+            if (offset <= current.last()) {
+                return String.valueOf(BASE + offset);
+            }
+
+            synchronized (this) {
+                if (block == current) {
+                    block = reserve();
+                }
+            }
+        }
+    }
+
+    private Block reserve() {
+        RAtomicLong reserved = redissonClient.getAtomicLong(KEY);
+        if (!reserved.isExists()) {
+            long start = accountRepository.findMaxAccountNumber()
+                    .map(accountNumber -> Long.parseLong(accountNumber) - BASE + 1 + nodeCount * blockSize)
+                    .orElse(0L);
+            // 다른 서버가 먼저 채웠다면 그 값을 그대로 쓴다.
+            reserved.compareAndSet(0, start);
+        }
+
+        long end = reserved.addAndGet(blockSize);
+        return new Block(new AtomicLong(end - blockSize), end - 1);
+    }
+
+    /**
+     * @param next 다음에 나눠 줄 번호(BASE 부터의 차이)
+     * @param last 이 블록의 마지막 번호
+     */
+    private record Block(AtomicLong next, long last) {
+    }
+}
@@ -2,24 +2,33 @@ package com.jungmini.pay.service;
 
 import com.jungmini.pay.domain.Account;
 import com.jungmini.pay.domain.AccountNumber;
+import com.jungmini.pay.domain.AccountStripe;
 import com.jungmini.pay.domain.Member;
 import com.jungmini.pay.domain.Transaction;
 import com.jungmini.pay.domain.type.TransactionResultType;
 import com.jungmini.pay.domain.type.TransactionType;
 import static com.jungmini.pay.domain.Account.MAX_ACCOUNT_SIZE;
 
+import com.jungmini.pay.common.annotation.AccountLock;
 import com.jungmini.pay.common.exception.ErrorCode;
 import com.jungmini.pay.common.exception.PayException;
 import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.AccountStripeRepository;
 import com.jungmini.pay.repository.FriendRepository;
 import com.jungmini.pay.repository.TransactionRepository;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @RequiredArgsConstructor
 @Service
@@ -28,49 +37,93 @@ public class AccountService {
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
     private final FriendRepository friendRepository;
+    private final AccountStripeRepository accountStripeRepository;
+    private final BalanceEngine balanceEngine;
+    private final FailedTransactionWriter failedTransactionWriter;
+    private final AccountNumberAllocator accountNumberAllocator;
+
+    public static final int REMIT_QUERY_BUDGET = 7;
+    public static final int REMIT_FAIL_QUERY_BUDGET = 2;
+    static final int CREATE_ACCOUNT_ATTEMPTS = 3;
 
     /**
+     * Redis 예약 기록을 잃은 뒤 다른 서버가 아직 쓰고 있는 블록과 번호가 겹치면 INSERT 가 키 중복으로 실패한다.
+     * saveAndFlush 가 번호마다 트랜잭션을 따로 열므로 실패한 번호만 버리고 다음 번호로 다시 만들며,
+     * CREATE_ACCOUNT_ATTEMPTS 번 모두 겹치거나 번호 중복이 아닌 무결성 오류면 예외를 그대로 던진다.
      * @param owner 계좌 소유주
      * @return 생성된 계좌
      */
-    @Transactional
     public Account createAccount(Member owner) {
         validateAccountSize(owner);
-        AccountNumber recentAccountNumber = findRecentAccount();
-        Account newAccount = Account.from(owner, recentAccountNumber);
-        return accountRepository.save(newAccount);
+        for (int attempt = 1; ; attempt++) {
+            String accountNumber = accountNumberAllocator.allocate();
+            try {
+                return accountRepository.saveAndFlush(Account.from(owner, accountNumber));
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= CREATE_ACCOUNT_ATTEMPTS || !accountRepository.existsById(accountNumber)) {
+                    throw e;
+                }
+            }
+        }
     }
 
     /**
      * @param amount 충전 금액
      * @param accountNumber 충전할 계좌 번호
      * @param requester 요청자
-     * @return 충전된 계좌 정보
+     * @return 충전된 계좌 정보, 스트라이프 계좌는 응답의 총 잔액을 위해 보조 잔액 합계도 읽어 둔다.
      */
+    @AccountLock("#accountNumber.accountNumber")
     @Transactional
     public Account chargePoint(int amount, AccountNumber accountNumber, Member requester) {
         Account account = findAccount(accountNumber.getAccountNumber());
+        fence(account);
         account.chargePoint(amount, requester);
+        balanceEngine.credit(account, amount);
+        if (account.isStriped()) {
+            account.loadStripeBalance(accountStripeRepository.sumBalance(account.getAccountNumber()));
+        }
         return account;
     }
 
     /**
      * 이 기능은 거래 생성에 실패하더라도 실패 정보를 DB에 저장해야 한다.
+     * 실패 거래는 롤백되는 이 트랜잭션 대신 FailedTransactionWriter 가 따로 저장한다.
+     * 입금은 잔액을 늘리기만 하므로 수신 계좌는 잠그지 않고 DB 에서 바로 더한다. 송금 계좌만 잠근다.
+     *
+     * account.balance-store=row 에서 보조 잔액을 쓰지 않는 계좌 사이의 송금은 SQL 을 REMIT_QUERY_BUDGET 개까지만 실행한다.
+     * 계좌와 소유주 조회 1, 친구 관계 확인 1, 펜싱 토큰 기록 1, 출금 1, 입금과 입금 뒤 잔액 조회 2, 거래 저장 1.
+     * 검증에 실패하면 실패 거래를 저장하지 않고 넘기므로 REMIT_FAIL_QUERY_BUDGET 개로 끝난다.
      * @param transactionRequest 송금계좌, 수신계좌, 송금액
      * @param remitter 송금자
      * @return 생성된 거래 정보
      */
+    @AccountLock("#transactionRequest.remitterAccount.accountNumber")
     @Transactional
     public Transaction remit(Transaction transactionRequest, Member remitter) {
+        String recipientAccountNumber = transactionRequest.getRecipientAccount().getAccountNumber();
+        String remitterAccountNumber = transactionRequest.getRemitterAccount().getAccountNumber();
+        Map<String, Account> accounts = findAccountsWithOwner(recipientAccountNumber, remitterAccountNumber);
+        Account recipientAccount = getAccount(accounts, recipientAccountNumber);
+        Account remitterAccount = getAccount(accounts, remitterAccountNumber);
+        long remitterBalance = remitterAccount.getBalance();
+        long recipientBalance = recipientAccount.getBalance();
+
         try {
-            Account recipientAccount = findAccount(transactionRequest.getRecipientAccount().getAccountNumber());
-            Account remitterAccount = findAccount(transactionRequest.getRemitterAccount().getAccountNumber());
             validateOwner(remitter, remitterAccount);
             validateFriendRelation(remitter, recipientAccount);
+            balanceEngine.loadBalance(remitterAccount);
+            remitterBalance = remitterAccount.getBalance();
+            balanceEngine.drainStripes(remitterAccount, transactionRequest.getAmount());
             transactionRequest.successTransaction(recipientAccount, remitterAccount, TransactionType.REMIT);
+            transfer(remitterAccount, recipientAccount, transactionRequest);
             return transactionRepository.save(transactionRequest);
         } catch (PayException e) {
-            saveFailTransaction(transactionRequest, e);
+            // 송금 처리 중 실패하면 엔티티 잔액은 이미 바뀌었을 수 있으므로, 롤백된 DB 와 같은 송금 직전 잔액으로 되돌려 기록한다.
+            remitterAccount.loadBalance(remitterBalance);
+            recipientAccount.loadBalance(recipientBalance);
+            transactionRequest.failTransaction(recipientAccount, remitterAccount, TransactionType.REMIT);
+            failedTransactionWriter.record(transactionRequest);
             throw e;
         }
     }
@@ -84,6 +137,28 @@ public class AccountService {
     public Account getAccountInfo(String accountNumber, Member owner) {
         Account account = findAccount(accountNumber);
         validateOwner(owner, account);
+        balanceEngine.loadBalance(account);
+        if (account.isStriped()) {
+            account.loadStripeBalance(accountStripeRepository.sumBalance(accountNumber));
+        }
+        return account;
+    }
+
+    /**
+     * 입금이 몰리는 계좌의 입금을 여러 보조 잔액으로 나눈다.
+     * @param accountNumber 계좌 번호
+     * @param stripeCount 보조 잔액 수
+     * @return 변경된 계좌 정보
+     */
+    @AccountLock("#accountNumber")
+    @Transactional
+    public Account enableStriping(String accountNumber, int stripeCount) {
+        Account account = findAccount(accountNumber);
+        int currentStripeCount = account.getStripeCount();
+        account.enableStriping(stripeCount);
+        accountStripeRepository.saveAll(IntStream.range(currentStripeCount, stripeCount)
+                .mapToObj(stripeIndex -> AccountStripe.of(accountNumber, stripeIndex))
+                .toList());
         return account;
     }
 
@@ -102,13 +177,76 @@ public class AccountService {
                         (account, account, TransactionResultType.SUCCESS ,pageable);
     }
 
-    private void saveFailTransaction(Transaction transactionRequest, PayException e) {
-        if (!e.getErrorCode().equals(ErrorCode.ACCOUNT_NOT_FOUND)) {
-            Account recipientAccount = findAccount(transactionRequest.getRecipientAccount().getAccountNumber());
-            Account remitterAccount = findAccount(transactionRequest.getRemitterAccount().getAccountNumber());
-            transactionRequest.failTransaction(recipientAccount, remitterAccount, TransactionType.REMIT);
-            transactionRepository.save(transactionRequest);
+    /**
+     * 현재 요청이 잡은 잠금의 펜싱 토큰을 계좌에 기록한다.
+     * 토큰이 없는 방식(낙관적 잠금, DB 행 잠금, 조건부 UPDATE)에서는 아무것도 하지 않는다.
+     */
+    private static void fence(Account account) {
+        LockContext.fencingToken(account.getAccountNumber())
+                .ifPresent(account::fence);
+    }
+
+    /**
+     * 두 계좌 행의 UPDATE 를 계좌 번호 순서로 실행해, 서로에게 송금하는 두 요청이 DB 행 잠금에서 교착 상태에 빠지지 않게 한다.
+     * 수신 계좌는 잠그지 않으므로 A→B 와 B→A 송금이 동시에 실행될 수 있다.
+     * 입금을 먼저 하고 출금이 실패해도 트랜잭션과 함께 롤백된다.
+     * 펜싱 토큰 기록도 송금 계좌 행을 고치므로 출금 바로 앞에서 한다. 더 앞에서 기록하면 입금 UPDATE 전에 flush 되어
+     * 송금 계좌 행을 먼저 잠그게 된다. 보조 잔액을 쓰는 송금 계좌는 drainStripes 가 이미 송금 계좌 행을 먼저 고친다.
+     */
+    private void transfer(Account remitterAccount, Account recipientAccount, Transaction transaction) {
+        if (recipientAccount.getAccountNumber().compareTo(remitterAccount.getAccountNumber()) < 0) {
+            creditRecipient(recipientAccount, transaction);
+            debitRemitter(remitterAccount, transaction);
+            return;
         }
+
+        debitRemitter(remitterAccount, transaction);
+        creditRecipient(recipientAccount, transaction);
+    }
+
+    /**
+     * 펜싱 토큰 기록은 출금 UPDATE 가 실행되기 전에 함께 flush 된다.
+     */
+    private void debitRemitter(Account account, Transaction transaction) {
+        fence(account);
+        incrementVersion(account);
+        balanceEngine.debit(account, transaction.getAmount());
+    }
+
+    /**
+     * 낙관적 잠금 모드에서는 출금 전에 송금 계좌의 버전을 올린다.
+     * 계좌를 읽은 뒤 다른 요청이 먼저 출금했으면 버전 충돌로 실패하고, OptimisticAccountExecutor 가 다시 시도한다.
+     */
+    private void incrementVersion(Account account) {
+        if (LockContext.isOptimistic()
+                && accountRepository.incrementVersion(account.getAccountNumber(), account.getVersion()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Account.class, account.getAccountNumber());
+        }
+    }
+
+    /**
+     * 스트라이프 계좌는 무작위로 고른 보조 잔액에, 아니면 계좌 잔액에 더한다.
+     * 입금을 반영한 뒤의 잔액으로 거래의 수신 계좌 잔액 기록을 다시 맞춘다.
+     */
+    private void creditRecipient(Account account, Transaction transaction) {
+        if (balanceEngine.creditStripe(account)) {
+            return;
+        }
+
+        transaction.captureRecipientBalance(balanceEngine.credit(account, transaction.getAmount()));
+    }
+
+    private Map<String, Account> findAccountsWithOwner(String... accountNumbers) {
+        return accountRepository.findAllWithOwner(List.of(accountNumbers)).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+    }
+
+    private static Account getAccount(Map<String, Account> accounts, String accountNumber) {
+        Account account = accounts.get(accountNumber);
+        if (account == null) {
+            throw new PayException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+        return account;
     }
 
     private Account findAccount(String accountNumber) {
@@ -123,18 +261,11 @@ public class AccountService {
     }
 
     private void validateFriendRelation(Member remitter, Account recipientAccount) {
-        boolean relation1 = findRelation(remitter, recipientAccount.getOwner());
-        boolean relation2 = findRelation(recipientAccount.getOwner(), remitter);
-
-        if (!relation1 && !relation2) {
+        if (!friendRepository.existsBetween(remitter, recipientAccount.getOwner())) {
             throw new PayException(ErrorCode.NOT_FRIENDS);
         }
     }
 
-    private boolean findRelation(Member member1, Member member2) {
-        return friendRepository.existsFriendByRecipientAndRequester(member1, member2);
-    }
-
     private void validateAccountSize(Member owner) {
         int accountCount = accountRepository.countByOwner(owner);
 
@@ -142,8 +273,4 @@ public class AccountService {
             throw new PayException(ErrorCode.ACCOUNT_SIZE_EXCEED);
         }
     }
-
-    private AccountNumber findRecentAccount() {
-        return accountRepository.findFirstByOrderByCreatedAtDesc().orElse(null);
-    }
 }
@@ -0,0 +1,15 @@
+package com.jungmini.pay.service;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 잠금을 기다리는 동안 호출한 스레드를 붙잡지 않는 LockService
+ * 잠금 소유자가 스레드가 아니므로 돌려받은 핸들은 어느 스레드에서 닫아도 된다.
+ */
+public interface AsyncLockService {
+
+    CompletableFuture<LockHandle> lockAsync(String accountNumber);
+
+    CompletableFuture<LockHandle> lockAllAsync(Collection<String> accountNumbers);
+}
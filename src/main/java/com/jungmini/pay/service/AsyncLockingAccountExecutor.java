@@ -0,0 +1,131 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 잠금은 Redis 응답 콜백으로 기다리고, 잠금을 얻은 작업만 작업 스레드에서 실행한다.
+ * 한 계좌에 요청이 몰려도 요청 스레드는 잠금을 기다리지 않으므로 다른 API 는 영향을 받지 않는다.
+ * Redis 서킷 브레이커가 열려 있으면 작업 스레드에서 계좌 행 잠금을 잡고 실행한다.
+ *
+ * 잠금을 얻은 작업은 작업 스레드를 기다리는 동안에도 잠금을 쥐고 있으므로, 대기열을 queue-capacity 로 제한하고
+ * 넘치면 잠금을 바로 돌려놓고 실패시킨다.
+ */
+@Service
+@ConditionalOnProperty(value = "account.concurrency-mode", havingValue = "redis-lock-async")
+public class AsyncLockingAccountExecutor implements AccountExecutor {
+
+    private final AsyncLockService asyncLockService;
+    private final LockMetrics lockMetrics;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final ExecutorService workers;
+
+    public AsyncLockingAccountExecutor(AsyncLockService asyncLockService,
+                                       LockMetrics lockMetrics,
+                                       RedisCircuitBreaker circuitBreaker,
+                                       @Value("${account.async.worker-threads:16}") int workerThreads,
+                                       @Value("${account.async.queue-capacity:64}") int queueCapacity) {
+        this.asyncLockService = asyncLockService;
+        this.lockMetrics = lockMetrics;
+        this.circuitBreaker = circuitBreaker;
+        AtomicInteger sequence = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "account-worker-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public <T> T execute(String accountNumber, Supplier<T> command) {
+        return join(executeAsync(accountNumber, command));
+    }
+
+    @Override
+    public <T> T executeAll(Collection<String> accountNumbers, Supplier<T> command) {
+        return join(executeAllAsync(accountNumbers, command));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(String accountNumber, Supplier<T> command) {
+        if (!circuitBreaker.allowRedis()) {
+            return submitWithRowLock(List.of(accountNumber), command);
+        }
+        return lockMetrics.recordAsync(List.of(accountNumber), () -> asyncLockService.lockAsync(accountNumber))
+                .thenCompose(lock -> submit(lock, command));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAllAsync(Collection<String> accountNumbers, Supplier<T> command) {
+        if (!circuitBreaker.allowRedis()) {
+            return submitWithRowLock(accountNumbers, command);
+        }
+        return lockMetrics.recordAsync(accountNumbers, () -> asyncLockService.lockAllAsync(accountNumbers))
+                .thenCompose(lock -> submit(lock, command));
+    }
+
+    /**
+     * 작업 스레드에 넘기지 못하면(대기열이 가득 찼거나 종료 중이면) 잠금을 바로 돌려놓는다.
+     */
+    private <T> CompletableFuture<T> submit(LockHandle lock, Supplier<T> command) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try (lock) {
+                    return LockContext.callWith(lock, command);
+                }
+            }, workers);
+        } catch (RejectedExecutionException e) {
+            lock.close();
+            return CompletableFuture.failedFuture(new PayException(ErrorCode.ACCOUNT_LOCK_FAIL));
+        }
+    }
+
+    /**
+     * 행 잠금의 트랜잭션은 잠금을 잡은 스레드에 묶이므로 잠금부터 작업 스레드에서 잡는다.
+     */
+    private <T> CompletableFuture<T> submitWithRowLock(Collection<String> accountNumbers, Supplier<T> command) {
+        LockService rowLockService = circuitBreaker.rowLockService();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try (LockHandle lock = lockMetrics.record(accountNumbers, () -> rowLockService.lockAll(accountNumbers))) {
+                    return LockContext.callWith(lock, command);
+                }
+            }, workers);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new PayException(ErrorCode.ACCOUNT_LOCK_FAIL));
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,140 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.AccountStripe;
+import com.jungmini.pay.domain.Transaction;
+import com.jungmini.pay.repository.AccountStripeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 계좌 잔액을 바꾼다. 주 잔액은 BalanceStore 에, 스트라이프 계좌의 입금은 보조 잔액에 반영한다.
+ * 읽은 잔액을 영속성 컨텍스트에서 고쳐 쓰지 않으므로 입금이 사라지거나 잔액이 음수가 되지 않는다.
+ * 엔티티의 잔액은 DB 에서 다시 읽어 맞춘다.
+ */
+@Component
+@RequiredArgsConstructor
+public class BalanceEngine {
+
+    private final BalanceStore balanceStore;
+    private final AccountStripeRepository accountStripeRepository;
+
+    /**
+     * @return 그 사이 다른 요청이 더한 입금까지 반영된 잔액
+     */
+    public long credit(Account account, long amount) {
+        long balance = balanceStore.credit(account.getAccountNumber(), amount);
+        account.loadBalance(balance);
+        return balance;
+    }
+
+    /**
+     * 잔액이 충분할 때만 뺀다.
+     */
+    public void debit(Account account, long amount) {
+        if (!balanceStore.debit(account.getAccountNumber(), amount)) {
+            throw new PayException(ErrorCode.LACK_OF_BALANCE);
+        }
+    }
+
+    /**
+     * 출금을 검증하기 전에 엔티티의 주 잔액을 저장된 잔액으로 맞춘다.
+     */
+    public void loadBalance(Account account) {
+        balanceStore.load(account);
+    }
+
+    /**
+     * @see BalanceStore#apply(SortedMap)
+     */
+    public Map<String, Long> apply(SortedMap<String, Long> balanceDeltas) {
+        return balanceStore.apply(balanceDeltas);
+    }
+
+    /**
+     * 여러 건을 메모리에서 처리하기 전에, 출금할 계좌에 펜싱 토큰을 기록하고 잔액을 읽은 뒤
+     * 이번 요청의 출금액 합계만큼 보조 잔액을 미리 비워 둔다.
+     */
+    public void prepareDebit(Account account, long amount) {
+        LockContext.fencingToken(account.getAccountNumber()).ifPresent(account::fence);
+        loadBalance(account);
+        drainStripes(account, amount);
+    }
+
+    /**
+     * 메모리에서 옮긴 잔액을 계좌별 변화량으로 모아 계좌 번호 순서로 반영하고,
+     * 다시 읽은 잔액과 메모리 잔액의 차이(그 사이 들어온 입금)만큼 거래의 잔액 기록을 옮긴다.
+     * 잠그지 않는 conditional-update 모드에서 출금할 잔액이 모자라면 PayException 으로 전체를 되돌린다.
+     * @param accounts 계좌 번호별 계좌
+     * @param balancesBefore 메모리에서 처리하기 전의 계좌별 잔액
+     * @param transactions 잔액 기록을 옮길 거래
+     */
+    public void applyAll(Map<String, Account> accounts, Map<String, Long> balancesBefore, List<Transaction> transactions) {
+        SortedMap<String, Long> balanceDeltas = new TreeMap<>();
+        for (Account account : accounts.values()) {
+            long delta = account.getBalance() - balancesBefore.get(account.getAccountNumber());
+            if (delta != 0) {
+                balanceDeltas.put(account.getAccountNumber(), delta);
+            }
+            creditStripe(account);
+        }
+        if (balanceDeltas.isEmpty()) {
+            return;
+        }
+
+        apply(balanceDeltas).forEach((accountNumber, balance) -> {
+            Account account = accounts.get(accountNumber);
+            long drift = balance - account.getBalance();
+            account.loadBalance(balance);
+            if (drift != 0) {
+                transactions.forEach(transaction -> transaction.shiftBalanceSnapshot(accountNumber, drift));
+            }
+        });
+    }
+
+    /**
+     * 주 잔액이 모자라면 모자란 만큼 보조 잔액을 번호 순서대로 비워 주 잔액으로 옮긴다.
+     * 보조 잔액은 충분할 때만 빼므로, 잠그지 않는 conditional-update 모드에서 동시에 비워도 음수가 되지 않는다.
+     */
+    public void drainStripes(Account account, long amount) {
+        long shortage = amount - account.getBalance();
+        if (!account.isStriped() || shortage <= 0) {
+            return;
+        }
+
+        for (AccountStripe stripe : accountStripeRepository.findAllByAccountNumberOrderByStripeIndex(account.getAccountNumber())) {
+            long take = Math.min(stripe.getBalance(), shortage);
+            if (take > 0 && accountStripeRepository.debit(account.getAccountNumber(), stripe.getStripeIndex(), take) == 1) {
+                account.sweepFromStripe(take);
+                credit(account, take);
+                shortage -= take;
+            }
+            if (shortage <= 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 스트라이프 계좌에 남겨 둔 입금액을 무작위로 고른 보조 잔액에 더한다.
+     * @return 보조 잔액에 더했으면 true
+     */
+    public boolean creditStripe(Account account) {
+        long stripeCredit = account.takePendingStripeCredit();
+        if (stripeCredit == 0) {
+            return false;
+        }
+
+        int stripeIndex = ThreadLocalRandom.current().nextInt(account.getStripeCount());
+        accountStripeRepository.credit(account.getAccountNumber(), stripeIndex, stripeCredit);
+        return true;
+    }
+}
@@ -0,0 +1,37 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.domain.Account;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * 계좌의 주 잔액을 저장하고 바꾼다.
+ * account.balance-store 설정으로 구현을 선택한다.
+ */
+public interface BalanceStore {
+
+    /**
+     * @return 그 사이 다른 요청이 더한 입금까지 반영된 잔액
+     */
+    long credit(String accountNumber, long amount);
+
+    /**
+     * 잔액이 충분할 때만 뺀다.
+     * @return 뺐으면 true
+     */
+    boolean debit(String accountNumber, long amount);
+
+    /**
+     * 조회한 계좌 엔티티의 잔액을 저장된 잔액으로 맞춘다.
+     */
+    void load(Account account);
+
+    /**
+     * 계좌 번호 순서로 잔액에 더한다. 음수는 잔액이 충분할 때만 뺀다.
+     * 하나라도 잔액이 모자라면 LACK_OF_BALANCE 로 실패한다.
+     * @param balanceDeltas 계좌 번호별 잔액 변화량
+     * @return 반영한 뒤 다시 읽은 계좌 번호별 잔액
+     */
+    Map<String, Long> apply(SortedMap<String, Long> balanceDeltas);
+}
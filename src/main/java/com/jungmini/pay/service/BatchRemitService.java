@@ -0,0 +1,165 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.annotation.AccountLock;
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.Member;
+import com.jungmini.pay.domain.Transaction;
+import com.jungmini.pay.domain.type.TransactionType;
+import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.FriendRepository;
+import com.jungmini.pay.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 정산 작업처럼 송금을 연달아 보내는 요청을 트랜잭션 하나로 처리한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class BatchRemitService {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final FriendRepository friendRepository;
+    private final BalanceEngine balanceEngine;
+
+    /**
+     * 송금 계좌만 계좌 번호 순서로 잠그고, 계좌와 친구 관계는 한 번에 조회한다.
+     * 건마다 메모리에서 검증하고 잔액을 옮긴 뒤, 계좌별 잔액 변화량을 JDBC 배치로 한 번에 반영한다.
+     * 실패한 건은 remit 과 같이 실패 거래로 남기고 나머지 건은 계속 처리한다.
+     * @param transactionRequests 송금계좌, 수신계좌, 송금액 목록
+     * @param remitter 송금자
+     * @return 요청 순서대로의 결과
+     */
+    @AccountLock("#transactionRequests.![remitterAccount.accountNumber]")
+    @Transactional
+    public List<RemitResult> remitBatch(List<Transaction> transactionRequests, Member remitter) {
+        return remitAll(transactionRequests.stream()
+                .map(transactionRequest -> new RemitCommand(transactionRequest, remitter))
+                .toList());
+    }
+
+    /**
+     * 여러 송금자의 송금을 remitBatch 와 같은 방식으로 트랜잭션 하나에 커밋한다.
+     * 같은 계좌를 쓰는 송금이 섞여 있어도 메모리에서 요청 순서대로 처리하므로 결과는 하나씩 처리한 것과 같다.
+     * @return 요청 순서대로의 결과
+     */
+    @AccountLock("#commands.![transactionRequest.remitterAccount.accountNumber]")
+    @Transactional
+    public List<RemitResult> remitGroup(List<RemitCommand> commands) {
+        return remitAll(commands);
+    }
+
+    private List<RemitResult> remitAll(List<RemitCommand> commands) {
+        Map<String, Account> accounts = findAccounts(commands);
+        Set<Set<Member>> friendships = findFriendships(commands, accounts.values());
+        prepareRemitters(commands, accounts);
+        Map<String, Long> balancesBefore = accounts.values().stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Account::getBalance));
+
+        List<RemitResult> results = commands.stream()
+                .map(command -> remit(command, accounts, friendships))
+                .toList();
+        List<Transaction> transactions = results.stream()
+                .filter(result -> result.errorCode() != ErrorCode.ACCOUNT_NOT_FOUND)
+                .map(RemitResult::transaction)
+                .toList();
+
+        balanceEngine.applyAll(accounts, balancesBefore, transactions);
+        transactionRepository.saveAll(transactions);
+        return results;
+    }
+
+    /**
+     * 계좌를 찾지 못한 건은 remit 과 같이 실패 거래를 남기지 않는다.
+     */
+    private static RemitResult remit(RemitCommand command, Map<String, Account> accounts, Set<Set<Member>> friendships) {
+        Transaction transactionRequest = command.transactionRequest();
+        Account recipientAccount = accounts.get(transactionRequest.getRecipientAccount().getAccountNumber());
+        Account remitterAccount = accounts.get(transactionRequest.getRemitterAccount().getAccountNumber());
+        if (recipientAccount == null || remitterAccount == null) {
+            return new RemitResult(transactionRequest, ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+
+        try {
+            if (!command.remitter().equals(remitterAccount.getOwner())) {
+                throw new PayException(ErrorCode.REQUESTER_IS_NOT_OWNER);
+            }
+            if (!isFriend(friendships, command.remitter(), recipientAccount.getOwner())) {
+                throw new PayException(ErrorCode.NOT_FRIENDS);
+            }
+            transactionRequest.successTransaction(recipientAccount, remitterAccount, TransactionType.REMIT);
+            return new RemitResult(transactionRequest, null);
+        } catch (PayException e) {
+            transactionRequest.failTransaction(recipientAccount, remitterAccount, TransactionType.REMIT);
+            return new RemitResult(transactionRequest, e.getErrorCode());
+        }
+    }
+
+    /**
+     * 송금자 소유의 송금 계좌에 펜싱 토큰을 기록하고 잔액을 읽은 뒤, 이번 요청의 송금액 합계만큼 보조 잔액을 미리 비워 둔다.
+     */
+    private void prepareRemitters(List<RemitCommand> commands, Map<String, Account> accounts) {
+        Map<String, Long> amounts = new HashMap<>();
+        Map<String, Member> remitters = new HashMap<>();
+        for (RemitCommand command : commands) {
+            String accountNumber = command.transactionRequest().getRemitterAccount().getAccountNumber();
+            amounts.merge(accountNumber, (long) command.transactionRequest().getAmount(), Long::sum);
+            remitters.putIfAbsent(accountNumber, command.remitter());
+        }
+
+        amounts.forEach((accountNumber, amount) -> {
+            Account account = accounts.get(accountNumber);
+            if (account != null && remitters.get(accountNumber).equals(account.getOwner())) {
+                balanceEngine.prepareDebit(account, amount);
+            }
+        });
+    }
+
+    private Map<String, Account> findAccounts(List<RemitCommand> commands) {
+        Set<String> accountNumbers = commands.stream()
+                .map(RemitCommand::transactionRequest)
+                .flatMap(transactionRequest -> Stream.of(
+                        transactionRequest.getRecipientAccount().getAccountNumber(),
+                        transactionRequest.getRemitterAccount().getAccountNumber()))
+                .collect(Collectors.toSet());
+
+        return accountRepository.findAllById(accountNumbers).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+    }
+
+    /**
+     * 자기 자신에게는 송금할 수 없으므로 요청자와 수신자가 같은 행은 건너뛴다.
+     * @return 송금자와 계좌 소유주 사이의 친구 관계. 방향이 없으므로 두 회원의 집합으로 나타낸다.
+     */
+    private Set<Set<Member>> findFriendships(List<RemitCommand> commands, Collection<Account> accounts) {
+        if (accounts.isEmpty()) {
+            return Set.of();
+        }
+
+        Set<Member> members = Stream.concat(
+                        commands.stream().map(RemitCommand::remitter),
+                        accounts.stream().map(Account::getOwner))
+                .collect(Collectors.toSet());
+        return friendRepository.findAllAmong(members).stream()
+                .filter(friend -> !friend.getRequester().equals(friend.getRecipient()))
+                .map(friend -> Set.of(friend.getRequester(), friend.getRecipient()))
+                .collect(Collectors.toSet());
+    }
+
+    private static boolean isFriend(Set<Set<Member>> friendships, Member member, Member other) {
+        return !member.equals(other) && friendships.contains(Set.of(member, other));
+    }
+}
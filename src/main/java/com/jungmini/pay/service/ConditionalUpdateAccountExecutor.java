@@ -0,0 +1,26 @@
+package com.jungmini.pay.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * 잠그지 않고 바로 실행한다. 잔액은 BalanceEngine 의 조건부 UPDATE 로만 바뀌므로
+ * 잔액 부족은 바뀐 행 수로 판단하고, 동시에 들어온 요청은 DB 의 행 잠금이 UPDATE 한 문장 동안만 줄 세운다.
+ */
+@Service
+@ConditionalOnProperty(value = "account.concurrency-mode", havingValue = "conditional-update")
+public class ConditionalUpdateAccountExecutor implements AccountExecutor {
+
+    @Override
+    public <T> T execute(String accountNumber, Supplier<T> command) {
+        return command.get();
+    }
+
+    @Override
+    public <T> T executeAll(Collection<String> accountNumbers, Supplier<T> command) {
+        return command.get();
+    }
+}
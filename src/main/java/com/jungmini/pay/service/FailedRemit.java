@@ -0,0 +1,33 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.domain.Transaction;
+
+/**
+ * 실패한 송금 한 건. 송금 트랜잭션과 상관없이 FailedTransactionWriter 가 따로 기록한다.
+ * 디스크에 남길 때는 탭으로 구분한 한 줄로 쓴다.
+ */
+public record FailedRemit(String remitterAccountNumber, String recipientAccountNumber, int amount,
+                          long remitterBalanceSnapshot, long recipientBalanceSnapshot) {
+
+    private static final String DELIMITER = "\t";
+
+    public static FailedRemit from(Transaction transaction) {
+        return new FailedRemit(
+                transaction.getRemitterAccount().getAccountNumber(),
+                transaction.getRecipientAccount().getAccountNumber(),
+                transaction.getAmount(),
+                transaction.getRemitterBalanceSnapshot(),
+                transaction.getRecipientBalanceSnapshot());
+    }
+
+    public static FailedRemit fromLine(String line) {
+        String[] fields = line.split(DELIMITER);
+        return new FailedRemit(fields[0], fields[1], Integer.parseInt(fields[2]),
+                Long.parseLong(fields[3]), Long.parseLong(fields[4]));
+    }
+
+    public String toLine() {
+        return String.join(DELIMITER, remitterAccountNumber, recipientAccountNumber, String.valueOf(amount),
+                String.valueOf(remitterBalanceSnapshot), String.valueOf(recipientBalanceSnapshot));
+    }
+}
@@ -0,0 +1,96 @@
+package com.jungmini.pay.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * FailedTransactionWriter 가 DB 에 저장하지 못한 실패 거래를 남기는 디스크 파일.
+ *
+ * 요청 스레드와 기록 스레드는 spill-path 에 덧붙이고, 기록 스레드는 다시 저장할 때 파일을 spill-path.replay 로 옮긴 뒤 읽는다.
+ * 혼자서도 저장할 수 없는 건은 spill-path.quarantine 에 따로 모은다.
+ */
+@Slf4j
+class FailedRemitSpillFile {
+
+    private final Path spillPath;
+    private final Path replayPath;
+    private final Path quarantinePath;
+    private final Object spillLock = new Object();
+
+    FailedRemitSpillFile(String spillPath) {
+        this.spillPath = Path.of(spillPath);
+        this.replayPath = Path.of(spillPath + ".replay");
+        this.quarantinePath = Path.of(spillPath + ".quarantine");
+    }
+
+    void append(List<FailedRemit> failedRemits) {
+        synchronized (spillLock) {
+            try {
+                Files.write(spillPath, failedRemits.stream().map(FailedRemit::toLine).toList(), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                log.error("실패 거래를 디스크에 남기지 못했습니다. {}", failedRemits, e);
+            }
+        }
+    }
+
+    /**
+     * 기록 스레드에서만 호출한다.
+     */
+    void quarantine(FailedRemit failedRemit, RuntimeException cause) {
+        log.error("저장할 수 없는 실패 거래를 격리합니다. {}", failedRemit, cause);
+        try {
+            Files.write(quarantinePath, List.of(failedRemit.toLine()), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("실패 거래를 격리하지 못했습니다. {}", failedRemit, e);
+        }
+    }
+
+    /**
+     * 기록 스레드에서만 호출한다. 다시 저장하다 멈춘 파일이 남아 있으면 그 파일을, 없으면 덧붙인 파일을 옮겨 읽는다.
+     * 파일을 옮길 때만 잠그므로 다시 저장하는 동안에도 요청 스레드는 덧붙일 수 있다.
+     * @return 다시 저장할 실패 거래, 남긴 것이 없으면 빈 목록
+     */
+    List<FailedRemit> claim() throws IOException {
+        if (!Files.exists(replayPath) && !moveToReplay()) {
+            return List.of();
+        }
+
+        List<FailedRemit> spilled = Files.readAllLines(replayPath, StandardCharsets.UTF_8).stream()
+                .map(FailedRemit::fromLine)
+                .toList();
+        if (spilled.isEmpty()) {
+            clear();
+        }
+        return spilled;
+    }
+
+    /**
+     * 다시 저장하지 못한 실패 거래만 남겨 다음에 다시 저장한다.
+     */
+    void keep(List<FailedRemit> remaining) throws IOException {
+        Files.write(replayPath, remaining.stream().map(FailedRemit::toLine).toList(),
+                StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    void clear() throws IOException {
+        Files.delete(replayPath);
+    }
+
+    private boolean moveToReplay() throws IOException {
+        synchronized (spillLock) {
+            if (!Files.exists(spillPath)) {
+                return false;
+            }
+            Files.move(spillPath, replayPath);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.domain.Transaction;
+import com.jungmini.pay.domain.type.TransactionResultType;
+import com.jungmini.pay.domain.type.TransactionType;
+import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 실패한 송금을 송금 트랜잭션과 따로, 요청 스레드를 기다리게 하지 않고 기록한다.
+ * 송금 트랜잭션은 실패하면 롤백되므로 그 안에서 저장한 실패 거래는 남지 않는다.
+ *
+ * 1. 요청 스레드는 크기가 정해진 대기열에 넣기만 한다. 대기열이 가득 차면 디스크 파일에 덧붙인다.
+ * 2. 기록 스레드가 batch-size 만큼 모아 새 트랜잭션에서 한 번에 저장한다.
+ *    timeout 안에 저장하지 못하면(DB 가 느리거나 실패하면) 디스크 파일에 덧붙인다.
+ * 3. 대기열이 비어 있을 때 디스크 파일을 다시 저장할 파일(spill-path.replay)로 옮긴 뒤 저장하고, 모두 저장하면 파일을 지운다.
+ *    파일을 옮길 때만 잠그므로 다시 저장하는 동안에도 요청 스레드는 디스크 파일에 덧붙일 수 있다.
+ *
+ * 묶음 저장이 데이터 오류(없는 계좌 등)로 실패하면 한 건씩 다시 저장하고, 혼자서도 실패하는 건은
+ * 격리 파일(spill-path.quarantine)로 옮겨 다른 실패 거래의 저장을 막지 않게 한다.
+ */
+@Slf4j
+@Component
+public class FailedTransactionWriter {
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushMillis;
+    private final FailedRemitSpillFile spillFile;
+    private final BlockingQueue<FailedRemit> queue;
+    private final Thread writer;
+
+    public FailedTransactionWriter(TransactionRepository transactionRepository,
+                                   AccountRepository accountRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${account.failed-transaction.enabled:true}") boolean enabled,
+                                   @Value("${account.failed-transaction.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${account.failed-transaction.batch-size:100}") int batchSize,
+                                   @Value("${account.failed-transaction.flush-millis:100}") long flushMillis,
+                                   @Value("${account.failed-transaction.timeout-seconds:2}") int timeoutSeconds,
+                                   @Value("${account.failed-transaction.spill-path:failed-transactions.spill}") String spillPath) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setTimeout(timeoutSeconds);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushMillis = flushMillis;
+        this.spillFile = new FailedRemitSpillFile(spillPath);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::run, "failed-transaction-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            writer.start();
+        }
+    }
+
+    /**
+     * 실패 상태로 바뀐 거래를 기록 대기열에 넣는다. 꺼져 있으면 기록하지 않는다.
+     */
+    public void record(Transaction transaction) {
+        if (!enabled) {
+            return;
+        }
+
+        FailedRemit failedRemit = FailedRemit.from(transaction);
+        if (!queue.offer(failedRemit)) {
+            spill(List.of(failedRemit));
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * flush-millis 동안 기다려도 대기열이 비어 있으면 디스크에 남긴 실패 거래를 다시 저장한다.
+     */
+    void flush() throws InterruptedException {
+        FailedRemit first = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            replaySpill();
+            return;
+        }
+
+        List<FailedRemit> batch = new ArrayList<>();
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        List<FailedRemit> unsaved = write(batch);
+        if (!unsaved.isEmpty()) {
+            spill(unsaved);
+        }
+    }
+
+    /**
+     * @return 저장하지 못해 나중에 다시 저장할 실패 거래. 격리한 건은 포함하지 않는다.
+     */
+    private List<FailedRemit> write(List<FailedRemit> batch) {
+        try {
+            save(batch);
+            return List.of();
+        } catch (NonTransientDataAccessException e) {
+            log.warn("실패 거래 {}건 중 저장할 수 없는 건이 있어 한 건씩 저장합니다.", batch.size(), e);
+            return writeEach(batch);
+        } catch (RuntimeException e) {
+            log.warn("실패 거래 {}건을 저장하지 못해 디스크에 남깁니다.", batch.size(), e);
+            return batch;
+        }
+    }
+
+    private List<FailedRemit> writeEach(List<FailedRemit> batch) {
+        List<FailedRemit> unsaved = new ArrayList<>();
+        for (FailedRemit failedRemit : batch) {
+            try {
+                save(List.of(failedRemit));
+            } catch (NonTransientDataAccessException e) {
+                spillFile.quarantine(failedRemit, e);
+            } catch (RuntimeException e) {
+                unsaved.add(failedRemit);
+            }
+        }
+        return unsaved;
+    }
+
+    private void save(List<FailedRemit> failedRemits) {
+        transactionTemplate.executeWithoutResult(status -> transactionRepository.saveAll(failedRemits.stream()
+                .map(this::toTransaction)
+                .toList()));
+    }
+
+    private Transaction toTransaction(FailedRemit failedRemit) {
+        return Transaction.builder()
+                .transactionType(TransactionType.REMIT)
+                .transactionResultType(TransactionResultType.FAIL)
+                .amount(failedRemit.amount())
+                .remitterBalanceSnapshot(failedRemit.remitterBalanceSnapshot())
+                .recipientBalanceSnapshot(failedRemit.recipientBalanceSnapshot())
+                .remitterAccount(accountRepository.getReferenceById(failedRemit.remitterAccountNumber()))
+                .recipientAccount(accountRepository.getReferenceById(failedRemit.recipientAccountNumber()))
+                .build();
+    }
+
+    void spill(List<FailedRemit> failedRemits) {
+        spillFile.append(failedRemits);
+    }
+
+    /**
+     * 기록 스레드에서만 호출한다. 다시 저장하다 멈춘 파일이 남아 있으면 그 파일부터 저장한다.
+     * 저장에 실패하면 아직 저장하지 않은 실패 거래만 그 파일에 남겨 다음에 다시 저장한다.
+     */
+    void replaySpill() {
+        try {
+            List<FailedRemit> spilled = spillFile.claim();
+            if (spilled.isEmpty()) {
+                return;
+            }
+
+            for (int from = 0; from < spilled.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, spilled.size());
+                List<FailedRemit> unsaved = write(spilled.subList(from, to));
+                if (!unsaved.isEmpty()) {
+                    List<FailedRemit> remaining = new ArrayList<>(unsaved);
+                    remaining.addAll(spilled.subList(to, spilled.size()));
+                    spillFile.keep(remaining);
+                    return;
+                }
+            }
+            spillFile.clear();
+        } catch (IOException e) {
+            log.error("디스크에 남긴 실패 거래를 다시 저장하지 못했습니다.", e);
+        }
+    }
+
+    /**
+     * 아직 저장하지 않은 실패 거래는 디스크에 남겨 다음에 시작할 때 저장한다.
+     */
+    @PreDestroy
+    public void shutdown() {
+        writer.interrupt();
+        List<FailedRemit> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            spill(remaining);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.jungmini.pay.service;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * 계좌별 펜싱 토큰을 가지고 있는 잠금 핸들
+ */
+@RequiredArgsConstructor
+public class FencedLockHandle implements LockHandle {
+
+    private final Map<String, Long> fencingTokens;
+    private final Runnable release;
+
+    @Override
+    public void close() {
+        release.run();
+    }
+
+    @Override
+    public OptionalLong fencingToken(String accountNumber) {
+        Long token = fencingTokens.get(accountNumber);
+        return token == null ? OptionalLong.empty() : OptionalLong.of(token);
+    }
+}
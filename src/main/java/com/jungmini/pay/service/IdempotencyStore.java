@@ -0,0 +1,237 @@
+package com.jungmini.pay.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key 로 다시 보낸 요청에는 처음 요청의 응답을 돌려주고, 잠금과 AccountService 를 다시 거치지 않는다.
+ *
+ * 1. 같은 서버에서 동시에 들어온 같은 키의 요청은 처음 요청의 결과를 함께 기다린다.
+ * 2. Redis 에 처리 중 표시를 남긴 요청만 실행한다. 다른 서버에서 처리 중이면 409 로 거절한다.
+ * 3. 성공한 응답과 다시 보내도 결과가 같은 실패(잔액 부족 등)는 ttl 동안 보관한다.
+ *    잠금 실패처럼 다시 보내면 성공할 수 있는 실패는 보관하지 않고 처리 중 표시를 지운다.
+ * Redis 에 처리 중 표시를 남기지 못하면 다른 서버가 같은 키를 실행하고 있는지 알 수 없으므로, 실행하지 않고 503 으로 거절한다.
+ *
+ * 보관하는 값마다 요청 본문의 해시를 함께 남기고, 같은 키로 다른 본문을 보내면 422 로 거절한다.
+ * 처리 중 표시는 in-progress-seconds 뒤에 사라지므로, 잠금이나 묶음 커밋을 기다리는 동안 1/3 마다 연장한다.
+ * 서버가 죽으면 연장이 멈추고 표시가 사라져 다른 서버가 다시 실행할 수 있다.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private static final String KEY_PREFIX = "idempotency:";
+    private static final String IN_PROGRESS = "P";
+    private static final String SUCCESS = "S";
+    private static final String FAILURE = "F";
+    private static final int HASH_LENGTH = 64;
+    private static final String RENEW_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                "return redis.call('pexpire', KEYS[1], ARGV[2]); " +
+            "end; " +
+            "return 0;";
+    private static final Set<ErrorCode> RETRYABLE_ERRORS = EnumSet.of(ErrorCode.ACCOUNT_LOCK_FAIL,
+            ErrorCode.ACCOUNT_BUSY, ErrorCode.STALE_LOCK_TOKEN, ErrorCode.IDEMPOTENCY_KEY_IN_USE);
+
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final long ttlMillis;
+    private final long inProgressMillis;
+    private final Map<String, InFlight> inFlights = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public IdempotencyStore(RedissonClient redissonClient,
+                            ObjectMapper objectMapper,
+                            @Value("${account.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                            @Value("${account.idempotency.in-progress-seconds:30}") long inProgressSeconds) {
+        this.redissonClient = redissonClient;
+        this.objectMapper = objectMapper;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.inProgressMillis = TimeUnit.SECONDS.toMillis(inProgressSeconds);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-renewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param scope 요청자와 API 로 키의 범위를 나눠 다른 회원의 같은 키와 섞이지 않게 한다.
+     * @param idempotencyKey 클라이언트가 보낸 키. 없으면 바로 실행한다.
+     * @param payload 요청 본문. 같은 키로 다른 본문을 보냈는지 확인한다.
+     * @param type 보관한 응답을 되돌릴 타입
+     * @param work 실제 작업
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> execute(String scope, String idempotencyKey, Object payload, Class<T> type,
+                                            Supplier<CompletableFuture<T>> work) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return work.get();
+        }
+
+        String key = KEY_PREFIX + scope + ":" + idempotencyKey;
+        String payloadHash = hash(payload);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        InFlight claimed = new InFlight(payloadHash, result);
+        InFlight inFlight = inFlights.putIfAbsent(key, claimed);
+        if (inFlight != null) {
+            if (!inFlight.payloadHash().equals(payloadHash)) {
+                return CompletableFuture.failedFuture(new PayException(ErrorCode.IDEMPOTENCY_KEY_MISMATCH));
+            }
+            return (CompletableFuture<T>) inFlight.result();
+        }
+
+        result.whenComplete((body, e) -> inFlights.remove(key, claimed));
+        try {
+            run(key, payloadHash, type, work, result);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private <T> void run(String key, String payloadHash, Class<T> type,
+                         Supplier<CompletableFuture<T>> work, CompletableFuture<T> result) {
+        RBucket<String> bucket = redissonClient.getBucket(key, StringCodec.INSTANCE);
+        Optional<String> stored = claim(bucket, payloadHash);
+        if (stored.isPresent()) {
+            replay(stored.get(), payloadHash, type, result);
+            return;
+        }
+
+        ScheduledFuture<?> renewal = renewWhileInFlight(key, IN_PROGRESS + payloadHash);
+        CompletableFuture<T> response;
+        try {
+            response = work.get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((body, e) -> {
+            renewal.cancel(false);
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            save(bucket, payloadHash, body, cause);
+            if (cause == null) {
+                result.complete(body);
+                return;
+            }
+            result.completeExceptionally(cause);
+        });
+    }
+
+    /**
+     * @return 이미 보관된 값. 비어 있으면 처리 중 표시를 남겼으므로 이 요청이 실행한다.
+     */
+    private Optional<String> claim(RBucket<String> bucket, String payloadHash) {
+        try {
+            if (bucket.trySet(IN_PROGRESS + payloadHash, inProgressMillis, TimeUnit.MILLISECONDS)) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(bucket.get());
+        } catch (RuntimeException e) {
+            log.warn("Idempotency-Key 를 Redis 에서 확인하지 못해 요청을 거절합니다.", e);
+            throw new PayException(ErrorCode.IDEMPOTENCY_KEY_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * 연장 스크립트는 값이 아직 이 요청의 처리 중 표시일 때만 만료 시간을 늘리므로, 응답을 보관한 뒤에 늦게 실행되어도
+     * 보관한 응답의 ttl 을 줄이지 않는다.
+     */
+    private ScheduledFuture<?> renewWhileInFlight(String key, String marker) {
+        long period = Math.max(1, inProgressMillis / 3);
+        return scheduler.scheduleAtFixedRate(() -> renew(key, marker), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    void renew(String key, String marker) {
+        try {
+            redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, RENEW_SCRIPT,
+                    RScript.ReturnType.INTEGER, List.of(key), marker, String.valueOf(inProgressMillis));
+        } catch (RuntimeException e) {
+            log.warn("Idempotency-Key 의 처리 중 표시를 연장하지 못했습니다. key: {}", key, e);
+        }
+    }
+
+    private <T> void replay(String stored, String payloadHash, Class<T> type, CompletableFuture<T> result) {
+        if (!stored.startsWith(payloadHash, 1)) {
+            result.completeExceptionally(new PayException(ErrorCode.IDEMPOTENCY_KEY_MISMATCH));
+            return;
+        }
+        String value = stored.substring(1 + HASH_LENGTH);
+        if (stored.startsWith(SUCCESS)) {
+            try {
+                result.complete(objectMapper.readValue(value, type));
+            } catch (JsonProcessingException e) {
+                result.completeExceptionally(e);
+            }
+            return;
+        }
+        if (stored.startsWith(FAILURE)) {
+            result.completeExceptionally(new PayException(ErrorCode.valueOf(value)));
+            return;
+        }
+        result.completeExceptionally(new PayException(ErrorCode.IDEMPOTENCY_KEY_IN_USE));
+    }
+
+    private void save(RBucket<String> bucket, String payloadHash, Object body, Throwable cause) {
+        try {
+            if (cause == null) {
+                bucket.set(SUCCESS + payloadHash + objectMapper.writeValueAsString(body),
+                        ttlMillis, TimeUnit.MILLISECONDS);
+            } else if (cause instanceof PayException e && !RETRYABLE_ERRORS.contains(e.getErrorCode())) {
+                bucket.set(FAILURE + payloadHash + e.getErrorCode().name(), ttlMillis, TimeUnit.MILLISECONDS);
+            } else {
+                bucket.delete();
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Idempotency-Key 의 응답을 보관하지 못했습니다.", e);
+        }
+    }
+
+    /**
+     * @return 요청 본문을 JSON 으로 바꾼 값의 SHA-256, 16진수 64 자
+     */
+    private String hash(Object payload) {
+        try {
+            byte[] json = objectMapper.writeValueAsString(payload).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("요청 본문의 해시를 구하지 못했습니다.", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private record InFlight(String payloadHash, CompletableFuture<?> result) {
+    }
+}
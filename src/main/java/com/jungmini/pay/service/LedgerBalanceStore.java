@@ -0,0 +1,103 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.LedgerEntry;
+import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.LedgerEntryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * 입출금을 원장(LedgerEntry)에 추가만 하고 계좌 행의 잔액은 바꾸지 않는다.
+ * 잔액은 LedgerCompactor 가 굴린 스냅샷에 그 뒤의 원장 항목을 더해 구한다.
+ *
+ * 입금은 INSERT 한 번이라 수신 계좌 행을 두고 경쟁하지 않는다.
+ * 출금은 잔액을 읽고 확인한 뒤 추가하므로, 같은 계좌의 출금이 계좌 잠금으로 줄을 서는 동시성 모드에서만 쓸 수 있다.
+ * 서킷 브레이커가 열려 행 잠금으로 바꾼 노드와 Redis 잠금을 잡은 노드는 서로를 막지 못하므로,
+ * 출금은 잔액을 읽기 전에 계좌 행을 잠가 두 노드의 출금도 DB 에서 줄을 세운다.
+ * 그 사이 들어온 입금은 잔액을 늘리기만 하므로 확인한 조건이 깨지지 않는다.
+ * row 에서 쌓인 계좌 행의 잔액은 LedgerCompactor 가 시작할 때 스냅샷으로 옮긴다.
+ */
+@Component
+@ConditionalOnProperty(value = "account.balance-store", havingValue = "ledger")
+public class LedgerBalanceStore implements BalanceStore {
+
+    private static final Set<String> UNLOCKED_MODES = Set.of("optimistic", "conditional-update");
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final AccountRepository accountRepository;
+
+    public LedgerBalanceStore(LedgerEntryRepository ledgerEntryRepository,
+                              AccountRepository accountRepository,
+                              @Value("${account.concurrency-mode:redis-lock}") String concurrencyMode) {
+        if (UNLOCKED_MODES.contains(concurrencyMode)) {
+            throw new IllegalStateException("account.balance-store=ledger 는 계좌를 잠그지 않는 "
+                    + concurrencyMode + " 모드와 함께 쓸 수 없습니다.");
+        }
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.accountRepository = accountRepository;
+    }
+
+    /**
+     * 원장 항목 번호는 INSERT 하기 전에 정해지므로, 추가한 항목이 잔액에 들어가도록 먼저 flush 한다.
+     */
+    @Override
+    public long credit(String accountNumber, long amount) {
+        ledgerEntryRepository.saveAndFlush(LedgerEntry.of(accountNumber, amount));
+        return ledgerEntryRepository.findBalance(accountNumber);
+    }
+
+    @Override
+    public boolean debit(String accountNumber, long amount) {
+        accountRepository.findAllForUpdate(List.of(accountNumber));
+        if (ledgerEntryRepository.findBalance(accountNumber) < amount) {
+            return false;
+        }
+
+        ledgerEntryRepository.save(LedgerEntry.of(accountNumber, -amount));
+        return true;
+    }
+
+    @Override
+    public void load(Account account) {
+        account.loadBalance(ledgerEntryRepository.findBalance(account.getAccountNumber()));
+    }
+
+    /**
+     * 원장 항목은 잔액을 모두 확인한 뒤 한 번에 추가한다. 출금할 계좌 행은 계좌 번호 순서로 먼저 잠근다.
+     */
+    @Override
+    public Map<String, Long> apply(SortedMap<String, Long> balanceDeltas) {
+        List<String> debitAccountNumbers = balanceDeltas.entrySet().stream()
+                .filter(delta -> delta.getValue() < 0)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!debitAccountNumbers.isEmpty()) {
+            accountRepository.findAllForUpdate(debitAccountNumbers);
+        }
+
+        Map<String, Long> balances = new HashMap<>();
+        List<LedgerEntry> entries = new ArrayList<>();
+        balanceDeltas.forEach((accountNumber, delta) -> {
+            long balance = ledgerEntryRepository.findBalance(accountNumber) + delta;
+            if (balance < 0) {
+                throw new PayException(ErrorCode.LACK_OF_BALANCE);
+            }
+            balances.put(accountNumber, balance);
+            entries.add(LedgerEntry.of(accountNumber, delta));
+        });
+
+        ledgerEntryRepository.saveAll(entries);
+        return balances;
+    }
+}
@@ -0,0 +1,156 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.domain.BalanceSnapshot;
+import com.jungmini.pay.repository.BalanceSnapshotRepository;
+import com.jungmini.pay.repository.LedgerEntryRepository;
+import com.jungmini.pay.repository.LedgerTail;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * compact-millis 마다 스냅샷 뒤에 원장 항목이 min-entries 개 이상 쌓인 계좌의 스냅샷을 굴린다.
+ *
+ * 원장 항목 번호는 커밋하기 전에 정해지므로, 번호가 작은 항목이 더 늦게 커밋될 수 있다.
+ * 그래서 지난번에 본 마지막 항목 번호까지만 굴린다. compact-millis 는 가장 긴 트랜잭션과 서버 사이 시계 차이를 더한 것보다 길어야 한다.
+ *
+ * 항목은 트랜잭션 밖에서 모으므로, 그 사이 다른 서버가 굴린 스냅샷에는 같은 항목을 다시 더하지 않고 다음 주기로 넘긴다.
+ * 시작할 때는 row 에서 쌓인 계좌 행의 잔액을 스냅샷으로 옮겨 ledger 로 바꿔도 잔액이 0 이 되지 않게 한다.
+ * ledger 에서 row 로 돌아갔다가 다시 ledger 로 바꾸면 그 사이 row 에서 바뀐 계좌 행의 잔액으로 스냅샷을 다시 만든다.
+ * row 는 원장 항목을 읽지 않으므로, ledger 에서 row 로 돌아갈 때 원장 잔액을 계좌 행으로 옮기는 일은 운영자가 해야 한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "account.balance-store", havingValue = "ledger")
+public class LedgerCompactor {
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long compactMillis;
+    private final long minEntries;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+    private long boundary;
+
+    public LedgerCompactor(LedgerEntryRepository ledgerEntryRepository,
+                           BalanceSnapshotRepository balanceSnapshotRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${account.ledger.compact-millis:10000}") long compactMillis,
+                           @Value("${account.ledger.min-entries:100}") long minEntries,
+                           @Value("${account.ledger.batch-size:500}") int batchSize) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.compactMillis = compactMillis;
+        this.minEntries = minEntries;
+        this.batchSize = batchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        seed();
+        scheduler.scheduleWithFixedDelay(this::compact, compactMillis, compactMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 여러 서버가 동시에 시작해 다른 서버가 먼저 옮겼다면 그 서버의 결과를 쓴다.
+     */
+    private void seed() {
+        long lastEntryId = ledgerEntryRepository.findLastEntryId();
+        int reseeded = balanceSnapshotRepository.reseedChangedAccounts(lastEntryId);
+        if (reseeded > 0) {
+            log.warn("row 에서 잔액이 바뀐 계좌 {}개의 원장 스냅샷을 계좌 잔액으로 다시 만들었습니다.", reseeded);
+        }
+        try {
+            int seeded = balanceSnapshotRepository.seedFromAccounts(lastEntryId);
+            if (seeded > 0) {
+                log.info("계좌 {}개의 잔액을 원장 스냅샷으로 옮겼습니다.", seeded);
+            }
+        } catch (DataIntegrityViolationException e) {
+            log.info("다른 서버가 계좌 잔액을 원장 스냅샷으로 옮겼습니다.");
+        }
+    }
+
+    /**
+     * 다른 서버가 먼저 굴렸거나 DB 가 실패하면 다음 주기에 다시 굴린다.
+     */
+    void compact() {
+        try {
+            long nextBoundary = ledgerEntryRepository.findLastEntryId();
+            // 굴린 계좌는 다시 조회되지 않으므로 남은 계좌가 batch-size 보다 적을 때까지 반복한다.
+            int rolled;
+            do {
+                rolled = roll();
+            } while (rolled == batchSize);
+            boundary = nextBoundary;
+        } catch (RuntimeException e) {
+            log.warn("원장 스냅샷을 굴리지 못했습니다.", e);
+        }
+    }
+
+    /**
+     * @return 스냅샷을 굴린 계좌 수
+     */
+    private int roll() {
+        List<LedgerTail> tails = ledgerEntryRepository.findTails(boundary, minEntries, PageRequest.of(0, batchSize));
+        if (tails.isEmpty()) {
+            return 0;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, BalanceSnapshot> snapshots = balanceSnapshotRepository.findAllById(tails.stream()
+                            .map(LedgerTail::accountNumber)
+                            .toList()).stream()
+                    .collect(Collectors.toMap(BalanceSnapshot::getAccountNumber, Function.identity()));
+            balanceSnapshotRepository.saveAll(tails.stream()
+                    .map(tail -> {
+                        BalanceSnapshot snapshot = snapshots.getOrDefault(tail.accountNumber(),
+                                BalanceSnapshot.empty(tail.accountNumber()));
+                        return rolled(snapshot, tail);
+                    })
+                    .flatMap(Optional::stream)
+                    .toList());
+        });
+        return tails.size();
+    }
+
+    /**
+     * 항목을 모은 뒤 다른 서버가 스냅샷을 굴렸다면 굴리지 않는다.
+     * 이 트랜잭션에서 읽은 뒤 바뀌는 경우는 BalanceSnapshot 의 @Version 이 막는다.
+     */
+    private static Optional<BalanceSnapshot> rolled(BalanceSnapshot snapshot, LedgerTail tail) {
+        if (snapshot.getLastEntryId() != tail.baseEntryId()) {
+            return Optional.empty();
+        }
+
+        snapshot.roll(tail.amount(), tail.lastEntryId());
+        return Optional.of(snapshot);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
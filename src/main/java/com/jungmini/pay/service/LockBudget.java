@@ -0,0 +1,144 @@
+package com.jungmini.pay.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 최근 잠금 점유 시간으로 잠금 대기 시간과 임대 시간을 정한다.
+ * 대기 시간은 앞에 줄 선 요청이 모두 끝날 만큼, 임대 시간은 거의 모든 작업이 끝날 만큼만 준다.
+ * 두 값 모두 설정한 범위를 벗어나지 않는다.
+ * 대기 시간은 min-wait-millis 밑으로 내려가지 않으므로, 점유 시간이 짧을 때 대기 시간을 줄이려면 min-wait-millis 를 낮춘다.
+ */
+@Component
+public class LockBudget {
+
+    /**
+     * 한 계좌만 잠그는 충전과 두 계좌를 잠그는 송금은 점유 시간이 달라서 따로 통계를 낸다.
+     */
+    public enum Operation {
+        SINGLE, MULTI;
+
+        public static Operation of(int accountCount) {
+            return accountCount > 1 ? MULTI : SINGLE;
+        }
+    }
+
+    /**
+     * 다시 시도하는 간격은 retry-millis 의 16배까지만 늘린다.
+     */
+    private static final int MAX_RETRY_SHIFT = 4;
+
+    private final AccountAdmission accountAdmission;
+    private final long minWaitMillis;
+    private final long maxWaitMillis;
+    private final long minLeaseMillis;
+    private final long maxLeaseMillis;
+    private final int leaseFactor;
+    private final long retryMillis;
+    private final Map<Operation, HoldWindow> holdWindows = new EnumMap<>(Operation.class);
+
+    public LockBudget(AccountAdmission accountAdmission,
+                      @Value("${lock.budget.min-wait-millis:200}") long minWaitMillis,
+                      @Value("${lock.budget.max-wait-millis:5000}") long maxWaitMillis,
+                      @Value("${lock.budget.min-lease-millis:500}") long minLeaseMillis,
+                      @Value("${lock.lease-millis:3000}") long maxLeaseMillis,
+                      @Value("${lock.budget.lease-factor:3}") int leaseFactor,
+                      @Value("${lock.budget.samples:256}") int samples,
+                      @Value("${lock.budget.retry-millis:10}") long retryMillis) {
+        this.accountAdmission = accountAdmission;
+        this.minWaitMillis = minWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.minLeaseMillis = minLeaseMillis;
+        this.maxLeaseMillis = maxLeaseMillis;
+        this.leaseFactor = leaseFactor;
+        this.retryMillis = retryMillis;
+        for (Operation operation : Operation.values()) {
+            holdWindows.put(operation, new HoldWindow(samples));
+        }
+    }
+
+    /**
+     * 앞에 줄 선 요청 수 + 1 만큼 p99 점유 시간을 기다린다.
+     * @param accountNumbers 잠그는 계좌 번호, 가장 붐비는 계좌를 기준으로 한다.
+     */
+    public long waitMillis(Operation operation, Collection<String> accountNumbers) {
+        int ahead = accountNumbers.stream()
+                .mapToInt(accountAdmission::queueDepth)
+                .map(depth -> Math.max(0, depth - 1))
+                .max()
+                .orElse(0);
+        return clamp(p99HoldMillis(operation) * (ahead + 1), minWaitMillis, maxWaitMillis);
+    }
+
+    /**
+     * 워치독이 임대 시간을 연장하므로 짧게 잡아도 느린 작업의 잠금은 풀리지 않는다.
+     * 서버가 죽었을 때 잠금이 남아 있는 시간만 줄어든다.
+     */
+    public long leaseMillis(Operation operation) {
+        return clamp(p99HoldMillis(operation) * leaseFactor, minLeaseMillis, maxLeaseMillis);
+    }
+
+    /**
+     * 여러 계좌를 한 번에 잠그는 스크립트는 대기 없이 실패하므로 대기 시간 안에서 이 간격을 두고 다시 시도한다.
+     * 오래 기다리는 요청이 Redis 를 일정한 간격으로 두드리지 않도록 retry-millis 부터 두 배씩 늘리고,
+     * 같은 계좌를 기다리는 요청이 한꺼번에 다시 시도하지 않도록 절반까지 무작위로 줄인다.
+     * @param attempt 0 부터 시작하는 재시도 순번
+     */
+    public long retryMillis(int attempt) {
+        long backoff = retryMillis << Math.min(attempt, MAX_RETRY_SHIFT);
+        return backoff - ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    public void recordHold(Operation operation, long holdNanos) {
+        holdWindows.get(operation).add(TimeUnit.NANOSECONDS.toMillis(holdNanos));
+    }
+
+    public long p99HoldMillis(Operation operation) {
+        return holdWindows.get(operation).p99();
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * 최근 점유 시간을 고정 크기 원형 버퍼에 모으고, 버퍼가 한 바퀴의 1/8 만큼 바뀔 때마다 p99 를 다시 계산한다.
+     */
+    private static class HoldWindow {
+
+        private final long[] samples;
+        private final int recalculateInterval;
+        private int size;
+        private int next;
+        private int changed;
+        private volatile long p99;
+
+        HoldWindow(int capacity) {
+            this.samples = new long[capacity];
+            this.recalculateInterval = Math.max(1, capacity / 8);
+        }
+
+        synchronized void add(long holdMillis) {
+            samples[next] = holdMillis;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+            if (++changed >= recalculateInterval || size < recalculateInterval) {
+                changed = 0;
+                long[] sorted = Arrays.copyOf(samples, size);
+                Arrays.sort(sorted);
+                p99 = sorted[(int) Math.ceil(size * 0.99) - 1];
+            }
+        }
+
+        long p99() {
+            return p99;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.jungmini.pay.service;
+
+import java.util.OptionalLong;
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드가 잡고 있는 잠금을 AccountService 에 전달한다.
+ * 서비스 메서드 시그니처를 바꾸지 않고도 펜싱 토큰을 엔티티까지 넘길 수 있다.
+ */
+public final class LockContext {
+
+    private static final ThreadLocal<LockHandle> CURRENT = new ThreadLocal<>();
+
+    private LockContext() {
+    }
+
+    public static <T> T callWith(LockHandle lock, Supplier<T> command) {
+        LockHandle previous = CURRENT.get();
+        CURRENT.set(lock);
+        try {
+            return command.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 잠금 안에서 실행 중인지만 알려 준다. 중첩된 @AccountLock 메서드를 다시 잠글지는 어떤 계좌를 잠갔는지까지 보는
+     * AccountLockAspect 가 정한다.
+     */
+    public static boolean isLocked() {
+        return CURRENT.get() != null;
+    }
+
+    public static OptionalLong fencingToken(String accountNumber) {
+        LockHandle lock = CURRENT.get();
+        return lock == null ? OptionalLong.empty() : lock.fencingToken(accountNumber);
+    }
+
+    public static boolean isOptimistic() {
+        LockHandle lock = CURRENT.get();
+        return lock != null && lock.optimistic();
+    }
+}
@@ -0,0 +1,29 @@
+package com.jungmini.pay.service;
+
+import java.util.OptionalLong;
+
+/**
+ * 획득한 계좌 잠금을 나타내는 핸들
+ * try-with-resources 블록이 끝나는 즉시 잠금을 해제한다.
+ */
+public interface LockHandle extends AutoCloseable {
+
+    @Override
+    void close();
+
+    /**
+     * 잠금을 얻을 때마다 단조 증가하는 펜싱 토큰
+     * 토큰을 발급하지 않는 잠금은 비어 있는 값을 돌려준다.
+     */
+    default OptionalLong fencingToken(String accountNumber) {
+        return OptionalLong.empty();
+    }
+
+    /**
+     * 잠그지 않고 버전 충돌로 동시 변경을 감지하는 방식이면 true
+     * 출금하는 쪽은 계좌 버전을 올려 다른 요청과 충돌하게 해야 한다.
+     */
+    default boolean optimistic() {
+        return false;
+    }
+}
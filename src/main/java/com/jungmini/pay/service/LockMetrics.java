@@ -0,0 +1,169 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.PayException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 계좌 잠금의 대기 시간, 점유 시간, 실패 횟수를 기록하고 경쟁이 심한 계좌를 추적한다.
+ * 잠금에 실패했거나 오래 기다린 계좌를 경쟁 계좌로 센다.
+ */
+@Component
+public class LockMetrics {
+
+    private final Timer acquiredWaitTimer;
+    private final Timer failedWaitTimer;
+    private final Timer holdTimer;
+    private final Counter failCounter;
+    private final int hotKeyCapacity;
+    private final long contendedNanos;
+    private final Map<String, Long> contention = new ConcurrentHashMap<>();
+
+    public LockMetrics(MeterRegistry meterRegistry,
+                       @Value("${lock.metrics.hot-key-capacity:100}") int hotKeyCapacity,
+                       @Value("${lock.metrics.contended-millis:10}") long contendedMillis) {
+        this.acquiredWaitTimer = waitTimer(meterRegistry, "acquired");
+        this.failedWaitTimer = waitTimer(meterRegistry, "failed");
+        this.holdTimer = Timer.builder("account.lock.hold")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failCounter = meterRegistry.counter("account.lock.fail");
+        this.hotKeyCapacity = hotKeyCapacity;
+        this.contendedNanos = TimeUnit.MILLISECONDS.toNanos(contendedMillis);
+    }
+
+    /**
+     * 잠금 획득에 걸린 시간을 기록하고, 핸들을 닫을 때 점유 시간을 기록한다.
+     * @param accountNumbers 잠그는 계좌 번호
+     * @param acquire 실제로 잠금을 얻는 작업
+     */
+    public LockHandle record(Collection<String> accountNumbers, Supplier<LockHandle> acquire) {
+        long start = System.nanoTime();
+        LockHandle lock;
+        try {
+            lock = acquire.get();
+        } catch (PayException e) {
+            failed(accountNumbers, start);
+            throw e;
+        }
+
+        return acquired(accountNumbers, start, lock);
+    }
+
+    /**
+     * 비동기로 얻는 잠금도 요청 시점부터 잠금이 완료된 시점까지를 대기 시간으로 기록한다.
+     */
+    public CompletableFuture<LockHandle> recordAsync(Collection<String> accountNumbers,
+                                                     Supplier<CompletableFuture<LockHandle>> acquire) {
+        long start = System.nanoTime();
+        return acquire.get().handle((lock, e) -> {
+            if (e == null) {
+                return acquired(accountNumbers, start, lock);
+            }
+
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause instanceof PayException) {
+                failed(accountNumbers, start);
+            }
+            throw e instanceof CompletionException completionException
+                    ? completionException : new CompletionException(e);
+        });
+    }
+
+    private void failed(Collection<String> accountNumbers, long start) {
+        failedWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        failCounter.increment();
+        accountNumbers.stream().distinct().forEach(this::contended);
+    }
+
+    private LockHandle acquired(Collection<String> accountNumbers, long start, LockHandle lock) {
+        long acquired = System.nanoTime();
+        long waitNanos = acquired - start;
+        acquiredWaitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        if (waitNanos >= contendedNanos) {
+            accountNumbers.stream().distinct().forEach(this::contended);
+        }
+
+        return new LockHandle() {
+            @Override
+            public void close() {
+                try {
+                    lock.close();
+                } finally {
+                    holdTimer.record(System.nanoTime() - acquired, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public OptionalLong fencingToken(String accountNumber) {
+                return lock.fencingToken(accountNumber);
+            }
+        };
+    }
+
+    /**
+     * @param limit 돌려받을 최대 계좌 수
+     * @return 경쟁 횟수가 많은 순서로 정렬된 계좌
+     */
+    public List<HotKey> hotKeys(int limit) {
+        return contention.entrySet().stream()
+                .map(entry -> new HotKey(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(HotKey::getCount).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * 추적하는 계좌 수가 가득 차면 가장 적게 경쟁한 계좌를 내보내고, 새 계좌는 그 횟수를 이어받는다 (Space-Saving).
+     * 메모리는 hotKeyCapacity 로 제한되고, 자주 경쟁하는 계좌는 목록에서 밀려나지 않는다.
+     */
+    private void contended(String accountNumber) {
+        if (contention.computeIfPresent(accountNumber, (key, count) -> count + 1) != null) {
+            return;
+        }
+
+        synchronized (contention) {
+            if (contention.size() < hotKeyCapacity) {
+                contention.merge(accountNumber, 1L, Long::sum);
+                return;
+            }
+
+            contention.entrySet().stream()
+                    .min(Map.Entry.comparingByValue())
+                    .ifPresent(min -> {
+                        contention.remove(min.getKey());
+                        contention.merge(accountNumber, min.getValue() + 1, Long::sum);
+                    });
+        }
+    }
+
+    private static Timer waitTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("account.lock.wait")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class HotKey {
+        private final String accountNumber;
+        private final long count;
+    }
+}
@@ -1,9 +1,19 @@
 package com.jungmini.pay.service;
 
+import java.util.Collection;
+
 public interface LockService {
 
-    void lock(String accountNumber);
+    /**
+     * 이미 잠겨 있으면 구현이 정한 대기 시간 동안 기다리고, 그 안에 얻지 못하면 ACCOUNT_LOCK_FAIL 로 실패한다.
+     */
+    LockHandle lock(String accountNumber);
 
-    void unlock(String accountNumber);
+    /**
+     * 여러 계좌를 한 번에 잠근다.
+     * 계좌 번호를 정해진 순서로 정렬해서 잠그기 때문에 교착 상태가 발생하지 않는다.
+     * 하나라도 이미 잠겨 있으면 구현이 정한 대기 시간 동안 다시 시도하고, 그 안에 모두 얻지 못하면 ACCOUNT_LOCK_FAIL 로 실패한다.
+     */
+    LockHandle lockAll(Collection<String> accountNumbers);
 
 }
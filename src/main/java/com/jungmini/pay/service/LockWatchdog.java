@@ -0,0 +1,72 @@
+package com.jungmini.pay.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잠금의 임대 시간을 주기적으로 연장한다.
+ * 짧은 임대 시간으로 장애 시 빠르게 잠금을 회수하면서도, GC 나 느린 커밋 중에 잠금이 풀리지 않게 한다.
+ */
+@Slf4j
+@Component
+public class LockWatchdog {
+
+    private static final String RENEW_SCRIPT =
+            "local renewed = 0; " +
+            "for i, key in ipairs(KEYS) do " +
+                "if redis.call('hexists', key, ARGV[1]) == 1 then " +
+                    "redis.call('pexpire', key, ARGV[2]); " +
+                    "renewed = renewed + 1; " +
+                "end; " +
+            "end; " +
+            "return renewed;";
+
+    private final RedissonClient redissonClient;
+    private final ScheduledExecutorService scheduler;
+
+    public LockWatchdog(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lock-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 임대 시간의 1/3 마다 연장한다. 돌려받은 future 를 취소하면 연장을 멈춘다.
+     * @param leaseMillis 잠금을 잡을 때 준 임대 시간, 연장할 때도 같은 시간을 준다.
+     */
+    public ScheduledFuture<?> watch(List<Object> keys, String owner, long leaseMillis) {
+        long period = Math.max(1, leaseMillis / 3);
+        return scheduler.scheduleAtFixedRate(() -> renew(keys, owner, leaseMillis),
+                period, period, TimeUnit.MILLISECONDS);
+    }
+
+    void renew(List<Object> keys, String owner, long leaseMillis) {
+        try {
+            Long renewed = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                    RENEW_SCRIPT, RScript.ReturnType.INTEGER, keys, owner, String.valueOf(leaseMillis));
+            if (renewed == null || renewed < keys.size()) {
+                log.warn("잠금 임대 시간 연장 실패 keys: {}", keys);
+            }
+        } catch (Exception e) {
+            log.warn("잠금 임대 시간 연장 중 오류 keys: {}", keys, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,43 @@
+package com.jungmini.pay.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 분산 락을 잡은 상태에서 작업을 실행한다.
+ * 작업이 펜싱 토큰을 사용할 수 있도록 잡은 잠금을 LockContext 에 둔다.
+ * 잠금 대기 시간과 점유 시간은 LockMetrics 에 기록한다.
+ * Redis 서킷 브레이커가 열려 있으면 Redis 대신 계좌 행 잠금을 잡는다.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "account.concurrency-mode", havingValue = "redis-lock", matchIfMissing = true)
+public class LockingAccountExecutor implements AccountExecutor {
+
+    private final LockService lockService;
+    private final LockMetrics lockMetrics;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    @Override
+    public <T> T execute(String accountNumber, Supplier<T> command) {
+        try (LockHandle lock = lockMetrics.record(List.of(accountNumber), () -> currentLockService().lock(accountNumber))) {
+            return LockContext.callWith(lock, command);
+        }
+    }
+
+    @Override
+    public <T> T executeAll(Collection<String> accountNumbers, Supplier<T> command) {
+        try (LockHandle lock = lockMetrics.record(accountNumbers, () -> currentLockService().lockAll(accountNumbers))) {
+            return LockContext.callWith(lock, command);
+        }
+    }
+
+    private LockService currentLockService() {
+        return circuitBreaker.allowRedis() ? lockService : circuitBreaker.rowLockService();
+    }
+}
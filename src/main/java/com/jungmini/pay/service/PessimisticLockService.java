@@ -0,0 +1,66 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Redis 대신 계좌 행 잠금(PESSIMISTIC_WRITE)으로 동시성을 제어한다. db-lock 프로필에서 사용한다.
+ *
+ * 잠금을 잡을 때 트랜잭션을 시작하고 핸들을 닫을 때 커밋한다.
+ * AccountService 의 @Transactional 메서드는 이 트랜잭션에 참여하기 때문에
+ * 행 잠금은 커밋과 동시에 풀리고, 잠금 해제와 커밋 사이에 틈이 생기지 않는다.
+ */
+@Primary
+@Profile("db-lock")
+@Service
+@RequiredArgsConstructor
+public class PessimisticLockService implements LockService {
+
+    private final AccountRepository accountRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public LockHandle lock(String accountNumber) {
+        return lockAll(List.of(accountNumber));
+    }
+
+    @Override
+    public LockHandle lockAll(Collection<String> accountNumbers) {
+        TransactionStatus status = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+
+        try {
+            accountRepository.findAllForUpdate(accountNumbers.stream().distinct().sorted().toList());
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            if (e instanceof PessimisticLockingFailureException) {
+                throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+            }
+            throw e;
+        }
+
+        return () -> complete(status);
+    }
+
+    /**
+     * 작업 중 예외가 발생해서 롤백 표시가 된 트랜잭션은 커밋하지 않고 롤백한다.
+     */
+    private void complete(TransactionStatus status) {
+        if (status.isRollbackOnly()) {
+            transactionManager.rollback(status);
+            return;
+        }
+        transactionManager.commit(status);
+    }
+}
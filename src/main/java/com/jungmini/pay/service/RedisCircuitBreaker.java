@@ -0,0 +1,146 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Redis 잠금 호출의 오류와 지연을 보고, Redis 가 느리거나 응답하지 않으면 계좌 행 잠금으로 전환한다.
+ *
+ * 최근 호출 중 실패하거나 느린 호출의 비율이 기준을 넘으면 열리고(OPEN), 열려 있는 동안은 행 잠금을 쓴다.
+ * 정해진 시간이 지나면 요청 하나만 Redis 로 보내 보고(HALF_OPEN), 성공하면 다시 닫는다(CLOSED).
+ *
+ * 서킷 브레이커는 노드마다 따로 열리므로 행 잠금을 잡은 노드와 Redis 잠금을 잡은 노드는 서로를 막지 못한다.
+ * 대신 출금은 송금 계좌 행을 고치거나(row) 잠근 뒤(ledger) 잔액을 확인하므로, 두 노드의 출금은 DB 행 잠금에서 줄을 선다.
+ */
+@Slf4j
+@Component
+public class RedisCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final LockService rowLockService;
+    private final boolean[] outcomes;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final Map<State, Runnable> transitionCounters;
+    private final AtomicInteger stateGauge;
+
+    private State state = State.CLOSED;
+    private int calls;
+    private int next;
+    private int failures;
+    private long stateChangedAt;
+
+    public RedisCircuitBreaker(MeterRegistry meterRegistry,
+                               AccountRepository accountRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${lock.circuit-breaker.window:20}") int window,
+                               @Value("${lock.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                               @Value("${lock.circuit-breaker.failure-rate-percent:50}") int failureRatePercent,
+                               @Value("${lock.circuit-breaker.slow-call-millis:200}") long slowCallMillis,
+                               @Value("${lock.circuit-breaker.open-millis:5000}") long openMillis) {
+        this.rowLockService = new PessimisticLockService(accountRepository, transactionManager);
+        this.outcomes = new boolean[window];
+        this.minimumCalls = minimumCalls;
+        this.failureRatePercent = failureRatePercent;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.transitionCounters = Map.of(
+                State.CLOSED, meterRegistry.counter("account.lock.circuit.transition", "to", "closed")::increment,
+                State.OPEN, meterRegistry.counter("account.lock.circuit.transition", "to", "open")::increment,
+                State.HALF_OPEN, meterRegistry.counter("account.lock.circuit.transition", "to", "half_open")::increment);
+        this.stateGauge = meterRegistry.gauge("account.lock.circuit.state", new AtomicInteger());
+    }
+
+    /**
+     * 닫혀 있으면 Redis 를 쓴다. 열린 지 open-millis 가 지나면 요청 하나만 Redis 로 보내 본다.
+     * 시험 요청이 결과를 알려주지 않고 open-millis 가 지나면 다음 요청으로 다시 시험한다.
+     * @return false 면 Redis 대신 rowLockService() 를 써야 한다.
+     */
+    public synchronized boolean allowRedis() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (System.nanoTime() - stateChangedAt < openNanos) {
+            return false;
+        }
+        transition(State.HALF_OPEN);
+        return true;
+    }
+
+    /**
+     * @param elapsedNanos 다른 요청의 잠금을 기다린 시간을 뺀 Redis 왕복 시간
+     */
+    public synchronized void recordSuccess(long elapsedNanos) {
+        boolean slow = elapsedNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            transition(slow ? State.OPEN : State.CLOSED);
+            return;
+        }
+        record(slow);
+    }
+
+    public synchronized void recordFailure() {
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+            return;
+        }
+        record(true);
+    }
+
+    public LockService rowLockService() {
+        return rowLockService;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 열려 있는 동안 들어온 결과는 이미 Redis 로 보낸 요청의 결과이므로 다시 세지 않는다.
+     */
+    private void record(boolean failed) {
+        if (state != State.CLOSED) {
+            return;
+        }
+
+        if (calls == outcomes.length && outcomes[next]) {
+            failures--;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+        calls = Math.min(calls + 1, outcomes.length);
+
+        if (calls >= minimumCalls && failures * 100 >= failureRatePercent * calls) {
+            transition(State.OPEN);
+        }
+    }
+
+    private void transition(State to) {
+        log.warn("Redis 잠금 서킷 브레이커 상태 변경 {} -> {}", state, to);
+        state = to;
+        stateChangedAt = System.nanoTime();
+        stateGauge.set(to.ordinal());
+        transitionCounters.get(to).run();
+        if (to == State.CLOSED) {
+            calls = 0;
+            next = 0;
+            failures = 0;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.jungmini.pay.service;
+
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 계좌의 잠금을 Lua 스크립트로 한 번의 왕복에 잡고 푼다. RedissonLockService 가 lockAll 에서 쓴다.
+ * 잠그는 스크립트의 오류와 응답 시간은 서킷 브레이커에 알린다.
+ */
+@RequiredArgsConstructor
+class RedisLockAllScript {
+
+    /**
+     * 모든 키가 비어 있거나 현재 스레드 소유일 때만 한 번에 잠근다.
+     * Redisson RLock 과 같은 해시 구조를 사용하기 때문에 lock() 으로 잡은 잠금과 서로 배타적이다.
+     * KEYS 앞쪽 절반은 잠금 키, 뒤쪽 절반은 펜싱 토큰 키이며 잠금에 성공하면 계좌별 토큰을 돌려준다.
+     */
+    private static final String LOCK_ALL_SCRIPT =
+            "local n = tonumber(ARGV[3]); " +
+            "for i = 1, n do " +
+                "if redis.call('exists', KEYS[i]) == 1 and redis.call('hexists', KEYS[i], ARGV[1]) == 0 then " +
+                    "return {}; " +
+                "end; " +
+            "end; " +
+            "local tokens = {}; " +
+            "for i = 1, n do " +
+                "redis.call('hincrby', KEYS[i], ARGV[1], 1); " +
+                "redis.call('pexpire', KEYS[i], ARGV[2]); " +
+                "tokens[i] = redis.call('incr', KEYS[n + i]); " +
+            "end; " +
+            "return tokens;";
+
+    /**
+     * 현재 스레드가 소유한 키만 해제하고, RLock 으로 대기 중인 요청을 깨우기 위해 해제 메시지를 발행한다.
+     */
+    private static final String UNLOCK_ALL_SCRIPT =
+            "for i, key in ipairs(KEYS) do " +
+                "if redis.call('hexists', key, ARGV[1]) == 1 then " +
+                    "local counter = redis.call('hincrby', key, ARGV[1], -1); " +
+                    "if counter > 0 then " +
+                        "redis.call('pexpire', key, ARGV[2]); " +
+                    "else " +
+                        "redis.call('del', key); " +
+                        "redis.call('publish', 'redisson_lock__channel:{' .. key .. '}', 0); " +
+                    "end; " +
+                "end; " +
+            "end; " +
+            "return 1;";
+
+    private final RedissonClient redissonClient;
+    private final LockBudget lockBudget;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    /**
+     * 이미 잠긴 키가 있으면 deadline 까지 간격을 늘려 가며 다시 시도한다.
+     * @return 계좌 번호 순서의 펜싱 토큰, 잠그지 못했으면 빈 목록
+     */
+    List<Object> lock(List<String> sortedAccountNumbers, String owner, long leaseMillis, long deadline)
+            throws InterruptedException {
+        List<Object> tokens = eval(sortedAccountNumbers, owner, leaseMillis);
+        for (int attempt = 0; !isLocked(tokens) && System.nanoTime() < deadline; attempt++) {
+            Thread.sleep(retryDelayMillis(attempt, deadline));
+            tokens = eval(sortedAccountNumbers, owner, leaseMillis);
+        }
+        return tokens;
+    }
+
+    /**
+     * 다시 시도할 때도 스레드를 재우지 않고 지연 실행기로 다음 시도를 예약한다.
+     */
+    CompletableFuture<List<Object>> lockAsync(List<String> sortedAccountNumbers, String owner,
+                                              long leaseMillis, long deadline) {
+        return evalAsync(sortedAccountNumbers, owner, leaseMillis, deadline, 0);
+    }
+
+    void unlock(List<Object> keys, String owner, long leaseMillis) {
+        getScript().eval(RScript.Mode.READ_WRITE, UNLOCK_ALL_SCRIPT,
+                RScript.ReturnType.BOOLEAN, keys, owner, String.valueOf(leaseMillis));
+    }
+
+    static boolean isLocked(List<Object> tokens) {
+        return tokens != null && !tokens.isEmpty();
+    }
+
+    /**
+     * 스크립트는 기다리지 않고 바로 응답하므로 걸린 시간을 그대로 Redis 응답 시간으로 본다.
+     */
+    private List<Object> eval(List<String> sortedAccountNumbers, String owner, long leaseMillis) {
+        long start = System.nanoTime();
+        List<Object> tokens;
+        try {
+            tokens = getScript().eval(RScript.Mode.READ_WRITE, LOCK_ALL_SCRIPT,
+                    RScript.ReturnType.MULTI, RedisLockKeys.getLockAllKeys(sortedAccountNumbers), owner,
+                    String.valueOf(leaseMillis), String.valueOf(sortedAccountNumbers.size()));
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure();
+            throw e;
+        }
+        circuitBreaker.recordSuccess(System.nanoTime() - start);
+        return tokens;
+    }
+
+    private CompletableFuture<List<Object>> evalAsync(List<String> sortedAccountNumbers, String owner,
+                                                      long leaseMillis, long deadline, int attempt) {
+        long start = System.nanoTime();
+        return getScript().<List<Object>>evalAsync(RScript.Mode.READ_WRITE, LOCK_ALL_SCRIPT,
+                        RScript.ReturnType.MULTI, RedisLockKeys.getLockAllKeys(sortedAccountNumbers), owner,
+                        String.valueOf(leaseMillis), String.valueOf(sortedAccountNumbers.size()))
+                .toCompletableFuture()
+                .whenComplete((tokens, e) -> {
+                    if (e != null) {
+                        circuitBreaker.recordFailure();
+                    } else {
+                        circuitBreaker.recordSuccess(System.nanoTime() - start);
+                    }
+                })
+                .thenCompose(tokens -> isLocked(tokens) || System.nanoTime() >= deadline
+                        ? CompletableFuture.completedFuture(tokens)
+                        : CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(
+                                        retryDelayMillis(attempt, deadline), TimeUnit.MILLISECONDS))
+                                .thenCompose(retry -> evalAsync(sortedAccountNumbers, owner, leaseMillis,
+                                        deadline, attempt + 1)));
+    }
+
+    /**
+     * 대기 시간이 끝나는 시점을 넘겨 기다리지 않는다.
+     */
+    private long retryDelayMillis(int attempt, long deadline) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        return Math.max(0, Math.min(lockBudget.retryMillis(attempt), remainingMillis));
+    }
+
+    private RScript getScript() {
+        return redissonClient.getScript(StringCodec.INSTANCE);
+    }
+}
@@ -0,0 +1,50 @@
+package com.jungmini.pay.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 계좌 잠금과 펜싱 토큰의 Redis 키. RedissonLockService 와 RedisLockAllScript 가 같은 키를 써야 서로의 잠금을 인식한다.
+ */
+final class RedisLockKeys {
+
+    private RedisLockKeys() {
+    }
+
+    static List<String> sort(Collection<String> accountNumbers) {
+        return accountNumbers.stream()
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    static List<Object> getLockKeys(List<String> accountNumbers) {
+        return accountNumbers.stream()
+                .map(RedisLockKeys::getLockKey)
+                .map(Object.class::cast)
+                .toList();
+    }
+
+    /**
+     * 잠금 키 뒤에 같은 순서로 펜싱 토큰 키를 붙인다.
+     */
+    static List<Object> getLockAllKeys(List<String> accountNumbers) {
+        List<Object> keys = new ArrayList<>(getLockKeys(accountNumbers));
+        accountNumbers.stream()
+                .map(RedisLockKeys::getFenceKey)
+                .forEach(keys::add);
+        return keys;
+    }
+
+    static String getLockKey(String accountNumber) {
+        return "ACCOUNTLOCK:" + accountNumber;
+    }
+
+    /**
+     * 펜싱 토큰은 잠금과 달리 만료되지 않아야 단조 증가가 유지된다.
+     */
+    static String getFenceKey(String accountNumber) {
+        return "ACCOUNTFENCE:" + accountNumber;
+    }
+}
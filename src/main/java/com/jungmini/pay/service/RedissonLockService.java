@@ -2,41 +2,263 @@ package com.jungmini.pay.service;
 
 import com.jungmini.pay.common.exception.ErrorCode;
 import com.jungmini.pay.common.exception.PayException;
-import lombok.RequiredArgsConstructor;
+import com.jungmini.pay.service.LockBudget.Operation;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Redis 분산 락. Redis 오류와 응답 시간은 서킷 브레이커에 알린다.
+ * 다른 요청이 잡은 잠금을 기다린 시간은 응답 시간에 넣지 않는다.
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
-public class RedissonLockService implements LockService {
+public class RedissonLockService implements LockService, AsyncLockService {
+
+    /**
+     * 비동기 잠금의 소유자 번호. 실제 스레드 번호와 겹치지 않도록 음수를 사용한다.
+     */
+    private static final AtomicLong ASYNC_OWNER_SEQUENCE = new AtomicLong();
 
     private final RedissonClient redissonClient;
+    private final LockWatchdog lockWatchdog;
+    private final LockBudget lockBudget;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final RedisLockAllScript lockAllScript;
+
+    public RedissonLockService(RedissonClient redissonClient,
+                               LockWatchdog lockWatchdog,
+                               LockBudget lockBudget,
+                               RedisCircuitBreaker circuitBreaker) {
+        this.redissonClient = redissonClient;
+        this.lockWatchdog = lockWatchdog;
+        this.lockBudget = lockBudget;
+        this.circuitBreaker = circuitBreaker;
+        this.lockAllScript = new RedisLockAllScript(redissonClient, lockBudget, circuitBreaker);
+    }
 
+    /**
+     * 최근 점유 시간으로 정한 대기 시간과 임대 시간으로 잠그고, 잠금을 잡고 있는 동안은 워치독이 임대 시간을 연장한다.
+     * 잠금을 얻은 뒤 펜싱 토큰을 발급하고, 발급에 실패하면 잠금을 돌려놓는다.
+     *
+     * 서킷 브레이커에는 기다리지 않는 첫 시도부터 토큰 발급까지 걸린 시간을 알린다.
+     * 첫 시도에서 잠금을 얻지 못하면 다른 요청의 잠금을 기다리므로, 그 뒤 다시 시도한 시간은 빼고 알린다.
+     */
     @Override
-    public void lock(String accountNumber) {
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+    public LockHandle lock(String accountNumber) {
+        List<String> accountNumbers = List.of(accountNumber);
+        long leaseMillis = lockBudget.leaseMillis(Operation.SINGLE);
+        long waitMillis = lockBudget.waitMillis(Operation.SINGLE, accountNumbers);
+        RLock lock = redissonClient.getLock(RedisLockKeys.getLockKey(accountNumber));
 
+        long start = System.nanoTime();
+        boolean isLock;
         try {
-            boolean isLock = lock.tryLock(1, 5, TimeUnit.SECONDS);
-            if (!isLock) {
-                throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+            isLock = lock.tryLock(0, leaseMillis, TimeUnit.MILLISECONDS);
+            if (!isLock && waitMillis > 0) {
+                long waitStart = System.nanoTime();
+                isLock = lock.tryLock(waitMillis, leaseMillis, TimeUnit.MILLISECONDS);
+                start += System.nanoTime() - waitStart;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+        } catch (Exception e) {
+            circuitBreaker.recordFailure();
+            throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+        }
+        if (!isLock) {
+            circuitBreaker.recordSuccess(System.nanoTime() - start);
+            throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+        }
+
+        long fencingToken;
+        try {
+            fencingToken = redissonClient.getAtomicLong(RedisLockKeys.getFenceKey(accountNumber))
+                    .incrementAndGet();
+        } catch (Exception e) {
+            circuitBreaker.recordFailure();
+            unlock(lock);
+            throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+        }
+        circuitBreaker.recordSuccess(System.nanoTime() - start);
+
+        ScheduledFuture<?> renewal = lockWatchdog.watch(RedisLockKeys.getLockKeys(accountNumbers), getOwner(),
+                leaseMillis);
+        return new FencedLockHandle(Map.of(accountNumber, fencingToken),
+                release(Operation.SINGLE, renewal, () -> unlock(lock)));
+    }
+
+    /**
+     * 정렬된 키를 RedisLockAllScript 로 한 번의 왕복에 모두 잠그고 펜싱 토큰을 발급한다.
+     * 이미 잠긴 키가 있으면 대기 시간이 남아 있는 동안 간격을 늘려 가며 다시 시도한다.
+     */
+    @Override
+    public LockHandle lockAll(Collection<String> accountNumbers) {
+        List<String> sortedAccountNumbers = RedisLockKeys.sort(accountNumbers);
+        List<Object> keys = RedisLockKeys.getLockKeys(sortedAccountNumbers);
+        String owner = getOwner();
+        Operation operation = Operation.of(sortedAccountNumbers.size());
+        long leaseMillis = lockBudget.leaseMillis(operation);
+        long deadline = deadline(operation, sortedAccountNumbers);
+
+        List<Object> tokens;
+        try {
+            tokens = lockAllScript.lock(sortedAccountNumbers, owner, leaseMillis, deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
         } catch (Exception e) {
             throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
         }
+
+        return toLockAllHandle(sortedAccountNumbers, keys, owner, tokens, operation, leaseMillis);
+    }
+
+    /**
+     * 스레드 번호 대신 요청마다 새로 만든 소유자 번호로 잠근다.
+     * 잠금과 펜싱 토큰 발급이 모두 Redis 응답 콜백에서 이어지므로 대기하는 동안 스레드를 쓰지 않는다.
+     */
+    @Override
+    public CompletableFuture<LockHandle> lockAsync(String accountNumber) {
+        List<String> accountNumbers = List.of(accountNumber);
+        long leaseMillis = lockBudget.leaseMillis(Operation.SINGLE);
+        RLock lock = redissonClient.getLock(RedisLockKeys.getLockKey(accountNumber));
+        long ownerId = nextAsyncOwnerId();
+
+        return lock.tryLockAsync(lockBudget.waitMillis(Operation.SINGLE, accountNumbers),
+                        leaseMillis, TimeUnit.MILLISECONDS, ownerId).toCompletableFuture()
+                .handle((isLock, e) -> {
+                    if (e != null) {
+                        circuitBreaker.recordFailure();
+                    }
+                    if (e != null || !Boolean.TRUE.equals(isLock)) {
+                        throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+                    }
+                    return System.nanoTime();
+                })
+                .thenCompose(start -> redissonClient.getAtomicLong(RedisLockKeys.getFenceKey(accountNumber))
+                        .incrementAndGetAsync().toCompletableFuture()
+                        .<LockHandle>handle((fencingToken, e) -> {
+                            if (e != null) {
+                                circuitBreaker.recordFailure();
+                                unlockAsync(lock, ownerId);
+                                throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+                            }
+                            circuitBreaker.recordSuccess(System.nanoTime() - start);
+                            ScheduledFuture<?> renewal = lockWatchdog.watch(RedisLockKeys.getLockKeys(accountNumbers),
+                                    redissonClient.getId() + ":" + ownerId, leaseMillis);
+                            return new FencedLockHandle(Map.of(accountNumber, fencingToken),
+                                    release(Operation.SINGLE, renewal, () -> unlockAsync(lock, ownerId)));
+                        }));
     }
 
     @Override
-    public void unlock(String accountNumber) {
-        redissonClient.getLock(getLockKey(accountNumber));
+    public CompletableFuture<LockHandle> lockAllAsync(Collection<String> accountNumbers) {
+        List<String> sortedAccountNumbers = RedisLockKeys.sort(accountNumbers);
+        List<Object> keys = RedisLockKeys.getLockKeys(sortedAccountNumbers);
+        String owner = redissonClient.getId() + ":" + nextAsyncOwnerId();
+        Operation operation = Operation.of(sortedAccountNumbers.size());
+        long leaseMillis = lockBudget.leaseMillis(operation);
+
+        return lockAllScript.lockAsync(sortedAccountNumbers, owner, leaseMillis,
+                        deadline(operation, sortedAccountNumbers))
+                .handle((tokens, e) -> {
+                    if (e != null) {
+                        throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+                    }
+                    return toLockAllHandle(sortedAccountNumbers, keys, owner, tokens, operation, leaseMillis);
+                });
+    }
+
+    /**
+     * 스크립트가 돌려준 토큰으로 핸들을 만들고, 핸들을 닫을 때까지 워치독이 임대 시간을 연장한다.
+     */
+    private LockHandle toLockAllHandle(List<String> sortedAccountNumbers, List<Object> keys, String owner,
+                                       List<Object> tokens, Operation operation, long leaseMillis) {
+        if (tokens == null || tokens.size() != keys.size()) {
+            throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+        }
+
+        Map<String, Long> fencingTokens = new HashMap<>();
+        for (int i = 0; i < sortedAccountNumbers.size(); i++) {
+            fencingTokens.put(sortedAccountNumbers.get(i), ((Number) tokens.get(i)).longValue());
+        }
+
+        ScheduledFuture<?> renewal = lockWatchdog.watch(keys, owner, leaseMillis);
+        return new FencedLockHandle(fencingTokens,
+                release(operation, renewal, () -> unlockAll(keys, owner, leaseMillis)));
+    }
+
+    /**
+     * 핸들을 닫으면 연장을 멈추고 점유 시간을 다음 잠금의 예산에 반영한 뒤 잠금을 해제한다.
+     */
+    private Runnable release(Operation operation, ScheduledFuture<?> renewal, Runnable unlock) {
+        long acquired = System.nanoTime();
+        return () -> {
+            renewal.cancel(false);
+            lockBudget.recordHold(operation, System.nanoTime() - acquired);
+            unlock.run();
+        };
+    }
+
+    private long deadline(Operation operation, List<String> accountNumbers) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lockBudget.waitMillis(operation, accountNumbers));
+    }
+
+    /**
+     * 임대 시간이 지나 다른 요청이 잠금을 가져간 경우 남의 잠금을 해제하면 안 된다.
+     * 현재 스레드가 소유한 잠금만 해제한다.
+     * Redis 오류로 해제하지 못해도 예외를 던지지 않는다. 워치독은 이미 멈췄으므로 임대 시간이 지나면 풀린다.
+     */
+    private static void unlock(RLock lock) {
+        try {
+            if (!lock.isHeldByCurrentThread()) {
+                log.warn("잠금 임대 시간 만료 key: {}", lock.getName());
+                return;
+            }
+            lock.unlock();
+        } catch (IllegalMonitorStateException e) {
+            log.warn("잠금 해제 직전 임대 시간 만료 key: {}", lock.getName());
+        } catch (RuntimeException e) {
+            log.warn("Redis 오류로 잠금 해제 실패, 임대 시간이 지나면 풀린다 key: {}", lock.getName(), e);
+        }
+    }
+
+    private static void unlockAsync(RLock lock, long ownerId) {
+        lock.unlockAsync(ownerId).whenComplete((result, e) -> {
+            if (e != null) {
+                log.warn("잠금 임대 시간 만료 key: {}", lock.getName());
+            }
+        });
+    }
+
+    private void unlockAll(List<Object> keys, String owner, long leaseMillis) {
+        try {
+            lockAllScript.unlock(keys, owner, leaseMillis);
+        } catch (RuntimeException e) {
+            log.warn("Redis 오류로 잠금 해제 실패, 임대 시간이 지나면 풀린다 keys: {}", keys, e);
+        }
+    }
+
+    /**
+     * RLock 이 해시 필드로 사용하는 값과 같아야 두 방식의 잠금이 서로를 인식한다.
+     */
+    private String getOwner() {
+        return redissonClient.getId() + ":" + Thread.currentThread().getId();
     }
 
-    private static String getLockKey(String accountNumber) {
-        return "ACCOUNTLOCK:" + accountNumber;
+    private static long nextAsyncOwnerId() {
+        return -ASYNC_OWNER_SEQUENCE.incrementAndGet();
     }
 }
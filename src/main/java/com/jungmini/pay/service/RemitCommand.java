@@ -0,0 +1,12 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.domain.Member;
+import com.jungmini.pay.domain.Transaction;
+
+/**
+ * 송금 요청 한 건
+ * @param transactionRequest 송금계좌, 수신계좌, 송금액
+ * @param remitter 송금자
+ */
+public record RemitCommand(Transaction transactionRequest, Member remitter) {
+}
@@ -0,0 +1,295 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.Member;
+import com.jungmini.pay.domain.Transaction;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * 짧은 시간 안에 들어온 단건 송금을 모아 BatchRemitService.remitGroup 으로 트랜잭션 하나에 커밋한다.
+ * 요청마다 잠금, 커밋을 하지 않으므로 처리량이 늘어나는 대신 모으는 시간만큼 응답이 늦어진다.
+ *
+ * 1. 송금 계좌마다 AccountAdmission 을 거쳐 대기열에 넣는다.
+ * 2. 첫 요청이 들어온 뒤 window 가 지나거나 max-batch-size 만큼 모이면, 송금 계좌와 수신 계좌가 겹치지 않는 묶음으로 나눈다.
+ * 3. 묶음마다 작업 스레드에서 송금 계좌를 모두 잠그고 한 번에 처리한다. 모으는 스레드는 잠금과 커밋을 기다리지 않는다.
+ *    묶음끼리는 같은 계좌 행을 바꾸지 않으므로 동시에 커밋해도 행 잠금을 두고 경쟁하지 않는다.
+ * 4. 커밋이 끝난 뒤에 각 요청에 결과를 돌려준다. 묶음 전체가 실패하면 한 건씩 다시 처리해 다른 요청의 실패가 번지지 않게 한다.
+ */
+@Slf4j
+@Component
+public class RemitGroupCommitter {
+
+    private final AccountLockAspect accountLockAspect;
+    private final AccountAdmission accountAdmission;
+    private final BatchRemitService batchRemitService;
+    private final AccountService accountService;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingRemit> queue = new LinkedBlockingQueue<>();
+    private final Thread collector;
+    private final ThreadPoolExecutor workers;
+
+    public RemitGroupCommitter(AccountLockAspect accountLockAspect,
+                               AccountAdmission accountAdmission,
+                               BatchRemitService batchRemitService,
+                               AccountService accountService,
+                               @Value("${account.group-commit.enabled:false}") boolean enabled,
+                               @Value("${account.group-commit.window-micros:2000}") long windowMicros,
+                               @Value("${account.group-commit.max-batch-size:64}") int maxBatchSize,
+                               @Value("${account.group-commit.worker-threads:4}") int workerThreads) {
+        this.accountLockAspect = accountLockAspect;
+        this.accountAdmission = accountAdmission;
+        this.batchRemitService = batchRemitService;
+        this.accountService = accountService;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.collector = new Thread(this::collect, "remit-group-commit");
+        this.collector.setDaemon(true);
+        AtomicInteger sequence = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "remit-group-worker-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        if (enabled) {
+            this.collector.start();
+        }
+    }
+
+    /**
+     * 꺼져 있으면 요청마다 AccountService.remit 을 잠금 안에서 실행한다.
+     * @param transactionRequest 송금계좌, 수신계좌, 송금액
+     * @param remitter 송금자
+     * @return 묶음이 커밋된 뒤 완료되는 거래 정보. 실패하면 AccountService.remit 과 같은 PayException 으로 완료된다.
+     */
+    public CompletableFuture<Transaction> submit(Transaction transactionRequest, Member remitter) {
+        String remitterAccountNumber = transactionRequest.getRemitterAccount().getAccountNumber();
+        if (!enabled) {
+            return accountLockAspect.submit(List.of(remitterAccountNumber),
+                    () -> accountService.remit(transactionRequest, remitter));
+        }
+
+        return accountAdmission.submit(List.of(remitterAccountNumber), () -> {
+            PendingRemit pending = new PendingRemit(new RemitCommand(transactionRequest, remitter));
+            queue.add(pending);
+            return pending.result;
+        });
+    }
+
+    private void collect() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                flush(nextGroup());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("송금 묶음 처리 실패", e);
+            }
+        }
+    }
+
+    /**
+     * 첫 요청을 기다린 뒤, 그 시점부터 window 동안 max-batch-size 까지 모은다.
+     * 모으는 중에 종료되면 이미 모은 요청은 그대로 처리한다.
+     */
+    private List<PendingRemit> nextGroup() throws InterruptedException {
+        List<PendingRemit> group = new ArrayList<>();
+        group.add(queue.take());
+        long deadline = System.nanoTime() + windowNanos;
+        try {
+            while (group.size() < maxBatchSize) {
+                PendingRemit pending = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (pending == null) {
+                    break;
+                }
+                group.add(pending);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return group;
+    }
+
+    void flush(List<PendingRemit> pending) {
+        partition(pending).forEach(this::commit);
+    }
+
+    /**
+     * 송금 계좌나 수신 계좌를 함께 쓰는 요청은 같은 묶음에 넣는다. 묶음 안에서는 들어온 순서를 지킨다.
+     */
+    static List<List<PendingRemit>> partition(List<PendingRemit> pending) {
+        int[] parent = IntStream.range(0, pending.size()).toArray();
+        Map<String, Integer> firstByAccount = new HashMap<>();
+        for (int i = 0; i < pending.size(); i++) {
+            for (String accountNumber : pending.get(i).accountNumbers()) {
+                Integer first = firstByAccount.putIfAbsent(accountNumber, i);
+                if (first != null) {
+                    parent[root(parent, i)] = root(parent, first);
+                }
+            }
+        }
+
+        Map<Integer, List<PendingRemit>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < pending.size(); i++) {
+            groups.computeIfAbsent(root(parent, i), root -> new ArrayList<>()).add(pending.get(i));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static int root(int[] parent, int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    /**
+     * 잠금과 커밋은 작업 스레드에서 기다린다.
+     */
+    private void commit(List<PendingRemit> group) {
+        GroupCommit groupCommit = new GroupCommit(group);
+        try {
+            workers.execute(groupCommit);
+        } catch (RejectedExecutionException e) {
+            groupCommit.results.completeExceptionally(new PayException(ErrorCode.ACCOUNT_LOCK_FAIL));
+        }
+
+        groupCommit.results.whenComplete((remitResults, e) -> {
+            if (e == null) {
+                for (int i = 0; i < group.size(); i++) {
+                    group.get(i).complete(remitResults.get(i));
+                }
+                return;
+            }
+            if (group.size() == 1) {
+                group.get(0).result.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+                return;
+            }
+            log.warn("송금 묶음 {}건의 커밋에 실패해 한 건씩 다시 처리합니다.", group.size(), e);
+            group.forEach(pending -> commit(List.of(pending.retry())));
+        });
+    }
+
+    /**
+     * 아직 묶이지 않은 요청과 작업 스레드를 기다리는 묶음은 잠금을 얻지 못한 것으로 실패시킨다.
+     * 이미 커밋 중인 묶음은 끝날 때까지 그대로 둔다.
+     */
+    @PreDestroy
+    public void shutdown() {
+        collector.interrupt();
+        List<PendingRemit> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(pending ->
+                pending.result.completeExceptionally(new PayException(ErrorCode.ACCOUNT_LOCK_FAIL)));
+
+        List<Runnable> waiting = new ArrayList<>();
+        workers.getQueue().drainTo(waiting);
+        workers.shutdown();
+        waiting.forEach(task -> ((GroupCommit) task).results.completeExceptionally(
+                new PayException(ErrorCode.ACCOUNT_LOCK_FAIL)));
+    }
+
+    /**
+     * 작업 스레드를 기다리는 묶음. 종료할 때 실행하지 않은 묶음을 찾아 실패시킬 수 있게 결과를 함께 둔다.
+     */
+    private class GroupCommit implements Runnable {
+
+        final List<RemitCommand> commands;
+        final CompletableFuture<List<RemitResult>> results = new CompletableFuture<>();
+
+        GroupCommit(List<PendingRemit> group) {
+            this.commands = group.stream()
+                    .map(pending -> pending.command)
+                    .toList();
+        }
+
+        @Override
+        public void run() {
+            try {
+                accountLockAspect.submitAdmitted(commands.stream()
+                                        .map(command -> command.transactionRequest().getRemitterAccount().getAccountNumber())
+                                        .toList(),
+                                () -> batchRemitService.remitGroup(commands))
+                        .whenComplete((remitResults, e) -> {
+                            if (e != null) {
+                                results.completeExceptionally(e);
+                                return;
+                            }
+                            results.complete(remitResults);
+                        });
+            } catch (RuntimeException e) {
+                results.completeExceptionally(e);
+            }
+        }
+    }
+
+    static class PendingRemit {
+
+        final RemitCommand command;
+        final CompletableFuture<Transaction> result;
+
+        PendingRemit(RemitCommand command) {
+            this(command, new CompletableFuture<>());
+        }
+
+        List<String> accountNumbers() {
+            Transaction transactionRequest = command.transactionRequest();
+            return List.of(transactionRequest.getRemitterAccount().getAccountNumber(),
+                    transactionRequest.getRecipientAccount().getAccountNumber());
+        }
+
+        private PendingRemit(RemitCommand command, CompletableFuture<Transaction> result) {
+            this.command = command;
+            this.result = result;
+        }
+
+        void complete(RemitResult remitResult) {
+            if (remitResult.isSuccess()) {
+                result.complete(remitResult.transaction());
+                return;
+            }
+            result.completeExceptionally(new PayException(remitResult.errorCode()));
+        }
+
+        /**
+         * 실패한 묶음에서 상태가 바뀐 거래 대신 처음 요청한 값만 담은 거래로 다시 처리한다.
+         */
+        PendingRemit retry() {
+            Transaction transactionRequest = command.transactionRequest();
+            Transaction copied = Transaction.builder()
+                    .amount(transactionRequest.getAmount())
+                    .remitterAccount(Account.builder()
+                            .accountNumber(transactionRequest.getRemitterAccount().getAccountNumber())
+                            .build())
+                    .recipientAccount(Account.builder()
+                            .accountNumber(transactionRequest.getRecipientAccount().getAccountNumber())
+                            .build())
+                    .build();
+            return new PendingRemit(new RemitCommand(copied, command.remitter()), result);
+        }
+    }
+}
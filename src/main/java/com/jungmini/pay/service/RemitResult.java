@@ -0,0 +1,16 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.domain.Transaction;
+
+/**
+ * 일괄 송금 한 건의 결과
+ * @param transaction 요청한 거래. 실패하면 실패 상태로 기록된다.
+ * @param errorCode 실패 이유. 성공하면 null 이다.
+ */
+public record RemitResult(Transaction transaction, ErrorCode errorCode) {
+
+    public boolean isSuccess() {
+        return errorCode == null;
+    }
+}
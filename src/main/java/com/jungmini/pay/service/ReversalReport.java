@@ -0,0 +1,26 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 일괄 취소 작업의 결과
+ * @param dryRun true 면 검증과 잔액 반영까지 해 본 뒤 모두 되돌렸다.
+ * @param requested 중복을 뺀 요청 건수
+ * @param reversed 취소한(dryRun 이면 취소할 수 있는) 건수
+ * @param failures 취소하지 못한 거래 번호와 이유
+ * @param elapsedMillis 작업에 걸린 시간
+ * @param throughput 초당 처리한 요청 건수
+ */
+public record ReversalReport(boolean dryRun, int requested, int reversed, Map<Long, ErrorCode> failures,
+                             long elapsedMillis, long throughput) {
+
+    public static ReversalReport of(boolean dryRun, int requested, int reversed, Map<Long, ErrorCode> failures,
+                                    long elapsedNanos) {
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        return new ReversalReport(dryRun, requested, reversed, failures, elapsedMillis,
+                requested * 1000L / elapsedMillis);
+    }
+}
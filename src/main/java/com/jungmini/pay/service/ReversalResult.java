@@ -0,0 +1,17 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.domain.Transaction;
+
+/**
+ * 일괄 취소 한 건의 결과
+ * @param originalTransactionId 취소를 요청한 송금
+ * @param reversal 취소 거래. 실패하면 null 이다.
+ * @param errorCode 실패 이유. 성공하면 null 이다.
+ */
+public record ReversalResult(long originalTransactionId, Transaction reversal, ErrorCode errorCode) {
+
+    public boolean isSuccess() {
+        return errorCode == null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * 계좌 행의 잔액 컬럼을 조건부 UPDATE 한 문장으로 바꾼다.
+ * 읽은 잔액을 영속성 컨텍스트에서 고쳐 쓰지 않으므로 잠그지 않아도 입금이 사라지거나 잔액이 음수가 되지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "account.balance-store", havingValue = "row", matchIfMissing = true)
+public class RowBalanceStore implements BalanceStore {
+
+    private final AccountRepository accountRepository;
+
+    @Override
+    public long credit(String accountNumber, long amount) {
+        accountRepository.credit(accountNumber, amount);
+        return accountRepository.findBalance(accountNumber);
+    }
+
+    /**
+     * 바뀐 행이 없으면 잔액 부족이다.
+     */
+    @Override
+    public boolean debit(String accountNumber, long amount) {
+        return accountRepository.debit(accountNumber, amount) != 0;
+    }
+
+    /**
+     * 계좌 행을 조회할 때 잔액도 함께 읽었으므로 다시 읽지 않는다.
+     */
+    @Override
+    public void load(Account account) {
+    }
+
+    /**
+     * JDBC 배치는 영속성 컨텍스트를 거치지 않으므로 먼저 flush 한다.
+     */
+    @Override
+    public Map<String, Long> apply(SortedMap<String, Long> balanceDeltas) {
+        accountRepository.flush();
+        for (int updated : accountRepository.applyBalanceDeltas(balanceDeltas)) {
+            if (updated == 0) {
+                throw new PayException(ErrorCode.LACK_OF_BALANCE);
+            }
+        }
+        return accountRepository.findBalances(balanceDeltas.keySet());
+    }
+}
@@ -0,0 +1,133 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 계좌 번호 해시로 고른 단일 스레드 샤드에서만 계좌를 변경한다.
+ * 같은 계좌의 작업은 항상 같은 스레드에서 순서대로 실행되므로 잠금이 필요 없다.
+ * 샤드가 JVM 안에만 있으므로 서버가 한 대일 때만 사용할 수 있다. pay.cluster.node-count 가 1 보다 크면 시작하지 않는다.
+ *
+ * 송금은 송금 계좌만 잠그고 입금은 DB 에서 바로 더하므로, 한 건 송금은 송금 계좌의 샤드 하나에서 끝난다.
+ * 일괄 송금, 송금 취소, 묶음 커밋처럼 여러 샤드에 걸친 작업은 샤드 번호 순서로 넘겨준다.
+ * 1. 번호가 작은 샤드가 자리를 비워두고(대기) 다음 샤드에 작업을 넘긴다.
+ * 2. 마지막 샤드가 작업을 실행하고, 끝나면 대기 중인 샤드가 다음 작업을 이어간다.
+ * 항상 작은 번호에서 큰 번호로만 기다리기 때문에 서로를 기다리는 순환이 생기지 않는다.
+ * 대신 대기하는 샤드의 스레드는 작업이 끝날 때까지 멈춰 있고, 그 샤드에 쌓인 한 건 송금도 모두 뒤에서 기다린다.
+ * 여러 샤드에 걸친 작업이 잦으면 이 모드는 맞지 않으므로 redis-lock 모드를 쓴다.
+ */
+@Service
+@ConditionalOnProperty(value = "account.concurrency-mode", havingValue = "sequencer")
+public class ShardedAccountExecutor implements AccountExecutor {
+
+    private final ExecutorService[] shards;
+
+    public ShardedAccountExecutor(@Value("${account.sequencer.shards:8}") int shardCount,
+                                  @Value("${pay.cluster.node-count:1}") int nodeCount) {
+        if (nodeCount > 1) {
+            throw new IllegalStateException("account.concurrency-mode=sequencer 는 서버가 한 대일 때만 쓸 수 있습니다. "
+                    + "pay.cluster.node-count: " + nodeCount);
+        }
+        this.shards = new ExecutorService[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            String name = "account-shard-" + i;
+            this.shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public <T> T execute(String accountNumber, Supplier<T> command) {
+        return join(executeAsync(accountNumber, command));
+    }
+
+    @Override
+    public <T> T executeAll(Collection<String> accountNumbers, Supplier<T> command) {
+        return join(executeAllAsync(accountNumbers, command));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(String accountNumber, Supplier<T> command) {
+        return executeAllAsync(List.of(accountNumber), command);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAllAsync(Collection<String> accountNumbers, Supplier<T> command) {
+        List<Integer> shardIndexes = accountNumbers.stream()
+                .map(this::shardIndex)
+                .distinct()
+                .sorted()
+                .toList();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        handOff(shardIndexes, 0, command, result);
+        return result;
+    }
+
+    /**
+     * 마지막 샤드가 아니면 다음 샤드에 작업을 넘긴 뒤 결과가 나올 때까지 현재 샤드를 붙잡아 둔다.
+     * 붙잡아 둔 샤드의 다른 작업은 그동안 실행되지 않는다.
+     */
+    private <T> void handOff(List<Integer> shardIndexes, int position, Supplier<T> command,
+                             CompletableFuture<T> result) {
+        ExecutorService shard = shards[shardIndexes.get(position)];
+        boolean last = position == shardIndexes.size() - 1;
+        try {
+            shard.execute(() -> {
+                if (last) {
+                    run(command, result);
+                    return;
+                }
+                handOff(shardIndexes, position + 1, command, result);
+                result.exceptionally(e -> null).join();
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new PayException(ErrorCode.ACCOUNT_LOCK_FAIL));
+        }
+    }
+
+    private static <T> void run(Supplier<T> command, CompletableFuture<T> result) {
+        try {
+            result.complete(command.get());
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private int shardIndex(String accountNumber) {
+        return Math.floorMod(accountNumber.hashCode(), shards.length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * JVM 내부 스트라이프 락 뒤에 Redis 분산 락을 두는 2단계 잠금
+ * 같은 서버의 경쟁 요청은 메모리에서 줄을 서고, 스트라이프를 얻은 요청만 Redis 에 잠금을 요청한다.
+ */
+@Primary
+@Service
+@ConditionalOnProperty(value = "lock.local-stripe.enabled", havingValue = "true")
+public class StripedLockService implements LockService {
+
+    private final RedissonLockService redissonLockService;
+    private final ReentrantLock[] stripes;
+    private final long waitMillis;
+
+    public StripedLockService(RedissonLockService redissonLockService,
+                              @Value("${lock.local-stripe.size:64}") int stripeSize,
+                              @Value("${lock.local-stripe.wait-millis:1000}") long waitMillis) {
+        this.redissonLockService = redissonLockService;
+        this.stripes = new ReentrantLock[stripeSize];
+        for (int i = 0; i < stripeSize; i++) {
+            this.stripes[i] = new ReentrantLock(true);
+        }
+        this.waitMillis = waitMillis;
+    }
+
+    @Override
+    public LockHandle lock(String accountNumber) {
+        List<ReentrantLock> localLocks = lockLocal(List.of(accountNumber));
+        try {
+            return withLocal(redissonLockService.lock(accountNumber), localLocks);
+        } catch (RuntimeException e) {
+            unlockLocal(localLocks);
+            throw e;
+        }
+    }
+
+    @Override
+    public LockHandle lockAll(Collection<String> accountNumbers) {
+        List<ReentrantLock> localLocks = lockLocal(accountNumbers);
+        try {
+            return withLocal(redissonLockService.lockAll(accountNumbers), localLocks);
+        } catch (RuntimeException e) {
+            unlockLocal(localLocks);
+            throw e;
+        }
+    }
+
+    private static LockHandle withLocal(LockHandle remoteLock, List<ReentrantLock> localLocks) {
+        return new LockHandle() {
+            @Override
+            public void close() {
+                try {
+                    remoteLock.close();
+                } finally {
+                    unlockLocal(localLocks);
+                }
+            }
+
+            @Override
+            public OptionalLong fencingToken(String accountNumber) {
+                return remoteLock.fencingToken(accountNumber);
+            }
+        };
+    }
+
+    /**
+     * 스트라이프 번호 순서로 잠그기 때문에 여러 계좌를 잠가도 교착 상태가 생기지 않는다.
+     */
+    private List<ReentrantLock> lockLocal(Collection<String> accountNumbers) {
+        List<ReentrantLock> localLocks = new ArrayList<>();
+        accountNumbers.stream()
+                .map(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .forEach(index -> {
+                    ReentrantLock stripe = stripes[index];
+                    if (!tryLockLocal(stripe)) {
+                        unlockLocal(localLocks);
+                        throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+                    }
+                    localLocks.add(stripe);
+                });
+        return localLocks;
+    }
+
+    private boolean tryLockLocal(ReentrantLock stripe) {
+        try {
+            return stripe.tryLock(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void unlockLocal(List<ReentrantLock> localLocks) {
+        for (int i = localLocks.size() - 1; i >= 0; i--) {
+            localLocks.get(i).unlock();
+        }
+    }
+
+    private int stripeIndex(String accountNumber) {
+        return Math.floorMod(accountNumber.hashCode(), stripes.length);
+    }
+}
@@ -0,0 +1,138 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Transaction;
+import com.jungmini.pay.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 장애를 되돌릴 때처럼 많은 송금을 한꺼번에 취소한다.
+ *
+ * 1. 요청한 송금을 batch-size 건씩 두 계좌와 함께 조회한다.
+ * 2. 돈을 돌려줄 계좌(원래 수신 계좌)별로 모아, 한 계좌의 취소가 같은 묶음에 들어가도록 batch-size 건씩 나눈다.
+ * 3. 묶음마다 TransactionReversalService 로 계좌를 한 번씩 잠그고 트랜잭션 하나에 처리한다.
+ *    잠금을 얻지 못하거나 DB 오류로 묶음 전체가 실패해도 실패를 보고서에 남기고 다음 묶음은 계속 처리한다.
+ */
+@Slf4j
+@Component
+public class TransactionReversalJob {
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionReversalService transactionReversalService;
+    private final int batchSize;
+
+    public TransactionReversalJob(TransactionRepository transactionRepository,
+                                  TransactionReversalService transactionReversalService,
+                                  @Value("${account.reversal.batch-size:500}") int batchSize) {
+        this.transactionRepository = transactionRepository;
+        this.transactionReversalService = transactionReversalService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param transactionIds 취소할 송금 번호
+     * @param dryRun true 면 취소할 수 있는지 확인만 하고 아무것도 바꾸지 않는다.
+     */
+    public ReversalReport reverse(Collection<Long> transactionIds, boolean dryRun) {
+        long start = System.nanoTime();
+        List<Long> ids = transactionIds.stream().distinct().toList();
+        Map<Long, ErrorCode> failures = new LinkedHashMap<>();
+        int reversed = 0;
+
+        for (List<Transaction> batch : batches(findOriginals(ids, failures))) {
+            for (ReversalResult result : reverseBatch(batch, dryRun)) {
+                if (result.isSuccess()) {
+                    reversed++;
+                } else {
+                    failures.put(result.originalTransactionId(), result.errorCode());
+                }
+            }
+        }
+
+        ReversalReport report = ReversalReport.of(dryRun, ids.size(), reversed, failures, System.nanoTime() - start);
+        log.info("일괄 취소 dryRun={} requested={} reversed={} failed={} elapsed={}ms throughput={}/s",
+                dryRun, report.requested(), reversed, failures.size(), report.elapsedMillis(), report.throughput());
+        return report;
+    }
+
+    private List<Transaction> findOriginals(List<Long> ids, Map<Long, ErrorCode> failures) {
+        List<Transaction> originals = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            originals.addAll(transactionRepository.findAllWithAccounts(
+                    ids.subList(from, Math.min(ids.size(), from + batchSize))));
+        }
+
+        Set<Long> found = originals.stream().map(Transaction::getId).collect(Collectors.toSet());
+        ids.stream()
+                .filter(id -> !found.contains(id))
+                .forEach(id -> failures.put(id, ErrorCode.TRANSACTION_NOT_FOUND));
+        return originals;
+    }
+
+    /**
+     * 한 계좌의 취소가 batch-size 보다 많을 때만 그 계좌가 여러 묶음에 나뉜다.
+     */
+    List<List<Transaction>> batches(List<Transaction> originals) {
+        Map<String, List<Transaction>> byAccount = originals.stream()
+                .collect(Collectors.groupingBy(original -> original.getRecipientAccount().getAccountNumber(),
+                        TreeMap::new, Collectors.toList()));
+
+        List<List<Transaction>> batches = new ArrayList<>();
+        List<Transaction> batch = new ArrayList<>();
+        for (List<Transaction> group : byAccount.values()) {
+            if (!batch.isEmpty() && batch.size() + group.size() > batchSize) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+            }
+            for (Transaction original : group) {
+                batch.add(original);
+                if (batch.size() == batchSize) {
+                    batches.add(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * 앞선 묶음은 이미 커밋되었으므로, 어떤 예외든 이 묶음의 실패로만 기록한다.
+     * 다른 요청이 같은 송금을 먼저 취소하면 원래 거래 번호의 유일 제약에 걸리므로 이미 취소된 것으로 기록한다.
+     */
+    private List<ReversalResult> reverseBatch(List<Transaction> batch, boolean dryRun) {
+        try {
+            return transactionReversalService.reverseBatch(batch, dryRun);
+        } catch (PayException e) {
+            log.warn("취소 묶음 {}건을 처리하지 못했습니다: {}", batch.size(), e.getErrorCode());
+            return failAll(batch, e.getErrorCode());
+        } catch (DataIntegrityViolationException e) {
+            log.warn("취소 묶음 {}건에 이미 취소된 송금이 있습니다", batch.size(), e);
+            return failAll(batch, ErrorCode.ALREADY_REVERSED);
+        } catch (RuntimeException e) {
+            log.error("취소 묶음 {}건을 처리하지 못했습니다", batch.size(), e);
+            return failAll(batch, ErrorCode.REVERSAL_FAILED);
+        }
+    }
+
+    private static List<ReversalResult> failAll(List<Transaction> batch, ErrorCode errorCode) {
+        return batch.stream()
+                .map(original -> new ReversalResult(original.getId(), null, errorCode))
+                .toList();
+    }
+}
@@ -0,0 +1,129 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.annotation.AccountLock;
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.Transaction;
+import com.jungmini.pay.domain.type.TransactionType;
+import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.TransactionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 성공한 송금을 취소 거래(TransactionType.CANCEL)로 되돌린다.
+ * BatchRemitService 와 같이 묶음 하나를 트랜잭션 하나로 처리하고, 계좌별 잔액 변화량을 한 번에 반영한다.
+ */
+@Service
+public class TransactionReversalService {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final BalanceEngine balanceEngine;
+    private final TransactionTemplate transactionTemplate;
+
+    public TransactionReversalService(AccountRepository accountRepository,
+                                      TransactionRepository transactionRepository,
+                                      BalanceEngine balanceEngine,
+                                      PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.balanceEngine = balanceEngine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 돈을 돌려줄 계좌(원래 수신 계좌)만 계좌 번호 순서로 한 번씩 잠그고, 건마다 메모리에서 검증하고 잔액을 옮긴다.
+     * 취소하지 못한 건은 실패 거래로 남기지 않고 결과로만 돌려준다. 다시 요청하면 그때 취소할 수 있다.
+     * @param originals 취소할 송금. 두 계좌가 함께 조회되어 있어야 한다.
+     * @param dryRun true 면 잔액 반영까지 해 본 뒤 트랜잭션을 되돌린다.
+     * @return 요청 순서대로의 결과
+     */
+    @AccountLock("#originals.![recipientAccount.accountNumber]")
+    public List<ReversalResult> reverseBatch(List<Transaction> originals, boolean dryRun) {
+        return transactionTemplate.execute(status -> {
+            List<ReversalResult> results = reverseAll(originals);
+            if (dryRun) {
+                status.setRollbackOnly();
+                return results;
+            }
+
+            transactionRepository.saveAll(results.stream()
+                    .filter(ReversalResult::isSuccess)
+                    .map(ReversalResult::reversal)
+                    .toList());
+            return results;
+        });
+    }
+
+    private List<ReversalResult> reverseAll(List<Transaction> originals) {
+        Set<Long> reversedIds = new HashSet<>(transactionRepository.findReversedIds(
+                originals.stream().map(Transaction::getId).toList()));
+        Map<String, Account> accounts = findAccounts(originals);
+        prepareDebits(originals, accounts);
+        Map<String, Long> balancesBefore = accounts.values().stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Account::getBalance));
+
+        List<ReversalResult> results = originals.stream()
+                .map(original -> reverse(original, accounts, reversedIds))
+                .toList();
+
+        balanceEngine.applyAll(accounts, balancesBefore, results.stream()
+                .filter(ReversalResult::isSuccess)
+                .map(ReversalResult::reversal)
+                .toList());
+        return results;
+    }
+
+    /**
+     * 같은 송금이 두 번 들어 있으면 두 번째는 이미 취소된 것으로 처리한다.
+     */
+    private static ReversalResult reverse(Transaction original, Map<String, Account> accounts, Set<Long> reversedIds) {
+        try {
+            if (!reversedIds.add(original.getId())) {
+                throw new PayException(ErrorCode.ALREADY_REVERSED);
+            }
+
+            Transaction reversal = Transaction.reversalOf(original);
+            reversal.successTransaction(accounts.get(original.getRemitterAccount().getAccountNumber()),
+                    accounts.get(original.getRecipientAccount().getAccountNumber()), TransactionType.CANCEL);
+            return new ReversalResult(original.getId(), reversal, null);
+        } catch (PayException e) {
+            return new ReversalResult(original.getId(), null, e.getErrorCode());
+        }
+    }
+
+    /**
+     * 원래 수신 계좌마다 돌려줄 금액 합계만큼 출금을 준비한다.
+     */
+    private void prepareDebits(List<Transaction> originals, Map<String, Account> accounts) {
+        Map<String, Long> amounts = new HashMap<>();
+        for (Transaction original : originals) {
+            amounts.merge(original.getRecipientAccount().getAccountNumber(), (long) original.getAmount(), Long::sum);
+        }
+
+        amounts.forEach((accountNumber, amount) -> balanceEngine.prepareDebit(accounts.get(accountNumber), amount));
+    }
+
+    private Map<String, Account> findAccounts(List<Transaction> originals) {
+        Set<String> accountNumbers = originals.stream()
+                .flatMap(original -> Stream.of(
+                        original.getRecipientAccount().getAccountNumber(),
+                        original.getRemitterAccount().getAccountNumber()))
+                .collect(Collectors.toSet());
+
+        return accountRepository.findAllById(accountNumbers).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+    }
+}
@@ -5,7 +5,11 @@ import com.jungmini.pay.domain.Member;
 import com.jungmini.pay.domain.Transaction;
 
 import com.jungmini.pay.common.resolover.SigninMember;
-import com.jungmini.pay.service.LockService;
+import com.jungmini.pay.service.AccountLockAspect;
+import com.jungmini.pay.service.BatchRemitService;
+import com.jungmini.pay.service.IdempotencyStore;
+import com.jungmini.pay.service.RemitGroupCommitter;
+import com.jungmini.pay.service.RemitResult;
 import com.jungmini.pay.web.dto.AccountDTO;
 import com.jungmini.pay.service.AccountService;
 
@@ -15,15 +19,23 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RequiredArgsConstructor
 @RestController
 public class AccountController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final AccountService accountService;
-    private final LockService lockService;
+    private final BatchRemitService batchRemitService;
+    private final AccountLockAspect accountLockAspect;
+    private final RemitGroupCommitter remitGroupCommitter;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping("/accounts")
     public ResponseEntity<AccountDTO.CreateAccountResponse> createAccount(
@@ -35,36 +47,61 @@ public class AccountController {
                 .body(AccountDTO.CreateAccountResponse.from(newAccount));
     }
 
+    /**
+     * 잠글 계좌를 AccountLockAspect.submit 에 넘겨 트랜잭션 바로 바깥에서 잠근다.
+     * 잠금을 기다리는 동안 요청 스레드를 반환하고, 작업이 끝나면 DeferredResult 로 응답한다.
+     * 계좌에 대기 중인 요청이 한도를 넘으면 잠금을 시도하지 않고 429 로 바로 거절한다.
+     * 같은 Idempotency-Key 로 다시 보내면 잠금을 잡지 않고 처음 요청의 응답을 돌려주고, 본문이 다르면 422 로 거절한다.
+     */
     @PostMapping("/accounts/points")
-    public ResponseEntity<AccountDTO.ChargePointResponse> chargePoint(
+    public DeferredResult<ResponseEntity<AccountDTO.ChargePointResponse>> chargePoint(
             @RequestBody @Valid AccountDTO.ChargePointRequest chargePointRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @SigninMember Member member) {
-        try {
-            lockService.lock(chargePointRequest.getAccountNumber());
-            Account account = accountService
-                    .chargePoint(chargePointRequest.getAmount(), chargePointRequest, member);
-
-            return ResponseEntity.status(HttpStatus.OK)
-                    .body(AccountDTO.ChargePointResponse.from(account));
-        } finally {
-            lockService.unlock(chargePointRequest.getAccountNumber());
-        }
+        CompletableFuture<AccountDTO.ChargePointResponse> response = idempotencyStore.execute(
+                member.getEmail() + ":charge", idempotencyKey, chargePointRequest, AccountDTO.ChargePointResponse.class,
+                () -> accountLockAspect.submit(List.of(chargePointRequest.getAccountNumber()),
+                        () -> accountService.chargePoint(chargePointRequest.getAmount(), chargePointRequest, member))
+                        .thenApply(AccountDTO.ChargePointResponse::from));
+
+        return toDeferredResult(response);
     }
 
+    /**
+     * account.group-commit.enabled 가 켜져 있으면 짧은 시간 안에 들어온 송금을 모아 한 번에 커밋한 뒤 응답한다.
+     */
     @PostMapping("/accounts/remit")
-    public ResponseEntity<AccountDTO.RemitResponse> remit(
+    public DeferredResult<ResponseEntity<AccountDTO.RemitResponse>> remit(
         @RequestBody @Valid AccountDTO.RemitRequest remitRequest,
+        @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
         @SigninMember Member remitter) {
-        try {
-            lockService.lock(remitRequest.getRecipientsAccountNumber());
-            lockService.lock(remitRequest.getRemitterAccountNumber());
-            Transaction transaction = accountService.remit(remitRequest.toTransaction(), remitter);
-            return ResponseEntity.status(HttpStatus.OK)
-                    .body(AccountDTO.RemitResponse.from(transaction));
-        } finally {
-            lockService.unlock(remitRequest.getRecipientsAccountNumber());
-            lockService.unlock(remitRequest.getRemitterAccountNumber());
-        }
+        Transaction transactionRequest = remitRequest.toTransaction();
+        CompletableFuture<AccountDTO.RemitResponse> response = idempotencyStore.execute(
+                remitter.getEmail() + ":remit", idempotencyKey, remitRequest, AccountDTO.RemitResponse.class,
+                () -> remitGroupCommitter.submit(transactionRequest, remitter)
+                        .thenApply(AccountDTO.RemitResponse::from));
+
+        return toDeferredResult(response);
+    }
+
+    /**
+     * 정산 작업처럼 송금을 연달아 보낼 때 인증, 잠금, 커밋을 요청마다 하지 않도록 한 번에 처리한다.
+     * 건마다 결과를 돌려주고, 실패한 건은 단건 송금과 같이 실패 거래로 남긴다.
+     */
+    @PostMapping("/accounts/remit/batch")
+    public DeferredResult<ResponseEntity<List<AccountDTO.BatchRemitResponse>>> remitBatch(
+            @RequestBody @Valid AccountDTO.BatchRemitRequest batchRemitRequest,
+            @SigninMember Member remitter) {
+        List<Transaction> transactionRequests = batchRemitRequest.toTransactions();
+        CompletableFuture<List<RemitResult>> results = accountLockAspect.submit(
+                transactionRequests.stream()
+                        .map(transactionRequest -> transactionRequest.getRemitterAccount().getAccountNumber())
+                        .toList(),
+                () -> batchRemitService.remitBatch(transactionRequests, remitter));
+
+        return toDeferredResult(results.thenApply(remitResults -> remitResults.stream()
+                .map(AccountDTO.BatchRemitResponse::from)
+                .toList()));
     }
 
     @GetMapping("/accounts/{accountNumber}")
@@ -94,4 +131,19 @@ public class AccountController {
                         .map(AccountDTO.GetTransactionResponse::from)
                         .toList());
     }
+
+    /**
+     * 실패한 경우 원래 예외를 넘겨야 GlobalExceptionHandler 가 처리할 수 있다.
+     */
+    private static <T> DeferredResult<ResponseEntity<T>> toDeferredResult(CompletableFuture<T> response) {
+        DeferredResult<ResponseEntity<T>> deferredResult = new DeferredResult<>();
+        response.whenComplete((body, e) -> {
+            if (e != null) {
+                deferredResult.setErrorResult(e instanceof CompletionException ? e.getCause() : e);
+                return;
+            }
+            deferredResult.setResult(ResponseEntity.status(HttpStatus.OK).body(body));
+        });
+        return deferredResult;
+    }
 }
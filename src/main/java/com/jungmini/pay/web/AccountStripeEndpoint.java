@@ -0,0 +1,28 @@
+package com.jungmini.pay.web;
+
+import com.jungmini.pay.service.AccountService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.jmx.annotation.JmxEndpoint;
+import org.springframework.stereotype.Component;
+
+/**
+ * 입금이 몰리는 계좌를 스트라이프 계좌로 지정하는 관리용 엔드포인트
+ * 계좌를 바꾸므로 인증 없는 웹(actuator)에는 노출하지 않고 JMX 로만 노출한다.
+ * org.springframework.boot:type=Endpoint,name=Accountstripe 의 enableStriping("100000000000", 8)
+ */
+@Component
+@JmxEndpoint(id = "accountstripe")
+@RequiredArgsConstructor
+public class AccountStripeEndpoint {
+
+    private final AccountService accountService;
+
+    /**
+     * AccountService.enableStriping 의 @AccountLock 이 계좌를 잠근다.
+     */
+    @WriteOperation
+    public int enableStriping(String accountNumber, int stripeCount) {
+        return accountService.enableStriping(accountNumber, stripeCount).getStripeCount();
+    }
+}
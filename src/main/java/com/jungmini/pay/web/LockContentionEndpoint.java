@@ -0,0 +1,29 @@
+package com.jungmini.pay.web;
+
+import com.jungmini.pay.service.LockMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.jmx.annotation.JmxEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 경쟁이 심한 계좌 목록을 조회하는 관리용 엔드포인트
+ * 계좌 번호를 돌려주므로 인증 없는 웹(actuator)에는 노출하지 않고 JMX 로만 노출한다.
+ * org.springframework.boot:type=Endpoint,name=Lockcontention 의 hotKeys()
+ */
+@Component
+@JmxEndpoint(id = "lockcontention")
+@RequiredArgsConstructor
+public class LockContentionEndpoint {
+
+    private static final int TOP_N = 20;
+
+    private final LockMetrics lockMetrics;
+
+    @ReadOperation
+    public List<LockMetrics.HotKey> hotKeys() {
+        return lockMetrics.hotKeys(TOP_N);
+    }
+}
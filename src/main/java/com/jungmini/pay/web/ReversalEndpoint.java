@@ -0,0 +1,34 @@
+package com.jungmini.pay.web;
+
+import com.jungmini.pay.service.ReversalReport;
+import com.jungmini.pay.service.TransactionReversalJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.jmx.annotation.JmxEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * 성공한 송금을 한꺼번에 취소하는 관리용 엔드포인트
+ * 돈을 옮기므로 인증 없는 웹(actuator)에는 노출하지 않고 JMX 로만 노출한다.
+ * org.springframework.boot:type=Endpoint,name=Reversal 의 reverse("1,2,3", true)
+ */
+@Component
+@JmxEndpoint(id = "reversal")
+@RequiredArgsConstructor
+public class ReversalEndpoint {
+
+    private final TransactionReversalJob transactionReversalJob;
+
+    /**
+     * JMX 클라이언트가 넘기기 쉽도록 송금 번호를 쉼표로 구분한 문자열로 받는다.
+     */
+    @WriteOperation
+    public ReversalReport reverse(String transactionIds, boolean dryRun) {
+        return transactionReversalJob.reverse(Arrays.stream(transactionIds.split(","))
+                .map(String::trim)
+                .map(Long::valueOf)
+                .toList(), dryRun);
+    }
+}
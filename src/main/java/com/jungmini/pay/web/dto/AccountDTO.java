@@ -4,15 +4,21 @@ import com.jungmini.pay.common.annotation.AccountNumberCheck;
 import com.jungmini.pay.domain.Account;
 import com.jungmini.pay.domain.AccountNumber;
 import com.jungmini.pay.domain.Transaction;
+import com.jungmini.pay.domain.type.TransactionResultType;
+import com.jungmini.pay.service.RemitResult;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class AccountDTO {
 
@@ -60,7 +66,7 @@ public class AccountDTO {
 
         public static ChargePointResponse from(Account account) {
             return ChargePointResponse.builder()
-                    .balance(account.getBalance())
+                    .balance(account.getTotalBalance())
                     .accountNumber(account.getAccountNumber())
                     .createdAt(LocalDateTime.now())
                     .build();
@@ -122,6 +128,51 @@ public class AccountDTO {
         }
     }
 
+    @Getter
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class BatchRemitRequest {
+
+        @NotEmpty(message = "송금 요청이 비어 있습니다.")
+        @Size(max = 1000, message = "한 번에 최대 1000건까지 송금할 수 있습니다.")
+        private List<@Valid RemitRequest> remits;
+
+        public List<Transaction> toTransactions() {
+            return remits.stream()
+                    .map(RemitRequest::toTransaction)
+                    .toList();
+        }
+    }
+
+    @Getter
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class BatchRemitResponse {
+
+        private int amount;
+        private String recipientsAccountNumber;
+        private String remitterAccountNumber;
+        private String transactionResultType;
+        private String errorCode; // 성공하면 null
+        private LocalDateTime createdAt;
+
+        public static BatchRemitResponse from(RemitResult remitResult) {
+            Transaction transaction = remitResult.transaction();
+            return BatchRemitResponse.builder()
+                    .amount(transaction.getAmount())
+                    .recipientsAccountNumber(transaction.getRecipientAccount().getAccountNumber())
+                    .remitterAccountNumber(transaction.getRemitterAccount().getAccountNumber())
+                    .transactionResultType(remitResult.isSuccess()
+                            ? TransactionResultType.SUCCESS.toString()
+                            : TransactionResultType.FAIL.toString())
+                    .errorCode(remitResult.isSuccess() ? null : remitResult.errorCode().toString())
+                    .createdAt(transaction.getCreatedAt())
+                    .build();
+        }
+    }
+
     @Getter
     @Builder
     @AllArgsConstructor
@@ -135,7 +186,7 @@ public class AccountDTO {
 
         public static GetAccountResponse from(Account account) {
             return GetAccountResponse.builder()
-                    .balance(account.getBalance())
+                    .balance(account.getTotalBalance())
                     .ownerEmail(account.getOwner().getEmail())
                     .createdAt(account.getCreatedAt())
                     .accountNumber(account.getAccountNumber())
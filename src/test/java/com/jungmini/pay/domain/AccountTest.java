@@ -14,34 +14,26 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 class AccountTest {
 
     @Test
-    @DisplayName("초기 생성되는 계좌 번호는 DEFAULT_ACCOUNT_NUMBER")
-    void create_account_success_default_account_number() {
+    @DisplayName("배정받은 번호로 계좌를 만든다")
+    void create_account_success() {
         Member owner = MemberFactory.member();
 
-        Account newAccount = Account.from(owner, null);
+        Account newAccount = Account.from(owner, "100000000001");
 
-        assertThat(newAccount.getAccountNumber()).isEqualTo(Account.DEFAULT_ACCOUNT_NUMBER);
+        assertThat(newAccount.getAccountNumber()).isEqualTo("100000000001");
         assertThat(newAccount.getBalance()).isEqualTo(0);
         assertThat(newAccount.getAccountStatus()).isEqualTo(AccountStatus.IN_USE);
         assertThat(newAccount.getOwner()).isEqualTo(owner);
     }
 
     @Test
-    @DisplayName("이후 생성되는 계좌 번호는 숫자가 1 더 크다")
-    void create_account_success_accountNumber_increment() {
+    @DisplayName("배정받은 번호가 12자리 숫자가 아니면 계좌를 만들지 않는다")
+    void create_account_fail_illegal_account_number() {
         Member owner = MemberFactory.member();
-        Account account = Account.builder()
-                .accountNumber("100000000000")
-                .owner(owner)
-                .accountStatus(AccountStatus.IN_USE)
-                .build();
 
-        Account newAccount = Account.from(owner, account);
+        PayException exception = assertThrows(PayException.class, () -> Account.from(owner, "1000000000000"));
 
-        assertThat(newAccount.getAccountNumber()).isEqualTo("100000000001");
-        assertThat(newAccount.getBalance()).isEqualTo(0);
-        assertThat(newAccount.getAccountStatus()).isEqualTo(AccountStatus.IN_USE);
-        assertThat(newAccount.getOwner()).isEqualTo(owner);
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ILLEGAL_ACCOUNT_NUMBER);
     }
 
     @Test
@@ -95,4 +87,67 @@ class AccountTest {
         assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.LACK_OF_BALANCE);
         assertThat(payException.getErrorMessage()).isEqualTo(ErrorCode.LACK_OF_BALANCE.getDescription());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("같거나 더 큰 펜싱 토큰으로는 계좌를 변경할 수 있다")
+    void fence_success_with_newer_token() {
+        Account account = AccountFactory.accountFrom(MemberFactory.member());
+
+        account.fence(3);
+        account.fence(3);
+
+        assertThat(account.getFencingToken()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("펜싱 토큰 검증 실패 - 더 최신 잠금이 이미 계좌를 변경함")
+    void fence_fail_stale_token() {
+        Account account = AccountFactory.accountFrom(MemberFactory.member());
+        account.fence(5);
+
+        PayException payException = assertThrows(PayException.class,
+                () -> account.fence(4));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.STALE_LOCK_TOKEN);
+        assertThat(account.getFencingToken()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("스트라이프 계좌의 입금은 주 잔액을 바꾸지 않고 보조 잔액에 더할 금액으로 남는다")
+    void striped_account_plus_amount_pending() {
+        Account account = AccountFactory.stripedAccountFrom(MemberFactory.member(), "100000000000", 1000, 4);
+
+        account.plusAmount(500);
+        account.plusAmount(300);
+
+        assertThat(account.getBalance()).isEqualTo(1000);
+        assertThat(account.takePendingStripeCredit()).isEqualTo(800);
+        assertThat(account.takePendingStripeCredit()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("조회한 잔액은 주 잔액과 보조 잔액의 합이다")
+    void total_balance_with_stripes() {
+        Account account = AccountFactory.stripedAccountFrom(MemberFactory.member(), "100000000000", 1000, 4);
+
+        account.loadStripeBalance(700);
+        account.sweepFromStripe(200);
+
+        assertThat(account.getBalance()).isEqualTo(1200);
+        assertThat(account.getTotalBalance()).isEqualTo(1900);
+    }
+
+    @Test
+    @DisplayName("보조 잔액 수는 늘릴 수만 있다")
+    void enable_striping() {
+        Account account = AccountFactory.accountFrom(MemberFactory.member());
+
+        account.enableStriping(4);
+
+        assertThat(account.isStriped()).isTrue();
+        assertThat(account.getStripeCount()).isEqualTo(4);
+        PayException payException = assertThrows(PayException.class,
+                () -> account.enableStriping(2));
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ILLEGAL_STRIPE_COUNT);
+    }
+}
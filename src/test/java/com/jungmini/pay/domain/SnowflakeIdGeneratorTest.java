@@ -0,0 +1,87 @@
+package com.jungmini.pay.domain;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.service.ServiceRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH_MILLIS + 1000;
+
+    @Test
+    @DisplayName("번호는 밀리초, 노드 번호, 순번으로 이루어진다")
+    void layout() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(() -> NOW, 7);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertThat(first >> (SnowflakeIdGenerator.NODE_BITS + SnowflakeIdGenerator.SEQUENCE_BITS)).isEqualTo(1000);
+        assertThat((first >> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID).isEqualTo(7);
+        assertThat(first & SnowflakeIdGenerator.MAX_SEQUENCE).isZero();
+        assertThat(second).isEqualTo(first + 1);
+    }
+
+    @Test
+    @DisplayName("한 밀리초에 순번을 다 쓰면 다음 밀리초를 앞당겨 쓴다")
+    void sequence_overflow() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(() -> NOW, 0);
+
+        long last = 0;
+        for (int i = 0; i <= SnowflakeIdGenerator.MAX_SEQUENCE; i++) {
+            last = generator.nextId();
+        }
+        long borrowed = generator.nextId();
+
+        assertThat(borrowed).isGreaterThan(last);
+        assertThat(borrowed >> (SnowflakeIdGenerator.NODE_BITS + SnowflakeIdGenerator.SEQUENCE_BITS)).isEqualTo(1001);
+        assertThat(generator.nextId()).isGreaterThan(borrowed);
+    }
+
+    @Test
+    @DisplayName("시계가 뒤로 가도 번호는 줄어들지 않는다")
+    void clock_moves_backwards() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(clock::get, 0);
+
+        long before = generator.nextId();
+        clock.set(NOW - 500);
+        long after = generator.nextId();
+        clock.set(NOW + 1);
+
+        assertThat(after).isGreaterThan(before);
+        assertThat(generator.nextId()).isGreaterThan(after);
+    }
+
+    @Test
+    @DisplayName("노드 번호는 Hibernate 설정에서 읽고, 없거나 10비트를 넘으면 거부한다")
+    void configure_node_id() {
+        ServiceRegistry serviceRegistry = mock(ServiceRegistry.class);
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(serviceRegistry.getService(ConfigurationService.class)).thenReturn(configurationService);
+        when(configurationService.getSettings())
+                .thenReturn(Map.<String, Object>of(SnowflakeIdGenerator.NODE_ID_SETTING, "3"))
+                .thenReturn(Map.<String, Object>of())
+                .thenReturn(Map.<String, Object>of(SnowflakeIdGenerator.NODE_ID_SETTING, ""))
+                .thenReturn(Map.<String, Object>of(SnowflakeIdGenerator.NODE_ID_SETTING, "1024"));
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator();
+
+        generator.configure(null, new Properties(), serviceRegistry);
+
+        long id = (long) generator.generate(null, null);
+        assertThat((id >> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID).isEqualTo(3);
+        assertThrows(IllegalStateException.class, () -> generator.configure(null, new Properties(), serviceRegistry));
+        assertThrows(IllegalStateException.class, () -> generator.configure(null, new Properties(), serviceRegistry));
+        assertThrows(IllegalArgumentException.class, () -> generator.configure(null, new Properties(), serviceRegistry));
+    }
+}
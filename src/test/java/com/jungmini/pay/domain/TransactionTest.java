@@ -108,4 +108,38 @@ class TransactionTest {
 
         assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ILLEGAL_TRANSACTION_STATE);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("송금 취소 성공 - 원래 수신 계좌에서 송금 계좌로 같은 금액을 돌려준다")
+    void reversal_success() {
+        Account remitterAccount = AccountFactory.accountFromOwnerAndBalance(MemberFactory.memberFrom("remitter@test.com"), 10000);
+        Account recipientAccount = AccountFactory.accountFromOwnerAndBalance(MemberFactory.memberFrom("recipient@test.com"), 100);
+        Transaction original = TransactionFactory.transactionRequest(remitterAccount, recipientAccount, 500);
+        original.successTransaction(recipientAccount, remitterAccount, TransactionType.REMIT);
+
+        Transaction reversal = Transaction.reversalOf(original);
+        reversal.successTransaction(remitterAccount, recipientAccount, TransactionType.CANCEL);
+
+        assertThat(reversal.getOriginalTransaction()).isSameAs(original);
+        assertThat(reversal.getTransactionType()).isEqualTo(TransactionType.CANCEL);
+        assertThat(reversal.getTransactionResultType()).isEqualTo(TransactionResultType.SUCCESS);
+        assertThat(reversal.getRemitterAccount()).isEqualTo(recipientAccount);
+        assertThat(reversal.getAmount()).isEqualTo(500);
+        assertThat(remitterAccount.getBalance()).isEqualTo(10000);
+        assertThat(recipientAccount.getBalance()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("송금 취소 실패 - 성공한 송금만 취소할 수 있다")
+    void reversal_fail_not_success_remit() {
+        Account remitterAccount = AccountFactory.accountFromOwnerAndBalance(MemberFactory.memberFrom("remitter@test.com"), 100);
+        Account recipientAccount = AccountFactory.accountFromOwnerAndBalance(MemberFactory.memberFrom("recipient@test.com"), 0);
+        Transaction failed = TransactionFactory.transactionRequest(remitterAccount, recipientAccount, 500);
+        failed.failTransaction(recipientAccount, remitterAccount, TransactionType.REMIT);
+
+        PayException payException = assertThrows(PayException.class, () -> Transaction.reversalOf(failed));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ILLEGAL_TRANSACTION_STATE);
+        assertThrows(PayException.class, () -> Transaction.reversalOf(TransactionFactory.from()));
+    }
+}
@@ -17,11 +17,6 @@ public class AccountFactory {
                 .build();
     }
 
-    public static Account secondAccount() {
-        Member owner = MemberFactory.member();
-        return Account.from(owner, account());
-    }
-
     public static Account accountFrom(Member owner) {
         return Account.builder()
                 .balance(0)
@@ -39,4 +34,14 @@ public class AccountFactory {
                 .owner(owner)
                 .build();
     }
+
+    public static Account stripedAccountFrom(Member owner, String accountNumber, long balance, int stripeCount) {
+        return Account.builder()
+                .balance(balance)
+                .accountNumber(accountNumber)
+                .accountStatus(AccountStatus.IN_USE)
+                .owner(owner)
+                .stripeCount(stripeCount)
+                .build();
+    }
 }
@@ -0,0 +1,94 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.AccountBusyException;
+import com.jungmini.pay.common.exception.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AccountAdmissionTest {
+
+    private static final String ACCOUNT_NUMBER = "100000000000";
+    private static final String OTHER_ACCOUNT_NUMBER = "100000000001";
+
+    SimpleMeterRegistry meterRegistry;
+    AccountAdmission accountAdmission;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        accountAdmission = new AccountAdmission(meterRegistry, 2, 3);
+    }
+
+    @Test
+    @DisplayName("작업이 끝나면 계좌의 대기 수를 돌려준다")
+    void release_when_work_completed() {
+        CompletableFuture<String> work = new CompletableFuture<>();
+
+        CompletableFuture<String> result = accountAdmission.submit(List.of(ACCOUNT_NUMBER, ACCOUNT_NUMBER), () -> work);
+
+        assertThat(accountAdmission.queueDepth(ACCOUNT_NUMBER)).isEqualTo(1);
+        work.complete("done");
+        assertThat(result.join()).isEqualTo("done");
+        assertThat(accountAdmission.queueDepth(ACCOUNT_NUMBER)).isZero();
+    }
+
+    @Test
+    @DisplayName("작업이 실패해도 계좌의 대기 수를 돌려준다")
+    void release_when_work_failed() {
+        CompletableFuture<String> work = new CompletableFuture<>();
+
+        accountAdmission.submit(List.of(ACCOUNT_NUMBER), () -> work);
+        work.completeExceptionally(new IllegalStateException());
+
+        assertThat(accountAdmission.queueDepth(ACCOUNT_NUMBER)).isZero();
+    }
+
+    @Test
+    @DisplayName("작업을 시작하다 예외가 나면 대기 수를 돌려주고 예외를 그대로 던진다")
+    void release_when_work_throws() {
+        assertThrows(IllegalStateException.class,
+                () -> accountAdmission.submit(List.of(ACCOUNT_NUMBER), () -> {
+                    throw new IllegalStateException();
+                }));
+
+        assertThat(accountAdmission.queueDepth(ACCOUNT_NUMBER)).isZero();
+    }
+
+    @Test
+    @DisplayName("대기 수가 한도를 넘은 계좌의 요청은 작업을 시작하지 않고 바로 거절한다")
+    void reject_when_queue_full() {
+        accountAdmission.submit(List.of(ACCOUNT_NUMBER), CompletableFuture::new);
+        accountAdmission.submit(List.of(ACCOUNT_NUMBER), CompletableFuture::new);
+
+        AccountBusyException exception = assertThrows(AccountBusyException.class,
+                () -> accountAdmission.submit(List.of(ACCOUNT_NUMBER), () -> {
+                    throw new AssertionError("작업을 시작하면 안 된다");
+                }));
+
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_BUSY);
+        assertThat(exception.getRetryAfterSeconds()).isEqualTo(3);
+        assertThat(accountAdmission.queueDepth(ACCOUNT_NUMBER)).isEqualTo(2);
+        assertThat(meterRegistry.counter("account.admission.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("여러 계좌 중 하나라도 가득 차면 먼저 받은 계좌의 자리도 돌려준다")
+    void rollback_admitted_accounts_when_rejected() {
+        accountAdmission.submit(List.of(OTHER_ACCOUNT_NUMBER), CompletableFuture::new);
+        accountAdmission.submit(List.of(OTHER_ACCOUNT_NUMBER), CompletableFuture::new);
+
+        assertThrows(AccountBusyException.class,
+                () -> accountAdmission.submit(List.of(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER), CompletableFuture::new));
+
+        assertThat(accountAdmission.queueDepth(ACCOUNT_NUMBER)).isZero();
+        assertThat(accountAdmission.queueDepth(OTHER_ACCOUNT_NUMBER)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,131 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.transaction.PlatformTransactionManager;
+import redis.embedded.RedisServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 여러 계좌 사이의 송금을 Redis 락과 단일 스레드 샤드로 처리했을 때의 처리량을 비교한다.
+ * 잔액은 메모리에서만 바꾸므로 DB 를 제외한 동시성 제어 비용만 측정한다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+class AccountExecutorBenchmark {
+
+    private static final int PORT = 6382;
+    private static final int ACCOUNTS = 64;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 500;
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @Test
+    void transfers_between_accounts() throws Exception {
+        RedissonLockService redissonLockService =
+                new RedissonLockService(redissonClient, new LockWatchdog(redissonClient), lockBudget(), circuitBreaker());
+        LockingAccountExecutor lockingAccountExecutor = new LockingAccountExecutor(
+                redissonLockService, new LockMetrics(new SimpleMeterRegistry(), 100, 10), circuitBreaker());
+        ShardedAccountExecutor shardedAccountExecutor =
+                new ShardedAccountExecutor(Runtime.getRuntime().availableProcessors(), 1);
+
+        run("redisson lock", lockingAccountExecutor);
+        run("sequencer", shardedAccountExecutor);
+
+        shardedAccountExecutor.shutdown();
+    }
+
+    private static void run(String name, AccountExecutor accountExecutor) throws Exception {
+        long[] balances = new long[ACCOUNTS];
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger fail = new AtomicInteger();
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(() -> {
+                for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                    int from = ThreadLocalRandom.current().nextInt(ACCOUNTS);
+                    int to = (from + 1 + ThreadLocalRandom.current().nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    try {
+                        accountExecutor.executeAll(List.of(accountNumber(from), accountNumber(to)), () -> {
+                            balances[from]--;
+                            balances[to]++;
+                            return null;
+                        });
+                        success.incrementAndGet();
+                    } catch (PayException e) {
+                        fail.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Future<Void> future : executor.invokeAll(workers)) {
+            future.get();
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        executor.shutdown();
+
+        long total = 0;
+        for (long balance : balances) {
+            total += balance;
+        }
+        System.out.printf("[%s] success=%d fail=%d elapsed=%dms throughput=%d transfers/s%n",
+                name, success.get(), fail.get(), elapsedMillis, success.get() * 1000L / elapsedMillis);
+        assertThat(total).isZero();
+    }
+
+    private static String accountNumber(int index) {
+        return String.valueOf(100000000000L + index);
+    }
+
+    private static LockBudget lockBudget() {
+        return new LockBudget(new AccountAdmission(new SimpleMeterRegistry(), 32, 1),
+                1000, 5000, 500, 3000, 3, 256, 10);
+    }
+
+    private static RedisCircuitBreaker circuitBreaker() {
+        return new RedisCircuitBreaker(new SimpleMeterRegistry(),
+                mock(AccountRepository.class), mock(PlatformTransactionManager.class), 20, 10, 50, 200, 5000);
+    }
+}
@@ -0,0 +1,202 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.annotation.AccountLock;
+import com.jungmini.pay.common.exception.AccountBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AccountLockAspectTest {
+
+    private static final String ACCOUNT_NUMBER = "100000000000";
+    private static final String OTHER_ACCOUNT_NUMBER = "100000000001";
+
+    @Mock
+    AccountExecutor accountExecutor;
+
+    AccountLockAspect accountLockAspect;
+
+    LockedService lockedService;
+
+    @BeforeEach
+    void setUp() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("lockTargets", new LockTargets());
+        accountLockAspect = new AccountLockAspect(accountExecutor,
+                new AccountAdmission(new SimpleMeterRegistry(), 1, 1), beanFactory);
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new LockedService());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(accountLockAspect);
+        lockedService = proxyFactory.getProxy();
+    }
+
+    @Test
+    @DisplayName("SpEL 로 구한 계좌 번호를 정렬하고 중복을 없앤 뒤 잠근 상태에서 메서드를 실행한다")
+    void execute_with_sorted_account_numbers() {
+        when(accountExecutor.executeAll(anyCollection(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
+        String result = lockedService.remit(OTHER_ACCOUNT_NUMBER, ACCOUNT_NUMBER);
+
+        assertThat(result).isEqualTo("remit");
+        verify(accountExecutor).executeAll(eq(List.of(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER)), any());
+    }
+
+    @Test
+    @DisplayName("다른 계좌의 잠금 안에서 호출해도 잠근 계좌 목록에 없으면 다시 잠근다")
+    void lock_when_account_not_held() {
+        when(accountExecutor.executeAll(anyCollection(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        LockHandle lock = new FencedLockHandle(Map.of(OTHER_ACCOUNT_NUMBER, 1L), () -> {});
+
+        String result = LockContext.callWith(lock, () -> lockedService.charge(ACCOUNT_NUMBER));
+
+        assertThat(result).isEqualTo("charge");
+        verify(accountExecutor).executeAll(eq(List.of(ACCOUNT_NUMBER)), any());
+    }
+
+    @Test
+    @DisplayName("메서드의 RuntimeException 은 그대로, checked 예외는 감싸서 던진다")
+    void rethrow_method_exception() {
+        when(accountExecutor.executeAll(anyCollection(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
+        assertThrows(IllegalStateException.class, () -> lockedService.fail(ACCOUNT_NUMBER));
+        UndeclaredThrowableException exception = assertThrows(UndeclaredThrowableException.class,
+                () -> lockedService.failChecked(ACCOUNT_NUMBER));
+        assertThat(exception.getUndeclaredThrowable()).isInstanceOf(Exception.class);
+    }
+
+    @Test
+    @DisplayName("submit 은 넘긴 계좌를 잠근 뒤 작업을 실행하고, 작업 안의 @AccountLock 메서드는 다시 잠그지 않는다")
+    void submit_after_lock() {
+        when(accountExecutor.executeAllAsync(anyCollection(), any()))
+                .thenAnswer(invocation -> CompletableFuture.supplyAsync(invocation.<Supplier<?>>getArgument(1)));
+
+        CompletableFuture<Integer> result = accountLockAspect.submit(List.of(OTHER_ACCOUNT_NUMBER, ACCOUNT_NUMBER),
+                () -> lockedService.balance(ACCOUNT_NUMBER));
+
+        assertThat(result.join()).isEqualTo(1000);
+        verify(accountExecutor).executeAllAsync(eq(List.of(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER)), any());
+        verify(accountExecutor, never()).executeAll(anyCollection(), any());
+    }
+
+    @Test
+    @DisplayName("submit 으로 잠그지 않은 계좌의 @AccountLock 메서드를 호출하면 잠금 없이 실행하지 않고 실패한다")
+    void submit_fails_for_account_not_held() {
+        when(accountExecutor.executeAllAsync(anyCollection(), any()))
+                .thenAnswer(invocation -> CompletableFuture.supplyAsync(invocation.<Supplier<?>>getArgument(1)));
+
+        CompletableFuture<String> result = accountLockAspect.submit(List.of(ACCOUNT_NUMBER),
+                () -> lockedService.charge(OTHER_ACCOUNT_NUMBER));
+
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertThat(exception.getCause()).isInstanceOf(IllegalStateException.class);
+        assertThat(lockedService.calls.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("submit 한 작업이 끝나면 같은 스레드의 다음 호출은 다시 잠근다")
+    void submit_releases_held_accounts() {
+        when(accountExecutor.executeAllAsync(anyCollection(), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.<Supplier<?>>getArgument(1).get()));
+        when(accountExecutor.executeAll(anyCollection(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
+        assertThrows(IllegalStateException.class, () -> accountLockAspect.submit(List.of(ACCOUNT_NUMBER),
+                () -> lockedService.fail(ACCOUNT_NUMBER)));
+        lockedService.charge(ACCOUNT_NUMBER);
+
+        verify(accountExecutor).executeAll(eq(List.of(ACCOUNT_NUMBER)), any());
+    }
+
+    @Test
+    @DisplayName("대기 중인 요청이 한도를 넘은 계좌는 잠금을 시도하지 않고 거절한다")
+    void submit_rejected_when_account_busy() {
+        when(accountExecutor.executeAllAsync(anyCollection(), any()))
+                .thenReturn(new CompletableFuture<>());
+        accountLockAspect.submit(List.of(ACCOUNT_NUMBER), () -> lockedService.charge(ACCOUNT_NUMBER));
+
+        assertThrows(AccountBusyException.class,
+                () -> accountLockAspect.submit(List.of(ACCOUNT_NUMBER), () -> lockedService.charge(ACCOUNT_NUMBER)));
+        assertThat(lockedService.calls.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("submitAdmitted 는 대기 요청 수를 확인하지 않고 잠금을 얻은 뒤에 실행한다")
+    void submit_admitted_skips_admission() {
+        when(accountExecutor.executeAllAsync(anyCollection(), any()))
+                .thenReturn(new CompletableFuture<>())
+                .thenAnswer(invocation -> CompletableFuture.supplyAsync(invocation.<Supplier<?>>getArgument(1)));
+        accountLockAspect.submit(List.of(ACCOUNT_NUMBER), () -> lockedService.charge(ACCOUNT_NUMBER));
+
+        CompletableFuture<String> result = accountLockAspect.submitAdmitted(List.of(ACCOUNT_NUMBER),
+                () -> lockedService.charge(ACCOUNT_NUMBER));
+
+        assertThat(result.join()).isEqualTo("charge");
+        assertThat(lockedService.calls.get()).isEqualTo(1);
+    }
+
+    public static class LockedService {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        @AccountLock("#accountNumber")
+        public String charge(String accountNumber) {
+            calls.incrementAndGet();
+            return "charge";
+        }
+
+        @AccountLock("#accountNumber")
+        public int balance(String accountNumber) {
+            return 1000;
+        }
+
+        @AccountLock({"#recipient", "@lockTargets.of(#remitter)"})
+        public String remit(String recipient, String remitter) {
+            return "remit";
+        }
+
+        @AccountLock("#accountNumber")
+        public String fail(String accountNumber) {
+            throw new IllegalStateException();
+        }
+
+        @AccountLock("#accountNumber")
+        public String failChecked(String accountNumber) throws Exception {
+            throw new Exception();
+        }
+    }
+
+    public static class LockTargets {
+
+        public List<String> of(String accountNumber) {
+            return List.of(accountNumber, accountNumber);
+        }
+    }
+}
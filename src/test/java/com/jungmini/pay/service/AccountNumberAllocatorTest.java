@@ -0,0 +1,124 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.repository.AccountRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+
+    @Mock
+    RedissonClient redissonClient;
+
+    @Mock
+    RAtomicLong reserved;
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Test
+    @DisplayName("예약 기록이 없으면 가장 큰 계좌 번호 뒤로 서버 수만큼 블록을 건너뛰고 예약하고, 블록 안에서는 Redis 를 거치지 않는다")
+    void reserve_after_max_account_number() {
+        AtomicLong redis = stubReserved(false);
+        when(reserved.compareAndSet(0, 11)).thenAnswer(invocation -> redis.compareAndSet(0, 11));
+        when(accountRepository.findMaxAccountNumber()).thenReturn(Optional.of("100000000004"));
+        AccountNumberAllocator allocator = new AccountNumberAllocator(redissonClient, accountRepository, 3, 2);
+
+        assertThat(List.of(allocator.allocate(), allocator.allocate(), allocator.allocate()))
+                .containsExactly("100000000011", "100000000012", "100000000013");
+        verify(reserved).addAndGet(3);
+    }
+
+    @Test
+    @DisplayName("계좌가 하나도 없으면 DEFAULT_ACCOUNT_NUMBER 부터, 블록을 다 쓰면 다음 블록을 예약한다")
+    void reserve_next_block() {
+        stubReserved(false);
+        when(accountRepository.findMaxAccountNumber()).thenReturn(Optional.empty());
+        AccountNumberAllocator allocator = new AccountNumberAllocator(redissonClient, accountRepository, 2, 1);
+
+        assertThat(List.of(allocator.allocate(), allocator.allocate(), allocator.allocate()))
+                .containsExactly("100000000000", "100000000001", "100000000002");
+        verify(reserved).compareAndSet(0, 0);
+        verify(reserved, times(2)).addAndGet(2);
+    }
+
+    @Test
+    @DisplayName("다른 서버가 예약한 블록이 있으면 계좌 테이블을 조회하지 않고 그 뒤를 예약한다")
+    void reserve_after_other_node() {
+        AtomicLong redis = stubReserved(true);
+        redis.set(100);
+        AccountNumberAllocator allocator = new AccountNumberAllocator(redissonClient, accountRepository, 100, 1);
+
+        assertThat(allocator.allocate()).isEqualTo("100000000100");
+        verify(accountRepository, never()).findMaxAccountNumber();
+        verify(reserved, never()).compareAndSet(anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 받아도 번호가 겹치지 않는다")
+    void allocate_concurrently() throws Exception {
+        stubReserved(true);
+        AccountNumberAllocator allocator = new AccountNumberAllocator(redissonClient, accountRepository, 7, 1);
+        Set<String> accountNumbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<?>> futures = IntStream.range(0, 8)
+                    .<Future<?>>mapToObj(i -> executor.submit(() -> IntStream.range(0, 500)
+                            .forEach(j -> accountNumbers.add(allocator.allocate()))))
+                    .toList();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(accountNumbers).hasSize(4000);
+    }
+
+    @Test
+    @DisplayName("블록 크기는 1 이상이어야 한다")
+    void illegal_block_size() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AccountNumberAllocator(redissonClient, accountRepository, 0, 1));
+    }
+
+    @Test
+    @DisplayName("서버 수는 1 이상이어야 한다")
+    void illegal_node_count() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AccountNumberAllocator(redissonClient, accountRepository, 100, 0));
+    }
+
+    private AtomicLong stubReserved(boolean exists) {
+        AtomicLong redis = new AtomicLong();
+        when(redissonClient.getAtomicLong(AccountNumberAllocator.KEY)).thenReturn(reserved);
+        when(reserved.isExists()).thenReturn(exists, true);
+        when(reserved.addAndGet(anyLong())).thenAnswer(invocation -> redis.addAndGet(invocation.getArgument(0)));
+        return redis;
+    }
+}
@@ -0,0 +1,94 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.Member;
+import com.jungmini.pay.fixture.FriendFactory;
+import com.jungmini.pay.fixture.MemberFactory;
+import com.jungmini.pay.fixture.TransactionFactory;
+import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.FriendRepository;
+import com.jungmini.pay.repository.MemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 실제 DB 에서 서로에게 송금하는 두 요청이 행 잠금 교착 상태에 빠지지 않는지 확인한다.
+ * 두 요청은 서로 다른 송금 계좌를 잠그므로 동시에 실행되고, 두 계좌 행의 UPDATE 순서만으로 교착 상태를 피해야 한다.
+ * 각 요청이 커밋되어야 하므로 테스트 트랜잭션을 쓰지 않는다.
+ */
+@SpringBootTest
+class AccountServiceConcurrencyTest {
+
+    private static final int REMITS_PER_THREAD = 50;
+    private static final int AMOUNT = 10;
+    private static final int INITIAL_BALANCE = 10000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private FriendRepository friendRepository;
+
+    @Test
+    @DisplayName("A→B 와 B→A 송금을 동시에 반복해도 교착 상태 없이 모두 성공하고 잔액이 보존된다")
+    void opposite_remits_do_not_deadlock() throws Exception {
+        Member first = memberRepository.save(MemberFactory.memberFrom("opposite-first@test.com", "test"));
+        Member second = memberRepository.save(MemberFactory.memberFrom("opposite-second@test.com", "test"));
+        friendRepository.save(FriendFactory.from(first, second));
+        Account firstAccount = chargedAccount(first);
+        Account secondAccount = chargedAccount(second);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        Future<?> forward = executor.submit(() -> remitRepeatedly(start, first, firstAccount, secondAccount));
+        Future<?> backward = executor.submit(() -> remitRepeatedly(start, second, secondAccount, firstAccount));
+        start.countDown();
+
+        try {
+            forward.get();
+            backward.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(balanceOf(firstAccount)).isEqualTo(INITIAL_BALANCE);
+        assertThat(balanceOf(secondAccount)).isEqualTo(INITIAL_BALANCE);
+    }
+
+    private Account chargedAccount(Member owner) {
+        Account account = accountService.createAccount(owner);
+        accountService.chargePoint(INITIAL_BALANCE, account, owner);
+        return account;
+    }
+
+    private Void remitRepeatedly(CountDownLatch start, Member remitter, Account remitterAccount, Account recipientAccount)
+            throws InterruptedException {
+        start.await();
+        for (int i = 0; i < REMITS_PER_THREAD; i++) {
+            accountService.remit(TransactionFactory.transactionRequest(
+                    Account.builder().accountNumber(remitterAccount.getAccountNumber()).build(),
+                    Account.builder().accountNumber(recipientAccount.getAccountNumber()).build(),
+                    AMOUNT), remitter);
+        }
+        return null;
+    }
+
+    private long balanceOf(Account account) {
+        return accountRepository.findById(account.getAccountNumber()).orElseThrow().getBalance();
+    }
+}
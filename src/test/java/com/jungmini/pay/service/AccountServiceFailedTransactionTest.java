@@ -0,0 +1,135 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.Member;
+import com.jungmini.pay.domain.Transaction;
+import com.jungmini.pay.domain.type.TransactionResultType;
+import com.jungmini.pay.fixture.FriendFactory;
+import com.jungmini.pay.fixture.MemberFactory;
+import com.jungmini.pay.fixture.TransactionFactory;
+import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.AccountStripeRepository;
+import com.jungmini.pay.repository.FriendRepository;
+import com.jungmini.pay.repository.MemberRepository;
+import com.jungmini.pay.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 실제 DB 에서 송금이 실패하면 FailedTransactionWriter 가 송금 직전 잔액으로 실패 거래를 남기는지 확인한다.
+ * 테스트 설정은 실패 거래 기록을 꺼 두므로, 켠 FailedTransactionWriter 로 AccountService 를 따로 만든다.
+ * 잔액 검증을 통과한 뒤 조건부 출금이 실패하도록, 같은 트랜잭션에서 계좌 엔티티를 먼저 읽고 DB 의 잔액만 줄인다.
+ */
+@SpringBootTest
+class AccountServiceFailedTransactionTest {
+
+    private static final int INITIAL_BALANCE = 1000;
+    private static final int AMOUNT = 500;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private FriendRepository friendRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private AccountStripeRepository accountStripeRepository;
+
+    @Autowired
+    private BalanceEngine balanceEngine;
+
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path spillDirectory;
+
+    private FailedTransactionWriter failedTransactionWriter;
+
+    private AccountService failureRecordingAccountService;
+
+    @BeforeEach
+    void setUp() {
+        failedTransactionWriter = new FailedTransactionWriter(transactionRepository, accountRepository,
+                transactionManager, true, 100, 10, 10, 2, spillDirectory.resolve("failed.spill").toString());
+        failedTransactionWriter.start();
+        failureRecordingAccountService = new AccountService(accountRepository, transactionRepository,
+                friendRepository, accountStripeRepository, balanceEngine, failedTransactionWriter, accountNumberAllocator);
+    }
+
+    @AfterEach
+    void tearDown() {
+        failedTransactionWriter.shutdown();
+    }
+
+    @Test
+    @DisplayName("조건부 출금이 실패하면 송금 직전 잔액으로 실패 거래를 저장한다")
+    void record_fail_row_with_balances_before_remit() throws InterruptedException {
+        Member remitter = memberRepository.save(MemberFactory.memberFrom("failed-remitter@test.com", "test"));
+        Member recipient = memberRepository.save(MemberFactory.memberFrom("failed-recipient@test.com", "test"));
+        friendRepository.save(FriendFactory.from(remitter, recipient));
+        Account remitterAccount = accountService.createAccount(remitter);
+        Account recipientAccount = accountService.createAccount(recipient);
+        accountService.chargePoint(INITIAL_BALANCE, remitterAccount, remitter);
+
+        PayException payException = assertThrows(PayException.class, () ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    accountRepository.findById(remitterAccount.getAccountNumber()).orElseThrow();
+                    accountRepository.debit(remitterAccount.getAccountNumber(), INITIAL_BALANCE - AMOUNT + 1);
+                    failureRecordingAccountService.remit(TransactionFactory.transactionRequest(
+                            Account.builder().accountNumber(remitterAccount.getAccountNumber()).build(),
+                            Account.builder().accountNumber(recipientAccount.getAccountNumber()).build(),
+                            AMOUNT), remitter);
+                }));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.LACK_OF_BALANCE);
+        Transaction failed = awaitFailedTransaction(remitterAccount.getAccountNumber());
+        assertThat(failed.getAmount()).isEqualTo(AMOUNT);
+        assertThat(failed.getRemitterBalanceSnapshot()).isEqualTo(INITIAL_BALANCE);
+        assertThat(failed.getRecipientBalanceSnapshot()).isZero();
+        assertThat(accountRepository.findBalance(remitterAccount.getAccountNumber())).isEqualTo(INITIAL_BALANCE);
+        assertThat(accountRepository.findBalance(recipientAccount.getAccountNumber())).isZero();
+    }
+
+    private Transaction awaitFailedTransaction(String remitterAccountNumber) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Optional<Transaction> failed = transactionRepository.findAll().stream()
+                    .filter(transaction -> transaction.getTransactionResultType() == TransactionResultType.FAIL)
+                    .filter(transaction -> transaction.getRemitterAccount().getAccountNumber()
+                            .equals(remitterAccountNumber))
+                    .findFirst();
+            if (failed.isPresent()) {
+                return failed.get();
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("실패 거래가 저장되지 않았습니다.");
+    }
+}
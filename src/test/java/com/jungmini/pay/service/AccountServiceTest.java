@@ -3,6 +3,7 @@ package com.jungmini.pay.service;
 import com.jungmini.pay.common.exception.ErrorCode;
 import com.jungmini.pay.common.exception.PayException;
 import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.AccountStripe;
 import com.jungmini.pay.domain.Member;
 import com.jungmini.pay.domain.Transaction;
 import com.jungmini.pay.domain.type.AccountStatus;
@@ -12,23 +13,39 @@ import com.jungmini.pay.fixture.AccountFactory;
 import com.jungmini.pay.fixture.MemberFactory;
 import com.jungmini.pay.fixture.TransactionFactory;
 import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.AccountStripeRepository;
 import com.jungmini.pay.repository.FriendRepository;
 import com.jungmini.pay.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.jungmini.pay.domain.Account.MAX_ACCOUNT_SIZE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.intThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -44,20 +61,35 @@ class AccountServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private AccountStripeRepository accountStripeRepository;
+
+    @Mock
+    private FailedTransactionWriter failedTransactionWriter;
+
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
 
-    @InjectMocks
     private AccountService accountService;
 
+    @BeforeEach
+    void setUp() {
+        accountService = new AccountService(accountRepository, transactionRepository, friendRepository,
+                accountStripeRepository, new BalanceEngine(new RowBalanceStore(accountRepository), accountStripeRepository),
+                failedTransactionWriter, accountNumberAllocator);
+    }
+
     @Test
     @DisplayName("계좌 생성 성공")
     void create_account_success() {
         Member owner = MemberFactory.member();
         Account account = AccountFactory.account();
 
-        given(accountRepository.findFirstByOrderByCreatedAtDesc())
-                .willReturn(Optional.empty());
+        given(accountNumberAllocator.allocate())
+                .willReturn(Account.DEFAULT_ACCOUNT_NUMBER);
 
-        given(accountRepository.save(any()))
+        given(accountRepository.saveAndFlush(any()))
                 .willReturn(account);
 
         Account createdAccount = accountService.createAccount(owner);
@@ -68,6 +100,40 @@ class AccountServiceTest {
         assertThat(createdAccount.getOwner().getEmail()).isEqualTo(owner.getEmail());
     }
 
+    @Test
+    @DisplayName("계좌 생성 - 다른 서버가 쓴 번호와 겹치면 다음 번호로 다시 만든다")
+    void create_account_retry_duplicate_account_number() {
+        Member owner = MemberFactory.member();
+        String nextAccountNumber = "100000000001";
+
+        given(accountNumberAllocator.allocate())
+                .willReturn(Account.DEFAULT_ACCOUNT_NUMBER, nextAccountNumber);
+        given(accountRepository.saveAndFlush(any()))
+                .willThrow(new DataIntegrityViolationException("duplicate key"))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        given(accountRepository.existsById(Account.DEFAULT_ACCOUNT_NUMBER))
+                .willReturn(true);
+
+        Account createdAccount = accountService.createAccount(owner);
+
+        assertThat(createdAccount.getAccountNumber()).isEqualTo(nextAccountNumber);
+        verify(accountRepository, times(2)).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("계좌 생성 실패 - 번호가 겹치지 않은 무결성 오류는 다시 시도하지 않는다")
+    void create_account_fail_integrity_violation() {
+        Member owner = MemberFactory.member();
+
+        given(accountNumberAllocator.allocate())
+                .willReturn(Account.DEFAULT_ACCOUNT_NUMBER);
+        given(accountRepository.saveAndFlush(any()))
+                .willThrow(new DataIntegrityViolationException("owner"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> accountService.createAccount(owner));
+        verify(accountNumberAllocator).allocate();
+    }
+
     @Test
     @DisplayName("계좌 생성 실패 - 최대 계좌 생성 개수 초과")
     void create_account_fail_account_size_exceed() {
@@ -93,10 +159,49 @@ class AccountServiceTest {
 
         given(accountRepository.findById(any()))
                 .willReturn(Optional.of(account));
+        given(accountRepository.findBalance(account.getAccountNumber()))
+                .willReturn((long) amount);
 
         Account processedAccount = accountService.chargePoint(amount, account, owner);
 
         assertThat(processedAccount.getBalance()).isEqualTo(amount);
+        verify(accountRepository).credit(account.getAccountNumber(), amount);
+    }
+
+    @Test
+    @DisplayName("계좌 충전 성공 - 스트라이프 계좌는 보조 잔액을 더한 총 잔액을 돌려준다")
+    void charge_point_striped() {
+        Member owner = MemberFactory.member();
+        Account account = AccountFactory.stripedAccountFrom(owner, "100000000000", 1000, 4);
+
+        given(accountRepository.findById(any()))
+                .willReturn(Optional.of(account));
+        given(accountRepository.findBalance("100000000000"))
+                .willReturn(1100L);
+        given(accountStripeRepository.sumBalance("100000000000"))
+                .willReturn(500L);
+
+        Account processedAccount = accountService.chargePoint(100, account, owner);
+
+        assertThat(processedAccount.getTotalBalance()).isEqualTo(1600);
+    }
+
+    @Test
+    @DisplayName("계좌 충전 실패 - 더 최신 잠금이 이미 계좌를 변경함")
+    void charge_point_fail_stale_lock_token() {
+        Member owner = MemberFactory.member();
+        Account account = AccountFactory.accountFrom(owner);
+        account.fence(2);
+        LockHandle staleLock = new FencedLockHandle(Map.of(account.getAccountNumber(), 1L), () -> {});
+
+        given(accountRepository.findById(any()))
+                .willReturn(Optional.of(account));
+
+        PayException payException = assertThrows(PayException.class, () ->
+                LockContext.callWith(staleLock, () -> accountService.chargePoint(100000, account, owner)));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.STALE_LOCK_TOKEN);
+        assertThat(account.getBalance()).isEqualTo(0);
     }
 
     @Test
@@ -125,18 +230,21 @@ class AccountServiceTest {
         int amount = 500;
         Member remitter = MemberFactory.memberFrom("remitter@test.com");
         Member recipient = MemberFactory.memberFrom("recipient@test.com");
-        Account remitterAccount = AccountFactory.accountFromOwnerAndBalance(remitter, remitterBalance);
-        Account recipientAccount = AccountFactory.accountFromOwnerAndBalance(recipient, recipientBalance);
+        Account remitterAccount = AccountFactory.stripedAccountFrom(remitter, "100000000000", remitterBalance, 0);
+        Account recipientAccount = AccountFactory.stripedAccountFrom(recipient, "100000000001", recipientBalance, 0);
         Transaction transaction = TransactionFactory
                 .transactionRequest(remitterAccount, recipientAccount, amount);
 
-        when(accountRepository.findById(any()))
-                .thenReturn(Optional.of(recipientAccount))
-                .thenReturn(Optional.of(remitterAccount));
+        when(accountRepository.findAllWithOwner(anyCollection()))
+                .thenReturn(List.of(recipientAccount, remitterAccount));
 
-        when(friendRepository.existsFriendByRecipientAndRequester(any(), any()))
-                .thenReturn(true)
-                .thenReturn(false);
+        when(friendRepository.existsBetween(remitter, recipient))
+                .thenReturn(true);
+
+        when(accountRepository.debit(remitterAccount.getAccountNumber(), amount))
+                .thenReturn(1);
+        when(accountRepository.findBalance(recipientAccount.getAccountNumber()))
+                .thenReturn((long) recipientBalance + amount + 1000);
 
         when(transactionRepository.save(any()))
                 .thenReturn(transaction);
@@ -147,12 +255,202 @@ class AccountServiceTest {
         assertThat(savedTransaction.getTransactionResultType()).isEqualTo(TransactionResultType.SUCCESS);
         assertThat(savedTransaction.getRemitterAccount()).isEqualTo(remitterAccount);
         assertThat(savedTransaction.getRemitterBalanceSnapshot()).isEqualTo(remitterBalance);
-        assertThat(savedTransaction.getRecipientBalanceSnapshot()).isEqualTo(recipientBalance);
+        assertThat(savedTransaction.getRecipientBalanceSnapshot()).isEqualTo(recipientBalance + 1000);
         assertThat(savedTransaction.getAmount()).isEqualTo(amount);
-        assertThat(savedTransaction.getRecipientAccount().getBalance()).isEqualTo(recipientBalance + amount);
+        assertThat(savedTransaction.getRecipientAccount().getBalance()).isEqualTo(recipientBalance + amount + 1000);
         assertThat(savedTransaction.getRemitterAccount().getBalance()).isEqualTo(remitterBalance - amount);
     }
 
+    @Test
+    @DisplayName("송금 실패 - 낙관적 잠금 모드에서 그 사이 다른 요청이 먼저 출금함")
+    void remit_fail_optimistic_version_conflict() {
+        Member remitter = MemberFactory.memberFrom("remitter@test.com");
+        Member recipient = MemberFactory.memberFrom("recipient@test.com");
+        Account remitterAccount = AccountFactory.stripedAccountFrom(remitter, "100000000000", 10000, 0);
+        Account recipientAccount = AccountFactory.stripedAccountFrom(recipient, "100000000001", 100, 0);
+        Transaction transaction = TransactionFactory
+                .transactionRequest(remitterAccount, recipientAccount, 500);
+        OptimisticAccountExecutor optimisticAccountExecutor =
+                new OptimisticAccountExecutor(new SimpleMeterRegistry(), 1, 0);
+
+        when(accountRepository.findAllWithOwner(anyCollection()))
+                .thenReturn(List.of(recipientAccount, remitterAccount));
+        when(friendRepository.existsBetween(remitter, recipient))
+                .thenReturn(true);
+        when(accountRepository.incrementVersion("100000000000", remitterAccount.getVersion()))
+                .thenReturn(0);
+
+        PayException payException = assertThrows(PayException.class, () ->
+                optimisticAccountExecutor.execute("100000000000", () -> accountService.remit(transaction, remitter)));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(accountRepository, never()).debit(anyString(), anyLong());
+        verify(failedTransactionWriter, never()).record(any());
+    }
+
+    @Test
+    @DisplayName("스트라이프 계좌로 송금하면 수신 계좌 행은 바꾸지 않고 보조 잔액 하나에 더한다")
+    void remit_to_striped_recipient() {
+        Member remitter = MemberFactory.memberFrom("remitter@test.com");
+        Member recipient = MemberFactory.memberFrom("recipient@test.com");
+        Account remitterAccount = AccountFactory.stripedAccountFrom(remitter, "100000000000", 10000, 0);
+        Account recipientAccount = AccountFactory.stripedAccountFrom(recipient, "100000000001", 100, 4);
+        Transaction transaction = TransactionFactory
+                .transactionRequest(remitterAccount, recipientAccount, 500);
+
+        when(accountRepository.findAllWithOwner(anyCollection()))
+                .thenReturn(List.of(recipientAccount, remitterAccount));
+        when(friendRepository.existsBetween(remitter, recipient))
+                .thenReturn(true);
+        when(accountRepository.debit("100000000000", 500))
+                .thenReturn(1);
+        when(transactionRepository.save(any()))
+                .thenReturn(transaction);
+
+        accountService.remit(transaction, remitter);
+
+        verify(accountRepository, never()).credit(anyString(), anyLong());
+        assertThat(recipientAccount.getBalance()).isEqualTo(100);
+        assertThat(remitterAccount.getBalance()).isEqualTo(9500);
+        verify(accountStripeRepository).credit(eq("100000000001"), intThat(index -> index >= 0 && index < 4), eq(500L));
+    }
+
+    @Test
+    @DisplayName("스트라이프 계좌에서 출금할 때 주 잔액이 모자라면 보조 잔액을 번호 순서대로 비운다")
+    void remit_from_striped_remitter_drains_stripes_in_order() {
+        Member remitter = MemberFactory.memberFrom("remitter@test.com");
+        Member recipient = MemberFactory.memberFrom("recipient@test.com");
+        Account remitterAccount = AccountFactory.stripedAccountFrom(remitter, "100000000000", 100, 3);
+        Account recipientAccount = AccountFactory.stripedAccountFrom(recipient, "100000000001", 0, 0);
+        Transaction transaction = TransactionFactory
+                .transactionRequest(remitterAccount, recipientAccount, 500);
+
+        when(accountRepository.findAllWithOwner(anyCollection()))
+                .thenReturn(List.of(recipientAccount, remitterAccount));
+        when(friendRepository.existsBetween(remitter, recipient))
+                .thenReturn(true);
+        when(accountStripeRepository.findAllByAccountNumberOrderByStripeIndex("100000000000"))
+                .thenReturn(List.of(
+                        stripe("100000000000", 0, 0),
+                        stripe("100000000000", 1, 300),
+                        stripe("100000000000", 2, 300)));
+        when(accountStripeRepository.debit(anyString(), anyInt(), anyLong()))
+                .thenReturn(1);
+        when(accountRepository.findBalance("100000000000"))
+                .thenReturn(400L)
+                .thenReturn(500L);
+        when(accountRepository.debit("100000000000", 500))
+                .thenReturn(1);
+        when(accountRepository.findBalance("100000000001"))
+                .thenReturn(500L);
+        when(transactionRepository.save(any()))
+                .thenReturn(transaction);
+
+        accountService.remit(transaction, remitter);
+
+        verify(accountStripeRepository).debit("100000000000", 1, 300L);
+        verify(accountStripeRepository).debit("100000000000", 2, 100L);
+        verify(accountStripeRepository, never()).debit("100000000000", 0, 0L);
+        verify(accountRepository).credit("100000000000", 300L);
+        verify(accountRepository).credit("100000000000", 100L);
+        assertThat(remitterAccount.getBalance()).isEqualTo(0);
+        assertThat(recipientAccount.getBalance()).isEqualTo(500);
+    }
+
+    @Test
+    @DisplayName("보조 잔액을 모두 비워도 모자라면 잔액 부족으로 실패한다")
+    void remit_from_striped_remitter_lack_of_balance() {
+        Member remitter = MemberFactory.memberFrom("remitter@test.com");
+        Member recipient = MemberFactory.memberFrom("recipient@test.com");
+        Account remitterAccount = AccountFactory.stripedAccountFrom(remitter, "100000000000", 100, 2);
+        Account recipientAccount = AccountFactory.stripedAccountFrom(recipient, "100000000001", 0, 0);
+        Transaction transaction = TransactionFactory
+                .transactionRequest(remitterAccount, recipientAccount, 500);
+
+        when(accountRepository.findAllWithOwner(anyCollection()))
+                .thenReturn(List.of(recipientAccount, remitterAccount));
+        when(friendRepository.existsBetween(remitter, recipient))
+                .thenReturn(true);
+        when(accountStripeRepository.findAllByAccountNumberOrderByStripeIndex("100000000000"))
+                .thenReturn(List.of(stripe("100000000000", 0, 100), stripe("100000000000", 1, 100)));
+        when(accountStripeRepository.debit(anyString(), anyInt(), anyLong()))
+                .thenReturn(1)
+                .thenReturn(0);
+
+        PayException payException = assertThrows(PayException.class,
+                () -> accountService.remit(transaction, remitter));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.LACK_OF_BALANCE);
+    }
+
+    @Test
+    @DisplayName("송금 실패 - 잠그지 않은 사이 DB 의 잔액이 모자라면 빼지 않는다")
+    void remit_fail_conditional_debit() {
+        Member remitter = MemberFactory.memberFrom("remitter@test.com");
+        Member recipient = MemberFactory.memberFrom("recipient@test.com");
+        Account remitterAccount = AccountFactory.stripedAccountFrom(remitter, "100000000000", 10000, 0);
+        Account recipientAccount = AccountFactory.stripedAccountFrom(recipient, "100000000001", 0, 0);
+        Transaction transaction = TransactionFactory
+                .transactionRequest(remitterAccount, recipientAccount, 500);
+
+        when(accountRepository.findAllWithOwner(anyCollection()))
+                .thenReturn(List.of(recipientAccount, remitterAccount));
+        when(friendRepository.existsBetween(remitter, recipient))
+                .thenReturn(true);
+        when(accountRepository.debit("100000000000", 500))
+                .thenReturn(0);
+
+        PayException payException = assertThrows(PayException.class,
+                () -> accountService.remit(transaction, remitter));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.LACK_OF_BALANCE);
+        verify(accountRepository, never()).credit(anyString(), anyLong());
+        verify(failedTransactionWriter).record(argThat(failed ->
+                failed.getTransactionResultType() == TransactionResultType.FAIL
+                        && failed.getRemitterBalanceSnapshot() == 10000
+                        && failed.getRecipientBalanceSnapshot() == 0));
+    }
+
+    @Test
+    @DisplayName("송금 - 계좌 번호가 작은 수신 계좌에 먼저 입금하고 송금 계좌에서 뺀다")
+    void remit_updates_rows_in_account_number_order() {
+        Member remitter = MemberFactory.memberFrom("remitter@test.com");
+        Member recipient = MemberFactory.memberFrom("recipient@test.com");
+        Account remitterAccount = AccountFactory.stripedAccountFrom(remitter, "100000000001", 10000, 0);
+        Account recipientAccount = AccountFactory.stripedAccountFrom(recipient, "100000000000", 0, 0);
+        Transaction transaction = TransactionFactory
+                .transactionRequest(remitterAccount, recipientAccount, 500);
+
+        when(accountRepository.findAllWithOwner(anyCollection()))
+                .thenReturn(List.of(recipientAccount, remitterAccount));
+        when(friendRepository.existsBetween(remitter, recipient))
+                .thenReturn(true);
+        when(accountRepository.findBalance("100000000000"))
+                .thenReturn(500L);
+        when(accountRepository.debit("100000000001", 500))
+                .thenReturn(1);
+
+        accountService.remit(transaction, remitter);
+
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).credit("100000000000", 500);
+        inOrder.verify(accountRepository).debit("100000000001", 500);
+    }
+
+    @Test
+    @DisplayName("스트라이프 계좌 지정 - 늘어난 수만큼 보조 잔액을 만든다")
+    void enable_striping() {
+        Account account = AccountFactory.stripedAccountFrom(MemberFactory.member(), "100000000000", 0, 2);
+        when(accountRepository.findById(any()))
+                .thenReturn(Optional.of(account));
+
+        accountService.enableStriping("100000000000", 4);
+
+        assertThat(account.getStripeCount()).isEqualTo(4);
+        verify(accountStripeRepository).saveAll(argThat((List<AccountStripe> stripes) ->
+                stripes.stream().map(AccountStripe::getStripeIndex).toList().equals(List.of(2, 3))));
+    }
+
     @Test
     @DisplayName("송금 실패 - 친구가 아닌 관계 송금 실패 정보를 저장")
     void when_remit_fail_transaction_fail_saved() {
@@ -161,19 +459,15 @@ class AccountServiceTest {
         int amount = 500;
         Member remitter = MemberFactory.memberFrom("remitter@test.com");
         Member recipient = MemberFactory.memberFrom("recipient@test.com");
-        Account remitterAccount = AccountFactory.accountFromOwnerAndBalance(remitter, remitterBalance);
-        Account recipientAccount = AccountFactory.accountFromOwnerAndBalance(recipient, recipientBalance);
+        Account remitterAccount = AccountFactory.stripedAccountFrom(remitter, "100000000000", remitterBalance, 0);
+        Account recipientAccount = AccountFactory.stripedAccountFrom(recipient, "100000000001", recipientBalance, 0);
         Transaction transaction = TransactionFactory
                 .transactionRequest(remitterAccount, recipientAccount, amount);
 
-        when(accountRepository.findById(any()))
-                .thenReturn(Optional.of(recipientAccount))
-                .thenReturn(Optional.of(remitterAccount))
-                .thenReturn(Optional.of(recipientAccount))
-                .thenReturn(Optional.of(remitterAccount));
+        when(accountRepository.findAllWithOwner(anyCollection()))
+                .thenReturn(List.of(recipientAccount, remitterAccount));
 
-        when(friendRepository.existsFriendByRecipientAndRequester(any(), any()))
-                .thenReturn(false)
+        when(friendRepository.existsBetween(remitter, recipient))
                 .thenReturn(false);
 
         PayException payException = assertThrows(PayException.class,
@@ -181,6 +475,8 @@ class AccountServiceTest {
 
         assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.NOT_FRIENDS);
         assertThat(transaction.getTransactionResultType()).isEqualTo(TransactionResultType.FAIL);
+        verify(failedTransactionWriter).record(transaction);
+        verify(transactionRepository, never()).save(any());
         assertThat(transaction.getAmount()).isEqualTo(amount);
         assertThat(remitterAccount.getBalance()).isEqualTo(remitterBalance);
         assertThat(recipientAccount.getBalance()).isEqualTo(recipientBalance);
@@ -194,13 +490,13 @@ class AccountServiceTest {
         int amount = 500;
         Member remitter = MemberFactory.memberFrom("remitter@test.com");
         Member recipient = MemberFactory.memberFrom("recipient@test.com");
-        Account remitterAccount = AccountFactory.accountFromOwnerAndBalance(remitter, remitterBalance);
-        Account recipientAccount = AccountFactory.accountFromOwnerAndBalance(recipient, recipientBalance);
+        Account remitterAccount = AccountFactory.stripedAccountFrom(remitter, "100000000000", remitterBalance, 0);
+        Account recipientAccount = AccountFactory.stripedAccountFrom(recipient, "100000000001", recipientBalance, 0);
         Transaction transaction = TransactionFactory
                 .transactionRequest(remitterAccount, recipientAccount, amount);
 
-        when(accountRepository.findById(any()))
-                .thenReturn(Optional.empty());
+        when(accountRepository.findAllWithOwner(anyCollection()))
+                .thenReturn(List.of());
 
 
         PayException payException = assertThrows(PayException.class,
@@ -208,11 +504,27 @@ class AccountServiceTest {
 
         assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_NOT_FOUND);
         assertThat(transaction.getTransactionResultType()).isNull();
+        verify(failedTransactionWriter, never()).record(any());
         assertThat(transaction.getAmount()).isEqualTo(amount);
         assertThat(remitterAccount.getBalance()).isEqualTo(remitterBalance);
         assertThat(recipientAccount.getBalance()).isEqualTo(recipientBalance);
     }
 
+    @Test
+    @DisplayName("계좌 상세 조회 성공 - 스트라이프 계좌는 보조 잔액을 더한다")
+    void get_account_info_striped() {
+        Member owner = MemberFactory.member();
+        Account account = AccountFactory.stripedAccountFrom(owner, "100000000000", 1000, 4);
+        when(accountRepository.findById(any()))
+                .thenReturn(Optional.of(account));
+        when(accountStripeRepository.sumBalance("100000000000"))
+                .thenReturn(500L);
+
+        Account accountInfo = accountService.getAccountInfo("100000000000", owner);
+
+        assertThat(accountInfo.getTotalBalance()).isEqualTo(1500);
+    }
+
     @Test
     @DisplayName("계좌 상세 조회 성공")
     void get_account_info_success() {
@@ -305,4 +617,12 @@ class AccountServiceTest {
         assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.REQUESTER_IS_NOT_OWNER);
         assertThat(payException.getErrorMessage()).isEqualTo(ErrorCode.REQUESTER_IS_NOT_OWNER.getDescription());
     }
-}
\ No newline at end of file
+
+    private static AccountStripe stripe(String accountNumber, int stripeIndex, long balance) {
+        return AccountStripe.builder()
+                .accountNumber(accountNumber)
+                .stripeIndex(stripeIndex)
+                .balance(balance)
+                .build();
+    }
+}
@@ -0,0 +1,235 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncLockingAccountExecutorTest {
+
+    private static final String ACCOUNT_NUMBER = "100000000000";
+
+    @Mock
+    AsyncLockService asyncLockService;
+
+    @Mock
+    LockHandle lockHandle;
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    TransactionStatus transactionStatus;
+
+    RedisCircuitBreaker circuitBreaker;
+
+    AsyncLockingAccountExecutor asyncLockingAccountExecutor;
+
+    @BeforeEach
+    void setUp() {
+        LockMetrics lockMetrics = new LockMetrics(new SimpleMeterRegistry(), 100, 10);
+        circuitBreaker = new RedisCircuitBreaker(new SimpleMeterRegistry(),
+                accountRepository, transactionManager, 4, 2, 50, 200, 60000);
+        asyncLockingAccountExecutor = new AsyncLockingAccountExecutor(asyncLockService, lockMetrics, circuitBreaker, 2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncLockingAccountExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("잠금을 얻으면 작업 스레드에서 실행하고 잠금을 해제한다")
+    void execute_on_worker_thread() {
+        when(asyncLockService.lockAsync(anyString()))
+                .thenReturn(CompletableFuture.completedFuture(lockHandle));
+
+        String threadName = asyncLockingAccountExecutor
+                .executeAsync(ACCOUNT_NUMBER, () -> Thread.currentThread().getName())
+                .join();
+
+        assertThat(threadName).startsWith("account-worker-");
+        verify(lockHandle, timeout(1000)).close();
+    }
+
+    @Test
+    @DisplayName("작업 안에서 잡은 잠금의 펜싱 토큰을 볼 수 있다")
+    void execute_all_with_lock_context() {
+        when(asyncLockService.lockAllAsync(anyCollection()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new FencedLockHandle(Map.of(ACCOUNT_NUMBER, 8L), () -> {})));
+
+        OptionalLong token = asyncLockingAccountExecutor.executeAll(List.of(ACCOUNT_NUMBER, "100000000001"),
+                () -> LockContext.fencingToken(ACCOUNT_NUMBER));
+
+        assertThat(token).isEqualTo(OptionalLong.of(8));
+    }
+
+    @Test
+    @DisplayName("잠금 획득에 실패하면 작업을 실행하지 않고 원래 예외를 던진다")
+    void lock_fail() {
+        when(asyncLockService.lockAsync(anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new PayException(ErrorCode.ACCOUNT_LOCK_FAIL)));
+
+        PayException payException = assertThrows(PayException.class, () ->
+                asyncLockingAccountExecutor.execute(ACCOUNT_NUMBER, () -> {
+                    throw new IllegalStateException("실행되면 안 된다");
+                }));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+    }
+
+    @Test
+    @DisplayName("작업이 실패해도 잠금을 해제한다")
+    void release_lock_when_command_fail() {
+        when(asyncLockService.lockAllAsync(anyCollection()))
+                .thenReturn(CompletableFuture.completedFuture(lockHandle));
+
+        PayException payException = assertThrows(PayException.class, () ->
+                asyncLockingAccountExecutor.executeAll(List.of(ACCOUNT_NUMBER), () -> {
+                    throw new PayException(ErrorCode.LACK_OF_BALANCE);
+                }));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.LACK_OF_BALANCE);
+        verify(lockHandle).close();
+    }
+
+    @Test
+    @DisplayName("RuntimeException 이 아닌 실패는 CompletionException 으로 그대로 던진다")
+    void rethrow_completion_exception_when_error() {
+        when(asyncLockService.lockAsync(anyString()))
+                .thenReturn(CompletableFuture.completedFuture(lockHandle));
+
+        CompletionException exception = assertThrows(CompletionException.class, () ->
+                asyncLockingAccountExecutor.execute(ACCOUNT_NUMBER, () -> {
+                    throw new AssertionError();
+                }));
+
+        assertThat(exception.getCause()).isInstanceOf(AssertionError.class);
+    }
+
+    @Test
+    @DisplayName("작업 스레드가 종료되어 작업을 넘기지 못하면 잠금을 해제하고 실패한다")
+    void release_lock_when_rejected() {
+        when(asyncLockService.lockAsync(anyString()))
+                .thenReturn(CompletableFuture.completedFuture(lockHandle));
+        asyncLockingAccountExecutor.shutdown();
+
+        PayException payException = assertThrows(PayException.class, () ->
+                asyncLockingAccountExecutor.execute(ACCOUNT_NUMBER, () -> "done"));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(lockHandle).close();
+    }
+
+    @Test
+    @DisplayName("작업 스레드의 대기열이 가득 차면 잠금을 해제하고 실패한다")
+    void release_lock_when_queue_full() throws InterruptedException {
+        AsyncLockingAccountExecutor bounded = new AsyncLockingAccountExecutor(asyncLockService,
+                new LockMetrics(new SimpleMeterRegistry(), 100, 10), circuitBreaker, 1, 1);
+        when(asyncLockService.lockAsync(anyString()))
+                .thenReturn(CompletableFuture.completedFuture(lockHandle));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> running = bounded.executeAsync(ACCOUNT_NUMBER, () -> {
+                started.countDown();
+                return await(released);
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<String> queued = bounded.executeAsync(ACCOUNT_NUMBER, () -> "queued");
+
+            PayException payException = assertThrows(PayException.class, () ->
+                    bounded.execute(ACCOUNT_NUMBER, () -> "rejected"));
+
+            assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+            verify(lockHandle).close();
+            released.countDown();
+            assertThat(running.join()).isTrue();
+            assertThat(queued.join()).isEqualTo("queued");
+        } finally {
+            released.countDown();
+            bounded.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Redis 서킷 브레이커가 열려 있으면 작업 스레드에서 계좌 행 잠금을 잡고 실행한다")
+    void fallback_to_row_lock_on_worker_thread() {
+        openCircuit();
+        when(transactionManager.getTransaction(any()))
+                .thenReturn(transactionStatus);
+
+        String single = asyncLockingAccountExecutor
+                .executeAsync(ACCOUNT_NUMBER, () -> Thread.currentThread().getName())
+                .join();
+        String all = asyncLockingAccountExecutor
+                .executeAllAsync(List.of(ACCOUNT_NUMBER), () -> Thread.currentThread().getName())
+                .join();
+
+        assertThat(single).startsWith("account-worker-");
+        assertThat(all).startsWith("account-worker-");
+        verify(accountRepository, times(2)).findAllForUpdate(List.of(ACCOUNT_NUMBER));
+        verify(transactionManager, times(2)).commit(transactionStatus);
+        verify(asyncLockService, never()).lockAsync(anyString());
+    }
+
+    @Test
+    @DisplayName("행 잠금으로 실행할 작업을 작업 스레드에 넘기지 못하면 실패한다")
+    void row_lock_fail_when_rejected() {
+        openCircuit();
+        asyncLockingAccountExecutor.shutdown();
+
+        PayException payException = assertThrows(PayException.class, () ->
+                asyncLockingAccountExecutor.execute(ACCOUNT_NUMBER, () -> "done"));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void openCircuit() {
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+    }
+}
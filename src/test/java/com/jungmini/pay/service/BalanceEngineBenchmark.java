@@ -0,0 +1,195 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.repository.AccountRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import redis.embedded.RedisServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 여러 계좌 사이의 송금을 두 방식으로 처리했을 때의 처리량을 비교한다.
+ * 하나는 Redis 락을 잡고 잔액을 읽어 고쳐 쓰는 방식(dirty checking 과 같은 방식)이고,
+ * 다른 하나는 잠그지 않고 조건부 UPDATE 로 처리하는 방식(BalanceEngine)이다.
+ * JPA 를 빼고 H2 메모리 DB 에 JDBC 로 직접 실행해 DB 왕복과 잠금 비용만 측정한다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+class BalanceEngineBenchmark {
+
+    private static final int PORT = 6383;
+    private static final int ACCOUNTS = 64;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 500;
+    private static final long INITIAL_BALANCE = 100;
+    private static final long AMOUNT = 10;
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        redisServer = new RedisServer(PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + PORT);
+        redissonClient = Redisson.create(config);
+
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:balance-benchmark;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        dataSource.setMaximumPoolSize(THREADS);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("create table account (account_number varchar(12) primary key, balance bigint not null)");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dataSource.close();
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @Test
+    void transfers_between_accounts() throws Exception {
+        RedissonLockService redissonLockService =
+                new RedissonLockService(redissonClient, new LockWatchdog(redissonClient), lockBudget(), circuitBreaker());
+        LockingAccountExecutor lockingAccountExecutor = new LockingAccountExecutor(
+                redissonLockService, new LockMetrics(new SimpleMeterRegistry(), 100, 10), circuitBreaker());
+
+        run("redisson lock + read-modify-write", (from, to) -> lockingAccountExecutor.executeAll(List.of(from, to),
+                () -> transactionTemplate.execute(status -> readModifyWrite(from, to))));
+        run("conditional update", (from, to) -> transactionTemplate.execute(status -> {
+            boolean success = conditionalUpdate(from, to);
+            if (!success) {
+                status.setRollbackOnly();
+            }
+            return success;
+        }));
+    }
+
+    private static boolean readModifyWrite(String from, String to) {
+        long fromBalance = balance(from);
+        long toBalance = balance(to);
+        if (fromBalance < AMOUNT) {
+            return false;
+        }
+
+        jdbcTemplate.update("update account set balance = ? where account_number = ?", fromBalance - AMOUNT, from);
+        jdbcTemplate.update("update account set balance = ? where account_number = ?", toBalance + AMOUNT, to);
+        return true;
+    }
+
+    /**
+     * AccountService 와 같이 계좌 번호 순서로 UPDATE 해 서로에게 송금하는 요청끼리 교착 상태에 빠지지 않게 한다.
+     */
+    private static boolean conditionalUpdate(String from, String to) {
+        if (to.compareTo(from) < 0) {
+            credit(to);
+            return debit(from);
+        }
+        if (!debit(from)) {
+            return false;
+        }
+        credit(to);
+        return true;
+    }
+
+    private static boolean debit(String accountNumber) {
+        return jdbcTemplate.update("update account set balance = balance - ? " +
+                "where account_number = ? and balance >= ?", AMOUNT, accountNumber, AMOUNT) == 1;
+    }
+
+    private static void credit(String accountNumber) {
+        jdbcTemplate.update("update account set balance = balance + ? where account_number = ?", AMOUNT, accountNumber);
+    }
+
+    private static long balance(String accountNumber) {
+        return jdbcTemplate.queryForObject("select balance from account where account_number = ?", Long.class, accountNumber);
+    }
+
+    private static void run(String name, BiPredicate<String, String> transfer) throws Exception {
+        jdbcTemplate.update("delete from account");
+        for (int i = 0; i < ACCOUNTS; i++) {
+            jdbcTemplate.update("insert into account values (?, ?)", accountNumber(i), INITIAL_BALANCE);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger fail = new AtomicInteger();
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(() -> {
+                for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                    int from = ThreadLocalRandom.current().nextInt(ACCOUNTS);
+                    int to = (from + 1 + ThreadLocalRandom.current().nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    try {
+                        if (transfer.test(accountNumber(from), accountNumber(to))) {
+                            success.incrementAndGet();
+                        } else {
+                            fail.incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        fail.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Future<Void> future : executor.invokeAll(workers)) {
+            future.get();
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        executor.shutdown();
+
+        Long total = jdbcTemplate.queryForObject("select sum(balance) from account", Long.class);
+        Long negative = jdbcTemplate.queryForObject("select count(*) from account where balance < 0", Long.class);
+        System.out.printf("[%s] success=%d fail=%d elapsed=%dms throughput=%d transfers/s%n",
+                name, success.get(), fail.get(), elapsedMillis, success.get() * 1000L / elapsedMillis);
+        assertThat(total).isEqualTo(ACCOUNTS * INITIAL_BALANCE);
+        assertThat(negative).isZero();
+    }
+
+    private static String accountNumber(int index) {
+        return String.valueOf(100000000000L + index);
+    }
+
+    private static LockBudget lockBudget() {
+        return new LockBudget(new AccountAdmission(new SimpleMeterRegistry(), 32, 1),
+                1000, 5000, 500, 3000, 3, 256, 10);
+    }
+
+    private static RedisCircuitBreaker circuitBreaker() {
+        return new RedisCircuitBreaker(new SimpleMeterRegistry(),
+                mock(AccountRepository.class), mock(PlatformTransactionManager.class), 20, 10, 50, 200, 5000);
+    }
+}
@@ -0,0 +1,77 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.fixture.AccountFactory;
+import com.jungmini.pay.fixture.MemberFactory;
+import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.AccountStripeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceEngineTest {
+
+    private static final String ACCOUNT_NUMBER = "100000000000";
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    AccountStripeRepository accountStripeRepository;
+
+    BalanceEngine balanceEngine;
+
+    @BeforeEach
+    void setUp() {
+        balanceEngine = new BalanceEngine(new RowBalanceStore(accountRepository), accountStripeRepository);
+    }
+
+    @Test
+    @DisplayName("입금한 뒤 다른 요청의 입금까지 반영된 잔액을 다시 읽는다")
+    void credit_reloads_balance() {
+        Account account = AccountFactory.stripedAccountFrom(MemberFactory.member(), ACCOUNT_NUMBER, 100, 0);
+        when(accountRepository.findBalance(ACCOUNT_NUMBER))
+                .thenReturn(900L);
+
+        long balance = balanceEngine.credit(account, 500);
+
+        assertThat(balance).isEqualTo(900);
+        assertThat(account.getBalance()).isEqualTo(900);
+        verify(accountRepository).credit(ACCOUNT_NUMBER, 500);
+    }
+
+    @Test
+    @DisplayName("바뀐 행이 있으면 출금에 성공한다")
+    void debit_success() {
+        Account account = AccountFactory.stripedAccountFrom(MemberFactory.member(), ACCOUNT_NUMBER, 1000, 0);
+        when(accountRepository.debit(ACCOUNT_NUMBER, 500))
+                .thenReturn(1);
+
+        balanceEngine.debit(account, 500);
+
+        verify(accountRepository).debit(ACCOUNT_NUMBER, 500);
+    }
+
+    @Test
+    @DisplayName("바뀐 행이 없으면 잔액 부족이다")
+    void debit_fail_lack_of_balance() {
+        Account account = AccountFactory.stripedAccountFrom(MemberFactory.member(), ACCOUNT_NUMBER, 1000, 0);
+        when(accountRepository.debit(ACCOUNT_NUMBER, 500))
+                .thenReturn(0);
+
+        PayException payException = assertThrows(PayException.class, () -> balanceEngine.debit(account, 500));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.LACK_OF_BALANCE);
+    }
+}
@@ -0,0 +1,205 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.Member;
+import com.jungmini.pay.domain.Transaction;
+import com.jungmini.pay.domain.type.TransactionResultType;
+import com.jungmini.pay.fixture.AccountFactory;
+import com.jungmini.pay.fixture.FriendFactory;
+import com.jungmini.pay.fixture.MemberFactory;
+import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.AccountStripeRepository;
+import com.jungmini.pay.repository.FriendRepository;
+import com.jungmini.pay.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BatchRemitServiceTest {
+
+    private static final String REMITTER_ACCOUNT = "100000000000";
+    private static final String FRIEND_ACCOUNT = "100000000001";
+    private static final String STRANGER_ACCOUNT = "100000000002";
+    private static final String OTHERS_ACCOUNT = "100000000003";
+    private static final String MISSING_ACCOUNT = "100000000009";
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    AccountStripeRepository accountStripeRepository;
+
+    @Mock
+    TransactionRepository transactionRepository;
+
+    @Mock
+    FriendRepository friendRepository;
+
+    BatchRemitService batchRemitService;
+
+    Member remitter = MemberFactory.memberFrom("remitter@test.com");
+    Member friend = MemberFactory.memberFrom("friend@test.com");
+    Member stranger = MemberFactory.memberFrom("stranger@test.com");
+
+    @BeforeEach
+    void setUp() {
+        batchRemitService = new BatchRemitService(accountRepository, transactionRepository, friendRepository,
+                new BalanceEngine(new RowBalanceStore(accountRepository), accountStripeRepository));
+    }
+
+    @Test
+    @DisplayName("건마다 검증해 실패한 건은 실패 거래로 남기고, 성공한 건의 잔액 변화량을 계좌별로 모아 한 번에 반영한다")
+    void remit_batch() {
+        Account remitterAccount = AccountFactory.stripedAccountFrom(remitter, REMITTER_ACCOUNT, 1000, 0);
+        Account friendAccount = AccountFactory.stripedAccountFrom(friend, FRIEND_ACCOUNT, 0, 0);
+        Account strangerAccount = AccountFactory.stripedAccountFrom(stranger, STRANGER_ACCOUNT, 0, 0);
+        Account othersAccount = AccountFactory.stripedAccountFrom(friend, OTHERS_ACCOUNT, 1000, 0);
+        when(accountRepository.findAllById(anyCollection()))
+                .thenReturn(List.of(remitterAccount, friendAccount, strangerAccount, othersAccount));
+        when(friendRepository.findAllAmong(anyCollection()))
+                .thenReturn(List.of(
+                        FriendFactory.from(remitter, friend),
+                        FriendFactory.from(MemberFactory.memberFrom("other@test.com"), remitter)));
+        when(accountRepository.applyBalanceDeltas(any()))
+                .thenReturn(new int[]{1, 1});
+        when(accountRepository.findBalances(anyCollection()))
+                .thenReturn(Map.of(REMITTER_ACCOUNT, 700L, FRIEND_ACCOUNT, 350L));
+
+        List<RemitResult> results = batchRemitService.remitBatch(List.of(
+                request(REMITTER_ACCOUNT, FRIEND_ACCOUNT, 300),
+                request(REMITTER_ACCOUNT, STRANGER_ACCOUNT, 100),
+                request(REMITTER_ACCOUNT, FRIEND_ACCOUNT, 5000),
+                request(REMITTER_ACCOUNT, MISSING_ACCOUNT, 100),
+                request(OTHERS_ACCOUNT, FRIEND_ACCOUNT, 100)), remitter);
+
+        assertThat(results).extracting(RemitResult::errorCode).containsExactly(
+                null,
+                ErrorCode.NOT_FRIENDS,
+                ErrorCode.LACK_OF_BALANCE,
+                ErrorCode.ACCOUNT_NOT_FOUND,
+                ErrorCode.REQUESTER_IS_NOT_OWNER);
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(1).transaction().getTransactionResultType()).isEqualTo(TransactionResultType.FAIL);
+
+        Transaction success = results.get(0).transaction();
+        assertThat(success.getRemitterBalanceSnapshot()).isEqualTo(1000);
+        assertThat(success.getRecipientBalanceSnapshot()).isEqualTo(50);
+        assertThat(remitterAccount.getBalance()).isEqualTo(700);
+        assertThat(friendAccount.getBalance()).isEqualTo(350);
+
+        TreeMap<String, Long> balanceDeltas = new TreeMap<>(Map.of(REMITTER_ACCOUNT, -300L, FRIEND_ACCOUNT, 300L));
+        verify(accountRepository).applyBalanceDeltas(balanceDeltas);
+        verify(transactionRepository).saveAll(argThat((List<Transaction> transactions) -> transactions.size() == 4));
+    }
+
+    @Test
+    @DisplayName("여러 송금자의 송금을 트랜잭션 하나로 처리하고, 같은 계좌를 쓰는 송금은 요청 순서대로 반영한다")
+    void remit_group() {
+        Account remitterAccount = AccountFactory.stripedAccountFrom(remitter, REMITTER_ACCOUNT, 100, 0);
+        Account friendAccount = AccountFactory.stripedAccountFrom(friend, FRIEND_ACCOUNT, 0, 0);
+        when(accountRepository.findAllById(anyCollection()))
+                .thenReturn(List.of(remitterAccount, friendAccount));
+        when(friendRepository.findAllAmong(anyCollection()))
+                .thenReturn(List.of(FriendFactory.from(remitter, friend)));
+        when(accountRepository.applyBalanceDeltas(any()))
+                .thenReturn(new int[]{1, 1});
+        when(accountRepository.findBalances(anyCollection()))
+                .thenReturn(Map.of(REMITTER_ACCOUNT, 20L, FRIEND_ACCOUNT, 80L));
+
+        List<RemitResult> results = batchRemitService.remitGroup(List.of(
+                new RemitCommand(request(REMITTER_ACCOUNT, FRIEND_ACCOUNT, 100), remitter),
+                new RemitCommand(request(FRIEND_ACCOUNT, REMITTER_ACCOUNT, 20), friend),
+                new RemitCommand(request(FRIEND_ACCOUNT, REMITTER_ACCOUNT, 10), remitter),
+                new RemitCommand(request(FRIEND_ACCOUNT, FRIEND_ACCOUNT, 10), friend)));
+
+        assertThat(results).extracting(RemitResult::errorCode).containsExactly(
+                null,
+                null,
+                ErrorCode.REQUESTER_IS_NOT_OWNER,
+                ErrorCode.NOT_FRIENDS);
+        TreeMap<String, Long> balanceDeltas = new TreeMap<>(Map.of(REMITTER_ACCOUNT, -80L, FRIEND_ACCOUNT, 80L));
+        verify(accountRepository).applyBalanceDeltas(balanceDeltas);
+        verify(transactionRepository).saveAll(argThat((List<Transaction> transactions) -> transactions.size() == 4));
+    }
+
+    @Test
+    @DisplayName("요청자와 수신자가 같은 친구 행은 건너뛰고 송금한다")
+    void remit_batch_skip_self_friendship() {
+        Account remitterAccount = AccountFactory.stripedAccountFrom(remitter, REMITTER_ACCOUNT, 1000, 0);
+        Account friendAccount = AccountFactory.stripedAccountFrom(friend, FRIEND_ACCOUNT, 0, 0);
+        when(accountRepository.findAllById(anyCollection()))
+                .thenReturn(List.of(remitterAccount, friendAccount));
+        when(friendRepository.findAllAmong(anyCollection()))
+                .thenReturn(List.of(FriendFactory.from(remitter, remitter), FriendFactory.from(remitter, friend)));
+        when(accountRepository.applyBalanceDeltas(any()))
+                .thenReturn(new int[]{1, 1});
+        when(accountRepository.findBalances(anyCollection()))
+                .thenReturn(Map.of(REMITTER_ACCOUNT, 900L, FRIEND_ACCOUNT, 100L));
+
+        List<RemitResult> results = batchRemitService.remitBatch(
+                List.of(request(REMITTER_ACCOUNT, FRIEND_ACCOUNT, 100)), remitter);
+
+        assertThat(results).extracting(RemitResult::errorCode).containsExactly((ErrorCode) null);
+    }
+
+    @Test
+    @DisplayName("성공한 건이 없으면 잔액을 바꾸지 않는다")
+    void remit_batch_without_success() {
+        when(accountRepository.findAllById(anyCollection()))
+                .thenReturn(List.of());
+
+        List<RemitResult> results = batchRemitService.remitBatch(
+                List.of(request(REMITTER_ACCOUNT, MISSING_ACCOUNT, 100)), remitter);
+
+        assertThat(results).extracting(RemitResult::errorCode).containsExactly(ErrorCode.ACCOUNT_NOT_FOUND);
+        verify(friendRepository, never()).findAllAmong(anyCollection());
+        verify(accountRepository, never()).applyBalanceDeltas(any());
+        verify(transactionRepository).saveAll(List.of());
+    }
+
+    @Test
+    @DisplayName("잠그지 않은 사이 DB 의 잔액이 모자라면 일괄 송금 전체가 실패한다")
+    void remit_batch_fail_conditional_debit() {
+        Account remitterAccount = AccountFactory.stripedAccountFrom(remitter, REMITTER_ACCOUNT, 1000, 0);
+        Account friendAccount = AccountFactory.stripedAccountFrom(friend, FRIEND_ACCOUNT, 0, 0);
+        when(accountRepository.findAllById(anyCollection()))
+                .thenReturn(List.of(remitterAccount, friendAccount));
+        when(friendRepository.findAllAmong(anyCollection()))
+                .thenReturn(List.of(FriendFactory.from(remitter, friend)));
+        when(accountRepository.applyBalanceDeltas(any()))
+                .thenReturn(new int[]{0, 1});
+
+        PayException payException = assertThrows(PayException.class, () -> batchRemitService.remitBatch(
+                List.of(request(REMITTER_ACCOUNT, FRIEND_ACCOUNT, 300)), remitter));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.LACK_OF_BALANCE);
+        verify(transactionRepository, never()).saveAll(any());
+    }
+
+    private static Transaction request(String remitterAccountNumber, String recipientAccountNumber, int amount) {
+        return Transaction.builder()
+                .amount(amount)
+                .remitterAccount(Account.builder().accountNumber(remitterAccountNumber).build())
+                .recipientAccount(Account.builder().accountNumber(recipientAccountNumber).build())
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.jungmini.pay.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConditionalUpdateAccountExecutorTest {
+
+    private final ConditionalUpdateAccountExecutor conditionalUpdateAccountExecutor =
+            new ConditionalUpdateAccountExecutor();
+
+    @Test
+    @DisplayName("잠그지 않고 호출한 스레드에서 바로 실행한다")
+    void execute_without_lock() {
+        assertThat(conditionalUpdateAccountExecutor.execute("100000000000", () -> LockContext.isLocked()))
+                .isFalse();
+        assertThat(conditionalUpdateAccountExecutor.executeAll(List.of("100000000000", "100000000001"), () -> "done"))
+                .isEqualTo("done");
+        assertThat(conditionalUpdateAccountExecutor.executeAsync("100000000000", () -> "done").join())
+                .isEqualTo("done");
+    }
+}
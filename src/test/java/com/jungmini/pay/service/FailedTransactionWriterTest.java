@@ -0,0 +1,231 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.Transaction;
+import com.jungmini.pay.domain.type.TransactionResultType;
+import com.jungmini.pay.domain.type.TransactionType;
+import com.jungmini.pay.fixture.AccountFactory;
+import com.jungmini.pay.fixture.MemberFactory;
+import com.jungmini.pay.fixture.TransactionFactory;
+import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.TransactionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionWriterTest {
+
+    @Mock
+    TransactionRepository transactionRepository;
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("대기열에 모인 실패 거래를 새 트랜잭션에서 한 번에 저장한다")
+    void flush_in_batch() throws InterruptedException {
+        FailedTransactionWriter writer = writer(true, 10);
+        when(accountRepository.getReferenceById(anyString()))
+                .thenAnswer(invocation -> Account.builder().accountNumber(invocation.getArgument(0)).build());
+        writer.record(failedTransaction(100));
+        writer.record(failedTransaction(200));
+
+        writer.flush();
+
+        verify(transactionRepository).saveAll(argThat((List<Transaction> transactions) ->
+                transactions.size() == 2
+                        && transactions.get(0).getTransactionResultType() == TransactionResultType.FAIL
+                        && transactions.get(0).getTransactionType() == TransactionType.REMIT
+                        && transactions.get(1).getAmount() == 200
+                        && transactions.get(1).getRemitterAccount().getAccountNumber().equals("100000000000")));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("저장하지 못한 실패 거래는 디스크에 남겼다가 대기열이 비었을 때 다시 저장한다")
+    void spill_and_replay() throws Exception {
+        FailedTransactionWriter writer = writer(true, 10);
+        when(transactionRepository.saveAll(anyList()))
+                .thenThrow(new QueryTimeoutException("slow"))
+                .thenReturn(List.of());
+        writer.record(failedTransaction(100));
+
+        writer.flush();
+        assertThat(Files.readAllLines(spillPath())).containsExactly("100000000000\t100000000001\t100\t10000\t0");
+
+        writer.flush();
+        assertThat(spillPath()).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("다시 저장하다 실패하면 저장하지 못한 실패 거래만 디스크에 남긴다")
+    void replay_keeps_unsaved() throws Exception {
+        FailedTransactionWriter writer = writer(true, 1);
+        writer.spill(List.of(failedRemit(100), failedRemit(200)));
+        when(transactionRepository.saveAll(anyList()))
+                .thenReturn(List.of())
+                .thenThrow(new QueryTimeoutException("slow"));
+
+        writer.replaySpill();
+
+        assertThat(Files.readAllLines(replayPath())).containsExactly(failedRemit(200).toLine());
+        assertThat(spillPath()).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("다시 저장하는 동안 들어온 실패 거래는 디스크 파일에 덧붙이고 다음에 저장한다")
+    void spill_while_replaying() throws Exception {
+        FailedTransactionWriter writer = writer(true, 10);
+        writer.spill(List.of(failedRemit(100)));
+        when(transactionRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> {
+                    writer.spill(List.of(failedRemit(200)));
+                    return List.of();
+                })
+                .thenReturn(List.of());
+
+        writer.replaySpill();
+        assertThat(replayPath()).doesNotExist();
+        assertThat(Files.readAllLines(spillPath())).containsExactly(failedRemit(200).toLine());
+
+        writer.replaySpill();
+        assertThat(spillPath()).doesNotExist();
+        verify(transactionRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("저장할 수 없는 실패 거래는 한 건씩 저장해 격리하고, 나머지는 저장한다")
+    void quarantine_poison_row() throws Exception {
+        FailedTransactionWriter writer = writer(true, 10);
+        when(accountRepository.getReferenceById(anyString()))
+                .thenAnswer(invocation -> Account.builder().accountNumber(invocation.getArgument(0)).build());
+        when(transactionRepository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("batch"))
+                .thenReturn(List.of())
+                .thenThrow(new DataIntegrityViolationException("account"))
+                .thenThrow(new QueryTimeoutException("slow"));
+        writer.record(failedTransaction(100));
+        writer.record(failedTransaction(200));
+        writer.record(failedTransaction(300));
+
+        writer.flush();
+
+        assertThat(Files.readAllLines(quarantinePath())).containsExactly(failedRemit(200).toLine());
+        assertThat(Files.readAllLines(spillPath())).containsExactly(failedRemit(300).toLine());
+    }
+
+    @Test
+    @DisplayName("다시 저장하다 멈춘 파일이 남아 있으면 그 파일부터 저장한다")
+    void replay_leftover_file_first() throws Exception {
+        FailedTransactionWriter writer = writer(true, 10);
+        Files.write(replayPath(), List.of(failedRemit(100).toLine()));
+        writer.spill(List.of(failedRemit(200)));
+
+        writer.replaySpill();
+
+        assertThat(replayPath()).doesNotExist();
+        assertThat(Files.readAllLines(spillPath())).containsExactly(failedRemit(200).toLine());
+        verify(transactionRepository).saveAll(argThat((List<Transaction> transactions) ->
+                transactions.size() == 1 && transactions.get(0).getAmount() == 100));
+    }
+
+    @Test
+    @DisplayName("다시 저장할 파일이 비어 있으면 지우고 다음 주기에 디스크 파일을 옮긴다")
+    void replay_removes_empty_file() throws Exception {
+        FailedTransactionWriter writer = writer(true, 10);
+        Files.write(replayPath(), List.of());
+        writer.spill(List.of(failedRemit(200)));
+
+        writer.replaySpill();
+
+        assertThat(replayPath()).doesNotExist();
+        assertThat(Files.readAllLines(spillPath())).containsExactly(failedRemit(200).toLine());
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("대기열이 가득 차면 요청 스레드에서 디스크에 남기고, 종료할 때 남은 대기열도 디스크에 남긴다")
+    void spill_when_queue_full_and_on_shutdown() throws Exception {
+        FailedTransactionWriter writer = new FailedTransactionWriter(transactionRepository, accountRepository,
+                transactionManager, true, 1, 10, 1, 1, spillPath().toString());
+        writer.record(failedTransaction(100));
+        writer.record(failedTransaction(200));
+
+        assertThat(Files.readAllLines(spillPath())).containsExactly(failedRemit(200).toLine());
+
+        writer.shutdown();
+        assertThat(Files.readAllLines(spillPath())).containsExactly(failedRemit(200).toLine(), failedRemit(100).toLine());
+    }
+
+    @Test
+    @DisplayName("꺼져 있으면 기록하지 않는다")
+    void disabled() throws InterruptedException {
+        FailedTransactionWriter writer = writer(false, 10);
+        writer.start();
+        writer.record(failedTransaction(100));
+
+        writer.flush();
+        writer.shutdown();
+
+        verify(transactionRepository, never()).saveAll(anyList());
+        assertThat(spillPath()).doesNotExist();
+    }
+
+    private FailedTransactionWriter writer(boolean enabled, int batchSize) {
+        return new FailedTransactionWriter(transactionRepository, accountRepository, transactionManager,
+                enabled, 100, batchSize, 1, 1, spillPath().toString());
+    }
+
+    private Path spillPath() {
+        return tempDir.resolve("failed-transactions.spill");
+    }
+
+    private Path replayPath() {
+        return tempDir.resolve("failed-transactions.spill.replay");
+    }
+
+    private Path quarantinePath() {
+        return tempDir.resolve("failed-transactions.spill.quarantine");
+    }
+
+    private static Transaction failedTransaction(int amount) {
+        Account remitterAccount = AccountFactory.stripedAccountFrom(
+                MemberFactory.memberFrom("remitter@test.com"), "100000000000", 10000, 0);
+        Account recipientAccount = AccountFactory.stripedAccountFrom(
+                MemberFactory.memberFrom("recipient@test.com"), "100000000001", 0, 0);
+        Transaction transaction = TransactionFactory.transactionRequest(remitterAccount, recipientAccount, amount);
+        transaction.failTransaction(recipientAccount, remitterAccount, TransactionType.REMIT);
+        return transaction;
+    }
+
+    private static FailedRemit failedRemit(int amount) {
+        return new FailedRemit("100000000000", "100000000001", amount, 10000, 0);
+    }
+}
@@ -0,0 +1,288 @@
+package com.jungmini.pay.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.web.dto.AccountDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisConnectionException;
+import org.redisson.client.codec.Codec;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTest {
+
+    private static final String SCOPE = "member@test.com:charge";
+    private static final String KEY = "key";
+    private static final AccountDTO.RemitRequest PAYLOAD = remitRequest(100);
+
+    @Mock
+    RedissonClient redissonClient;
+
+    @Mock
+    RBucket<String> bucket;
+
+    @Mock
+    RScript script;
+
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    IdempotencyStore idempotencyStore;
+
+    AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        idempotencyStore = new IdempotencyStore(redissonClient, objectMapper, 60, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyStore.shutdown();
+    }
+
+    @Test
+    @DisplayName("키가 없으면 Redis 를 거치지 않고 바로 실행한다")
+    void execute_without_key() {
+        CompletableFuture<AccountDTO.RemitResponse> response =
+                idempotencyStore.execute(SCOPE, " ", PAYLOAD, AccountDTO.RemitResponse.class, () -> work(100));
+
+        assertThat(response.join().getAmount()).isEqualTo(100);
+        verify(redissonClient, never()).getBucket(anyString(), any(Codec.class));
+    }
+
+    @Test
+    @DisplayName("처음 보낸 요청은 실행하고 응답을 보관한다")
+    void execute_first_request() {
+        stubBucket();
+        when(bucket.trySet(eq(stored("P", "")), anyLong(), eq(TimeUnit.MILLISECONDS))).thenReturn(true);
+
+        CompletableFuture<AccountDTO.RemitResponse> response =
+                idempotencyStore.execute(SCOPE, KEY, PAYLOAD, AccountDTO.RemitResponse.class, () -> work(100));
+
+        assertThat(response.join().getAmount()).isEqualTo(100);
+        verify(redissonClient).getBucket(eq("idempotency:" + SCOPE + ":" + KEY), any(Codec.class));
+        verify(bucket).set(startsWith(stored("S", "{")), eq(60_000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @DisplayName("보관된 응답이 있으면 실행하지 않고 그 응답을 돌려준다")
+    void replay_success() {
+        stubBucket();
+        when(bucket.get()).thenReturn(stored("S", "{\"amount\":100}"));
+
+        CompletableFuture<AccountDTO.RemitResponse> response =
+                idempotencyStore.execute(SCOPE, KEY, PAYLOAD, AccountDTO.RemitResponse.class, () -> work(200));
+
+        assertThat(response.join().getAmount()).isEqualTo(100);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("다시 보내도 결과가 같은 실패는 보관했다가 같은 예외로 돌려준다")
+    void save_and_replay_failure() {
+        stubBucket();
+        when(bucket.trySet(eq(stored("P", "")), anyLong(), eq(TimeUnit.MILLISECONDS))).thenReturn(true, false);
+        when(bucket.get()).thenReturn(stored("F", ErrorCode.LACK_OF_BALANCE.name()));
+
+        CompletableFuture<AccountDTO.RemitResponse> first = idempotencyStore.execute(SCOPE, KEY, PAYLOAD,
+                AccountDTO.RemitResponse.class, () -> CompletableFuture.failedFuture(
+                        new CompletionException(new PayException(ErrorCode.LACK_OF_BALANCE))));
+        assertErrorCode(first, ErrorCode.LACK_OF_BALANCE);
+        verify(bucket).set(eq(stored("F", ErrorCode.LACK_OF_BALANCE.name())), eq(60_000L), eq(TimeUnit.MILLISECONDS));
+
+        CompletableFuture<AccountDTO.RemitResponse> retry =
+                idempotencyStore.execute(SCOPE, KEY, PAYLOAD, AccountDTO.RemitResponse.class, () -> work(100));
+        assertErrorCode(retry, ErrorCode.LACK_OF_BALANCE);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("다시 보내면 성공할 수 있는 실패는 보관하지 않고 처리 중 표시를 지운다")
+    void delete_when_retryable_failure() {
+        stubBucket();
+        when(bucket.trySet(eq(stored("P", "")), anyLong(), eq(TimeUnit.MILLISECONDS))).thenReturn(true);
+
+        CompletableFuture<AccountDTO.RemitResponse> response = idempotencyStore.execute(SCOPE, KEY, PAYLOAD,
+                AccountDTO.RemitResponse.class, () -> {
+                    throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+                });
+
+        assertErrorCode(response, ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(bucket).delete();
+        verify(bucket, never()).set(anyString(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    @DisplayName("다른 서버에서 처리 중인 키는 409 로 거절한다")
+    void reject_in_progress() {
+        stubBucket();
+        when(bucket.get()).thenReturn(stored("P", ""));
+
+        CompletableFuture<AccountDTO.RemitResponse> response =
+                idempotencyStore.execute(SCOPE, KEY, PAYLOAD, AccountDTO.RemitResponse.class, () -> work(100));
+
+        assertErrorCode(response, ErrorCode.IDEMPOTENCY_KEY_IN_USE);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("같은 서버에서 처리 중인 키로 다시 보내면 실행하지 않고 처음 요청의 결과를 함께 기다린다")
+    void single_flight() {
+        stubBucket();
+        when(bucket.trySet(eq(stored("P", "")), anyLong(), eq(TimeUnit.MILLISECONDS))).thenReturn(true);
+        CompletableFuture<AccountDTO.RemitResponse> pending = new CompletableFuture<>();
+
+        CompletableFuture<AccountDTO.RemitResponse> first =
+                idempotencyStore.execute(SCOPE, KEY, PAYLOAD, AccountDTO.RemitResponse.class, () -> pending);
+        CompletableFuture<AccountDTO.RemitResponse> second =
+                idempotencyStore.execute(SCOPE, KEY, PAYLOAD, AccountDTO.RemitResponse.class, () -> work(200));
+        pending.complete(AccountDTO.RemitResponse.builder().amount(100).build());
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.join().getAmount()).isEqualTo(100);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("같은 키로 보관된 요청과 다른 본문을 보내면 실행하지 않고 422 로 거절한다")
+    void reject_different_payload() {
+        stubBucket();
+        when(bucket.get()).thenReturn(stored("S", "{\"amount\":100}"));
+
+        CompletableFuture<AccountDTO.RemitResponse> response = idempotencyStore.execute(SCOPE, KEY, remitRequest(200),
+                AccountDTO.RemitResponse.class, () -> work(200));
+
+        assertErrorCode(response, ErrorCode.IDEMPOTENCY_KEY_MISMATCH);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("같은 서버에서 처리 중인 키로 다른 본문을 보내면 처음 요청을 기다리지 않고 거절한다")
+    void reject_different_payload_in_flight() {
+        stubBucket();
+        when(bucket.trySet(eq(stored("P", "")), anyLong(), eq(TimeUnit.MILLISECONDS))).thenReturn(true);
+        CompletableFuture<AccountDTO.RemitResponse> pending = new CompletableFuture<>();
+
+        idempotencyStore.execute(SCOPE, KEY, PAYLOAD, AccountDTO.RemitResponse.class, () -> pending);
+        CompletableFuture<AccountDTO.RemitResponse> second = idempotencyStore.execute(SCOPE, KEY, remitRequest(200),
+                AccountDTO.RemitResponse.class, () -> work(200));
+
+        assertErrorCode(second, ErrorCode.IDEMPOTENCY_KEY_MISMATCH);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("작업이 끝나지 않은 동안 처리 중 표시가 이 요청의 것일 때만 만료 시간을 연장한다")
+    void renew_in_progress_marker_while_in_flight() {
+        IdempotencyStore shortLived = new IdempotencyStore(redissonClient, objectMapper, 60, 1);
+        stubBucket();
+        when(bucket.trySet(eq(stored("P", "")), anyLong(), eq(TimeUnit.MILLISECONDS))).thenReturn(true);
+        when(redissonClient.getScript(any(Codec.class))).thenReturn(script);
+        CompletableFuture<AccountDTO.RemitResponse> pending = new CompletableFuture<>();
+
+        try {
+            shortLived.execute(SCOPE, KEY, PAYLOAD, AccountDTO.RemitResponse.class, () -> pending);
+
+            verify(script, timeout(2000)).eval(eq(RScript.Mode.READ_WRITE), anyString(),
+                    eq(RScript.ReturnType.INTEGER), eq(List.of("idempotency:" + SCOPE + ":" + KEY)),
+                    eq(stored("P", "")), eq("1000"));
+        } finally {
+            pending.complete(AccountDTO.RemitResponse.builder().amount(100).build());
+            shortLived.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Redis 에 처리 중 표시를 남기지 못하면 실행하지 않고 다시 보내라고 거절한다")
+    void reject_when_redis_unavailable() {
+        stubBucket();
+        when(bucket.trySet(eq(stored("P", "")), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenThrow(new RedisConnectionException("down"));
+
+        CompletableFuture<AccountDTO.RemitResponse> response =
+                idempotencyStore.execute(SCOPE, KEY, PAYLOAD, AccountDTO.RemitResponse.class, () -> work(100));
+
+        assertErrorCode(response, ErrorCode.IDEMPOTENCY_KEY_UNAVAILABLE);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("실행한 뒤 응답을 보관하지 못해도 응답은 돌려준다")
+    void respond_when_save_fails() {
+        stubBucket();
+        when(bucket.trySet(eq(stored("P", "")), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(true);
+        doThrow(new RedisConnectionException("down")).when(bucket).set(anyString(), anyLong(), any(TimeUnit.class));
+
+        CompletableFuture<AccountDTO.RemitResponse> response =
+                idempotencyStore.execute(SCOPE, KEY, PAYLOAD, AccountDTO.RemitResponse.class, () -> work(100));
+
+        assertThat(response.join().getAmount()).isEqualTo(100);
+        assertThat(calls).hasValue(1);
+    }
+
+    /**
+     * IdempotencyStore 처럼 표시 뒤에 PAYLOAD 를 JSON 으로 바꾼 값의 SHA-256 을 붙인다.
+     */
+    private String stored(String marker, String value) {
+        try {
+            byte[] json = objectMapper.writeValueAsString(PAYLOAD).getBytes(StandardCharsets.UTF_8);
+            return marker + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json)) + value;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static AccountDTO.RemitRequest remitRequest(int amount) {
+        return AccountDTO.RemitRequest.builder()
+                .amount(amount)
+                .remitterAccountNumber("100000000000")
+                .recipientsAccountNumber("100000000001")
+                .build();
+    }
+
+    private void stubBucket() {
+        when(redissonClient.<String>getBucket(anyString(), any(Codec.class))).thenReturn(bucket);
+    }
+
+    private CompletableFuture<AccountDTO.RemitResponse> work(int amount) {
+        calls.incrementAndGet();
+        return CompletableFuture.completedFuture(AccountDTO.RemitResponse.builder().amount(amount).build());
+    }
+
+    private static void assertErrorCode(CompletableFuture<?> response, ErrorCode errorCode) {
+        CompletionException exception = assertThrows(CompletionException.class, response::join);
+        assertThat(((PayException) exception.getCause()).getErrorCode()).isEqualTo(errorCode);
+    }
+}
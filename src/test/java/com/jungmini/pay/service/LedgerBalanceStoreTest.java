@@ -0,0 +1,130 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.LedgerEntry;
+import com.jungmini.pay.fixture.AccountFactory;
+import com.jungmini.pay.fixture.MemberFactory;
+import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerBalanceStoreTest {
+
+    private static final String REMITTER_ACCOUNT = "100000000000";
+    private static final String RECIPIENT_ACCOUNT = "100000000001";
+
+    @Mock
+    LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    AccountRepository accountRepository;
+
+    LedgerBalanceStore ledgerBalanceStore;
+
+    @BeforeEach
+    void setUp() {
+        ledgerBalanceStore = new LedgerBalanceStore(ledgerEntryRepository, accountRepository, "redis-lock");
+    }
+
+    @Test
+    @DisplayName("입금은 원장에 항목을 추가하고, 스냅샷과 그 뒤의 항목을 더한 잔액을 돌려준다")
+    void credit() {
+        when(ledgerEntryRepository.findBalance(RECIPIENT_ACCOUNT)).thenReturn(1500L);
+
+        long balance = ledgerBalanceStore.credit(RECIPIENT_ACCOUNT, 500);
+
+        assertThat(balance).isEqualTo(1500);
+        verify(ledgerEntryRepository).saveAndFlush(argThat(entry -> isEntry(entry, RECIPIENT_ACCOUNT, 500)));
+    }
+
+    @Test
+    @DisplayName("잔액이 충분하면 음수 항목을 추가한다")
+    void debit_success() {
+        when(ledgerEntryRepository.findBalance(REMITTER_ACCOUNT)).thenReturn(500L);
+
+        assertThat(ledgerBalanceStore.debit(REMITTER_ACCOUNT, 500)).isTrue();
+        verify(accountRepository).findAllForUpdate(List.of(REMITTER_ACCOUNT));
+        verify(ledgerEntryRepository).save(argThat(entry -> isEntry(entry, REMITTER_ACCOUNT, -500)));
+    }
+
+    @Test
+    @DisplayName("잔액이 모자라면 항목을 추가하지 않는다")
+    void debit_fail_lack_of_balance() {
+        when(ledgerEntryRepository.findBalance(REMITTER_ACCOUNT)).thenReturn(499L);
+
+        assertThat(ledgerBalanceStore.debit(REMITTER_ACCOUNT, 500)).isFalse();
+        verify(ledgerEntryRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("계좌 행의 잔액 대신 원장의 잔액으로 엔티티를 맞춘다")
+    void load() {
+        Account account = AccountFactory.stripedAccountFrom(MemberFactory.member(), REMITTER_ACCOUNT, 0, 0);
+        when(ledgerEntryRepository.findBalance(REMITTER_ACCOUNT)).thenReturn(700L);
+
+        ledgerBalanceStore.load(account);
+
+        assertThat(account.getBalance()).isEqualTo(700);
+    }
+
+    @Test
+    @DisplayName("계좌별 변화량을 모두 확인한 뒤 원장 항목을 한 번에 추가한다")
+    void apply() {
+        when(ledgerEntryRepository.findBalance(REMITTER_ACCOUNT)).thenReturn(1000L);
+        when(ledgerEntryRepository.findBalance(RECIPIENT_ACCOUNT)).thenReturn(0L);
+
+        Map<String, Long> balances = ledgerBalanceStore.apply(new TreeMap<>(Map.of(
+                REMITTER_ACCOUNT, -300L,
+                RECIPIENT_ACCOUNT, 300L)));
+
+        assertThat(balances).containsExactlyInAnyOrderEntriesOf(Map.of(REMITTER_ACCOUNT, 700L, RECIPIENT_ACCOUNT, 300L));
+        verify(ledgerEntryRepository).saveAll(argThat((List<LedgerEntry> entries) -> entries.size() == 2
+                && isEntry(entries.get(0), REMITTER_ACCOUNT, -300)
+                && isEntry(entries.get(1), RECIPIENT_ACCOUNT, 300)));
+        verify(accountRepository).findAllForUpdate(List.of(REMITTER_ACCOUNT));
+    }
+
+    @Test
+    @DisplayName("잔액이 모자란 계좌가 있으면 항목을 하나도 추가하지 않는다")
+    void apply_fail_lack_of_balance() {
+        when(ledgerEntryRepository.findBalance(REMITTER_ACCOUNT)).thenReturn(100L);
+
+        PayException payException = assertThrows(PayException.class, () -> ledgerBalanceStore.apply(
+                new TreeMap<>(Map.of(REMITTER_ACCOUNT, -300L, RECIPIENT_ACCOUNT, 300L))));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.LACK_OF_BALANCE);
+        verify(ledgerEntryRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("계좌를 잠그지 않는 동시성 모드와는 함께 쓸 수 없다")
+    void reject_unlocked_mode() {
+        assertThrows(IllegalStateException.class,
+                () -> new LedgerBalanceStore(ledgerEntryRepository, accountRepository, "conditional-update"));
+    }
+
+    private static boolean isEntry(LedgerEntry entry, String accountNumber, long amount) {
+        return entry.getAccountNumber().equals(accountNumber) && entry.getAmount() == amount;
+    }
+}
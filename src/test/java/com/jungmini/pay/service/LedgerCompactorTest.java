@@ -0,0 +1,159 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.domain.BalanceSnapshot;
+import com.jungmini.pay.repository.BalanceSnapshotRepository;
+import com.jungmini.pay.repository.LedgerEntryRepository;
+import com.jungmini.pay.repository.LedgerTail;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerCompactorTest {
+
+    private static final String FIRST_ACCOUNT = "100000000000";
+    private static final String SECOND_ACCOUNT = "100000000001";
+    private static final String THIRD_ACCOUNT = "100000000002";
+
+    @Mock
+    LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    LedgerCompactor ledgerCompactor;
+
+    @BeforeEach
+    void setUp() {
+        ledgerCompactor = new LedgerCompactor(ledgerEntryRepository, balanceSnapshotRepository, transactionManager,
+                60_000, 10, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerCompactor.shutdown();
+    }
+
+    @Test
+    @DisplayName("시작할 때 계좌 행의 잔액을 스냅샷으로 옮기고, 처음에는 마지막 항목 번호만 기억한다")
+    void first_compact_only_records_boundary() {
+        when(balanceSnapshotRepository.seedFromAccounts(100L)).thenReturn(3);
+        when(ledgerEntryRepository.findLastEntryId()).thenReturn(100L);
+
+        ledgerCompactor.start();
+        ledgerCompactor.compact();
+
+        verify(balanceSnapshotRepository).seedFromAccounts(100L);
+        verify(ledgerEntryRepository).findTails(eq(0L), eq(10L), any(Pageable.class));
+        verify(balanceSnapshotRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("지난번에 본 항목 번호까지 쌓인 항목을 계좌별로 스냅샷에 더하고, batch-size 만큼씩 반복한다")
+    void compact_rolls_snapshots() {
+        BalanceSnapshot existing = BalanceSnapshot.empty(FIRST_ACCOUNT);
+        existing.roll(1000, 10);
+        when(ledgerEntryRepository.findLastEntryId()).thenReturn(100L, 200L);
+        when(ledgerEntryRepository.findTails(anyLong(), eq(10L), any(Pageable.class)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(new LedgerTail(FIRST_ACCOUNT, 10L, -300L, 90L), new LedgerTail(SECOND_ACCOUNT, 0L, 500L, 95L)))
+                .thenReturn(List.of(new LedgerTail(THIRD_ACCOUNT, 0L, 700L, 99L)));
+        when(balanceSnapshotRepository.findAllById(anyList())).thenReturn(List.of(existing), List.of());
+
+        ledgerCompactor.compact();
+        ledgerCompactor.compact();
+
+        assertThat(existing.getBalance()).isEqualTo(700);
+        assertThat(existing.getLastEntryId()).isEqualTo(90);
+        verify(balanceSnapshotRepository).saveAll(argThat((List<BalanceSnapshot> snapshots) -> snapshots.size() == 2
+                && snapshots.get(0) == existing
+                && snapshots.get(1).getBalance() == 500 && snapshots.get(1).getLastEntryId() == 95));
+        verify(balanceSnapshotRepository).saveAll(argThat((List<BalanceSnapshot> snapshots) -> snapshots.size() == 1
+                && snapshots.get(0).getAccountNumber().equals(THIRD_ACCOUNT) && snapshots.get(0).getBalance() == 700));
+        verify(ledgerEntryRepository, times(2)).findTails(eq(100L), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("다른 서버가 먼저 굴려 실패하면 기준 번호를 옮기지 않고 다음 주기에 다시 굴린다")
+    void compact_retries_after_conflict() {
+        when(ledgerEntryRepository.findLastEntryId()).thenReturn(100L, 200L, 300L);
+        when(ledgerEntryRepository.findTails(anyLong(), eq(10L), any(Pageable.class)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(new LedgerTail(FIRST_ACCOUNT, 0L, 300L, 90L)));
+        when(balanceSnapshotRepository.saveAll(anyList()))
+                .thenThrow(new OptimisticLockingFailureException("rolled"))
+                .thenReturn(List.of());
+
+        ledgerCompactor.compact();
+        ledgerCompactor.compact();
+        ledgerCompactor.compact();
+
+        verify(ledgerEntryRepository, times(2)).findTails(eq(100L), eq(10L), any(Pageable.class));
+        verify(balanceSnapshotRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("다른 서버가 먼저 계좌 잔액을 옮겼어도 시작한다")
+    void start_after_other_server_seeded() {
+        when(balanceSnapshotRepository.seedFromAccounts(anyLong()))
+                .thenThrow(new DataIntegrityViolationException("balance_snapshot"));
+
+        ledgerCompactor.start();
+
+        verify(balanceSnapshotRepository).seedFromAccounts(anyLong());
+    }
+
+    @Test
+    @DisplayName("row 에서 계좌 잔액이 바뀐 계좌는 그때까지의 원장 항목을 버리고 계좌 잔액으로 스냅샷을 다시 만든다")
+    void start_reseeds_accounts_changed_in_row() {
+        when(ledgerEntryRepository.findLastEntryId()).thenReturn(100L);
+        when(balanceSnapshotRepository.reseedChangedAccounts(100L)).thenReturn(2);
+
+        ledgerCompactor.start();
+
+        verify(balanceSnapshotRepository).reseedChangedAccounts(100L);
+        verify(balanceSnapshotRepository).seedFromAccounts(100L);
+    }
+
+    @Test
+    @DisplayName("항목을 모은 뒤 다른 서버가 스냅샷을 굴렸다면 같은 항목을 다시 더하지 않는다")
+    void compact_skips_snapshot_rolled_by_other_server() {
+        BalanceSnapshot rolledByOther = BalanceSnapshot.empty(FIRST_ACCOUNT);
+        rolledByOther.roll(300, 90);
+        when(ledgerEntryRepository.findLastEntryId()).thenReturn(100L, 200L);
+        when(ledgerEntryRepository.findTails(anyLong(), eq(10L), any(Pageable.class)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(new LedgerTail(FIRST_ACCOUNT, 0L, 300L, 90L)));
+        when(balanceSnapshotRepository.findAllById(anyList())).thenReturn(List.of(rolledByOther));
+
+        ledgerCompactor.compact();
+        ledgerCompactor.compact();
+
+        assertThat(rolledByOther.getBalance()).isEqualTo(300);
+        verify(balanceSnapshotRepository).saveAll(argThat((List<BalanceSnapshot> snapshots) -> snapshots.isEmpty()));
+    }
+}
@@ -0,0 +1,95 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.service.LockBudget.Operation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LockBudgetTest {
+
+    private static final String ACCOUNT_NUMBER = "100000000000";
+    private static final String OTHER_ACCOUNT_NUMBER = "100000000001";
+
+    AccountAdmission accountAdmission;
+    LockBudget lockBudget;
+
+    @BeforeEach
+    void setUp() {
+        accountAdmission = new AccountAdmission(new SimpleMeterRegistry(), 32, 1);
+        lockBudget = new LockBudget(accountAdmission, 100, 1000, 200, 3000, 3, 16, 10);
+    }
+
+    @Test
+    @DisplayName("점유 시간 기록이 없으면 최소 대기 시간과 최소 임대 시간을 준다")
+    void min_budget_without_samples() {
+        assertThat(lockBudget.waitMillis(Operation.SINGLE, List.of(ACCOUNT_NUMBER))).isEqualTo(100);
+        assertThat(lockBudget.leaseMillis(Operation.SINGLE)).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("다시 시도하는 간격은 두 배씩 늘어나 16배에서 멈추고, 절반까지 무작위로 줄어든다")
+    void retry_backs_off_with_jitter() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(lockBudget.retryMillis(0)).isBetween(5L, 10L);
+            assertThat(lockBudget.retryMillis(2)).isBetween(20L, 40L);
+            assertThat(lockBudget.retryMillis(10)).isBetween(80L, 160L);
+        }
+    }
+
+    @Test
+    @DisplayName("p99 점유 시간에 비례해 임대 시간을 주고 최대값을 넘지 않는다")
+    void lease_follows_p99_hold() {
+        record(Operation.MULTI, 50, 16);
+        record(Operation.MULTI, 400, 1);
+
+        assertThat(lockBudget.p99HoldMillis(Operation.MULTI)).isEqualTo(400);
+        assertThat(lockBudget.leaseMillis(Operation.MULTI)).isEqualTo(1200);
+        assertThat(lockBudget.leaseMillis(Operation.SINGLE)).isEqualTo(200);
+
+        record(Operation.MULTI, 2000, 16);
+
+        assertThat(lockBudget.leaseMillis(Operation.MULTI)).isEqualTo(3000);
+    }
+
+    @Test
+    @DisplayName("가장 붐비는 계좌의 앞선 요청 수만큼 p99 점유 시간을 더 기다린다")
+    void wait_follows_queue_depth() {
+        record(Operation.MULTI, 150, 16);
+        CompletableFuture<Void> first = accountAdmission.submit(List.of(ACCOUNT_NUMBER), CompletableFuture::new);
+        CompletableFuture<Void> second = accountAdmission.submit(List.of(ACCOUNT_NUMBER), CompletableFuture::new);
+        accountAdmission.submit(List.of(ACCOUNT_NUMBER), CompletableFuture::new);
+
+        assertThat(lockBudget.waitMillis(Operation.MULTI, List.of(OTHER_ACCOUNT_NUMBER))).isEqualTo(150);
+        assertThat(lockBudget.waitMillis(Operation.MULTI, List.of(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER)))
+                .isEqualTo(450);
+
+        accountAdmission.submit(List.of(ACCOUNT_NUMBER), CompletableFuture::new);
+        accountAdmission.submit(List.of(ACCOUNT_NUMBER), CompletableFuture::new);
+        accountAdmission.submit(List.of(ACCOUNT_NUMBER), CompletableFuture::new);
+        accountAdmission.submit(List.of(ACCOUNT_NUMBER), CompletableFuture::new);
+
+        assertThat(lockBudget.waitMillis(Operation.MULTI, List.of(ACCOUNT_NUMBER))).isEqualTo(1000);
+        first.complete(null);
+        second.complete(null);
+    }
+
+    @Test
+    @DisplayName("두 계좌 이상을 잠그면 송금용 통계를 쓴다")
+    void operation_by_account_count() {
+        assertThat(Operation.of(1)).isEqualTo(Operation.SINGLE);
+        assertThat(Operation.of(2)).isEqualTo(Operation.MULTI);
+    }
+
+    private void record(Operation operation, long holdMillis, int times) {
+        for (int i = 0; i < times; i++) {
+            lockBudget.recordHold(operation, TimeUnit.MILLISECONDS.toNanos(holdMillis));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LockMetricsTest {
+
+    private static final String ACCOUNT_NUMBER = "100000000000";
+    private static final String OTHER_ACCOUNT_NUMBER = "100000000001";
+
+    SimpleMeterRegistry meterRegistry;
+    LockMetrics lockMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lockMetrics = new LockMetrics(meterRegistry, 2, 10);
+    }
+
+    @Test
+    @DisplayName("잠금 대기 시간과 점유 시간을 기록하고 펜싱 토큰은 그대로 전달한다")
+    void record_wait_and_hold_time() {
+        LockHandle lock = lockMetrics.record(List.of(ACCOUNT_NUMBER),
+                () -> new FencedLockHandle(Map.of(ACCOUNT_NUMBER, 3L), () -> {}));
+
+        assertThat(lock.fencingToken(ACCOUNT_NUMBER)).isEqualTo(OptionalLong.of(3));
+        lock.close();
+
+        assertThat(meterRegistry.get("account.lock.wait").tag("result", "acquired").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("account.lock.hold").timer().count()).isEqualTo(1);
+        assertThat(lockMetrics.hotKeys(10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("잠금에 실패하면 실패 횟수와 경쟁 계좌를 기록한다")
+    void record_failure_and_hot_keys() {
+        assertThrows(PayException.class, () -> lockMetrics.record(List.of(ACCOUNT_NUMBER, ACCOUNT_NUMBER), () -> {
+            throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+        }));
+
+        assertThat(meterRegistry.get("account.lock.fail").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("account.lock.wait").tag("result", "failed").timer().count()).isEqualTo(1);
+        assertThat(lockMetrics.hotKeys(10))
+                .extracting(LockMetrics.HotKey::getAccountNumber, LockMetrics.HotKey::getCount)
+                .containsExactly(tuple(ACCOUNT_NUMBER, 1L));
+    }
+
+    @Test
+    @DisplayName("오래 기다려서 얻은 잠금도 경쟁 계좌로 센다")
+    void slow_acquire_is_contended() {
+        lockMetrics.record(List.of(ACCOUNT_NUMBER), () -> {
+            sleep(20);
+            return () -> {};
+        }).close();
+
+        assertThat(lockMetrics.hotKeys(10))
+                .extracting(LockMetrics.HotKey::getAccountNumber)
+                .containsExactly(ACCOUNT_NUMBER);
+    }
+
+    @Test
+    @DisplayName("추적 가능한 계좌 수를 넘으면 가장 적게 경쟁한 계좌를 내보낸다")
+    void evict_least_contended_key() {
+        fail(ACCOUNT_NUMBER);
+        fail(ACCOUNT_NUMBER);
+        fail(ACCOUNT_NUMBER);
+        fail(OTHER_ACCOUNT_NUMBER);
+        fail("100000000002");
+
+        assertThat(lockMetrics.hotKeys(10))
+                .extracting(LockMetrics.HotKey::getAccountNumber, LockMetrics.HotKey::getCount)
+                .containsExactly(
+                        tuple(ACCOUNT_NUMBER, 3L),
+                        tuple("100000000002", 2L));
+        assertThat(lockMetrics.hotKeys(1)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("비동기 잠금도 대기 시간과 실패를 기록한다")
+    void record_async() {
+        lockMetrics.recordAsync(List.of(ACCOUNT_NUMBER), () -> CompletableFuture.completedFuture((LockHandle) () -> {}))
+                .join()
+                .close();
+
+        CompletableFuture<LockHandle> failed = lockMetrics.recordAsync(List.of(OTHER_ACCOUNT_NUMBER),
+                () -> CompletableFuture.failedFuture(new PayException(ErrorCode.ACCOUNT_LOCK_FAIL)));
+
+        CompletionException exception = assertThrows(CompletionException.class, failed::join);
+        assertThat(exception.getCause()).isInstanceOf(PayException.class);
+        assertThat(meterRegistry.get("account.lock.wait").tag("result", "acquired").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("account.lock.hold").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("account.lock.fail").counter().count()).isEqualTo(1);
+        assertThat(lockMetrics.hotKeys(10))
+                .extracting(LockMetrics.HotKey::getAccountNumber)
+                .containsExactly(OTHER_ACCOUNT_NUMBER);
+    }
+
+    @Test
+    @DisplayName("잠금 실패가 아닌 비동기 오류는 실패 횟수에 넣지 않는다")
+    void record_async_other_error() {
+        CompletableFuture<LockHandle> failed = lockMetrics.recordAsync(List.of(ACCOUNT_NUMBER),
+                () -> CompletableFuture.supplyAsync(() -> {
+                    throw new IllegalStateException();
+                }));
+
+        CompletionException exception = assertThrows(CompletionException.class, failed::join);
+        assertThat(exception.getCause()).isInstanceOf(IllegalStateException.class);
+        assertThat(meterRegistry.get("account.lock.fail").counter().count()).isEqualTo(0);
+    }
+
+    private void fail(String accountNumber) {
+        assertThrows(PayException.class, () -> lockMetrics.record(List.of(accountNumber), () -> {
+            throw new PayException(ErrorCode.ACCOUNT_LOCK_FAIL);
+        }));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
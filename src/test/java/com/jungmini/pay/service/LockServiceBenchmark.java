@@ -0,0 +1,117 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.redisnode.RedisNode;
+import org.redisson.api.redisnode.RedisNodes;
+import org.redisson.config.Config;
+import org.springframework.transaction.PlatformTransactionManager;
+import redis.embedded.RedisServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 하나의 계좌에 요청이 몰리는 상황에서 락 구현별 처리량과 Redis 명령 수를 비교한다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+class LockServiceBenchmark {
+
+    private static final int PORT = 6381;
+    private static final String HOT_ACCOUNT_NUMBER = "100000000000";
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 200;
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @Test
+    void hot_account_workload() throws Exception {
+        RedissonLockService redissonLockService = new RedissonLockService(redissonClient, new LockWatchdog(redissonClient), lockBudget(), circuitBreaker());
+        StripedLockService stripedLockService = new StripedLockService(redissonLockService, 64, 1000);
+
+        run("redisson", redissonLockService);
+        run("striped + redisson", stripedLockService);
+    }
+
+    private static void run(String name, LockService lockService) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger fail = new AtomicInteger();
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(() -> {
+                for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                    try (LockHandle lock = lockService.lock(HOT_ACCOUNT_NUMBER)) {
+                        success.incrementAndGet();
+                    } catch (PayException e) {
+                        fail.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long commandsBefore = redisCommands();
+        long start = System.nanoTime();
+        for (Future<Void> future : executor.invokeAll(workers)) {
+            future.get();
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        long commands = redisCommands() - commandsBefore;
+        executor.shutdown();
+
+        System.out.printf("[%s] success=%d fail=%d elapsed=%dms throughput=%d ops/s redis commands=%d%n",
+                name, success.get(), fail.get(), elapsedMillis,
+                success.get() * 1000L / elapsedMillis, commands);
+    }
+
+    private static long redisCommands() {
+        return Long.parseLong(redissonClient.getRedisNodes(RedisNodes.SINGLE)
+                .getInstance()
+                .info(RedisNode.InfoSection.STATS)
+                .get("total_commands_processed"));
+    }
+
+    private static LockBudget lockBudget() {
+        return new LockBudget(new AccountAdmission(new SimpleMeterRegistry(), 32, 1),
+                1000, 5000, 500, 3000, 3, 256, 10);
+    }
+
+    private static RedisCircuitBreaker circuitBreaker() {
+        return new RedisCircuitBreaker(new SimpleMeterRegistry(),
+                mock(AccountRepository.class), mock(PlatformTransactionManager.class), 20, 10, 50, 200, 5000);
+    }
+}
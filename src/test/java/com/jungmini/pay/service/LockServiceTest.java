@@ -2,24 +2,41 @@ package com.jungmini.pay.service;
 
 import com.jungmini.pay.common.exception.ErrorCode;
 import com.jungmini.pay.common.exception.PayException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
 import org.redisson.api.RLock;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.misc.CompletableFutureWrapper;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class LockServiceTest {
 
-    @InjectMocks
     RedissonLockService redissonLockService;
 
     @Mock
@@ -28,6 +45,26 @@ public class LockServiceTest {
     @Mock
     RLock rLock;
 
+    @Mock
+    RScript rScript;
+
+    @Mock
+    RAtomicLong fence;
+
+    @Mock
+    LockWatchdog lockWatchdog;
+
+    @Mock
+    ScheduledFuture<Object> renewal;
+
+    @Mock
+    RedisCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        redissonLockService = new RedissonLockService(redissonClient, lockWatchdog, lockBudget(0), circuitBreaker);
+    }
+
     @Test
     void lock_test() throws InterruptedException {
         when(redissonClient.getLock(any()))
@@ -36,7 +73,41 @@ public class LockServiceTest {
         when(rLock.tryLock(anyLong(), anyLong(), any()))
                 .thenReturn(true);
 
-        redissonLockService.lock(any());
+        when(redissonClient.getAtomicLong(anyString()))
+                .thenReturn(fence);
+
+        doReturn(renewal)
+                .when(lockWatchdog).watch(any(), any(), anyLong());
+
+        LockHandle lock = redissonLockService.lock("100000000000");
+
+        verify(rLock).tryLock(0L, 500L, TimeUnit.MILLISECONDS);
+        verify(lockWatchdog).watch(eq(List.of("ACCOUNTLOCK:100000000000")), any(), eq(500L));
+        verify(redissonClient).getAtomicLong("ACCOUNTFENCE:100000000000");
+        verify(circuitBreaker).recordSuccess(anyLong());
+        assertThat(lock.fencingToken("100000000000")).isEqualTo(OptionalLong.of(0));
+    }
+
+    @Test
+    void lock_report_slow_try_lock() throws InterruptedException {
+        when(redissonClient.getLock(any()))
+                .thenReturn(rLock);
+
+        when(rLock.tryLock(anyLong(), anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(50);
+                    return true;
+                });
+
+        when(redissonClient.getAtomicLong(anyString()))
+                .thenReturn(fence);
+
+        doReturn(renewal)
+                .when(lockWatchdog).watch(any(), any(), anyLong());
+
+        redissonLockService.lock("100000000000");
+
+        verify(circuitBreaker).recordSuccess(longThat(elapsed -> elapsed >= TimeUnit.MILLISECONDS.toNanos(50)));
     }
 
     @Test
@@ -48,7 +119,7 @@ public class LockServiceTest {
                 .thenReturn(false);
 
         PayException payException = assertThrows(PayException.class, () ->
-                redissonLockService.lock(any()));
+                redissonLockService.lock("100000000000"));
 
         assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
     }
@@ -62,8 +133,459 @@ public class LockServiceTest {
                 .thenThrow(new InterruptedException());
 
         PayException payException = assertThrows(PayException.class, () ->
-                redissonLockService.lock(any()));
+                redissonLockService.lock("100000000000"));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(circuitBreaker, never()).recordFailure();
+    }
+
+    @Test
+    void lock_fail_and_report_when_redis_error() throws InterruptedException {
+        when(redissonClient.getLock(any()))
+                .thenReturn(rLock);
+
+        when(rLock.tryLock(anyLong(), anyLong(), any()))
+                .thenThrow(new IllegalStateException());
+
+        PayException payException = assertThrows(PayException.class, () ->
+                redissonLockService.lock("100000000000"));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(circuitBreaker).recordFailure();
+    }
+
+    @Test
+    void unlock_when_held_by_current_thread() throws InterruptedException {
+        when(redissonClient.getLock(any()))
+                .thenReturn(rLock);
+
+        when(rLock.tryLock(anyLong(), anyLong(), any()))
+                .thenReturn(true);
+
+        when(redissonClient.getAtomicLong(anyString()))
+                .thenReturn(fence);
+
+        doReturn(renewal)
+                .when(lockWatchdog).watch(any(), any(), anyLong());
+
+        when(rLock.isHeldByCurrentThread())
+                .thenReturn(true);
+
+        redissonLockService.lock("100000000000").close();
+
+        verify(renewal).cancel(false);
+        verify(rLock).unlock();
+    }
+
+    @Test
+    void not_unlock_when_lease_expired() throws InterruptedException {
+        when(redissonClient.getLock(any()))
+                .thenReturn(rLock);
+
+        when(rLock.tryLock(anyLong(), anyLong(), any()))
+                .thenReturn(true);
+
+        when(redissonClient.getAtomicLong(anyString()))
+                .thenReturn(fence);
+
+        doReturn(renewal)
+                .when(lockWatchdog).watch(any(), any(), anyLong());
+
+        when(rLock.isHeldByCurrentThread())
+                .thenReturn(false);
+
+        redissonLockService.lock("100000000000").close();
+
+        verify(rLock, never()).unlock();
+    }
+
+    @Test
+    void unlock_ignore_lease_expired_right_before_unlock() throws InterruptedException {
+        when(redissonClient.getLock(any()))
+                .thenReturn(rLock);
+
+        when(rLock.tryLock(anyLong(), anyLong(), any()))
+                .thenReturn(true);
+
+        when(redissonClient.getAtomicLong(anyString()))
+                .thenReturn(fence);
+
+        doReturn(renewal)
+                .when(lockWatchdog).watch(any(), any(), anyLong());
+
+        when(rLock.isHeldByCurrentThread())
+                .thenReturn(true);
+
+        doThrow(new IllegalMonitorStateException())
+                .when(rLock).unlock();
+
+        redissonLockService.lock("100000000000").close();
+
+        verify(rLock).unlock();
+    }
+
+    @Test
+    void close_ignore_redis_error_on_unlock() throws InterruptedException {
+        when(redissonClient.getLock(any()))
+                .thenReturn(rLock);
+
+        when(rLock.tryLock(anyLong(), anyLong(), any()))
+                .thenReturn(true);
+
+        when(redissonClient.getAtomicLong(anyString()))
+                .thenReturn(fence);
+
+        doReturn(renewal)
+                .when(lockWatchdog).watch(any(), any(), anyLong());
+
+        when(rLock.isHeldByCurrentThread())
+                .thenThrow(new IllegalStateException());
+
+        redissonLockService.lock("100000000000").close();
+
+        verify(renewal).cancel(false);
+        verify(rLock, never()).unlock();
+    }
+
+    @Test
+    void lock_fail_when_interrupted_while_waiting() throws InterruptedException {
+        redissonLockService = new RedissonLockService(redissonClient, lockWatchdog, lockBudget(1000), circuitBreaker);
+
+        when(redissonClient.getLock(any()))
+                .thenReturn(rLock);
+
+        when(rLock.tryLock(anyLong(), anyLong(), any()))
+                .thenReturn(false)
+                .thenThrow(new InterruptedException());
+
+        PayException payException = assertThrows(PayException.class, () ->
+                redissonLockService.lock("100000000000"));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        assertThat(Thread.interrupted()).isTrue();
+        verify(circuitBreaker, never()).recordFailure();
+    }
+
+    @Test
+    void lock_fail_and_unlock_when_fencing_token_fail() throws InterruptedException {
+        when(redissonClient.getLock(any()))
+                .thenReturn(rLock);
+
+        when(rLock.tryLock(anyLong(), anyLong(), any()))
+                .thenReturn(true);
+
+        when(redissonClient.getAtomicLong(anyString()))
+                .thenThrow(new IllegalStateException());
+
+        when(rLock.isHeldByCurrentThread())
+                .thenReturn(true);
+
+        PayException payException = assertThrows(PayException.class, () ->
+                redissonLockService.lock("100000000000"));
 
         assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(rLock).unlock();
+    }
+
+    @Test
+    void lock_all_sorted_keys_in_one_script() {
+        when(redissonClient.getScript(any()))
+                .thenReturn(rScript);
+
+        when(rScript.eval(any(), anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(3L, 7L));
+
+        doReturn(renewal)
+                .when(lockWatchdog).watch(any(), any(), anyLong());
+
+        LockHandle lock = redissonLockService.lockAll(List.of("200000000000", "100000000000", "200000000000"));
+
+        verify(rScript).eval(any(), anyString(), any(),
+                eq(List.of("ACCOUNTLOCK:100000000000", "ACCOUNTLOCK:200000000000",
+                        "ACCOUNTFENCE:100000000000", "ACCOUNTFENCE:200000000000")), any(), any(), eq("2"));
+        verify(lockWatchdog).watch(eq(List.of("ACCOUNTLOCK:100000000000", "ACCOUNTLOCK:200000000000")), any(), eq(500L));
+        assertThat(lock.fencingToken("100000000000")).isEqualTo(OptionalLong.of(3));
+        assertThat(lock.fencingToken("200000000000")).isEqualTo(OptionalLong.of(7));
+        assertThat(lock.fencingToken("300000000000")).isEmpty();
+    }
+
+    @Test
+    void lock_all_fail_when_any_key_is_taken() {
+        when(redissonClient.getScript(any()))
+                .thenReturn(rScript);
+
+        when(rScript.eval(any(), anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of());
+
+        PayException payException = assertThrows(PayException.class, () ->
+                redissonLockService.lockAll(List.of("100000000000", "200000000000")));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(lockWatchdog, never()).watch(any(), any(), anyLong());
+    }
+
+    @Test
+    void lock_all_fail_when_script_return_null() {
+        when(redissonClient.getScript(any()))
+                .thenReturn(rScript);
+
+        when(rScript.eval(any(), anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(null);
+
+        PayException payException = assertThrows(PayException.class, () ->
+                redissonLockService.lockAll(List.of("100000000000")));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+    }
+
+    @Test
+    void lock_all_fail_when_script_throw_exception() {
+        when(redissonClient.getScript(any()))
+                .thenReturn(rScript);
+
+        when(rScript.eval(any(), anyString(), any(), any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException());
+
+        PayException payException = assertThrows(PayException.class, () ->
+                redissonLockService.lockAll(List.of("100000000000", "200000000000")));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(circuitBreaker).recordFailure();
+    }
+
+    @Test
+    void unlock_all_with_same_keys_and_stop_renewal() {
+        when(redissonClient.getScript(any()))
+                .thenReturn(rScript);
+
+        when(rScript.eval(any(), anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(1L, 1L));
+
+        when(rScript.eval(any(), anyString(), any(), any(), any(), any()))
+                .thenReturn(true);
+
+        doReturn(renewal)
+                .when(lockWatchdog).watch(any(), any(), anyLong());
+
+        redissonLockService.lockAll(List.of("100000000000", "200000000000")).close();
+
+        verify(renewal).cancel(false);
+        verify(rScript).eval(any(), anyString(), any(),
+                eq(List.of("ACCOUNTLOCK:100000000000", "ACCOUNTLOCK:200000000000")), any(), any());
+    }
+
+    @Test
+    void close_all_ignore_redis_error_on_unlock() {
+        when(redissonClient.getScript(any()))
+                .thenReturn(rScript);
+
+        when(rScript.eval(any(), anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(1L, 1L));
+
+        when(rScript.eval(any(), anyString(), any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException());
+
+        doReturn(renewal)
+                .when(lockWatchdog).watch(any(), any(), anyLong());
+
+        redissonLockService.lockAll(List.of("100000000000", "200000000000")).close();
+
+        verify(renewal).cancel(false);
+    }
+
+    @Test
+    void lock_async_with_synthetic_owner() {
+        when(redissonClient.getLock(any()))
+                .thenReturn(rLock);
+
+        when(rLock.tryLockAsync(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS), anyLong()))
+                .thenReturn(new CompletableFutureWrapper<>(true));
+
+        when(redissonClient.getAtomicLong(anyString()))
+                .thenReturn(fence);
+
+        doReturn(renewal)
+                .when(lockWatchdog).watch(any(), any(), anyLong());
+
+        when(fence.incrementAndGetAsync())
+                .thenReturn(new CompletableFutureWrapper<>(4L));
+
+        when(rLock.unlockAsync(anyLong()))
+                .thenReturn(new CompletableFutureWrapper<>((Void) null));
+
+        LockHandle lock = redissonLockService.lockAsync("100000000000").join();
+        lock.close();
+
+        assertThat(lock.fencingToken("100000000000")).isEqualTo(OptionalLong.of(4));
+        verify(rLock).unlockAsync(longThat(ownerId -> ownerId < 0));
+    }
+
+    @Test
+    void lock_async_fail_when_isLock_false() {
+        when(redissonClient.getLock(any()))
+                .thenReturn(rLock);
+
+        when(rLock.tryLockAsync(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS), anyLong()))
+                .thenReturn(new CompletableFutureWrapper<>(false));
+
+        CompletionException exception = assertThrows(CompletionException.class, () ->
+                redissonLockService.lockAsync("100000000000").join());
+
+        assertThat(((PayException) exception.getCause()).getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+    }
+
+    @Test
+    void lock_async_fail_when_redis_error() {
+        when(redissonClient.getLock(any()))
+                .thenReturn(rLock);
+
+        when(rLock.tryLockAsync(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS), anyLong()))
+                .thenReturn(new CompletableFutureWrapper<>(new IllegalStateException()));
+
+        CompletionException exception = assertThrows(CompletionException.class, () ->
+                redissonLockService.lockAsync("100000000000").join());
+
+        assertThat(((PayException) exception.getCause()).getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(circuitBreaker).recordFailure();
+    }
+
+    @Test
+    void lock_async_fail_and_unlock_when_fencing_token_fail() {
+        when(redissonClient.getLock(any()))
+                .thenReturn(rLock);
+
+        when(rLock.tryLockAsync(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS), anyLong()))
+                .thenReturn(new CompletableFutureWrapper<>(true));
+
+        when(redissonClient.getAtomicLong(anyString()))
+                .thenReturn(fence);
+
+        when(fence.incrementAndGetAsync())
+                .thenReturn(new CompletableFutureWrapper<>(new IllegalStateException()));
+
+        when(rLock.unlockAsync(anyLong()))
+                .thenReturn(new CompletableFutureWrapper<>(new IllegalMonitorStateException()));
+
+        CompletionException exception = assertThrows(CompletionException.class, () ->
+                redissonLockService.lockAsync("100000000000").join());
+
+        assertThat(((PayException) exception.getCause()).getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(rLock).unlockAsync(anyLong());
+    }
+
+    @Test
+    void lock_all_async_sorted_keys_in_one_script() {
+        when(redissonClient.getScript(any()))
+                .thenReturn(rScript);
+
+        when(rScript.evalAsync(any(), anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(new CompletableFutureWrapper<>(List.of(2L, 9L)));
+
+        doReturn(renewal)
+                .when(lockWatchdog).watch(any(), any(), anyLong());
+
+        LockHandle lock = redissonLockService.lockAllAsync(List.of("200000000000", "100000000000")).join();
+
+        verify(rScript).evalAsync(any(), anyString(), any(),
+                eq(List.of("ACCOUNTLOCK:100000000000", "ACCOUNTLOCK:200000000000",
+                        "ACCOUNTFENCE:100000000000", "ACCOUNTFENCE:200000000000")), any(), any(), eq("2"));
+        assertThat(lock.fencingToken("100000000000")).isEqualTo(OptionalLong.of(2));
+        assertThat(lock.fencingToken("200000000000")).isEqualTo(OptionalLong.of(9));
+    }
+
+    @Test
+    void lock_all_async_fail_when_any_key_is_taken() {
+        when(redissonClient.getScript(any()))
+                .thenReturn(rScript);
+
+        when(rScript.evalAsync(any(), anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(new CompletableFutureWrapper<>(List.of()));
+
+        CompletionException exception = assertThrows(CompletionException.class, () ->
+                redissonLockService.lockAllAsync(List.of("100000000000", "200000000000")).join());
+
+        assertThat(((PayException) exception.getCause()).getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+    }
+
+    @Test
+    void lock_all_async_fail_when_script_throw_exception() {
+        when(redissonClient.getScript(any()))
+                .thenReturn(rScript);
+
+        when(rScript.evalAsync(any(), anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(new CompletableFutureWrapper<>(new IllegalStateException()));
+
+        CompletionException exception = assertThrows(CompletionException.class, () ->
+                redissonLockService.lockAllAsync(List.of("100000000000", "200000000000")).join());
+
+        assertThat(((PayException) exception.getCause()).getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(lockWatchdog, never()).watch(any(), any(), anyLong());
+        verify(circuitBreaker).recordFailure();
+    }
+
+    @Test
+    void lock_all_retry_until_keys_released() {
+        redissonLockService = new RedissonLockService(redissonClient, lockWatchdog, lockBudget(1000), circuitBreaker);
+
+        when(redissonClient.getScript(any()))
+                .thenReturn(rScript);
+
+        when(rScript.eval(any(), anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(5L, 6L));
+
+        doReturn(renewal)
+                .when(lockWatchdog).watch(any(), any(), anyLong());
+
+        LockHandle lock = redissonLockService.lockAll(List.of("100000000000", "200000000000"));
+
+        verify(rScript, times(2)).eval(any(), anyString(), any(), any(), any(), any(), any());
+        assertThat(lock.fencingToken("100000000000")).isEqualTo(OptionalLong.of(5));
+    }
+
+    @Test
+    void lock_all_fail_when_interrupted_while_retrying() {
+        redissonLockService = new RedissonLockService(redissonClient, lockWatchdog, lockBudget(1000), circuitBreaker);
+
+        when(redissonClient.getScript(any()))
+                .thenReturn(rScript);
+
+        when(rScript.eval(any(), anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of());
+
+        Thread.currentThread().interrupt();
+        PayException payException = assertThrows(PayException.class, () ->
+                redissonLockService.lockAll(List.of("100000000000", "200000000000")));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        assertThat(Thread.interrupted()).isTrue();
+    }
+
+    @Test
+    void lock_all_async_retry_until_keys_released() {
+        redissonLockService = new RedissonLockService(redissonClient, lockWatchdog, lockBudget(1000), circuitBreaker);
+
+        when(redissonClient.getScript(any()))
+                .thenReturn(rScript);
+
+        when(rScript.evalAsync(any(), anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(new CompletableFutureWrapper<>(List.of()))
+                .thenReturn(new CompletableFutureWrapper<>(List.of(5L, 6L)));
+
+        doReturn(renewal)
+                .when(lockWatchdog).watch(any(), any(), anyLong());
+
+        LockHandle lock = redissonLockService.lockAllAsync(List.of("100000000000", "200000000000")).join();
+
+        verify(rScript, times(2)).evalAsync(any(), anyString(), any(), any(), any(), any(), any());
+        assertThat(lock.fencingToken("200000000000")).isEqualTo(OptionalLong.of(6));
+    }
+
+    /**
+     * 점유 시간 기록이 없으면 최소 대기 시간과 최소 임대 시간(500ms)을 쓴다.
+     */
+    private static LockBudget lockBudget(long minWaitMillis) {
+        return new LockBudget(new AccountAdmission(new SimpleMeterRegistry(), 32, 1),
+                minWaitMillis, 1000, 500, 3000, 3, 16, 1);
     }
 }
@@ -0,0 +1,79 @@
+package com.jungmini.pay.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LockWatchdogTest {
+
+    private static final List<Object> KEYS = List.of("ACCOUNTLOCK:100000000000", "ACCOUNTLOCK:100000000001");
+    private static final String OWNER = "client:1";
+
+    @Mock
+    RedissonClient redissonClient;
+
+    @Mock
+    RScript rScript;
+
+    LockWatchdog lockWatchdog;
+
+    @BeforeEach
+    void setUp() {
+        lockWatchdog = new LockWatchdog(redissonClient);
+        when(redissonClient.getScript(any()))
+                .thenReturn(rScript);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lockWatchdog.shutdown();
+    }
+
+    @Test
+    @DisplayName("임대 시간의 1/3 마다 잠금을 연장하고 취소하면 멈춘다")
+    void renew_until_cancelled() {
+        when(rScript.eval(any(), anyString(), any(), any(), any(), any()))
+                .thenReturn(2L);
+
+        ScheduledFuture<?> renewal = lockWatchdog.watch(KEYS, OWNER, 30);
+
+        verify(rScript, timeout(1000).atLeastOnce()).eval(any(), anyString(), any(),
+                eq(KEYS), eq(OWNER), eq("30"));
+        renewal.cancel(false);
+        assertThat(renewal.isCancelled()).isTrue();
+    }
+
+    @Test
+    @DisplayName("일부 잠금을 이미 잃었거나 Redis 오류가 나도 연장 작업은 멈추지 않는다")
+    void keep_renewing_after_failure() {
+        when(rScript.eval(any(), anyString(), any(), any(), any(), any()))
+                .thenReturn(1L)
+                .thenReturn(null)
+                .thenThrow(new IllegalStateException());
+
+        lockWatchdog.renew(KEYS, OWNER, 30);
+        lockWatchdog.renew(KEYS, OWNER, 30);
+        lockWatchdog.renew(KEYS, OWNER, 30);
+
+        verify(rScript, atLeastOnce()).eval(any(), anyString(), any(), eq(KEYS), eq(OWNER), eq("30"));
+    }
+}
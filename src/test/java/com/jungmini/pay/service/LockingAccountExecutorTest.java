@@ -0,0 +1,162 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LockingAccountExecutorTest {
+
+    LockingAccountExecutor lockingAccountExecutor;
+
+    @Mock
+    LockService lockService;
+
+    @Mock
+    LockHandle lockHandle;
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    TransactionStatus transactionStatus;
+
+    RedisCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        LockMetrics lockMetrics = new LockMetrics(new SimpleMeterRegistry(), 100, 10);
+        circuitBreaker = new RedisCircuitBreaker(new SimpleMeterRegistry(),
+                accountRepository, transactionManager, 4, 2, 50, 200, 60000);
+        lockingAccountExecutor = new LockingAccountExecutor(lockService, lockMetrics, circuitBreaker);
+    }
+
+    @Test
+    @DisplayName("잠금을 잡고 작업을 실행한 뒤 잠금을 해제한다")
+    void execute_with_lock() {
+        when(lockService.lock(anyString()))
+                .thenReturn(lockHandle);
+
+        String result = lockingAccountExecutor.execute("100000000000", () -> "done");
+
+        assertThat(result).isEqualTo("done");
+        verify(lockHandle).close();
+    }
+
+    @Test
+    @DisplayName("작업이 실패해도 잠금을 해제한다")
+    void release_lock_when_command_fail() {
+        when(lockService.lockAll(anyCollection()))
+                .thenReturn(lockHandle);
+
+        PayException payException = assertThrows(PayException.class, () ->
+                lockingAccountExecutor.executeAll(List.of("100000000000", "100000000001"), () -> {
+                    throw new PayException(ErrorCode.LACK_OF_BALANCE);
+                }));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.LACK_OF_BALANCE);
+        verify(lockHandle).close();
+    }
+
+    @Test
+    @DisplayName("작업 안에서는 잡은 잠금의 펜싱 토큰을 볼 수 있고 작업이 끝나면 사라진다")
+    void bind_lock_to_context_while_executing() {
+        LockHandle fencedLock = new FencedLockHandle(Map.of("100000000000", 7L), () -> {});
+        when(lockService.lock(anyString()))
+                .thenReturn(fencedLock);
+
+        OptionalLong token = lockingAccountExecutor.execute("100000000000",
+                () -> LockContext.fencingToken("100000000000"));
+
+        assertThat(token).isEqualTo(OptionalLong.of(7));
+        assertThat(LockContext.fencingToken("100000000000")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("중첩된 작업이 끝나면 바깥 잠금이 다시 보인다")
+    void restore_outer_lock_after_nested_execute() {
+        LockHandle outer = new FencedLockHandle(Map.of("100000000000", 1L), () -> {});
+        LockHandle inner = new FencedLockHandle(Map.of("100000000000", 2L), () -> {});
+
+        OptionalLong token = LockContext.callWith(outer, () -> {
+            LockContext.callWith(inner, () -> LockContext.fencingToken("100000000000"));
+            return LockContext.fencingToken("100000000000");
+        });
+
+        assertThat(token).isEqualTo(OptionalLong.of(1));
+    }
+
+    @Test
+    @DisplayName("기본 비동기 실행은 호출한 스레드에서 바로 실행한 결과를 돌려준다")
+    void execute_async_runs_on_caller_thread() {
+        when(lockService.lock(anyString()))
+                .thenReturn(lockHandle);
+        when(lockService.lockAll(anyCollection()))
+                .thenReturn(lockHandle);
+
+        String single = lockingAccountExecutor.executeAsync("100000000000",
+                () -> Thread.currentThread().getName()).join();
+        String all = lockingAccountExecutor.executeAllAsync(List.of("100000000000", "100000000001"),
+                () -> Thread.currentThread().getName()).join();
+
+        assertThat(single).isEqualTo(Thread.currentThread().getName());
+        assertThat(all).isEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    @DisplayName("기본 비동기 실행이 실패하면 실패한 결과를 돌려준다")
+    void execute_async_failed_future() {
+        when(lockService.lock(anyString()))
+                .thenThrow(new PayException(ErrorCode.ACCOUNT_LOCK_FAIL));
+        when(lockService.lockAll(anyCollection()))
+                .thenThrow(new PayException(ErrorCode.ACCOUNT_LOCK_FAIL));
+
+        CompletableFuture<String> single = lockingAccountExecutor.executeAsync("100000000000", () -> "done");
+        CompletableFuture<String> all = lockingAccountExecutor.executeAllAsync(List.of("100000000000"), () -> "done");
+
+        assertThat(single).isCompletedExceptionally();
+        assertThat(all).isCompletedExceptionally();
+    }
+
+    @Test
+    @DisplayName("Redis 서킷 브레이커가 열려 있으면 Redis 대신 계좌 행 잠금을 잡는다")
+    void fallback_to_row_lock_when_circuit_open() {
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        when(transactionManager.getTransaction(any()))
+                .thenReturn(transactionStatus);
+
+        String result = lockingAccountExecutor.executeAll(List.of("100000000001", "100000000000"), () -> "done");
+
+        assertThat(result).isEqualTo("done");
+        verify(accountRepository).findAllForUpdate(List.of("100000000000", "100000000001"));
+        verify(transactionManager).commit(transactionStatus);
+        verify(lockService, never()).lockAll(anyCollection());
+    }
+}
@@ -0,0 +1,108 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OptimisticAccountExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OptimisticAccountExecutor optimisticAccountExecutor =
+            new OptimisticAccountExecutor(meterRegistry, 3, 1);
+
+    @Test
+    @DisplayName("충돌이 없으면 한 번만 실행한다")
+    void execute_without_conflict() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = optimisticAccountExecutor.execute("100000000000", () -> {
+            attempts.incrementAndGet();
+            return "done";
+        });
+
+        assertThat(result).isEqualTo("done");
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(meterRegistry.counter("account.optimistic.retry").count()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("작업은 출금하는 쪽이 계좌 버전을 올리도록 낙관적 잠금 안에서 실행된다")
+    void execute_in_optimistic_context() {
+        assertThat(optimisticAccountExecutor.execute("100000000000", LockContext::isOptimistic)).isTrue();
+        assertThat(LockContext.isOptimistic()).isFalse();
+    }
+
+    @Test
+    @DisplayName("버전 충돌이 나면 다시 시도해서 성공한다")
+    void retry_when_version_conflict() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = optimisticAccountExecutor.executeAll(List.of("100000000000", "100000000001"), () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException("Account", "100000000000");
+            }
+            if (attempts.get() == 2) {
+                throw new OptimisticLockException();
+            }
+            return "done";
+        });
+
+        assertThat(result).isEqualTo("done");
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(meterRegistry.counter("account.optimistic.retry").count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("재시도 횟수를 넘기면 잠금 실패로 처리한다")
+    void fail_when_retry_exhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        PayException payException = assertThrows(PayException.class, () ->
+                optimisticAccountExecutor.execute("100000000000", () -> {
+                    attempts.incrementAndGet();
+                    throw new OptimisticLockException();
+                }));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(meterRegistry.counter("account.optimistic.retry.exhausted").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("비즈니스 예외는 다시 시도하지 않는다")
+    void not_retry_business_exception() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(PayException.class, () ->
+                optimisticAccountExecutor.execute("100000000000", () -> {
+                    attempts.incrementAndGet();
+                    throw new PayException(ErrorCode.LACK_OF_BALANCE);
+                }));
+
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("대기 중 인터럽트 되면 잠금 실패로 처리한다")
+    void fail_when_interrupted_while_backoff() {
+        Thread.currentThread().interrupt();
+
+        PayException payException = assertThrows(PayException.class, () ->
+                optimisticAccountExecutor.execute("100000000000", () -> {
+                    throw new OptimisticLockException();
+                }));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        assertThat(Thread.interrupted()).isTrue();
+    }
+}
@@ -0,0 +1,116 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.Member;
+import com.jungmini.pay.fixture.FriendFactory;
+import com.jungmini.pay.fixture.MemberFactory;
+import com.jungmini.pay.fixture.TransactionFactory;
+import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.FriendRepository;
+import com.jungmini.pay.repository.MemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * db-lock 프로필에서 AccountService 가 Redis 대신 계좌 행 잠금으로 송금을 직렬화하는지 실제 DB 로 확인한다.
+ * 잔액보다 많은 송금을 동시에 보내도 잔액만큼만 성공하고, 나머지는 잔액 부족으로 실패해야 한다.
+ * 각 송금이 커밋되어야 하므로 테스트 트랜잭션을 쓰지 않는다.
+ */
+@ActiveProfiles("db-lock")
+@SpringBootTest
+class PessimisticLockServiceConcurrencyTest {
+
+    private static final int THREADS = 4;
+    private static final int REMITS_PER_THREAD = 30;
+    private static final int AMOUNT = 100;
+    private static final int INITIAL_BALANCE = 10000;
+
+    @Autowired
+    private LockService lockService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private FriendRepository friendRepository;
+
+    @Test
+    @DisplayName("한 계좌에서 잔액보다 많은 송금을 동시에 보내도 잔액만큼만 성공하고 잔액이 맞는다")
+    void concurrent_remits_are_serialized_by_row_lock() throws Exception {
+        assertThat(lockService).isInstanceOf(PessimisticLockService.class);
+        Member remitter = memberRepository.save(MemberFactory.memberFrom("db-lock-remitter@test.com", "test"));
+        Member recipient = memberRepository.save(MemberFactory.memberFrom("db-lock-recipient@test.com", "test"));
+        friendRepository.save(FriendFactory.from(remitter, recipient));
+        Account remitterAccount = accountService.createAccount(remitter);
+        Account recipientAccount = accountService.createAccount(recipient);
+        accountService.chargePoint(INITIAL_BALANCE, remitterAccount, remitter);
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger lackOfBalance = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> remitRepeatedly(start, remitter, remitterAccount, recipientAccount,
+                    succeeded, lackOfBalance)));
+        }
+        start.countDown();
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(succeeded).hasValue(INITIAL_BALANCE / AMOUNT);
+        assertThat(lackOfBalance).hasValue(THREADS * REMITS_PER_THREAD - INITIAL_BALANCE / AMOUNT);
+        assertThat(balanceOf(remitterAccount)).isZero();
+        assertThat(balanceOf(recipientAccount)).isEqualTo(INITIAL_BALANCE);
+    }
+
+    private Void remitRepeatedly(CountDownLatch start, Member remitter, Account remitterAccount,
+                                 Account recipientAccount, AtomicInteger succeeded, AtomicInteger lackOfBalance)
+            throws InterruptedException {
+        start.await();
+        for (int i = 0; i < REMITS_PER_THREAD; i++) {
+            try {
+                accountService.remit(TransactionFactory.transactionRequest(
+                        Account.builder().accountNumber(remitterAccount.getAccountNumber()).build(),
+                        Account.builder().accountNumber(recipientAccount.getAccountNumber()).build(),
+                        AMOUNT), remitter);
+                succeeded.incrementAndGet();
+            } catch (PayException e) {
+                assertThat(e.getErrorCode()).isEqualTo(ErrorCode.LACK_OF_BALANCE);
+                lackOfBalance.incrementAndGet();
+            }
+        }
+        return null;
+    }
+
+    private long balanceOf(Account account) {
+        return accountRepository.findById(account.getAccountNumber()).orElseThrow().getBalance();
+    }
+}
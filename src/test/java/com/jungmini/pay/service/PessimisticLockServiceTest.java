@@ -0,0 +1,95 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.repository.AccountRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PessimisticLockServiceTest {
+
+    @InjectMocks
+    PessimisticLockService pessimisticLockService;
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    TransactionStatus transactionStatus;
+
+    @Test
+    @DisplayName("계좌 번호 순서로 한 번에 행 잠금을 걸고 핸들을 닫으면 커밋한다")
+    void lock_all_in_primary_key_order_and_commit() {
+        when(transactionManager.getTransaction(any()))
+                .thenReturn(transactionStatus);
+
+        pessimisticLockService.lockAll(List.of("200000000000", "100000000000")).close();
+
+        verify(accountRepository).findAllForUpdate(List.of("100000000000", "200000000000"));
+        verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    @DisplayName("작업이 실패해서 롤백 표시된 트랜잭션은 롤백한다")
+    void rollback_when_rollback_only() {
+        when(transactionManager.getTransaction(any()))
+                .thenReturn(transactionStatus);
+        when(transactionStatus.isRollbackOnly())
+                .thenReturn(true);
+
+        pessimisticLockService.lock("100000000000").close();
+
+        verify(transactionManager).rollback(transactionStatus);
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    @DisplayName("행 잠금을 기다리다 실패하면 롤백하고 잠금 실패로 처리한다")
+    void lock_fail_when_lock_timeout() {
+        when(transactionManager.getTransaction(any()))
+                .thenReturn(transactionStatus);
+        when(accountRepository.findAllForUpdate(any()))
+                .thenThrow(new CannotAcquireLockException("lock timeout"));
+
+        PayException payException = assertThrows(PayException.class,
+                () -> pessimisticLockService.lock("100000000000"));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(transactionManager).rollback(transactionStatus);
+    }
+
+    @Test
+    @DisplayName("그 밖의 예외는 롤백하고 그대로 던진다")
+    void rollback_and_rethrow_other_exception() {
+        when(transactionManager.getTransaction(any()))
+                .thenReturn(transactionStatus);
+        when(accountRepository.findAllForUpdate(any()))
+                .thenThrow(new DataAccessResourceFailureException("db down"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> pessimisticLockService.lock("100000000000"));
+
+        verify(transactionManager).rollback(transactionStatus);
+    }
+}
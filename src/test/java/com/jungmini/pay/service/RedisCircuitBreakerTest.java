@@ -0,0 +1,142 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.service.RedisCircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class RedisCircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("최근 호출의 실패 비율이 기준을 넘으면 열리고 행 잠금을 쓰게 한다")
+    void open_when_failure_rate_exceeded() {
+        RedisCircuitBreaker circuitBreaker = circuitBreaker(60000);
+
+        circuitBreaker.recordSuccess(FAST);
+        circuitBreaker.recordFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+        assertThat(circuitBreaker.allowRedis()).isFalse();
+        assertThat(circuitBreaker.rowLockService()).isInstanceOf(PessimisticLockService.class);
+        assertThat(meterRegistry.get("account.lock.circuit.state").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("account.lock.circuit.transition").tag("to", "open").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("느린 호출도 실패로 센다")
+    void slow_call_counts_as_failure() {
+        RedisCircuitBreaker circuitBreaker = circuitBreaker(60000);
+
+        circuitBreaker.recordSuccess(SLOW);
+        circuitBreaker.recordSuccess(SLOW);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    @DisplayName("최소 호출 수를 채우기 전이나 오래된 실패가 밀려난 뒤에는 닫혀 있다")
+    void stay_closed_while_failures_are_rare() {
+        RedisCircuitBreaker notEnoughCalls = circuitBreaker(60000);
+        notEnoughCalls.recordFailure();
+        assertThat(notEnoughCalls.getState()).isEqualTo(State.CLOSED);
+
+        RedisCircuitBreaker circuitBreaker = circuitBreaker(60000);
+        circuitBreaker.recordSuccess(FAST);
+        circuitBreaker.recordSuccess(FAST);
+        circuitBreaker.recordSuccess(FAST);
+        circuitBreaker.recordFailure();
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.recordSuccess(FAST);
+        }
+        circuitBreaker.recordFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(circuitBreaker.allowRedis()).isTrue();
+
+        circuitBreaker.recordFailure();
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    @DisplayName("열려 있는 동안 도착한 결과는 세지 않는다")
+    void ignore_results_while_open() {
+        RedisCircuitBreaker circuitBreaker = circuitBreaker(60000);
+        open(circuitBreaker);
+
+        circuitBreaker.recordSuccess(FAST);
+        circuitBreaker.recordSuccess(FAST);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    @DisplayName("열린 시간이 지나면 Redis 로 시험 요청을 보내고 성공하면 닫힌다")
+    void close_when_probe_succeeds() {
+        RedisCircuitBreaker circuitBreaker = circuitBreaker(0);
+        open(circuitBreaker);
+
+        assertThat(circuitBreaker.allowRedis()).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+        circuitBreaker.recordSuccess(FAST);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+        circuitBreaker.recordFailure();
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("시험 요청이 실패하거나 느리면 다시 열린다")
+    void reopen_when_probe_fails() {
+        RedisCircuitBreaker circuitBreaker = circuitBreaker(0);
+        open(circuitBreaker);
+
+        circuitBreaker.allowRedis();
+        circuitBreaker.recordFailure();
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+
+        circuitBreaker.allowRedis();
+        circuitBreaker.recordSuccess(SLOW);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    /**
+     * 4 번 중 2 번 이상 실패하면 열린다.
+     */
+    private RedisCircuitBreaker circuitBreaker(long openMillis) {
+        return new RedisCircuitBreaker(meterRegistry, accountRepository, transactionManager,
+                4, 2, 50, 200, openMillis);
+    }
+
+    private static void open(RedisCircuitBreaker circuitBreaker) {
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+    }
+}
@@ -0,0 +1,151 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.transaction.PlatformTransactionManager;
+import redis.embedded.RedisServer;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 실제 Redis 위에서 잠금이 임대 시간 만료를 기다리지 않고 바로 해제되는지 확인한다.
+ * 스프링 컨텍스트의 Redis 와 포트가 겹치지 않도록 별도의 포트를 사용한다.
+ */
+class RedissonLockServiceConcurrencyTest {
+
+    private static final int PORT = 6380;
+    private static final String ACCOUNT_NUMBER = "100000000000";
+    private static final String OTHER_ACCOUNT_NUMBER = "100000000001";
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @Test
+    @DisplayName("같은 계좌에 대한 연속 송금은 임대 시간 만료를 기다리지 않는다")
+    void back_to_back_transfers_do_not_wait_for_lease() throws Exception {
+        RedissonLockService lockService = new RedissonLockService(redissonClient, new LockWatchdog(redissonClient), lockBudget(), circuitBreaker());
+        ExecutorService first = Executors.newSingleThreadExecutor();
+        ExecutorService second = Executors.newSingleThreadExecutor();
+        int transfers = 10;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < transfers; i++) {
+            ExecutorService worker = i % 2 == 0 ? first : second;
+            worker.submit(() -> {
+                try (LockHandle lock = lockService.lock(ACCOUNT_NUMBER)) {
+                    Thread.sleep(10); // 송금 처리 시간
+                }
+                return null;
+            }).get();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        first.shutdown();
+        second.shutdown();
+
+        // 잠금이 해제되지 않으면 다른 스레드는 최소 1초(대기 시간)를 기다린 뒤 실패한다.
+        assertThat(elapsedMillis).isLessThan(1000);
+    }
+
+    @Test
+    @DisplayName("A→B, B→A 송금이 동시에 일어나도 서로를 기다리지 않는다")
+    void opposite_transfers_do_not_deadlock() throws Exception {
+        RedissonLockService lockService = new RedissonLockService(redissonClient, new LockWatchdog(redissonClient), lockBudget(), circuitBreaker());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        int rounds = 20;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            CountDownLatch ready = new CountDownLatch(2);
+            Future<Boolean> forward = executor.submit(
+                    transfer(lockService, ready, List.of(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER)));
+            Future<Boolean> backward = executor.submit(
+                    transfer(lockService, ready, List.of(OTHER_ACCOUNT_NUMBER, ACCOUNT_NUMBER)));
+            boolean forwardLocked = forward.get();
+            boolean backwardLocked = backward.get();
+            assertThat(forwardLocked || backwardLocked).isTrue();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        executor.shutdown();
+
+        assertThat(elapsedMillis).isLessThan(1000);
+    }
+
+    @Test
+    @DisplayName("lockAll 로 잡은 잠금이 해제되면 lock 으로 대기하던 요청이 바로 깨어난다")
+    void lock_waiter_wakes_up_when_lock_all_released() throws Exception {
+        RedissonLockService lockService = new RedissonLockService(redissonClient, new LockWatchdog(redissonClient), lockBudget(), circuitBreaker());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        long start = System.nanoTime();
+        Future<?> waiter;
+        try (LockHandle lock = lockService.lockAll(List.of(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER))) {
+            waiter = executor.submit(() -> lockService.lock(ACCOUNT_NUMBER).close());
+            Thread.sleep(100);
+        }
+        waiter.get();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        executor.shutdown();
+
+        assertThat(elapsedMillis).isLessThan(1000);
+    }
+
+    private static Callable<Boolean> transfer(
+            RedissonLockService lockService, CountDownLatch ready, List<String> accountNumbers) {
+        return () -> {
+            ready.countDown();
+            ready.await();
+            try (LockHandle lock = lockService.lockAll(accountNumbers)) {
+                Thread.sleep(5); // 송금 처리 시간
+                return true;
+            } catch (PayException e) {
+                return false;
+            }
+        };
+    }
+
+    private static LockBudget lockBudget() {
+        return new LockBudget(new AccountAdmission(new SimpleMeterRegistry(), 32, 1),
+                1000, 5000, 500, 3000, 3, 256, 10);
+    }
+
+    private static RedisCircuitBreaker circuitBreaker() {
+        return new RedisCircuitBreaker(new SimpleMeterRegistry(),
+                mock(AccountRepository.class), mock(PlatformTransactionManager.class), 20, 10, 50, 200, 5000);
+    }
+}
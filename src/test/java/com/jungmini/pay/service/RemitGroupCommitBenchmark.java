@@ -0,0 +1,155 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.Member;
+import com.jungmini.pay.domain.Transaction;
+import com.jungmini.pay.fixture.FriendFactory;
+import com.jungmini.pay.repository.FriendRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 서로 다른 계좌 사이의 단건 송금을 요청마다 커밋할 때와 RemitGroupCommitter 로 묶어 커밋할 때의
+ * 처리량(TPS)과 응답 시간(p50, p99)을 비교한다. window 가 길수록 처리량은 늘고 응답 시간도 그만큼 늘어난다.
+ * AccountControllerLoadTest 와 같은 설정을 써서 스프링 컨텍스트를 함께 사용한다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "account.concurrency-mode=redis-lock-async",
+        "server.tomcat.threads.max=8"
+})
+class RemitGroupCommitBenchmark {
+
+    private static final int MEMBERS = 32;
+    private static final int REMITS_PER_MEMBER = 200;
+    private static final int INITIAL_BALANCE = 1_000_000;
+    private static final int MAX_BATCH_SIZE = 64;
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private FriendRepository friendRepository;
+
+    @Autowired
+    private AccountLockAspect accountLockAspect;
+
+    @Autowired
+    private AccountAdmission accountAdmission;
+
+    @Autowired
+    private BatchRemitService batchRemitService;
+
+    private final List<Member> members = new ArrayList<>();
+    private final List<Account> accounts = new ArrayList<>();
+
+    /**
+     * 회원마다 계좌를 하나씩 만들고, 다음 회원과 친구를 맺어 원형으로 송금할 수 있게 한다.
+     */
+    @BeforeEach
+    void setUp() {
+        String prefix = "group-commit-" + System.nanoTime() + "-";
+        for (int i = 0; i < MEMBERS; i++) {
+            Member member = memberService.signUp(Member.builder()
+                    .email(prefix + i + "@test.com")
+                    .password("test")
+                    .name("member" + i)
+                    .build());
+            Account account = accountService.createAccount(member);
+            accountService.chargePoint(INITIAL_BALANCE, account, member);
+            members.add(member);
+            accounts.add(account);
+        }
+        for (int i = 0; i < MEMBERS; i++) {
+            friendRepository.save(FriendFactory.from(members.get(i), members.get((i + 1) % MEMBERS)));
+        }
+    }
+
+    @Test
+    void remit_throughput_by_window() throws Exception {
+        run("per request", committer(false, 0));
+        run("group commit window=500us", committer(true, 500));
+        run("group commit window=2000us", committer(true, 2000));
+        run("group commit window=5000us", committer(true, 5000));
+    }
+
+    private void run(String name, RemitGroupCommitter remitGroupCommitter) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(MEMBERS);
+        List<Callable<long[]>> clients = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            int index = i;
+            clients.add(() -> remitRepeatedly(remitGroupCommitter, index));
+        }
+
+        long start = System.nanoTime();
+        long[] latencies = new long[0];
+        for (Future<long[]> future : executor.invokeAll(clients)) {
+            long[] clientLatencies = future.get();
+            latencies = merge(latencies, clientLatencies);
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        executor.shutdown();
+        remitGroupCommitter.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("[%s] remits=%d elapsed=%dms throughput=%d remits/s p50=%.2fms p99=%.2fms%n",
+                name, latencies.length, elapsedMillis, latencies.length * 1000L / elapsedMillis,
+                percentile(latencies, 50), percentile(latencies, 99));
+        assertThat(latencies).hasSize(MEMBERS * REMITS_PER_MEMBER);
+    }
+
+    /**
+     * 응답을 받은 뒤 다음 요청을 보낸다. 같은 계좌의 송금이 한 묶음에 여러 번 들어가지 않는다.
+     */
+    private long[] remitRepeatedly(RemitGroupCommitter remitGroupCommitter, int index) {
+        Member remitter = members.get(index);
+        String remitterAccount = accounts.get(index).getAccountNumber();
+        String recipientAccount = accounts.get((index + 1) % MEMBERS).getAccountNumber();
+        long[] latencies = new long[REMITS_PER_MEMBER];
+        for (int i = 0; i < REMITS_PER_MEMBER; i++) {
+            Transaction transactionRequest = Transaction.builder()
+                    .amount(1)
+                    .remitterAccount(Account.builder().accountNumber(remitterAccount).build())
+                    .recipientAccount(Account.builder().accountNumber(recipientAccount).build())
+                    .build();
+            long start = System.nanoTime();
+            remitGroupCommitter.submit(transactionRequest, remitter).join();
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private RemitGroupCommitter committer(boolean enabled, long windowMicros) {
+        return new RemitGroupCommitter(accountLockAspect, accountAdmission, batchRemitService, accountService,
+                enabled, windowMicros, MAX_BATCH_SIZE);
+    }
+
+    private static long[] merge(long[] left, long[] right) {
+        long[] merged = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, merged, left.length, right.length);
+        return merged;
+    }
+
+    private static double percentile(long[] sortedNanos, int percentile) {
+        int index = Math.min(sortedNanos.length - 1, sortedNanos.length * percentile / 100);
+        return sortedNanos[index] / 1_000_000.0;
+    }
+}
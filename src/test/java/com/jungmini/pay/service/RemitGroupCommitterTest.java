@@ -0,0 +1,235 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.AccountBusyException;
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.Member;
+import com.jungmini.pay.domain.Transaction;
+import com.jungmini.pay.fixture.MemberFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RemitGroupCommitterTest {
+
+    private static final String REMITTER_ACCOUNT = "100000000000";
+    private static final String RECIPIENT_ACCOUNT = "100000000001";
+
+    @Mock
+    AccountLockAspect accountLockAspect;
+
+    @Mock
+    BatchRemitService batchRemitService;
+
+    @Mock
+    AccountService accountService;
+
+    RemitGroupCommitter remitGroupCommitter;
+
+    Member remitter = MemberFactory.memberFrom("remitter@test.com");
+
+    @AfterEach
+    void tearDown() {
+        remitGroupCommitter.shutdown();
+    }
+
+    @Test
+    @DisplayName("꺼져 있으면 요청마다 송금을 잠금 안에서 실행한다")
+    void submit_when_disabled() {
+        remitGroupCommitter = committer(false, 1);
+        Transaction transaction = request(100);
+        when(accountLockAspect.submit(eq(List.of(REMITTER_ACCOUNT)), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.<Supplier<?>>getArgument(1).get()));
+        when(accountService.remit(transaction, remitter)).thenReturn(transaction);
+
+        assertThat(remitGroupCommitter.submit(transaction, remitter).join()).isSameAs(transaction);
+        verify(batchRemitService, never()).remitGroup(anyList());
+    }
+
+    @Test
+    @DisplayName("window 안에 들어온 송금을 묶어 한 번에 커밋한 뒤 각 요청에 결과를 돌려준다")
+    void submit_group_commit() {
+        remitGroupCommitter = committer(true, 2);
+        stubSubmitAdmitted();
+        when(batchRemitService.remitGroup(anyList())).thenAnswer(invocation -> {
+            List<RemitCommand> commands = invocation.getArgument(0);
+            return List.of(
+                    new RemitResult(commands.get(0).transactionRequest(), null),
+                    new RemitResult(commands.get(1).transactionRequest(), ErrorCode.NOT_FRIENDS));
+        });
+        Transaction success = request(100);
+
+        CompletableFuture<Transaction> first = remitGroupCommitter.submit(success, remitter);
+        CompletableFuture<Transaction> second = remitGroupCommitter.submit(request(200), remitter);
+
+        assertThat(first.join()).isSameAs(success);
+        CompletionException exception = assertThrows(CompletionException.class, second::join);
+        assertThat(((PayException) exception.getCause()).getErrorCode()).isEqualTo(ErrorCode.NOT_FRIENDS);
+        verify(batchRemitService).remitGroup(anyList());
+        verify(accountLockAspect).submitAdmitted(eq(List.of(REMITTER_ACCOUNT, REMITTER_ACCOUNT)), any());
+    }
+
+    @Test
+    @DisplayName("송금 계좌나 수신 계좌가 겹치는 요청만 같은 묶음에 넣고 들어온 순서를 지킨다")
+    void partition_account_disjoint_groups() {
+        RemitGroupCommitter.PendingRemit first = pending("100000000000", "100000000001");
+        RemitGroupCommitter.PendingRemit second = pending("100000000002", "100000000003");
+        RemitGroupCommitter.PendingRemit third = pending("100000000004", "100000000000");
+        RemitGroupCommitter.PendingRemit fourth = pending("100000000003", "100000000005");
+        RemitGroupCommitter.PendingRemit fifth = pending("100000000006", "100000000007");
+        remitGroupCommitter = committer(false, 5);
+
+        assertThat(RemitGroupCommitter.partition(List.of(first, second, third, fourth, fifth)))
+                .containsExactly(List.of(first, third), List.of(second, fourth), List.of(fifth));
+    }
+
+    @Test
+    @DisplayName("겹치지 않는 묶음은 모으는 스레드가 아닌 작업 스레드에서 따로 커밋한다")
+    void commit_disjoint_groups_on_workers() {
+        remitGroupCommitter = committer(false, 2);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        when(accountLockAspect.submitAdmitted(anyList(), any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return CompletableFuture.completedFuture(invocation.<Supplier<?>>getArgument(1).get());
+        });
+        when(batchRemitService.remitGroup(anyList())).thenAnswer(invocation -> {
+            List<RemitCommand> commands = invocation.getArgument(0);
+            return List.of(new RemitResult(commands.get(0).transactionRequest(), null));
+        });
+        RemitGroupCommitter.PendingRemit first = pending("100000000000", "100000000001");
+        RemitGroupCommitter.PendingRemit second = pending("100000000002", "100000000003");
+
+        remitGroupCommitter.flush(List.of(first, second));
+
+        assertThat(first.result.join().getAmount()).isEqualTo(100);
+        assertThat(second.result.join().getAmount()).isEqualTo(100);
+        verify(accountLockAspect).submitAdmitted(eq(List.of("100000000000")), any());
+        verify(accountLockAspect).submitAdmitted(eq(List.of("100000000002")), any());
+        assertThat(threads).allMatch(name -> name.startsWith("remit-group-worker-"));
+    }
+
+    @Test
+    @DisplayName("묶음 커밋이 실패하면 처음 요청한 값으로 한 건씩 다시 처리한다")
+    void retry_each_when_group_fails() {
+        remitGroupCommitter = committer(true, 2);
+        stubSubmitAdmitted();
+        when(batchRemitService.remitGroup(anyList())).thenAnswer(invocation -> {
+            List<RemitCommand> commands = invocation.getArgument(0);
+            Transaction transaction = commands.get(0).transactionRequest();
+            if (commands.size() > 1 || transaction.getAmount() == 200) {
+                throw new PayException(ErrorCode.LACK_OF_BALANCE);
+            }
+            return List.of(new RemitResult(transaction, null));
+        });
+
+        CompletableFuture<Transaction> first = remitGroupCommitter.submit(request(100), remitter);
+        CompletableFuture<Transaction> second = remitGroupCommitter.submit(request(200), remitter);
+
+        assertThat(first.join().getAmount()).isEqualTo(100);
+        assertThat(first.join().getRemitterAccount().getAccountNumber()).isEqualTo(REMITTER_ACCOUNT);
+        CompletionException exception = assertThrows(CompletionException.class, second::join);
+        assertThat(((PayException) exception.getCause()).getErrorCode()).isEqualTo(ErrorCode.LACK_OF_BALANCE);
+        verify(batchRemitService, times(3)).remitGroup(anyList());
+    }
+
+    @Test
+    @DisplayName("한 건짜리 묶음을 잠그지 못하면 그 요청을 실패시킨다")
+    void fail_when_lock_rejected() {
+        remitGroupCommitter = committer(false, 2);
+        when(accountLockAspect.submitAdmitted(anyList(), any()))
+                .thenThrow(new PayException(ErrorCode.ACCOUNT_LOCK_FAIL));
+        RemitGroupCommitter.PendingRemit pending =
+                new RemitGroupCommitter.PendingRemit(new RemitCommand(request(100), remitter));
+
+        remitGroupCommitter.flush(List.of(pending));
+
+        CompletionException exception = assertThrows(CompletionException.class, pending.result::join);
+        assertThat(((PayException) exception.getCause()).getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+    }
+
+    @Test
+    @DisplayName("대기 중인 요청이 한도를 넘은 계좌는 대기열에 넣지 않고 거절한다")
+    void submit_rejected_when_account_busy() {
+        remitGroupCommitter = new RemitGroupCommitter(accountLockAspect,
+                new AccountAdmission(new SimpleMeterRegistry(), 1, 1), batchRemitService, accountService,
+                true, 60_000_000, 2, 1);
+        remitGroupCommitter.submit(request(100), remitter);
+
+        assertThrows(AccountBusyException.class, () -> remitGroupCommitter.submit(request(100), remitter));
+    }
+
+    @Test
+    @DisplayName("종료할 때 아직 묶이지 않은 요청은 실패시킨다")
+    void shutdown_fails_queued() throws InterruptedException {
+        remitGroupCommitter = committer(true, 1);
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        when(accountLockAspect.submitAdmitted(anyList(), any())).thenAnswer(invocation -> {
+            flushing.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new CompletableFuture<>();
+        });
+        remitGroupCommitter.submit(request(100), remitter);
+        assertThat(flushing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Transaction> queued = remitGroupCommitter.submit(request(200), remitter);
+        remitGroupCommitter.shutdown();
+
+        CompletionException exception = assertThrows(CompletionException.class, queued::join);
+        assertThat(((PayException) exception.getCause()).getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+    }
+
+    private void stubSubmitAdmitted() {
+        when(accountLockAspect.submitAdmitted(anyList(), any()))
+                .thenAnswer(invocation -> CompletableFuture.supplyAsync(invocation.<Supplier<?>>getArgument(1)));
+    }
+
+    private RemitGroupCommitter committer(boolean enabled, int maxBatchSize) {
+        return new RemitGroupCommitter(accountLockAspect, new AccountAdmission(new SimpleMeterRegistry(), 32, 1),
+                batchRemitService, accountService, enabled, 1_000_000, maxBatchSize, 1);
+    }
+
+    private RemitGroupCommitter.PendingRemit pending(String remitterAccount, String recipientAccount) {
+        return new RemitGroupCommitter.PendingRemit(new RemitCommand(request(remitterAccount, recipientAccount, 100), remitter));
+    }
+
+    private static Transaction request(int amount) {
+        return request(REMITTER_ACCOUNT, RECIPIENT_ACCOUNT, amount);
+    }
+
+    private static Transaction request(String remitterAccount, String recipientAccount, int amount) {
+        return Transaction.builder()
+                .amount(amount)
+                .remitterAccount(Account.builder().accountNumber(remitterAccount).build())
+                .recipientAccount(Account.builder().accountNumber(recipientAccount).build())
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardedAccountExecutorTest {
+
+    private static final String ACCOUNT_NUMBER = "100000000000";
+    private static final String OTHER_ACCOUNT_NUMBER = "100000000001";
+
+    ShardedAccountExecutor shardedAccountExecutor;
+
+    @BeforeEach
+    void setUp() {
+        shardedAccountExecutor = new ShardedAccountExecutor(4, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardedAccountExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("같은 계좌의 작업은 항상 같은 샤드 스레드에서 순서대로 실행된다")
+    void same_account_runs_on_same_shard_in_order() {
+        List<Integer> order = new ArrayList<>();
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int sequence = i;
+            results.add(shardedAccountExecutor.executeAsync(ACCOUNT_NUMBER, () -> {
+                order.add(sequence);
+                return Thread.currentThread().getName();
+            }));
+        }
+
+        assertThat(results.stream().map(CompletableFuture::join).distinct()).hasSize(1);
+        assertThat(order).isSortedAccordingTo(Integer::compare).hasSize(100);
+    }
+
+    @Test
+    @DisplayName("두 샤드에 걸친 송금이 실행되는 동안 먼저 잡은 샤드는 다른 작업을 실행하지 않는다")
+    void cross_shard_transfer_holds_lower_shard() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> transfer = shardedAccountExecutor.executeAllAsync(
+                List.of(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER), () -> {
+                    running.countDown();
+                    await(release);
+                    return "transfer";
+                });
+        running.await();
+
+        CompletableFuture<String> charge = shardedAccountExecutor.executeAsync(ACCOUNT_NUMBER, () -> "charge");
+        CompletableFuture<String> otherCharge = shardedAccountExecutor.executeAsync(OTHER_ACCOUNT_NUMBER, () -> "charge");
+        Thread.sleep(50);
+
+        assertThat(charge).isNotDone();
+        assertThat(otherCharge).isNotDone();
+        release.countDown();
+        assertThat(transfer.join()).isEqualTo("transfer");
+        assertThat(charge.join()).isEqualTo("charge");
+        assertThat(otherCharge.join()).isEqualTo("charge");
+    }
+
+    @Test
+    @DisplayName("A→B, B→A 송금이 동시에 몰려도 서로를 기다리지 않는다")
+    void opposite_transfers_do_not_deadlock() {
+        long[] balances = new long[2];
+        List<CompletableFuture<Void>> transfers = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            boolean forward = i % 2 == 0;
+            List<String> accountNumbers = forward
+                    ? List.of(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER)
+                    : List.of(OTHER_ACCOUNT_NUMBER, ACCOUNT_NUMBER);
+            transfers.add(shardedAccountExecutor.executeAllAsync(accountNumbers, () -> {
+                balances[forward ? 0 : 1]--;
+                balances[forward ? 1 : 0]++;
+                return null;
+            }));
+        }
+
+        CompletableFuture.allOf(transfers.toArray(CompletableFuture[]::new)).orTimeout(5, TimeUnit.SECONDS).join();
+
+        assertThat(balances[0] + balances[1]).isZero();
+    }
+
+    @Test
+    @DisplayName("작업이 실패하면 원래 예외를 던지고 샤드는 계속 동작한다")
+    void command_fail() {
+        PayException payException = assertThrows(PayException.class, () ->
+                shardedAccountExecutor.executeAll(List.of(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER), () -> {
+                    throw new PayException(ErrorCode.LACK_OF_BALANCE);
+                }));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.LACK_OF_BALANCE);
+        assertThat(shardedAccountExecutor.execute(ACCOUNT_NUMBER, () -> "done")).isEqualTo("done");
+    }
+
+    @Test
+    @DisplayName("RuntimeException 이 아닌 실패는 CompletionException 으로 그대로 던진다")
+    void rethrow_completion_exception_when_error() {
+        CompletionException exception = assertThrows(CompletionException.class, () ->
+                shardedAccountExecutor.execute(ACCOUNT_NUMBER, () -> {
+                    throw new AssertionError();
+                }));
+
+        assertThat(exception.getCause()).isInstanceOf(AssertionError.class);
+    }
+
+    @Test
+    @DisplayName("샤드가 종료되면 작업을 받지 않고 실패한다")
+    void rejected_after_shutdown() {
+        shardedAccountExecutor.shutdown();
+
+        PayException payException = assertThrows(PayException.class, () ->
+                shardedAccountExecutor.executeAll(List.of(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER), () -> "done"));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("서버가 여러 대로 설정되어 있으면 시작하지 않는다")
+    void reject_multiple_nodes() {
+        assertThrows(IllegalStateException.class, () -> new ShardedAccountExecutor(4, 2));
+    }
+}
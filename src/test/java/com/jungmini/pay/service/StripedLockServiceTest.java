@@ -0,0 +1,197 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StripedLockServiceTest {
+
+    private static final String ACCOUNT_NUMBER = "100000000000";
+    private static final String OTHER_ACCOUNT_NUMBER = "100000000001";
+
+    @Mock
+    RedissonLockService redissonLockService;
+
+    @Mock
+    LockHandle remoteLock;
+
+    StripedLockService stripedLockService;
+
+    @BeforeEach
+    void setUp() {
+        stripedLockService = new StripedLockService(redissonLockService, 64, 50);
+    }
+
+    @Test
+    @DisplayName("로컬 락을 얻은 뒤 Redis 락을 요청하고 닫으면 둘 다 해제한다")
+    void lock_local_then_remote() throws Exception {
+        when(redissonLockService.lock(anyString()))
+                .thenReturn(remoteLock);
+
+        stripedLockService.lock(ACCOUNT_NUMBER).close();
+
+        verify(remoteLock).close();
+        assertThat(lockedByOtherThread(ACCOUNT_NUMBER)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Redis 락이 발급한 펜싱 토큰을 그대로 돌려준다")
+    void fencing_token_from_remote_lock() {
+        when(redissonLockService.lock(anyString()))
+                .thenReturn(new FencedLockHandle(Map.of(ACCOUNT_NUMBER, 5L), () -> {}));
+
+        try (LockHandle lock = stripedLockService.lock(ACCOUNT_NUMBER)) {
+            assertThat(lock.fencingToken(ACCOUNT_NUMBER)).isEqualTo(OptionalLong.of(5));
+        }
+    }
+
+    @Test
+    @DisplayName("같은 서버의 경쟁 요청은 Redis 에 가지 않고 로컬 락에서 실패한다")
+    void contender_on_same_node_does_not_touch_redis() throws Exception {
+        when(redissonLockService.lock(anyString()))
+                .thenReturn(remoteLock);
+
+        try (LockHandle lock = stripedLockService.lock(ACCOUNT_NUMBER)) {
+            assertThat(lockedByOtherThread(ACCOUNT_NUMBER)).isFalse();
+        }
+
+        verify(redissonLockService).lock(ACCOUNT_NUMBER);
+    }
+
+    @Test
+    @DisplayName("Redis 락 획득에 실패하면 로컬 락도 해제한다")
+    void release_local_when_remote_fail() throws Exception {
+        when(redissonLockService.lock(anyString()))
+                .thenThrow(new PayException(ErrorCode.ACCOUNT_LOCK_FAIL));
+
+        PayException payException = assertThrows(PayException.class,
+                () -> stripedLockService.lock(ACCOUNT_NUMBER));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        doReturn(remoteLock).when(redissonLockService).lock(anyString());
+        assertThat(lockedByOtherThread(ACCOUNT_NUMBER)).isTrue();
+    }
+
+    @Test
+    @DisplayName("여러 계좌를 로컬과 Redis 에서 모두 잠그고 닫으면 모두 해제한다")
+    void lock_all_local_then_remote() throws Exception {
+        when(redissonLockService.lockAll(anyCollection()))
+                .thenReturn(remoteLock);
+        when(redissonLockService.lock(anyString()))
+                .thenReturn(remoteLock);
+
+        try (LockHandle lock = stripedLockService.lockAll(List.of(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER))) {
+            assertThat(lockedByOtherThread(OTHER_ACCOUNT_NUMBER)).isFalse();
+        }
+
+        verify(remoteLock).close();
+        assertThat(lockedByOtherThread(ACCOUNT_NUMBER)).isTrue();
+        assertThat(lockedByOtherThread(OTHER_ACCOUNT_NUMBER)).isTrue();
+    }
+
+    @Test
+    @DisplayName("로컬 스트라이프 중 하나라도 얻지 못하면 먼저 잡은 스트라이프를 해제하고 실패한다")
+    void lock_all_fail_release_acquired_stripes() throws Exception {
+        when(redissonLockService.lock(anyString()))
+                .thenReturn(remoteLock);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> {
+            try (LockHandle lock = stripedLockService.lock(OTHER_ACCOUNT_NUMBER)) {
+                locked.countDown();
+                release.await();
+            }
+            return null;
+        });
+        locked.await();
+
+        PayException payException = assertThrows(PayException.class,
+                () -> stripedLockService.lockAll(List.of(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER)));
+
+        assertThat(payException.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+        verify(redissonLockService, never()).lockAll(any());
+        assertThat(lockedByOtherThread(ACCOUNT_NUMBER)).isTrue();
+        release.countDown();
+        holder.get();
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Redis 다중 락 획득에 실패하면 로컬 락도 해제한다")
+    void lock_all_release_local_when_remote_fail() throws Exception {
+        when(redissonLockService.lockAll(anyCollection()))
+                .thenThrow(new PayException(ErrorCode.ACCOUNT_LOCK_FAIL));
+        when(redissonLockService.lock(anyString()))
+                .thenReturn(remoteLock);
+
+        assertThrows(PayException.class,
+                () -> stripedLockService.lockAll(List.of(ACCOUNT_NUMBER, OTHER_ACCOUNT_NUMBER)));
+
+        assertThat(lockedByOtherThread(ACCOUNT_NUMBER)).isTrue();
+    }
+
+    @Test
+    @DisplayName("대기 중 인터럽트 되면 잠금 실패로 처리한다")
+    void interrupted_while_waiting() throws Exception {
+        when(redissonLockService.lock(anyString()))
+                .thenReturn(remoteLock);
+
+        try (LockHandle lock = stripedLockService.lock(ACCOUNT_NUMBER)) {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            Future<ErrorCode> result = executor.submit(() -> {
+                Thread.currentThread().interrupt();
+                try {
+                    stripedLockService.lock(ACCOUNT_NUMBER);
+                    return null;
+                } catch (PayException e) {
+                    return e.getErrorCode();
+                }
+            });
+            assertThat(result.get()).isEqualTo(ErrorCode.ACCOUNT_LOCK_FAIL);
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 다른 스레드에서 같은 계좌를 잠가보고 성공 여부를 돌려준다.
+     */
+    private boolean lockedByOtherThread(String accountNumber) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(() -> {
+                try (LockHandle lock = stripedLockService.lock(accountNumber)) {
+                    return true;
+                } catch (PayException e) {
+                    return false;
+                }
+            }).get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
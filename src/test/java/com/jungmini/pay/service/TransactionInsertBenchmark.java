@@ -0,0 +1,112 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.domain.SnowflakeIdGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 거래를 BATCH_SIZE 건씩 한 트랜잭션에 저장할 때, 번호를 만드는 방식에 따른 처리량을 비교한다.
+ * IDENTITY 는 Hibernate 가 INSERT 마다 실행하고 만들어진 번호를 돌려받는 방식을,
+ * Snowflake 는 번호를 미리 정해 JDBC 배치 하나로 보내는 방식(hibernate.jdbc.batch_size)을 JDBC 로 그대로 흉내 낸다.
+ * H2 메모리 DB 는 네트워크 왕복이 없으므로 실제 DB 에서는 차이가 더 커진다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+class TransactionInsertBenchmark {
+
+    private static final int TRANSACTIONS = 50_000;
+    private static final int BATCH_SIZE = 100;
+    private static final String INSERT = "insert into remit_transaction " +
+            "(amount, remitter_account_number, recipient_account_number) values (?, ?, ?)";
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:insert-benchmark;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("create table remit_transaction (id bigint generated by default as identity primary key, " +
+                "amount int not null, remitter_account_number varchar(12), recipient_account_number varchar(12))");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void bulk_transaction_inserts() {
+        run("identity, insert per row", TransactionInsertBenchmark::insertEachReturningKey);
+
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator();
+        run("snowflake, jdbc batch", count -> insertBatch(generator, count));
+    }
+
+    /**
+     * INSERT 할 때마다 DB 가 만든 번호를 돌려받아야 하므로 한 건씩 보낸다.
+     */
+    private static void insertEachReturningKey(int count) {
+        for (int i = 0; i < count; i++) {
+            int amount = i;
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS);
+                bind(statement, amount);
+                return statement;
+            }, keyHolder);
+            assertThat(keyHolder.getKey()).isNotNull();
+        }
+    }
+
+    private static void insertBatch(SnowflakeIdGenerator generator, int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{generator.nextId(), i, "100000000000", "100000000001"});
+        }
+        jdbcTemplate.batchUpdate("insert into remit_transaction " +
+                "(id, amount, remitter_account_number, recipient_account_number) values (?, ?, ?, ?)", rows);
+    }
+
+    private static void bind(PreparedStatement statement, int amount) throws SQLException {
+        statement.setInt(1, amount);
+        statement.setString(2, "100000000000");
+        statement.setString(3, "100000000001");
+    }
+
+    private static void run(String name, IntConsumer insert) {
+        jdbcTemplate.update("delete from remit_transaction");
+
+        long start = System.nanoTime();
+        for (int inserted = 0; inserted < TRANSACTIONS; inserted += BATCH_SIZE) {
+            transactionTemplate.executeWithoutResult(status -> insert.accept(BATCH_SIZE));
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        Long count = jdbcTemplate.queryForObject("select count(*) from remit_transaction", Long.class);
+        System.out.printf("[%s] inserts=%d elapsed=%dms throughput=%d inserts/s%n",
+                name, count, elapsedMillis, count * 1000L / elapsedMillis);
+        assertThat(count).isEqualTo(TRANSACTIONS);
+    }
+}
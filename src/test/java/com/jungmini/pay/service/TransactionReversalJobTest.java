@@ -0,0 +1,114 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.Transaction;
+import com.jungmini.pay.repository.TransactionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionReversalJobTest {
+
+    @Mock
+    TransactionRepository transactionRepository;
+
+    @Mock
+    TransactionReversalService transactionReversalService;
+
+    @Test
+    @DisplayName("원래 수신 계좌별로 모아 묶음을 나누고, 한 계좌의 취소는 batch-size 를 넘을 때만 여러 묶음에 나뉜다")
+    void batches_by_account() {
+        TransactionReversalJob job = new TransactionReversalJob(transactionRepository, transactionReversalService, 3);
+
+        List<List<Transaction>> batches = job.batches(List.of(
+                original(3, "100000000002"), original(1, "100000000001"), original(4, "100000000002"),
+                original(2, "100000000001"), original(5, "100000000003"), original(6, "100000000003"),
+                original(7, "100000000003"), original(8, "100000000003")));
+
+        assertThat(batches).extracting(batch -> batch.stream().map(Transaction::getId).toList())
+                .containsExactly(List.of(1L, 2L), List.of(3L, 4L), List.of(5L, 6L, 7L), List.of(8L));
+    }
+
+    @Test
+    @DisplayName("묶음마다 취소하고, 찾지 못한 송금과 취소하지 못한 송금, 처리량을 함께 돌려준다")
+    void reverse() {
+        TransactionReversalJob job = new TransactionReversalJob(transactionRepository, transactionReversalService, 2);
+        Transaction first = original(1, "100000000001");
+        Transaction second = original(2, "100000000001");
+        Transaction third = original(3, "100000000002");
+        when(transactionRepository.findAllWithAccounts(anyCollection()))
+                .thenAnswer(invocation -> List.of(first, second, third).stream()
+                        .filter(original -> invocation.<Collection<Long>>getArgument(0).contains(original.getId()))
+                        .toList());
+        when(transactionReversalService.reverseBatch(List.of(first, second), true)).thenReturn(List.of(
+                new ReversalResult(1, first, null),
+                new ReversalResult(2, null, ErrorCode.LACK_OF_BALANCE)));
+        when(transactionReversalService.reverseBatch(List.of(third), true))
+                .thenThrow(new PayException(ErrorCode.ACCOUNT_LOCK_FAIL));
+
+        ReversalReport report = job.reverse(List.of(1L, 2L, 3L, 3L, 9L), true);
+
+        assertThat(report.dryRun()).isTrue();
+        assertThat(report.requested()).isEqualTo(4);
+        assertThat(report.reversed()).isEqualTo(1);
+        assertThat(report.failures()).isEqualTo(Map.of(
+                9L, ErrorCode.TRANSACTION_NOT_FOUND,
+                2L, ErrorCode.LACK_OF_BALANCE,
+                3L, ErrorCode.ACCOUNT_LOCK_FAIL));
+        assertThat(report.elapsedMillis()).isPositive();
+        assertThat(report.throughput()).isEqualTo(4000 / report.elapsedMillis());
+        verify(transactionReversalService, times(2)).reverseBatch(anyList(), eq(true));
+    }
+
+    @Test
+    @DisplayName("묶음이 DB 오류로 실패해도 보고서에 실패를 남기고 다음 묶음을 계속 처리한다")
+    void reverse_continues_after_runtime_error() {
+        TransactionReversalJob job = new TransactionReversalJob(transactionRepository, transactionReversalService, 1);
+        Transaction first = original(1, "100000000001");
+        Transaction second = original(2, "100000000002");
+        Transaction third = original(3, "100000000003");
+        when(transactionRepository.findAllWithAccounts(anyCollection()))
+                .thenAnswer(invocation -> List.of(first, second, third).stream()
+                        .filter(original -> invocation.<Collection<Long>>getArgument(0).contains(original.getId()))
+                        .toList());
+        when(transactionReversalService.reverseBatch(List.of(first), false))
+                .thenThrow(new DataIntegrityViolationException("original_transaction_id"));
+        when(transactionReversalService.reverseBatch(List.of(second), false))
+                .thenThrow(new IllegalStateException("connection reset"));
+        when(transactionReversalService.reverseBatch(List.of(third), false))
+                .thenReturn(List.of(new ReversalResult(3, third, null)));
+
+        ReversalReport report = job.reverse(List.of(1L, 2L, 3L), false);
+
+        assertThat(report.reversed()).isEqualTo(1);
+        assertThat(report.failures()).isEqualTo(Map.of(
+                1L, ErrorCode.ALREADY_REVERSED,
+                2L, ErrorCode.REVERSAL_FAILED));
+    }
+
+    private static Transaction original(long id, String recipientAccountNumber) {
+        return Transaction.builder()
+                .id(id)
+                .remitterAccount(Account.builder().accountNumber("100000000000").build())
+                .recipientAccount(Account.builder().accountNumber(recipientAccountNumber).build())
+                .build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.jungmini.pay.service;
+
+import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.Transaction;
+import com.jungmini.pay.domain.type.TransactionResultType;
+import com.jungmini.pay.domain.type.TransactionType;
+import com.jungmini.pay.fixture.AccountFactory;
+import com.jungmini.pay.fixture.MemberFactory;
+import com.jungmini.pay.repository.AccountRepository;
+import com.jungmini.pay.repository.AccountStripeRepository;
+import com.jungmini.pay.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionReversalServiceTest {
+
+    private static final String REMITTER_ACCOUNT = "100000000000";
+    private static final String RECIPIENT_ACCOUNT = "100000000001";
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    AccountStripeRepository accountStripeRepository;
+
+    @Mock
+    TransactionRepository transactionRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    TransactionReversalService transactionReversalService;
+
+    Account remitterAccount = AccountFactory.stripedAccountFrom(
+            MemberFactory.memberFrom("remitter@test.com"), REMITTER_ACCOUNT, 1000, 0);
+    Account recipientAccount = AccountFactory.stripedAccountFrom(
+            MemberFactory.memberFrom("recipient@test.com"), RECIPIENT_ACCOUNT, 500, 0);
+
+    @BeforeEach
+    void setUp() {
+        transactionReversalService = new TransactionReversalService(accountRepository, transactionRepository,
+                new BalanceEngine(new RowBalanceStore(accountRepository), accountStripeRepository), transactionManager);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(accountRepository.findAllById(anyCollection())).thenReturn(List.of(remitterAccount, recipientAccount));
+    }
+
+    @Test
+    @DisplayName("건마다 검증해 취소할 수 있는 송금만 취소 거래로 남기고, 잔액 변화량을 계좌별로 모아 한 번에 반영한다")
+    void reverse_batch() {
+        Transaction reversible = original(1, 300, TransactionResultType.SUCCESS);
+        when(transactionRepository.findReversedIds(anyCollection())).thenReturn(List.of(2L));
+        when(accountRepository.applyBalanceDeltas(any())).thenReturn(new int[]{1, 1});
+        when(accountRepository.findBalances(anyCollection()))
+                .thenReturn(Map.of(REMITTER_ACCOUNT, 1300L, RECIPIENT_ACCOUNT, 200L));
+
+        List<ReversalResult> results = transactionReversalService.reverseBatch(List.of(
+                reversible,
+                original(2, 100, TransactionResultType.SUCCESS),
+                original(3, 5000, TransactionResultType.SUCCESS),
+                original(4, 100, TransactionResultType.FAIL),
+                reversible), false);
+
+        assertThat(results).extracting(ReversalResult::errorCode).containsExactly(
+                null,
+                ErrorCode.ALREADY_REVERSED,
+                ErrorCode.LACK_OF_BALANCE,
+                ErrorCode.ILLEGAL_TRANSACTION_STATE,
+                ErrorCode.ALREADY_REVERSED);
+        Transaction reversal = results.get(0).reversal();
+        assertThat(reversal.getOriginalTransaction()).isSameAs(reversible);
+        assertThat(reversal.getTransactionType()).isEqualTo(TransactionType.CANCEL);
+        assertThat(reversal.getRemitterAccount()).isEqualTo(recipientAccount);
+        assertThat(reversal.getRemitterBalanceSnapshot()).isEqualTo(500);
+        assertThat(recipientAccount.getBalance()).isEqualTo(200);
+
+        verify(accountRepository).applyBalanceDeltas(
+                new TreeMap<>(Map.of(REMITTER_ACCOUNT, 300L, RECIPIENT_ACCOUNT, -300L)));
+        verify(transactionRepository).saveAll(argThat((List<Transaction> reversals) ->
+                reversals.size() == 1 && reversals.get(0) == reversal));
+        verify(transactionManager).commit(argThat(status -> !status.isRollbackOnly()));
+    }
+
+    @Test
+    @DisplayName("dryRun 이면 잔액 반영까지 해 본 뒤 취소 거래를 남기지 않고 트랜잭션을 되돌린다")
+    void reverse_batch_dry_run() {
+        when(transactionRepository.findReversedIds(anyCollection())).thenReturn(List.of());
+        when(accountRepository.applyBalanceDeltas(any())).thenReturn(new int[]{1, 1});
+        when(accountRepository.findBalances(anyCollection()))
+                .thenReturn(Map.of(REMITTER_ACCOUNT, 1300L, RECIPIENT_ACCOUNT, 200L));
+
+        List<ReversalResult> results = transactionReversalService.reverseBatch(
+                List.of(original(1, 300, TransactionResultType.SUCCESS)), true);
+
+        assertThat(results.get(0).isSuccess()).isTrue();
+        verify(transactionRepository, never()).saveAll(anyList());
+        verify(transactionManager).commit(argThat(TransactionStatus::isRollbackOnly));
+    }
+
+    private Transaction original(long id, int amount, TransactionResultType transactionResultType) {
+        return Transaction.builder()
+                .id(id)
+                .amount(amount)
+                .transactionType(TransactionType.REMIT)
+                .transactionResultType(transactionResultType)
+                .remitterAccount(remitterAccount)
+                .recipientAccount(recipientAccount)
+                .build();
+    }
+}
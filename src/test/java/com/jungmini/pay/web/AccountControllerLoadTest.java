@@ -0,0 +1,126 @@
+package com.jungmini.pay.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.domain.Member;
+import com.jungmini.pay.fixture.MemberFactory;
+import com.jungmini.pay.service.AccountService;
+import com.jungmini.pay.service.LockHandle;
+import com.jungmini.pay.service.MemberService;
+import com.jungmini.pay.service.RedissonLockService;
+import com.jungmini.pay.service.TokenService;
+import com.jungmini.pay.web.dto.AccountDTO;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 한 계좌의 잠금이 풀리지 않아 충전 요청이 몰려 있는 동안에도 다른 API 가 바로 응답하는지 확인한다.
+ * 요청 스레드를 8개로 제한했기 때문에 redis-lock 모드에서는 조회 요청도 잠금 대기 시간(1초)만큼 늦어진다.
+ * ./gradlew benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "account.concurrency-mode=redis-lock-async",
+        "server.tomcat.threads.max=8"
+})
+class AccountControllerLoadTest {
+
+    private static final int SATURATING_REQUESTS = 64;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private RedissonLockService redissonLockService;
+
+    @Test
+    void unrelated_endpoint_stays_responsive_while_hot_account_saturated() throws Exception {
+        Member owner = MemberFactory.member();
+        memberService.signUp(owner);
+        Account hotAccount = accountService.createAccount(owner);
+        Account otherAccount = accountService.createAccount(owner);
+        String token = tokenService.generateToken(owner.getEmail());
+
+        ExecutorService executor = Executors.newFixedThreadPool(SATURATING_REQUESTS);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                .build();
+
+        HttpResponse<String> info;
+        long elapsedMillis;
+        List<CompletableFuture<HttpResponse<String>>> charges;
+        try (LockHandle lock = redissonLockService.lock(hotAccount.getAccountNumber())) {
+            charges = IntStream.range(0, SATURATING_REQUESTS)
+                    .mapToObj(i -> client.sendAsync(chargeRequest(token, hotAccount), HttpResponse.BodyHandlers.ofString()))
+                    .toList();
+            Thread.sleep(100); // 충전 요청이 모두 잠금을 기다리기 시작할 때까지
+
+            long start = System.nanoTime();
+            info = client.send(HttpRequest.newBuilder(uri("/accounts/" + otherAccount.getAccountNumber()))
+                    .header("Auth", token)
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+
+        long failed = charges.stream()
+                .map(CompletableFuture::join)
+                .filter(response -> response.statusCode() != 200)
+                .count();
+        executor.shutdown();
+
+        System.out.printf("[redis-lock-async] unrelated GET %dms while %d charges waited (%d failed)%n",
+                elapsedMillis, SATURATING_REQUESTS, failed);
+        assertThat(info.statusCode()).isEqualTo(200);
+        assertThat(elapsedMillis).isLessThan(500);
+    }
+
+    private HttpRequest chargeRequest(String token, Account account) {
+        try {
+            AccountDTO.ChargePointRequest request = AccountDTO.ChargePointRequest.builder()
+                    .amount(10000)
+                    .accountNumber(account.getAccountNumber())
+                    .build();
+            return HttpRequest.newBuilder(uri("/accounts/points"))
+                    .header("Auth", token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(request)))
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -2,32 +2,51 @@ package com.jungmini.pay.web;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jungmini.pay.common.exception.ErrorCode;
+import com.jungmini.pay.common.exception.PayException;
 import com.jungmini.pay.web.dto.AccountDTO;
 import com.jungmini.pay.domain.Account;
 import com.jungmini.pay.domain.FriendRequest;
 import com.jungmini.pay.domain.Member;
 import com.jungmini.pay.domain.Transaction;
 import com.jungmini.pay.domain.type.AccountStatus;
+import com.jungmini.pay.domain.type.TransactionResultType;
 import com.jungmini.pay.fixture.*;
+import com.jungmini.pay.service.AccountAdmission;
 import com.jungmini.pay.service.AccountService;
 import com.jungmini.pay.service.FriendService;
 import com.jungmini.pay.service.MemberService;
 import com.jungmini.pay.service.TokenService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -54,6 +73,18 @@ public class AccountControllerTest {
     @Autowired
     private FriendService friendService;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AccountAdmission accountAdmission;
+
+    @Value("${account.admission.max-queue-depth}")
+    private int maxQueueDepth;
+
+    @Value("${account.admission.retry-after-seconds}")
+    private long retryAfterSeconds;
+
     @DisplayName("통합테스트 계좌 생성 성공 - 첫 번째 계좌 생성")
     @Test
     void create_first_account_success() throws Exception {
@@ -67,7 +98,7 @@ public class AccountControllerTest {
                 post("/accounts")
                     .header("Auth", token))
                 .andExpect(status().is2xxSuccessful())
-                .andExpect(jsonPath("$.accountNumber").value(Account.DEFAULT_ACCOUNT_NUMBER))
+                .andExpect(jsonPath("$.accountNumber").value(matchesPattern("\\d{12}")))
                 .andExpect(jsonPath("$.accountStatus").value(AccountStatus.IN_USE.toString()))
                 .andDo(print());
     }
@@ -79,16 +110,16 @@ public class AccountControllerTest {
         // 회원가입
         memberService.signUp(member);
         // 계좌 생성
-        accountService.createAccount(member);
+        Account firstAccount = accountService.createAccount(member);
         // 로그인
         String token = tokenService.generateToken(member.getEmail());
-        // 계좌 생성 요청
-        Account secondAccount = AccountFactory.secondAccount();
+        // 계좌 생성 요청 - 한 서버에서는 예약한 블록 안의 다음 번호를 받는다.
+        String secondAccountNumber = String.valueOf(Long.parseLong(firstAccount.getAccountNumber()) + 1);
         mvc.perform(
                 post("/accounts")
                     .header("Auth", token))
                 .andExpect(status().is2xxSuccessful())
-                .andExpect(jsonPath("$.accountNumber").value(secondAccount.getAccountNumber()))
+                .andExpect(jsonPath("$.accountNumber").value(secondAccountNumber))
                 .andExpect(jsonPath("$.accountStatus").value(AccountStatus.IN_USE.toString()))
                 .andDo(print());
     }
@@ -143,7 +174,7 @@ public class AccountControllerTest {
                 .accountNumber(account.getAccountNumber())
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/points")
                     .header("Auth", token)
                     .content(objectMapper.writeValueAsString(request))
@@ -155,6 +186,108 @@ public class AccountControllerTest {
                 .andDo(print());
     }
 
+    @DisplayName("통합테스트 포인트 충전 - 같은 Idempotency-Key 로 다시 보내면 한 번만 충전하고 처음 응답을 돌려준다")
+    @Test
+    void charge_point_idempotent_retry() throws Exception {
+        Member owner = MemberFactory.member();
+        int amount = 10000;
+        memberService.signUp(owner);
+        Account account = accountService.createAccount(owner);
+        String token = tokenService.generateToken(owner.getEmail());
+        AccountDTO.ChargePointRequest request = AccountDTO.ChargePointRequest.builder()
+                .amount(amount)
+                .accountNumber(account.getAccountNumber())
+                .build();
+        // Redis 는 테스트 사이에 비워지지 않으므로 매번 새 키를 쓴다.
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        for (int i = 0; i < 2; i++) {
+            performAsync(
+                    post("/accounts/points")
+                        .header("Auth", token)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .content(objectMapper.writeValueAsString(request))
+                        .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().is2xxSuccessful())
+                    .andExpect(jsonPath("$.balance").value(amount))
+                    .andExpect(jsonPath("$.accountNumber").value(account.getAccountNumber()))
+                    .andDo(print());
+        }
+
+        assertThat(accountService.getAccountInfo(account.getAccountNumber(), owner).getBalance()).isEqualTo(amount);
+    }
+
+    @DisplayName("통합테스트 포인트 충전 실패 - 같은 Idempotency-Key 로 다른 금액을 보내면 422 로 거절하고 충전하지 않는다")
+    @Test
+    void charge_point_idempotency_key_reused_with_different_body() throws Exception {
+        Member owner = MemberFactory.member();
+        memberService.signUp(owner);
+        Account account = accountService.createAccount(owner);
+        String token = tokenService.generateToken(owner.getEmail());
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        performAsync(
+                post("/accounts/points")
+                    .header("Auth", token)
+                    .header("Idempotency-Key", idempotencyKey)
+                    .content(objectMapper.writeValueAsString(AccountDTO.ChargePointRequest.builder()
+                            .amount(10000)
+                            .accountNumber(account.getAccountNumber())
+                            .build()))
+                    .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().is2xxSuccessful());
+
+        performAsync(
+                post("/accounts/points")
+                    .header("Auth", token)
+                    .header("Idempotency-Key", idempotencyKey)
+                    .content(objectMapper.writeValueAsString(AccountDTO.ChargePointRequest.builder()
+                            .amount(20000)
+                            .accountNumber(account.getAccountNumber())
+                            .build()))
+                    .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.errorCode").value(ErrorCode.IDEMPOTENCY_KEY_MISMATCH.toString()))
+                .andDo(print());
+
+        assertThat(accountService.getAccountInfo(account.getAccountNumber(), owner).getBalance()).isEqualTo(10000);
+    }
+
+    @DisplayName("통합테스트 포인트 충전 실패 - 계좌에 대기 중인 요청이 한도를 넘으면 잠금을 기다리지 않고 429 와 Retry-After 로 거절한다")
+    @Test
+    void charge_point_account_busy() throws Exception {
+        Member owner = MemberFactory.member();
+        memberService.signUp(owner);
+        Account account = accountService.createAccount(owner);
+        String token = tokenService.generateToken(owner.getEmail());
+        AccountDTO.ChargePointRequest request = AccountDTO.ChargePointRequest.builder()
+                .amount(10000)
+                .accountNumber(account.getAccountNumber())
+                .build();
+        // 끝나지 않는 작업으로 계좌의 대기열을 채운다.
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        for (int i = 0; i < maxQueueDepth; i++) {
+            accountAdmission.submit(List.of(account.getAccountNumber()), () -> pending);
+        }
+
+        try {
+            performAsync(
+                    post("/accounts/points")
+                        .header("Auth", token)
+                        .content(objectMapper.writeValueAsString(request))
+                        .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds)))
+                    .andExpect(jsonPath("$.errorCode").value(ErrorCode.ACCOUNT_BUSY.toString()))
+                    .andDo(print());
+        } finally {
+            pending.complete(null);
+        }
+
+        assertThat(accountAdmission.queueDepth(account.getAccountNumber())).isZero();
+        assertThat(accountService.getAccountInfo(account.getAccountNumber(), owner).getBalance()).isZero();
+    }
+
     @DisplayName("통합테스트 포인트 충전 성공 - 200만원 충전 하는 경우")
     @Test
     void charge_point_success_amount_2000000() throws Exception {
@@ -172,7 +305,7 @@ public class AccountControllerTest {
                 .accountNumber(account.getAccountNumber())
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/points")
                     .header("Auth", token)
                     .content(objectMapper.writeValueAsString(request))
@@ -201,7 +334,7 @@ public class AccountControllerTest {
                 .accountNumber(account.getAccountNumber())
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/points")
                     .header("Auth", token)
                     .content(objectMapper.writeValueAsString(request))
@@ -229,7 +362,7 @@ public class AccountControllerTest {
                 .accountNumber(account.getAccountNumber())
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/points")
                     .header("Auth", token)
                     .content(objectMapper.writeValueAsString(request))
@@ -263,7 +396,7 @@ public class AccountControllerTest {
                 .accountNumber(account.getAccountNumber())
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/points")
                     .header("Auth", token)
                     .content(objectMapper.writeValueAsString(request))
@@ -289,7 +422,7 @@ public class AccountControllerTest {
                 .accountNumber(account.getAccountNumber())
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/points")
                     .content(objectMapper.writeValueAsString(request))
                     .contentType(MediaType.APPLICATION_JSON))
@@ -311,7 +444,7 @@ public class AccountControllerTest {
                 .amount(amount)
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/points")
                     .content(objectMapper.writeValueAsString(request))
                     .contentType(MediaType.APPLICATION_JSON))
@@ -334,7 +467,7 @@ public class AccountControllerTest {
                 .accountNumber("123")
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/points")
                     .content(objectMapper.writeValueAsString(request))
                     .contentType(MediaType.APPLICATION_JSON))
@@ -357,7 +490,7 @@ public class AccountControllerTest {
                 .accountNumber("123456789rrr")
                 .build();
 
-        mvc.perform(
+        performAsync(
                         post("/accounts/points")
                                 .content(objectMapper.writeValueAsString(request))
                                 .contentType(MediaType.APPLICATION_JSON))
@@ -382,7 +515,7 @@ public class AccountControllerTest {
                 .accountNumber("123456789111")
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/points")
                     .header("Auth", token)
                     .content(objectMapper.writeValueAsString(request))
@@ -424,7 +557,7 @@ public class AccountControllerTest {
                 .remitterAccountNumber(remitterAccount.getAccountNumber())
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/remit")
                     .header("Auth", remitterToken)
                     .contentType(MediaType.APPLICATION_JSON)
@@ -437,6 +570,114 @@ public class AccountControllerTest {
                 .andDo(print());
     }
 
+    @DisplayName("통합테스트 송금 쿼리 예산 - 성공한 송금은 정해진 수의 SQL 만 실행한다")
+    @Test
+    void remit_within_query_budget() {
+        Transaction transactionRequest = prepareRemit(true);
+
+        Statistics statistics = startCountingStatements();
+        Transaction transaction = accountService.remit(transactionRequest, MemberFactory.memberFrom("remitter@test.com"));
+        // 테스트 트랜잭션은 커밋되지 않으므로, 쓰기 지연된 거래 INSERT 까지 세도록 직접 flush 한다.
+        entityManager.flush();
+
+        assertThat(transaction.getTransactionResultType()).isEqualTo(TransactionResultType.SUCCESS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(AccountService.REMIT_QUERY_BUDGET);
+    }
+
+    @DisplayName("통합테스트 송금 쿼리 예산 - 실패한 송금은 계좌를 다시 조회하지 않고 실패 거래 저장을 넘긴다")
+    @Test
+    void remit_fail_within_query_budget() {
+        Transaction transactionRequest = prepareRemit(false);
+
+        Statistics statistics = startCountingStatements();
+        assertThrows(PayException.class,
+                () -> accountService.remit(transactionRequest, MemberFactory.memberFrom("remitter@test.com")));
+        entityManager.flush();
+
+        assertThat(transactionRequest.getTransactionResultType()).isEqualTo(TransactionResultType.FAIL);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(AccountService.REMIT_FAIL_QUERY_BUDGET);
+    }
+
+    @DisplayName("통합테스트 일괄 송금 - 건마다 결과를 돌려주고 성공한 건만 잔액에 반영한다")
+    @Test
+    void remit_batch() throws Exception {
+        Member remitter = MemberFactory.memberFrom("remitter@test.com", "123465789");
+        Member recipient = MemberFactory.memberFrom("recipient@test.com", "123456789");
+        Member stranger = MemberFactory.memberFrom("stranger@test.com", "123456789");
+
+        // 회원가입
+        memberService.signUp(remitter);
+        memberService.signUp(recipient);
+        memberService.signUp(stranger);
+        // 로그인
+        String remitterToken = tokenService.generateToken(remitter.getEmail());
+        String recipientToken = tokenService.generateToken(recipient.getEmail());
+        // 계좌생성
+        Account remitterAccount = accountService.createAccount(remitter);
+        Account recipientAccount = accountService.createAccount(recipient);
+        Account strangerAccount = accountService.createAccount(stranger);
+        // 잔액 충전
+        accountService.chargePoint(10000, remitterAccount, remitter);
+        accountService.chargePoint(100, recipientAccount, recipient);
+        // 친구관계 생성
+        FriendRequest friendRequest = FriendRequest.from(remitter, recipient);
+        FriendRequest savedRequest = friendService.requestFriend(friendRequest);
+        friendService.acceptFriendRequest(savedRequest.getId());
+        // 일괄 송금
+        AccountDTO.BatchRemitRequest batchRemitRequest = AccountDTO.BatchRemitRequest.builder()
+                .remits(List.of(
+                        remitRequest(remitterAccount, recipientAccount.getAccountNumber(), 500),
+                        remitRequest(remitterAccount, strangerAccount.getAccountNumber(), 300),
+                        remitRequest(remitterAccount, recipientAccount.getAccountNumber(), 20000),
+                        remitRequest(remitterAccount, "999999999999", 100),
+                        remitRequest(remitterAccount, recipientAccount.getAccountNumber(), 1000)))
+                .build();
+
+        performAsync(
+                post("/accounts/remit/batch")
+                    .header("Auth", remitterToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(batchRemitRequest)))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$[0].transactionResultType").value("SUCCESS"))
+                .andExpect(jsonPath("$[0].errorCode").doesNotExist())
+                .andExpect(jsonPath("$[1].errorCode").value(ErrorCode.NOT_FRIENDS.toString()))
+                .andExpect(jsonPath("$[2].errorCode").value(ErrorCode.LACK_OF_BALANCE.toString()))
+                .andExpect(jsonPath("$[3].errorCode").value(ErrorCode.ACCOUNT_NOT_FOUND.toString()))
+                .andExpect(jsonPath("$[4].transactionResultType").value("SUCCESS"))
+                .andExpect(jsonPath("$[4].createdAt").exists())
+                .andDo(print());
+
+        mvc.perform(
+                get("/accounts/" + recipientAccount.getAccountNumber())
+                    .header("Auth", recipientToken))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.balance").value(1600));
+        mvc.perform(
+                get("/accounts/" + remitterAccount.getAccountNumber())
+                    .header("Auth", remitterToken))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.balance").value(8500));
+    }
+
+    @DisplayName("통합테스트 일괄 송금 실패 - 빈 요청")
+    @Test
+    void remit_batch_fail_empty() throws Exception {
+        Member remitter = MemberFactory.memberFrom("remitter@test.com", "123465789");
+        memberService.signUp(remitter);
+        String remitterToken = tokenService.generateToken(remitter.getEmail());
+
+        mvc.perform(
+                post("/accounts/remit/batch")
+                    .header("Auth", remitterToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(
+                            AccountDTO.BatchRemitRequest.builder().remits(List.of()).build())))
+                .andExpect(status().is4xxClientError())
+                .andExpect(jsonPath("$.errorCode").value(ErrorCode.BAD_REQUEST.toString()))
+                .andDo(print());
+    }
+
     @DisplayName("통합테스트 송금 실패 - 잔액 부족")
     @Test
     void remit_fail_lack_of_balance() throws Exception{
@@ -468,7 +709,7 @@ public class AccountControllerTest {
                 .remitterAccountNumber(remitterAccount.getAccountNumber())
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/remit")
                     .header("Auth", remitterToken)
                     .contentType(MediaType.APPLICATION_JSON)
@@ -506,7 +747,7 @@ public class AccountControllerTest {
                 .remitterAccountNumber(remitterAccount.getAccountNumber())
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/remit")
                     .header("Auth", remitterToken)
                     .contentType(MediaType.APPLICATION_JSON)
@@ -542,7 +783,7 @@ public class AccountControllerTest {
                 .remitterAccountNumber(remitterAccount.getAccountNumber())
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/remit")
                     .contentType(MediaType.APPLICATION_JSON)
                     .content(objectMapper.writeValueAsString(remitRequest)))
@@ -580,7 +821,7 @@ public class AccountControllerTest {
                 .remitterAccountNumber(remitterAccount.getAccountNumber())
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/remit")
                     .header("Auth", memberToken)
                     .contentType(MediaType.APPLICATION_JSON)
@@ -609,7 +850,7 @@ public class AccountControllerTest {
                 .remitterAccountNumber("100000000000")
                 .build();
 
-        mvc.perform(
+        performAsync(
                 post("/accounts/remit")
                     .header("Auth", remitterToken)
                     .contentType(MediaType.APPLICATION_JSON)
@@ -642,6 +883,55 @@ public class AccountControllerTest {
                 .andDo(print());
     }
 
+    @DisplayName("통합테스트 계좌 상세 조회 성공 - 스트라이프 계좌로 받은 송금이 잔액에 합쳐진다")
+    @Test
+    void get_account_info_success_striped_recipient() throws Exception {
+        int remitterBalance = 10000;
+        int recipientBalance = 100;
+        int amount = 500;
+        Member remitter = MemberFactory.memberFrom("remitter@test.com", "123465789");
+        Member recipient = MemberFactory.memberFrom("recipient@test.com", "123456789");
+
+        // 회원가입
+        memberService.signUp(remitter);
+        memberService.signUp(recipient);
+        // 로그인
+        String remitterToken = tokenService.generateToken(remitter.getEmail());
+        String recipientToken = tokenService.generateToken(recipient.getEmail());
+        // 계좌생성
+        Account remitterAccount = accountService.createAccount(remitter);
+        Account recipientAccount = accountService.createAccount(recipient);
+        // 잔액 충전
+        accountService.chargePoint(remitterBalance, remitterAccount, remitter);
+        accountService.chargePoint(recipientBalance, recipientAccount, recipient);
+        // 수신 계좌를 스트라이프 계좌로 지정
+        accountService.enableStriping(recipientAccount.getAccountNumber(), 4);
+        // 친구관계 생성
+        FriendRequest friendRequest = FriendRequest.from(remitter, recipient);
+        FriendRequest savedRequest = friendService.requestFriend(friendRequest);
+        friendService.acceptFriendRequest(savedRequest.getId());
+        // 송금
+        AccountDTO.RemitRequest remitRequest = AccountDTO.RemitRequest.builder()
+                .amount(amount)
+                .recipientsAccountNumber(recipientAccount.getAccountNumber())
+                .remitterAccountNumber(remitterAccount.getAccountNumber())
+                .build();
+
+        performAsync(
+                post("/accounts/remit")
+                    .header("Auth", remitterToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(remitRequest)))
+                .andExpect(status().is2xxSuccessful());
+
+        mvc.perform(
+                get("/accounts/" + recipientAccount.getAccountNumber())
+                    .header("Auth", recipientToken))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.balance").value(recipientBalance + amount))
+                .andDo(print());
+    }
+
     @DisplayName("통합테스트 계좌 상세 조회 실패 - 토큰 X")
     @Test
     void get_account_info_fail_without_token() throws Exception {
@@ -855,4 +1145,56 @@ public class AccountControllerTest {
                 .andExpect(jsonPath("$.message").value(ErrorCode.ILLEGAL_ACCOUNT_NUMBER.getDescription()))
                 .andDo(print());
     }
+
+    /**
+     * 충전과 송금은 DeferredResult 로 응답하므로 비동기 처리가 시작됐으면 결과를 다시 디스패치한다.
+     * 검증이나 인증에서 실패한 요청은 비동기 처리가 시작되지 않는다.
+     */
+    private static AccountDTO.RemitRequest remitRequest(Account remitterAccount, String recipientAccountNumber, int amount) {
+        return AccountDTO.RemitRequest.builder()
+                .amount(amount)
+                .recipientsAccountNumber(recipientAccountNumber)
+                .remitterAccountNumber(remitterAccount.getAccountNumber())
+                .build();
+    }
+
+    /**
+     * 두 회원과 계좌를 만들고 영속성 컨텍스트를 비워, 송금이 1차 캐시 없이 실행한 SQL 만 세도록 한다.
+     */
+    private Transaction prepareRemit(boolean friends) {
+        Member remitter = memberService.signUp(MemberFactory.memberFrom("remitter@test.com", "123465789"));
+        Member recipient = memberService.signUp(MemberFactory.memberFrom("recipient@test.com", "123456789"));
+        Account remitterAccount = accountService.createAccount(remitter);
+        Account recipientAccount = accountService.createAccount(recipient);
+        accountService.chargePoint(10000, remitterAccount, remitter);
+        if (friends) {
+            FriendRequest savedRequest = friendService.requestFriend(FriendRequest.from(remitter, recipient));
+            friendService.acceptFriendRequest(savedRequest.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        return Transaction.builder()
+                .amount(500)
+                .remitterAccount(Account.builder().accountNumber(remitterAccount.getAccountNumber()).build())
+                .recipientAccount(Account.builder().accountNumber(recipientAccount.getAccountNumber()).build())
+                .build();
+    }
+
+    private Statistics startCountingStatements() {
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private ResultActions performAsync(MockHttpServletRequestBuilder request) throws Exception {
+        ResultActions resultActions = mvc.perform(request);
+        MvcResult mvcResult = resultActions.andReturn();
+        if (!mvcResult.getRequest().isAsyncStarted()) {
+            return resultActions;
+        }
+        return mvc.perform(asyncDispatch(mvcResult));
+    }
 }
@@ -0,0 +1,37 @@
+package com.jungmini.pay.web;
+
+import com.jungmini.pay.domain.Account;
+import com.jungmini.pay.fixture.AccountFactory;
+import com.jungmini.pay.fixture.MemberFactory;
+import com.jungmini.pay.service.AccountService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AccountStripeEndpointTest {
+
+    @InjectMocks
+    AccountStripeEndpoint accountStripeEndpoint;
+
+    @Mock
+    AccountService accountService;
+
+    @Test
+    @DisplayName("스트라이프 계좌로 지정하고 보조 잔액 수를 돌려준다")
+    void enable_striping() {
+        Account account = AccountFactory.stripedAccountFrom(MemberFactory.member(), "100000000000", 0, 8);
+        when(accountService.enableStriping("100000000000", 8))
+                .thenReturn(account);
+
+        int stripeCount = accountStripeEndpoint.enableStriping("100000000000", 8);
+
+        assertThat(stripeCount).isEqualTo(8);
+    }
+}
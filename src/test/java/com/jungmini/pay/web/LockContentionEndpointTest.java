@@ -0,0 +1,34 @@
+package com.jungmini.pay.web;
+
+import com.jungmini.pay.service.LockMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LockContentionEndpointTest {
+
+    @InjectMocks
+    LockContentionEndpoint lockContentionEndpoint;
+
+    @Mock
+    LockMetrics lockMetrics;
+
+    @Test
+    @DisplayName("경쟁이 심한 계좌 상위 20개를 조회한다")
+    void hot_keys_top_20() {
+        List<LockMetrics.HotKey> hotKeys = List.of(new LockMetrics.HotKey("100000000000", 5));
+        when(lockMetrics.hotKeys(20))
+                .thenReturn(hotKeys);
+
+        assertThat(lockContentionEndpoint.hotKeys()).isEqualTo(hotKeys);
+    }
+}
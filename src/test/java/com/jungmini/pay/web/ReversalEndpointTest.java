@@ -0,0 +1,36 @@
+package com.jungmini.pay.web;
+
+import com.jungmini.pay.service.ReversalReport;
+import com.jungmini.pay.service.TransactionReversalJob;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReversalEndpointTest {
+
+    @InjectMocks
+    ReversalEndpoint reversalEndpoint;
+
+    @Mock
+    TransactionReversalJob transactionReversalJob;
+
+    @Test
+    @DisplayName("요청한 송금을 일괄 취소하고 결과를 돌려준다")
+    void reverse() {
+        ReversalReport report = new ReversalReport(true, 2, 2, Map.of(), 1, 2000);
+        when(transactionReversalJob.reverse(List.of(1L, 2L), true))
+                .thenReturn(report);
+
+        assertThat(reversalEndpoint.reverse("1, 2", true)).isEqualTo(report);
+    }
+}